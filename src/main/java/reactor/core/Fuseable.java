@@ -102,6 +102,19 @@ public interface Fuseable {
 		 */
 		int requestFusion(int requestedMode);
 
+		/**
+		 * Return an estimate of the number of values still to be emitted, for collecting
+		 * operators to pre-size their containers. Sources of known size return it and
+		 * size-preserving operators pass the estimate of their upstream along.
+		 * <p>
+		 * The estimate is only a hint and may be stale once values have been emitted.
+		 *
+		 * @return the estimated number of values still to be emitted, or -1 if unknown
+		 */
+		default long sizeEstimate() {
+			return -1L;
+		}
+
 		@Override
 		default T peek() {
 			throw new UnsupportedOperationException("Operators should not use this method!");
@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2011-2016 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import org.reactivestreams.Publisher;
+
+/**
+ * Rewrite rules applied to each {@link Flux} and {@link Mono} operator as it is
+ * assembled, before the {@link Hooks#onOperator(Function)} hook. As every operator is
+ * assembled on top of an already rewritten upstream, a rule only needs to look at the
+ * new operator and its direct upstream, e.g. through {@link FluxSource#upstream()}.
+ * <p>
+ * The built-in rules remove boundaries made redundant by an identical upstream one:
+ * <ul>
+ *     <li>{@value #PUBLISH_ON_DUPLICATE}: a {@code publishOn} right after a
+ *     {@code publishOn} to the same {@link reactor.core.scheduler.Scheduler} replaces
+ *     it,</li>
+ *     <li>{@value #SUBSCRIBE_ON_NESTED}: a {@code subscribeOn} right after a
+ *     {@code subscribeOn} is dropped, the upstream one deciding where the source is
+ *     subscribed,</li>
+ *     <li>{@value #HIDE_DUPLICATE}: a {@code hide} right after a {@code hide} is
+ *     dropped,</li>
+ *     <li>{@value #DETACH_DUPLICATE}: an {@code onTerminateDetach} right after an
+ *     {@code onTerminateDetach} is dropped.</li>
+ * </ul>
+ * Rules are added, replaced or removed by name through {@link Hooks}.
+ */
+final class AssemblyRules {
+
+	static final String PUBLISH_ON_DUPLICATE = "publishOnDuplicate";
+
+	static final String SUBSCRIBE_ON_NESTED = "subscribeOnNested";
+
+	static final String HIDE_DUPLICATE = "hideDuplicate";
+
+	static final String DETACH_DUPLICATE = "onTerminateDetachDuplicate";
+
+	/** Bound on the rewrites of a single operator, in case rules undo each other */
+	static final int MAX_REWRITES = 16;
+
+	static final Rule[] DEFAULT_RULES = {
+			new Rule(PUBLISH_ON_DUPLICATE, AssemblyRules::publishOnDuplicate),
+			new Rule(SUBSCRIBE_ON_NESTED, AssemblyRules::subscribeOnNested),
+			new Rule(HIDE_DUPLICATE, AssemblyRules::hideDuplicate),
+			new Rule(DETACH_DUPLICATE, AssemblyRules::detachDuplicate)
+	};
+
+	/**
+	 * Apply the current rules to a newly assembled {@link Flux}.
+	 *
+	 * @param source the assembled {@link Flux}
+	 * @param <T> the value type
+	 *
+	 * @return the rewritten {@link Flux}, or the same if no rule applied
+	 */
+	@SuppressWarnings("unchecked")
+	static <T> Flux<T> rewrite(Flux<T> source) {
+		Rule[] rules = Hooks.assemblyRules;
+		if (rules.length == 0) {
+			return source;
+		}
+		return (Flux<T>) rewrite(source, rules, Flux.class);
+	}
+
+	/**
+	 * Apply the current rules to a newly assembled {@link Mono}.
+	 *
+	 * @param source the assembled {@link Mono}
+	 * @param <T> the value type
+	 *
+	 * @return the rewritten {@link Mono}, or the same if no rule applied
+	 */
+	@SuppressWarnings("unchecked")
+	static <T> Mono<T> rewrite(Mono<T> source) {
+		Rule[] rules = Hooks.assemblyRules;
+		if (rules.length == 0) {
+			return source;
+		}
+		return (Mono<T>) rewrite(source, rules, Mono.class);
+	}
+
+	static Publisher<?> rewrite(Publisher<?> source, Rule[] rules, Class<?> kind) {
+		Publisher<?> p = source;
+		int rewrites = 0;
+		for (;;) {
+			Publisher<?> round = p;
+			for (Rule rule : rules) {
+				Publisher<?> q = rule.rewrite.apply(p);
+				if (q != p && q != null) {
+					if (!kind.isInstance(q)) {
+						throw new IllegalStateException("The assembly rule " + rule.name +
+								" rewrote a " + kind.getSimpleName() + " into a " + q.getClass()
+								                                                     .getName());
+					}
+					BiConsumer<String, ? super Publisher<?>> listener = Hooks.onAssemblyRewriteHook;
+					if (listener != null) {
+						listener.accept(rule.name, p);
+					}
+					p = q;
+					if (++rewrites == MAX_REWRITES) {
+						return p;
+					}
+				}
+			}
+			if (p == round) {
+				return p;
+			}
+		}
+	}
+
+	static Rule[] add(Rule[] rules, String name, Function<? super Publisher<?>, ? extends Publisher<?>> rewrite) {
+		Rule rule = new Rule(name, rewrite);
+		for (int i = 0; i < rules.length; i++) {
+			if (rules[i].name.equals(name)) {
+				Rule[] b = rules.clone();
+				b[i] = rule;
+				return b;
+			}
+		}
+		Rule[] b = new Rule[rules.length + 1];
+		System.arraycopy(rules, 0, b, 0, rules.length);
+		b[rules.length] = rule;
+		return b;
+	}
+
+	static Rule[] remove(Rule[] rules, String name) {
+		for (int i = 0; i < rules.length; i++) {
+			if (rules[i].name.equals(name)) {
+				Rule[] b = new Rule[rules.length - 1];
+				System.arraycopy(rules, 0, b, 0, i);
+				System.arraycopy(rules, i + 1, b, i, rules.length - i - 1);
+				return b;
+			}
+		}
+		return rules;
+	}
+
+	static Publisher<?> publishOnDuplicate(Publisher<?> p) {
+		if (p instanceof FluxPublishOn) {
+			FluxPublishOn<?> outer = (FluxPublishOn<?>) p;
+			if (outer.source instanceof FluxPublishOn) {
+				FluxPublishOn<?> inner = (FluxPublishOn<?>) outer.source;
+				if (inner.scheduler == outer.scheduler && inner.delayError == outer.delayError) {
+					return republishOn(outer, inner.source);
+				}
+			}
+		}
+		else if (p instanceof MonoPublishOn) {
+			MonoPublishOn<?> outer = (MonoPublishOn<?>) p;
+			if (outer.source instanceof MonoPublishOn && ((MonoPublishOn<?>) outer.source).scheduler == outer.scheduler) {
+				return (Publisher<?>) outer.source;
+			}
+		}
+		return p;
+	}
+
+	@SuppressWarnings("unchecked")
+	static <T> FluxPublishOn<T> republishOn(FluxPublishOn<T> outer, Publisher<?> source) {
+		return new FluxPublishOn<>((Publisher<? extends T>) source,
+				outer.scheduler,
+				outer.delayError,
+				outer.prefetch,
+				outer.queueSupplier);
+	}
+
+	static Publisher<?> subscribeOnNested(Publisher<?> p) {
+		if (p instanceof FluxSubscribeOn) {
+			Publisher<?> source = ((FluxSubscribeOn<?>) p).source;
+			if (source instanceof FluxSubscribeOn || source instanceof FluxSubscribeOnCallable) {
+				return source;
+			}
+		}
+		else if (p instanceof MonoSubscribeOn) {
+			Publisher<?> source = ((MonoSubscribeOn<?>) p).source;
+			if (source instanceof MonoSubscribeOn || source instanceof MonoSubscribeOnCallable) {
+				return source;
+			}
+		}
+		return p;
+	}
+
+	static Publisher<?> hideDuplicate(Publisher<?> p) {
+		if (p instanceof FluxHide && ((FluxHide<?>) p).source instanceof FluxHide) {
+			return ((FluxHide<?>) p).source;
+		}
+		if (p instanceof MonoHide && ((MonoHide<?>) p).source instanceof MonoHide) {
+			return ((MonoHide<?>) p).source;
+		}
+		return p;
+	}
+
+	static Publisher<?> detachDuplicate(Publisher<?> p) {
+		if (p instanceof FluxDetach && ((FluxDetach<?>) p).source instanceof FluxDetach) {
+			return ((FluxDetach<?>) p).source;
+		}
+		// Mono#onTerminateDetach wraps a FluxDetach in a MonoSource
+		if (isMonoDetach(p) && isMonoDetach(((FluxDetach<?>) ((MonoSource<?, ?>) p).source).source)) {
+			return ((FluxDetach<?>) ((MonoSource<?, ?>) p).source).source;
+		}
+		return p;
+	}
+
+	static boolean isMonoDetach(Publisher<?> p) {
+		return p instanceof MonoSource && ((MonoSource<?, ?>) p).source instanceof FluxDetach;
+	}
+
+	AssemblyRules() {
+	}
+
+	static final class Rule {
+
+		final String name;
+
+		final Function<? super Publisher<?>, ? extends Publisher<?>> rewrite;
+
+		Rule(String name, Function<? super Publisher<?>, ? extends Publisher<?>> rewrite) {
+			this.name = Objects.requireNonNull(name, "name");
+			this.rewrite = Objects.requireNonNull(rewrite, "rewrite");
+		}
+	}
+}
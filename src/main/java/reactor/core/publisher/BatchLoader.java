@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2011-2016 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.reactivestreams.Publisher;
+import reactor.core.Cancellation;
+import reactor.core.scheduler.Schedulers;
+import reactor.core.scheduler.TimedScheduler;
+
+/**
+ * Coalesces the keys looked up by concurrent callers into bulk calls: keys loaded
+ * within {@code maxDelay} of the first key of a batch, or up to {@code maxBatchSize}
+ * distinct keys, are resolved by a single call to the bulk {@link Function}, and each
+ * caller's {@link Mono} completes with the value mapped to its own key.
+ * <p>
+ * A key loaded several times within the same batch is only requested once and all its
+ * callers share the same {@link MonoProcessor}. A key missing from the bulk result
+ * completes its callers empty, and a bulk error fails every caller of the batch.
+ * <pre>
+ * {@code
+ * BatchLoader<Long, User> users = BatchLoader.create(ids -> userService.findAll(ids),
+ *         100, Duration.ofMillis(5));
+ *
+ * Flux.fromIterable(orders)
+ *     .flatMap(order -> users.load(order.getUserId()))
+ * }
+ * </pre>
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public final class BatchLoader<K, V> {
+
+	/**
+	 * Create a {@link BatchLoader} dispatching a batch after {@code maxDelay} or when
+	 * it reached {@code maxBatchSize} distinct keys, whichever comes first.
+	 *
+	 * @param bulkLoader the bulk {@link Function} resolving a batch of keys
+	 * @param maxBatchSize the maximum number of distinct keys per batch
+	 * @param maxDelay the maximum time a key waits for its batch to be dispatched
+	 * @param <K> the key type
+	 * @param <V> the value type
+	 *
+	 * @return a new {@link BatchLoader}
+	 */
+	public static <K, V> BatchLoader<K, V> create(Function<? super List<K>, ? extends Publisher<? extends Map<K, ? extends V>>> bulkLoader,
+			int maxBatchSize,
+			Duration maxDelay) {
+		return createMillis(bulkLoader, maxBatchSize, maxDelay.toMillis(), Schedulers.timer());
+	}
+
+	/**
+	 * Create a {@link BatchLoader} dispatching a batch after {@code maxDelay}
+	 * milliseconds or when it reached {@code maxBatchSize} distinct keys, whichever
+	 * comes first.
+	 *
+	 * @param bulkLoader the bulk {@link Function} resolving a batch of keys
+	 * @param maxBatchSize the maximum number of distinct keys per batch
+	 * @param maxDelay the maximum time in milliseconds a key waits for its batch to be
+	 * dispatched
+	 * @param timer the {@link TimedScheduler} to run the delayed dispatch on
+	 * @param <K> the key type
+	 * @param <V> the value type
+	 *
+	 * @return a new {@link BatchLoader}
+	 */
+	public static <K, V> BatchLoader<K, V> createMillis(Function<? super List<K>, ? extends Publisher<? extends Map<K, ? extends V>>> bulkLoader,
+			int maxBatchSize,
+			long maxDelay,
+			TimedScheduler timer) {
+		return new BatchLoader<>(bulkLoader, maxBatchSize, maxDelay, timer);
+	}
+
+	final Function<? super List<K>, ? extends Publisher<? extends Map<K, ? extends V>>> bulkLoader;
+
+	final int maxBatchSize;
+
+	final long maxDelay;
+
+	final TimedScheduler timer;
+
+	/** The batch being collected, guarded by this */
+	Map<K, MonoProcessor<V>> batch;
+
+	/** The delayed dispatch of the current batch, guarded by this */
+	Cancellation flushTask;
+
+	BatchLoader(Function<? super List<K>, ? extends Publisher<? extends Map<K, ? extends V>>> bulkLoader,
+			int maxBatchSize,
+			long maxDelay,
+			TimedScheduler timer) {
+		if (maxBatchSize <= 0) {
+			throw new IllegalArgumentException("maxBatchSize > 0 required but it was " + maxBatchSize);
+		}
+		if (maxDelay < 0L) {
+			throw new IllegalArgumentException("maxDelay >= 0 required but it was " + maxDelay);
+		}
+		this.bulkLoader = Objects.requireNonNull(bulkLoader, "bulkLoader");
+		this.timer = Objects.requireNonNull(timer, "timer");
+		this.maxBatchSize = maxBatchSize;
+		this.maxDelay = maxDelay;
+	}
+
+	/**
+	 * Return a {@link Mono} of the value mapped to the given key. The key joins the
+	 * current batch when the returned {@link Mono} is subscribed.
+	 *
+	 * @param key the key to load
+	 *
+	 * @return a {@link Mono} of the value, empty if the bulk result has no such key
+	 */
+	public Mono<V> load(K key) {
+		Objects.requireNonNull(key, "key");
+		return Mono.defer(() -> enqueue(key));
+	}
+
+	/**
+	 * Dispatch the current batch, if any, without waiting for its delay or size.
+	 */
+	public void flush() {
+		Map<K, MonoProcessor<V>> b;
+		synchronized (this) {
+			b = takeBatch();
+		}
+		if (b != null) {
+			dispatch(b);
+		}
+	}
+
+	/**
+	 * @return the number of distinct keys in the batch being collected
+	 */
+	public synchronized int pending() {
+		Map<K, MonoProcessor<V>> b = batch;
+		return b != null ? b.size() : 0;
+	}
+
+	Mono<V> enqueue(K key) {
+		MonoProcessor<V> p;
+		Map<K, MonoProcessor<V>> full = null;
+		synchronized (this) {
+			Map<K, MonoProcessor<V>> b = batch;
+			if (b == null) {
+				b = new LinkedHashMap<>();
+				batch = b;
+				if (maxBatchSize > 1) {
+					Map<K, MonoProcessor<V>> scheduled = b;
+					flushTask = timer.schedule(() -> flush(scheduled), maxDelay, TimeUnit.MILLISECONDS);
+				}
+			}
+			p = b.get(key);
+			if (p == null) {
+				p = MonoProcessor.create();
+				b.put(key, p);
+				if (b.size() >= maxBatchSize) {
+					full = takeBatch();
+				}
+			}
+		}
+		if (full != null) {
+			dispatch(full);
+		}
+		return p;
+	}
+
+	void flush(Map<K, MonoProcessor<V>> scheduled) {
+		Map<K, MonoProcessor<V>> b;
+		synchronized (this) {
+			if (batch != scheduled) {
+				return;
+			}
+			b = takeBatch();
+		}
+		dispatch(b);
+	}
+
+	Map<K, MonoProcessor<V>> takeBatch() {
+		Map<K, MonoProcessor<V>> b = batch;
+		batch = null;
+		Cancellation c = flushTask;
+		if (c != null) {
+			flushTask = null;
+			c.dispose();
+		}
+		return b;
+	}
+
+	void dispatch(Map<K, MonoProcessor<V>> b) {
+		Publisher<? extends Map<K, ? extends V>> p;
+		try {
+			p = Objects.requireNonNull(bulkLoader.apply(new ArrayList<>(b.keySet())),
+					"The bulkLoader returned a null Publisher");
+		}
+		catch (Throwable e) {
+			Throwable ex = Operators.onOperatorError(e);
+			for (MonoProcessor<V> mp : b.values()) {
+				mp.onError(ex);
+			}
+			return;
+		}
+
+		Flux.from(p)
+		    .subscribe(m -> {
+			    for (Map.Entry<K, ? extends V> e : m.entrySet()) {
+				    MonoProcessor<V> mp = b.get(e.getKey());
+				    V v = e.getValue();
+				    if (mp != null && v != null && mp.isPending()) {
+					    mp.onNext(v);
+				    }
+			    }
+		    }, e -> {
+			    for (MonoProcessor<V> mp : b.values()) {
+				    if (mp.isPending()) {
+					    mp.onError(e);
+				    }
+			    }
+		    }, () -> {
+			    for (MonoProcessor<V> mp : b.values()) {
+				    if (mp.isPending()) {
+					    mp.onComplete();
+				    }
+			    }
+		    });
+	}
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2011-2016 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.time.Duration;
+
+/**
+ * A concurrency limit adjusted at runtime from the latency and the outcome of the
+ * inner {@link org.reactivestreams.Publisher} of a {@link Flux#flatMap(java.util.function.Function, ConcurrencyLimit)}.
+ * Each inner sequence reports its latency, from subscription to termination, and
+ * whether it failed; the limit is then raised while the samples look healthy and lowered
+ * when they degrade, always staying within {@link #minLimit()} and {@link #maxLimit()}.
+ * <p>
+ * A {@link ConcurrencyLimit} can be shared by several sequences calling the same
+ * backend, in which case they all contribute to and follow the same limit.
+ * <pre>
+ * {@code
+ * ConcurrencyLimit limit = ConcurrencyLimit.aimd(4, 1, 256, Duration.ofMillis(50));
+ *
+ * Flux.fromIterable(requests)
+ *     .flatMap(r -> client.send(r), limit)
+ * }
+ * </pre>
+ */
+public abstract class ConcurrencyLimit {
+
+	/**
+	 * Create an additive-increase/multiplicative-decrease {@link ConcurrencyLimit}: each
+	 * inner sequence completing within {@code latencyThreshold} raises the limit by one
+	 * per current limit of such completions, while an error or a slower completion
+	 * lowers it by 10%.
+	 *
+	 * @param initialLimit the starting limit
+	 * @param minLimit the lowest limit
+	 * @param maxLimit the highest limit
+	 * @param latencyThreshold the latency above which an inner sequence is considered
+	 * as a sign of overload
+	 *
+	 * @return a new AIMD {@link ConcurrencyLimit}
+	 */
+	public static ConcurrencyLimit aimd(int initialLimit,
+			int minLimit,
+			int maxLimit,
+			Duration latencyThreshold) {
+		return new Aimd(initialLimit, minLimit, maxLimit, latencyThreshold.toNanos(), 0.9d);
+	}
+
+	/**
+	 * Create a gradient {@link ConcurrencyLimit}: the limit is scaled by the ratio of the
+	 * lowest latency observed to the latest one, so that it shrinks as soon as latency
+	 * builds up over the no-load latency, plus a headroom of the square root of the limit
+	 * letting it grow while the latency stays flat. An error lowers it by 10%.
+	 *
+	 * @param initialLimit the starting limit
+	 * @param minLimit the lowest limit
+	 * @param maxLimit the highest limit
+	 *
+	 * @return a new gradient {@link ConcurrencyLimit}
+	 */
+	public static ConcurrencyLimit gradient(int initialLimit, int minLimit, int maxLimit) {
+		return new Gradient(initialLimit, minLimit, maxLimit, 0.2d, 0.9d, 1000);
+	}
+
+	final int minLimit;
+
+	final int maxLimit;
+
+	/** The limit estimate, guarded by this */
+	double estimate;
+
+	volatile int limit;
+
+	ConcurrencyLimit(int initialLimit, int minLimit, int maxLimit) {
+		if (minLimit <= 0) {
+			throw new IllegalArgumentException("minLimit > 0 required but it was " + minLimit);
+		}
+		if (maxLimit < minLimit || maxLimit == Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("minLimit <= maxLimit < Integer.MAX_VALUE required but it was " + minLimit + " and " + maxLimit);
+		}
+		if (initialLimit < minLimit || initialLimit > maxLimit) {
+			throw new IllegalArgumentException("minLimit <= initialLimit <= maxLimit required but it was " + initialLimit);
+		}
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.estimate = initialLimit;
+		this.limit = initialLimit;
+	}
+
+	/**
+	 * @return the current concurrency limit
+	 */
+	public final int limit() {
+		return limit;
+	}
+
+	/**
+	 * @return the lowest concurrency limit
+	 */
+	public final int minLimit() {
+		return minLimit;
+	}
+
+	/**
+	 * @return the highest concurrency limit
+	 */
+	public final int maxLimit() {
+		return maxLimit;
+	}
+
+	/**
+	 * Record the termination of an inner sequence.
+	 *
+	 * @param latency the time in nanoseconds between the subscription and the
+	 * termination of the inner sequence
+	 * @param failed whether the inner sequence terminated with an error
+	 */
+	final synchronized void onSample(long latency, boolean failed) {
+		double e = update(estimate, latency, failed);
+		e = Math.max(minLimit, Math.min(maxLimit, e));
+		estimate = e;
+		limit = (int) e;
+	}
+
+	/**
+	 * Compute the next limit estimate from a sample, called under the monitor of this
+	 * limit.
+	 *
+	 * @param estimate the current limit estimate
+	 * @param latency the sample latency in nanoseconds
+	 * @param failed whether the sample is an error
+	 *
+	 * @return the new limit estimate, before being bounded
+	 */
+	abstract double update(double estimate, long latency, boolean failed);
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[limit=" + limit + ", min=" + minLimit + ", max=" + maxLimit + "]";
+	}
+
+	static final class Aimd extends ConcurrencyLimit {
+
+		final long latencyThreshold;
+
+		final double backoffRatio;
+
+		Aimd(int initialLimit, int minLimit, int maxLimit, long latencyThreshold, double backoffRatio) {
+			super(initialLimit, minLimit, maxLimit);
+			if (latencyThreshold <= 0L) {
+				throw new IllegalArgumentException("latencyThreshold > 0 required but it was " + latencyThreshold);
+			}
+			this.latencyThreshold = latencyThreshold;
+			this.backoffRatio = backoffRatio;
+		}
+
+		@Override
+		double update(double estimate, long latency, boolean failed) {
+			if (failed || latency > latencyThreshold) {
+				return estimate * backoffRatio;
+			}
+			return estimate + 1d / estimate;
+		}
+	}
+
+	static final class Gradient extends ConcurrencyLimit {
+
+		final double smoothing;
+
+		final double backoffRatio;
+
+		final int minLatencyWindow;
+
+		/** Lowest latency of the current window, guarded by the limit monitor */
+		long minLatency;
+
+		/** Samples since the lowest latency was last reset, guarded by the limit monitor */
+		int samples;
+
+		Gradient(int initialLimit,
+				int minLimit,
+				int maxLimit,
+				double smoothing,
+				double backoffRatio,
+				int minLatencyWindow) {
+			super(initialLimit, minLimit, maxLimit);
+			this.smoothing = smoothing;
+			this.backoffRatio = backoffRatio;
+			this.minLatencyWindow = minLatencyWindow;
+		}
+
+		@Override
+		double update(double estimate, long latency, boolean failed) {
+			if (failed) {
+				return estimate * backoffRatio;
+			}
+			// forget the lowest latency periodically to follow a lasting backend change
+			if (++samples >= minLatencyWindow) {
+				samples = 0;
+				minLatency = 0L;
+			}
+			latency = Math.max(1L, latency);
+			if (minLatency == 0L || latency < minLatency) {
+				minLatency = latency;
+			}
+			double gradient = Math.max(0.5d, Math.min(1d, (double) minLatency / latency));
+			double target = estimate * gradient + Math.sqrt(estimate);
+			return estimate * (1d - smoothing) + target * smoothing;
+		}
+	}
+}
@@ -34,12 +34,15 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
 import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.LongConsumer;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
 import java.util.logging.Level;
 import java.util.stream.Collector;
 import java.util.stream.Stream;
@@ -792,6 +795,53 @@ public abstract class Flux<T> implements Publisher<T> {
 		return onAssembly(new FluxGenerate<>(stateSupplier, generator, stateConsumer));
 	}
 
+	/**
+	 * Generate signals in batches via a function callback: unlike
+	 * {@link #generate(Callable, BiFunction)}, each call of the generator may call
+	 * {@link SynchronousSink#next} any number of times, e.g. once per record decoded
+	 * from a frame. Values are emitted directly while the {@link Subscriber} has
+	 * outstanding demand, the rest being buffered and emitted before the generator is
+	 * called again. Values generated before a complete or error are all emitted before
+	 * the terminal signal.
+	 * The {@code stateSupplier} may return {@code null}.
+	 *
+	 * @param <T> the value type emitted
+	 * @param <S> the custom state per subscriber
+	 * @param stateSupplier called for each incoming Supplier to provide the initial state for the generator bifunction
+	 * @param generator the bifunction called with the current state, the SynchronousSink API instance and is
+	 * expected to return a (new) state.
+	 * @return a Reactive {@link Flux} publisher ready to be subscribed
+	 */
+	public static <T, S> Flux<T> generateBatch(Callable<S> stateSupplier, BiFunction<S, SynchronousSink<T>, S> generator) {
+		return generateBatch(stateSupplier, generator, s -> {
+		});
+	}
+
+	/**
+	 * Generate signals in batches via a function callback: unlike
+	 * {@link #generate(Callable, BiFunction, Consumer)}, each call of the generator may
+	 * call {@link SynchronousSink#next} any number of times, e.g. once per record decoded
+	 * from a frame. Values are emitted directly while the {@link Subscriber} has
+	 * outstanding demand, the rest being buffered and emitted before the generator is
+	 * called again. Values generated before a complete or error are all emitted before
+	 * the terminal signal.
+	 * The {@code stateSupplier} may return {@code null} but your {@code stateConsumer} should be prepared to
+	 * handle it.
+	 *
+	 * @param <T> the value type emitted
+	 * @param <S> the custom state per subscriber
+	 * @param stateSupplier called for each incoming Supplier to provide the initial state for the generator bifunction
+	 * @param generator the bifunction called with the current state, the SynchronousSink API instance and is
+	 * expected to return a (new) state.
+	 * @param stateConsumer called after the generator has terminated or the downstream cancelled, receiving the last
+	 * state to be handled (i.e., release resources or do other cleanup).
+	 *
+	 * @return a Reactive {@link Flux} publisher ready to be subscribed
+	 */
+	public static <T, S> Flux<T> generateBatch(Callable<S> stateSupplier, BiFunction<S, SynchronousSink<T>, S> generator, Consumer<? super S> stateConsumer) {
+		return onAssembly(new FluxGenerateBatch<>(stateSupplier, generator, stateConsumer));
+	}
+
 	/**
 	 * Create a new {@link Flux} that emits an ever incrementing long starting with 0 every period on
 	 * the global timer. If demand is not produced in time, an onError will be signalled. The {@link Flux} will never
@@ -1044,6 +1094,58 @@ public abstract class Flux<T> implements Publisher<T> {
 		return FluxNever.instance();
 	}
 
+	/**
+	 * Creates a Flux with multi-emission capabilities from a single producer thread
+	 * through the FluxSink API, buffering all signals if the downstream can't keep up.
+	 * <p>
+	 * The {@link FluxSink} is not serialized: its next, error and complete methods must
+	 * be called from one thread at a time, as with a single-threaded listener API.
+	 * Values are emitted directly to the {@link Subscriber} while it has outstanding
+	 * demand and nothing is buffered. Use {@link FluxSink#serialize()} if several threads
+	 * may signal concurrently.
+	 *
+	 * <pre><code>
+	 * Flux.&lt;String&gt;push(emitter -&gt; {
+	 *
+	 *     ActionListener al = e -&gt; {
+	 *         emitter.next(textField.getText());
+	 *     };
+	 *
+	 *     button.addActionListener(al);
+	 *     emitter.setCancellation(() -> {
+	 *         button.removeListener(al);
+	 *     });
+	 * });
+	 * <code></pre>
+	 *
+	 * @param <T> the value type
+	 * @param emitter the consumer that will receive a FluxSink for each individual Subscriber.
+	 * @return a {@link Flux}
+	 */
+	public static <T> Flux<T> push(Consumer<? super FluxSink<T>> emitter) {
+		return push(emitter, OverflowStrategy.BUFFER);
+	}
+
+	/**
+	 * Creates a Flux with multi-emission capabilities from a single producer thread
+	 * through the FluxSink API.
+	 * <p>
+	 * The {@link FluxSink} is not serialized: its next, error and complete methods must
+	 * be called from one thread at a time, as with a single-threaded listener API.
+	 * Values are emitted directly to the {@link Subscriber} while it has outstanding
+	 * demand and nothing is pending. Use {@link FluxSink#serialize()} if several threads
+	 * may signal concurrently.
+	 *
+	 * @param <T> the value type
+	 * @param emitter the consumer that will receive a FluxSink for each individual Subscriber.
+	 * @param backpressure the backpressure mode, see {@link OverflowStrategy} for the
+	 * available backpressure modes
+	 * @return a {@link Flux}
+	 */
+	public static <T> Flux<T> push(Consumer<? super FluxSink<T>> emitter, OverflowStrategy backpressure) {
+		return onAssembly(new FluxCreate<>(emitter, backpressure));
+	}
+
 	/**
 	 * Build a {@link Flux} that will only emit a sequence of incrementing integer from {@code start} to {@code
 	 * start + count} then complete.
@@ -1462,6 +1564,73 @@ public abstract class Flux<T> implements Publisher<T> {
 		                    }));
 	}
 
+	/**
+	 * Aggregate every {@code size} subsequent values of this {@link Flux} into a single
+	 * accumulator and emit the accumulated value once the window is complete. A partial
+	 * last window is emitted on completion.
+	 * <p>
+	 * Unlike {@code window(size).flatMap(w -> w.reduce(initial, accumulator))}, no window
+	 * {@link Flux} is created: a single accumulator is kept per window and requests are
+	 * translated into {@code n * size} upstream.
+	 *
+	 * @param size the number of values per window
+	 * @param initial the supplier of the initial accumulator of each window
+	 * @param accumulator the function folding a value into the window accumulator
+	 * @param <A> the accumulated type
+	 *
+	 * @return a {@link Flux} of the accumulated value of each window
+	 */
+	public final <A> Flux<A> aggregateWindows(int size,
+			Supplier<A> initial,
+			BiFunction<A, ? super T, A> accumulator) {
+		return onAssembly(new FluxAggregateWindow<>(this, size, initial, accumulator));
+	}
+
+	/**
+	 * Aggregate the values of this {@link Flux} received during each {@code timespan}
+	 * into a single accumulator and emit the accumulated value when the period ends. A
+	 * period without value emits a fresh initial accumulator, and a non-empty last
+	 * period is emitted on completion.
+	 * <p>
+	 * Unlike {@code window(timespan).flatMap(w -> w.reduce(initial, accumulator))}, no
+	 * window {@link Flux} nor queue is created per period. The source is requested
+	 * unbounded and the downstream is signalled an {@link IllegalStateException} if it
+	 * does not request in time for a period.
+	 *
+	 * @param timespan the duration of each window
+	 * @param initial the supplier of the initial accumulator of each window
+	 * @param accumulator the function folding a value into the window accumulator
+	 * @param <A> the accumulated type
+	 *
+	 * @return a {@link Flux} of the accumulated value of each window
+	 */
+	public final <A> Flux<A> aggregateWindows(Duration timespan,
+			Supplier<A> initial,
+			BiFunction<A, ? super T, A> accumulator) {
+		return aggregateWindowsMillis(timespan.toMillis(), initial, accumulator, Schedulers.timer());
+	}
+
+	/**
+	 * Aggregate the values of this {@link Flux} received during each {@code timespan}
+	 * into a single accumulator and emit the accumulated value when the period ends. A
+	 * period without value emits a fresh initial accumulator, and a non-empty last
+	 * period is emitted on completion.
+	 *
+	 * @param timespan the duration of each window in milliseconds
+	 * @param initial the supplier of the initial accumulator of each window
+	 * @param accumulator the function folding a value into the window accumulator
+	 * @param timer the {@link TimedScheduler} to run on
+	 * @param <A> the accumulated type
+	 *
+	 * @return a {@link Flux} of the accumulated value of each window
+	 */
+	public final <A> Flux<A> aggregateWindowsMillis(long timespan,
+			Supplier<A> initial,
+			BiFunction<A, ? super T, A> accumulator,
+			TimedScheduler timer) {
+		return onAssembly(new FluxAggregateWindowTimed<>(this, timespan, timer, initial, accumulator));
+	}
+
 	/**
 	 *
 	 * Emit a single boolean true if all values of this sequence match
@@ -1600,6 +1769,25 @@ public abstract class Flux<T> implements Publisher<T> {
 		return subscriber.blockingGet(timeout, TimeUnit.MILLISECONDS);
 	}
 
+	/**
+	 * Emit the {@code k} smallest values of this {@link Flux} according to the given
+	 * {@link Comparator}, smallest first, once it completes.
+	 * <p>
+	 * Unlike {@code collectSortedList(comparator)} followed by a {@code take(k)}, only
+	 * the {@code k} smallest values seen so far are retained, in a bounded binary heap
+	 * costing {@code O(log k)} per value.
+	 *
+	 * @param k the number of values to emit
+	 * @param comparator the {@link Comparator} ordering the values
+	 *
+	 * @return a {@link Flux} of at most {@code k} values, smallest first
+	 * @see #topK(int, Comparator)
+	 */
+	public final Flux<T> bottomK(int k, Comparator<? super T> comparator) {
+		Objects.requireNonNull(comparator, "comparator");
+		return topK(k, Collections.reverseOrder(comparator));
+	}
+
 	/**
 	 * Collect incoming values into a {@link List} that will be pushed into the returned {@link Mono} on complete only.
 	 * <p>
@@ -2208,6 +2396,10 @@ public abstract class Flux<T> implements Publisher<T> {
 				return list;
 			}));
 		}
+		Mono<List<T>> sized = sizedCollectList(this);
+		if (sized != null) {
+			return sized;
+		}
 		return Mono.onAssembly(new MonoCollectList<>(this, listSupplier()));
 	}
 
@@ -2247,7 +2439,7 @@ public abstract class Flux<T> implements Publisher<T> {
 	 */
 	public final <K, V> Mono<Map<K, V>> collectMap(Function<? super T, ? extends K> keyExtractor,
 			Function<? super T, ? extends V> valueExtractor) {
-		return collectMap(keyExtractor, valueExtractor, () -> new HashMap<>());
+		return collectMap(keyExtractor, valueExtractor, hashMapSupplier());
 	}
 
 	/**
@@ -2592,9 +2784,59 @@ public abstract class Flux<T> implements Publisher<T> {
 	 * @return a new {@link Mono} of {@link Long} count
 	 */
 	public final Mono<Long> count() {
+		Mono<Long> sized = sizedCount(this);
+		if (sized != null) {
+			return sized;
+		}
 		return Mono.onAssembly(new MonoCount<>(this));
 	}
 
+	/**
+	 * Estimate the number of distinct values in this {@link Flux} with a HyperLogLog
+	 * sketch, emitted when onComplete is observed.
+	 * <p>
+	 * Unlike {@code distinct().count()}, the values are not retained: the sketch takes 16
+	 * KB whatever the number of values, for a standard error of about 0.8%. Values are
+	 * told apart by their {@link Object#hashCode()}.
+	 *
+	 * @return a new {@link Mono} of the estimated distinct count
+	 */
+	public final Mono<Long> countDistinctApprox() {
+		return countDistinctApprox(HyperLogLog.DEFAULT_PRECISION);
+	}
+
+	/**
+	 * Estimate the number of distinct values in this {@link Flux} with a HyperLogLog
+	 * sketch of {@code 2^precision} registers, emitted when onComplete is observed. The
+	 * standard error is about {@code 1.04 / sqrt(2^precision)}.
+	 *
+	 * @param precision the number of bits addressing the registers, between 4 and 18
+	 *
+	 * @return a new {@link Mono} of the estimated distinct count
+	 */
+	public final Mono<Long> countDistinctApprox(int precision) {
+		HyperLogLog.validate(precision);
+		return collect(() -> new HyperLogLog(precision), HyperLogLog::add)
+				.map(HyperLogLog::estimate);
+	}
+
+	/**
+	 * Estimate the number of distinct values of this {@link Flux} received during each
+	 * {@code timespan} with a HyperLogLog sketch per window, emitting each estimate when
+	 * the window closes.
+	 *
+	 * @param timespan the duration of each window
+	 *
+	 * @return a {@link Flux} of the estimated distinct count of each window
+	 * @see #countDistinctApprox()
+	 */
+	public final Flux<Long> countDistinctApproxWindows(Duration timespan) {
+		return aggregateWindows(timespan,
+				() -> new HyperLogLog(HyperLogLog.DEFAULT_PRECISION),
+				HyperLogLog::add)
+				.map(HyperLogLog::estimate);
+	}
+
 	/**
 	 * Provide a default unique value if this sequence is completed without any data
 	 * <p>
@@ -2750,8 +2992,11 @@ public abstract class Flux<T> implements Publisher<T> {
 	 * @return a filtering {@link Flux} with unique values
 	 */
 	public final Flux<T> distinct() {
-		return onAssembly(new FluxDistinct<>(this, hashcodeSupplier(), hashSetSupplier
-				()));
+		return onAssembly(new FluxDistinct<>(this,
+				hashcodeSupplier(),
+				hashSetSupplier(),
+				Set::add,
+				Set::clear));
 	}
 
 	/**
@@ -2768,11 +3013,141 @@ public abstract class Flux<T> implements Publisher<T> {
 	 * @return a filtering {@link Flux} with values having distinct keys
 	 */
 	public final <V> Flux<T> distinct(Function<? super T, ? extends V> keySelector) {
+		return distinct(keySelector, hashSetSupplier());
+	}
+
+	/**
+	 * For each {@link Subscriber}, tracks the last {@code maxKeys} distinct keys extracted
+	 * from this {@link Flux} values and filters out duplicates. When the window is full,
+	 * the least recently seen key is forgotten, so that a value can be emitted again once
+	 * its key has not been seen for {@code maxKeys} distinct keys.
+	 *
+	 * <p>
+	 * <img class="marble" src="https://raw.githubusercontent.com/reactor/projectreactor.io/master/src/main/static/assets/img/marble/distinctk.png" alt="">
+	 *
+	 * @param keySelector function to compute comparison key for each element
+	 * @param maxKeys the maximum number of keys to remember
+	 *
+	 * @param <V> the type of the key extracted from each value in this sequence
+	 *
+	 * @return a filtering {@link Flux} with values having distinct keys within the key window
+	 */
+	public final <V> Flux<T> distinct(Function<? super T, ? extends V> keySelector, int maxKeys) {
+		if (maxKeys <= 0) {
+			throw new IllegalArgumentException("maxKeys > 0 required but it was " + maxKeys);
+		}
+		return distinct(keySelector, () -> new FluxDistinct.LruKeySet<V>(maxKeys));
+	}
+
+	/**
+	 * For each {@link Subscriber}, tracks the keys extracted from this {@link Flux} values
+	 * for the given duration after they have first been seen and filters out duplicates.
+	 *
+	 * <p>
+	 * <img class="marble" src="https://raw.githubusercontent.com/reactor/projectreactor.io/master/src/main/static/assets/img/marble/distinctk.png" alt="">
+	 *
+	 * @param keySelector function to compute comparison key for each element
+	 * @param keyTtl the duration for which a key is remembered
+	 *
+	 * @param <V> the type of the key extracted from each value in this sequence
+	 *
+	 * @return a filtering {@link Flux} with values having distinct keys within the given duration
+	 */
+	public final <V> Flux<T> distinct(Function<? super T, ? extends V> keySelector, Duration keyTtl) {
+		return distinctMillis(keySelector, keyTtl.toMillis(), Schedulers.timer());
+	}
+
+	/**
+	 * For each {@link Subscriber}, approximately tracks the keys extracted from this
+	 * {@link Flux} values in constant memory with Bloom filters and filters out duplicates.
+	 * <p>
+	 * The filters are sized to remember {@code expectedKeys} keys with the given false
+	 * positive rate; older keys are progressively forgotten. A false positive drops a
+	 * value whose key has not actually been seen, so this is only fit for sequences
+	 * where occasionally missing a value is acceptable.
+	 *
+	 * <p>
+	 * <img class="marble" src="https://raw.githubusercontent.com/reactor/projectreactor.io/master/src/main/static/assets/img/marble/distinctk.png" alt="">
+	 *
+	 * @param keySelector function to compute comparison key for each element
+	 * @param expectedKeys the number of recent distinct keys to remember
+	 * @param falsePositiveRate the probability, between 0 and 1 exclusive, to wrongly
+	 * consider a new key as already seen
+	 *
+	 * @param <V> the type of the key extracted from each value in this sequence
+	 *
+	 * @return a filtering {@link Flux} with values having (approximately) distinct keys
+	 */
+	public final <V> Flux<T> distinct(Function<? super T, ? extends V> keySelector,
+			int expectedKeys, double falsePositiveRate) {
+		if (expectedKeys <= 0) {
+			throw new IllegalArgumentException("expectedKeys > 0 required but it was " + expectedKeys);
+		}
+		if (!(falsePositiveRate > 0d && falsePositiveRate < 1d)) {
+			throw new IllegalArgumentException("0 < falsePositiveRate < 1 required but it was " + falsePositiveRate);
+		}
+		return distinct(keySelector,
+				() -> new FluxDistinct.BloomKeyFilter<V>(expectedKeys, falsePositiveRate),
+				FluxDistinct.BloomKeyFilter::add,
+				FluxDistinct.BloomKeyFilter::clear);
+	}
+
+	/**
+	 * For each {@link Subscriber}, tracks this {@link Flux} values that have been seen and
+	 * filters out duplicates given the extracted primitive {@code long} key. Keys are
+	 * recorded in an open-addressing set and never boxed.
+	 *
+	 * <p>
+	 * <img class="marble" src="https://raw.githubusercontent.com/reactor/projectreactor.io/master/src/main/static/assets/img/marble/distinctk.png" alt="">
+	 *
+	 * @param keySelector function to compute the {@code long} comparison key for each element
+	 *
+	 * @return a filtering {@link Flux} with values having distinct keys
+	 */
+	public final Flux<T> distinctLong(ToLongFunction<? super T> keySelector) {
+		return onAssembly(new FluxDistinctLong<>(this, keySelector));
+	}
+
+	/**
+	 * For each {@link Subscriber}, tracks the keys extracted from this {@link Flux} values
+	 * for the given time after they have first been seen, as measured by the given
+	 * {@link TimedScheduler}, and filters out duplicates.
+	 *
+	 * <p>
+	 * <img class="marble" src="https://raw.githubusercontent.com/reactor/projectreactor.io/master/src/main/static/assets/img/marble/distinctk.png" alt="">
+	 *
+	 * @param keySelector function to compute comparison key for each element
+	 * @param keyTtl the time in milliseconds for which a key is remembered
+	 * @param timer the {@link TimedScheduler} giving the current time
+	 *
+	 * @param <V> the type of the key extracted from each value in this sequence
+	 *
+	 * @return a filtering {@link Flux} with values having distinct keys within the given time
+	 */
+	public final <V> Flux<T> distinctMillis(Function<? super T, ? extends V> keySelector,
+			long keyTtl, TimedScheduler timer) {
+		if (keyTtl <= 0L) {
+			throw new IllegalArgumentException("keyTtl > 0 required but it was " + keyTtl);
+		}
+		Objects.requireNonNull(timer, "timer");
+		return distinct(keySelector, () -> new FluxDistinct.ExpiringKeySet<V>(keyTtl, timer));
+	}
+
+	final <V, C extends Collection<? super V>> Flux<T> distinct(Function<? super T, ? extends V> keySelector,
+			Supplier<C> keyStoreSupplier) {
+		return distinct(keySelector, keyStoreSupplier, Collection::add, Collection::clear);
+	}
+
+	final <V, C> Flux<T> distinct(Function<? super T, ? extends V> keySelector,
+			Supplier<C> keyStoreSupplier,
+			BiPredicate<C, V> distinctPredicate,
+			Consumer<C> cleanupCallback) {
 		if (this instanceof Fuseable) {
 			return onAssembly(new FluxDistinctFuseable<>(this, keySelector,
-					hashSetSupplier()));
+					keyStoreSupplier, distinctPredicate, cleanupCallback));
 		}
-		return onAssembly(new FluxDistinct<>(this, keySelector, hashSetSupplier()));
+		return onAssembly(new FluxDistinct<>(this, keySelector, keyStoreSupplier,
+				distinctPredicate, cleanupCallback));
 	}
 
 	/**
@@ -3009,6 +3384,10 @@ public abstract class Flux<T> implements Publisher<T> {
 	 * @return a {@link Mono} of the item at a specified index
 	 */
 	public final Mono<T> elementAt(int index) {
+		Mono<T> sized = sizedElementAt(this, index, null);
+		if (sized != null) {
+			return sized;
+		}
 		return Mono.onAssembly(new MonoElementAt<>(this, index));
 	}
 
@@ -3025,9 +3404,95 @@ public abstract class Flux<T> implements Publisher<T> {
 	 * @return a {@link Mono} of the item at a specified index or a default value
 	 */
 	public final Mono<T> elementAt(int index, T defaultValue) {
+		Mono<T> sized = sizedElementAt(this, index, defaultValue);
+		if (sized != null) {
+			return sized;
+		}
 		return Mono.onAssembly(new MonoElementAt<>(this, index, defaultValue));
 	}
 
+	/**
+	 * Recursively expand each emitted value into a {@link Publisher} of further values,
+	 * emitting them level by level (breadth-first): the values of the source first,
+	 * then the values of all the {@link Publisher} they expanded into, and so on until
+	 * no expansion produces any value.
+	 * <p>
+	 * The {@link Publisher} yet to be subscribed are queued by the operator and
+	 * subscribed one at a time, keeping the stack depth constant whatever the depth of
+	 * the expansion. Use {@link #take(long)} or an empty expansion to stop an infinite
+	 * recursion.
+	 *
+	 * @param expander the {@link Function} expanding each value into a {@link Publisher}
+	 *
+	 * @return a breadth-first expanded {@link Flux}
+	 * @see #expandDeep(Function)
+	 */
+	public final Flux<T> expand(Function<? super T, ? extends Publisher<? extends T>> expander) {
+		return expand(expander, QueueSupplier.SMALL_BUFFER_SIZE);
+	}
+
+	/**
+	 * Recursively expand each emitted value into a {@link Publisher} of further values,
+	 * emitting them level by level (breadth-first): the values of the source first,
+	 * then the values of all the {@link Publisher} they expanded into, and so on until
+	 * no expansion produces any value.
+	 * <p>
+	 * The {@link Publisher} yet to be subscribed are queued by the operator and
+	 * subscribed one at a time, keeping the stack depth constant whatever the depth of
+	 * the expansion. Use {@link #take(long)} or an empty expansion to stop an infinite
+	 * recursion.
+	 *
+	 * @param expander the {@link Function} expanding each value into a {@link Publisher}
+	 * @param capacityHint the initial capacity of the queue of pending {@link Publisher}
+	 *
+	 * @return a breadth-first expanded {@link Flux}
+	 * @see #expandDeep(Function, int)
+	 */
+	public final Flux<T> expand(Function<? super T, ? extends Publisher<? extends T>> expander,
+			int capacityHint) {
+		return onAssembly(new FluxExpand<>(this, expander, true, capacityHint));
+	}
+
+	/**
+	 * Recursively expand each emitted value into a {@link Publisher} of further values,
+	 * emitting them branch by branch (depth-first): each value is immediately followed
+	 * by the values of the {@link Publisher} it expanded into, recursively, before the
+	 * next value of the same level.
+	 * <p>
+	 * The ancestors of the {@link Publisher} being consumed are kept on a stack by the
+	 * operator, and each level is requested one value at a time, keeping the stack
+	 * depth constant whatever the depth of the expansion.
+	 *
+	 * @param expander the {@link Function} expanding each value into a {@link Publisher}
+	 *
+	 * @return a depth-first expanded {@link Flux}
+	 * @see #expand(Function)
+	 */
+	public final Flux<T> expandDeep(Function<? super T, ? extends Publisher<? extends T>> expander) {
+		return expandDeep(expander, QueueSupplier.SMALL_BUFFER_SIZE);
+	}
+
+	/**
+	 * Recursively expand each emitted value into a {@link Publisher} of further values,
+	 * emitting them branch by branch (depth-first): each value is immediately followed
+	 * by the values of the {@link Publisher} it expanded into, recursively, before the
+	 * next value of the same level.
+	 * <p>
+	 * The ancestors of the {@link Publisher} being consumed are kept on a stack by the
+	 * operator, and each level is requested one value at a time, keeping the stack
+	 * depth constant whatever the depth of the expansion.
+	 *
+	 * @param expander the {@link Function} expanding each value into a {@link Publisher}
+	 * @param capacityHint the initial capacity of the stack of pending {@link Publisher}
+	 *
+	 * @return a depth-first expanded {@link Flux}
+	 * @see #expand(Function, int)
+	 */
+	public final Flux<T> expandDeep(Function<? super T, ? extends Publisher<? extends T>> expander,
+			int capacityHint) {
+		return onAssembly(new FluxExpand<>(this, expander, false, capacityHint));
+	}
+
 	/**
 	 * Evaluate each accepted value against the given {@link Predicate}. If the predicate test succeeds, the value is
 	 * passed into the new {@link Flux}. If the predicate test fails, the value is ignored and a request of 1 is
@@ -3041,6 +3506,10 @@ public abstract class Flux<T> implements Publisher<T> {
 	 * @return a new {@link Flux} containing only values that pass the predicate test
 	 */
 	public final Flux<T> filter(Predicate<? super T> p) {
+		Flux<T> fused = fuseFilter(this, p);
+		if (fused != null) {
+			return onAssembly(fused);
+		}
 		if (this instanceof Fuseable) {
 			return onAssembly(new FluxFilterFuseable<>(this, p));
 		}
@@ -3160,6 +3629,62 @@ public abstract class Flux<T> implements Publisher<T> {
 		));
 	}
 
+	/**
+	 * Transform the items emitted by this {@link Flux} into Publishers, then flatten the emissions from those by
+	 * merging them into a single {@link Flux}, so that they may interleave. The number of merged {@link Publisher}
+	 * running in parallel follows the given {@link ConcurrencyLimit}, which adapts to the latency and errors of the
+	 * inner {@link Publisher} as they terminate.
+	 *
+	 * <p>
+	 * <img class="marble" src="https://raw.githubusercontent.com/reactor/projectreactor.io/master/src/main/static/assets/img/marble/flatmapc.png" alt="">
+	 *
+	 * @param mapper the {@link Function} to transform input sequence into N sequences {@link Publisher}
+	 * @param concurrencyLimit the adaptive limit of in-flight elements from this {@link Flux} sequence
+	 * @param <V> the merged output sequence type
+	 *
+	 * @return a merged {@link Flux}
+	 *
+	 * @see ConcurrencyLimit#aimd
+	 * @see ConcurrencyLimit#gradient
+	 */
+	public final <V> Flux<V> flatMap(Function<? super T, ? extends Publisher<? extends V>> mapper,
+			ConcurrencyLimit concurrencyLimit) {
+		return flatMap(mapper, concurrencyLimit, QueueSupplier.XS_BUFFER_SIZE);
+	}
+
+	/**
+	 * Transform the items emitted by this {@link Flux} into Publishers, then flatten the emissions from those by
+	 * merging them into a single {@link Flux}, so that they may interleave. The number of merged {@link Publisher}
+	 * running in parallel follows the given {@link ConcurrencyLimit}, which adapts to the latency and errors of the
+	 * inner {@link Publisher} as they terminate. The prefetch argument allows to give an arbitrary prefetch size to
+	 * the merged {@link Publisher}.
+	 *
+	 * <p>
+	 * <img class="marble" src="https://raw.githubusercontent.com/reactor/projectreactor.io/master/src/main/static/assets/img/marble/flatmapc.png" alt="">
+	 *
+	 * @param mapper the {@link Function} to transform input sequence into N sequences {@link Publisher}
+	 * @param concurrencyLimit the adaptive limit of in-flight elements from this {@link Flux} sequence
+	 * @param prefetch the maximum in-flight elements from each inner {@link Publisher} sequence
+	 * @param <V> the merged output sequence type
+	 *
+	 * @return a merged {@link Flux}
+	 *
+	 * @see ConcurrencyLimit#aimd
+	 * @see ConcurrencyLimit#gradient
+	 */
+	public final <V> Flux<V> flatMap(Function<? super T, ? extends Publisher<? extends V>> mapper,
+			ConcurrencyLimit concurrencyLimit, int prefetch) {
+		return onAssembly(new FluxFlatMap<>(
+				this,
+				mapper,
+				false,
+				concurrencyLimit,
+				QueueSupplier.get(concurrencyLimit.maxLimit()),
+				prefetch,
+				QueueSupplier.get(prefetch)
+		));
+	}
+
 	/**
 	 * Transform the signals emitted by this {@link Flux} into Publishers, then flatten the emissions from those by
 	 * merging them into a single {@link Flux}, so that they may interleave.
@@ -3273,27 +3798,159 @@ public abstract class Flux<T> implements Publisher<T> {
 	}
 
 	/**
-	 * Returns a {@link Flux} that correlates two Publishers when they overlap in time
-	 * and groups the results.
-	 * <p>
-	 * There are no guarantees in what order the items get combined when multiple items from
-	 * one or both source Publishers overlap.
-	 * <p> Unlike {@link Flux#join}, items from the right Publisher will be streamed
-	 * into the right resultSelector argument {@link Flux}.
+	 * Re-route this sequence into dynamically created {@link Flux} for each unique key evaluated by the given
+	 * key mapper, keeping at most {@code maxGroups} groups alive at any time. When a new key would exceed
+	 * that limit, the least recently used group is completed and forgotten, a later value with the same key
+	 * opening a new group.
 	 *
 	 * <p>
-	 * <img class="marble" src="https://raw.githubusercontent.com/reactor/projectreactor.io/master/src/main/static/assets/img/marble/groupjoin.png" alt="">
+	 * <img class="marble" src="https://raw.githubusercontent.com/reactor/projectreactor.io/master/src/main/static/assets/img/marble/groupby.png" alt="">
 	 *
-	 * @param other the other Publisher to correlate items from the source Publisher with
-	 * @param leftEnd a function that returns a Publisher whose emissions indicate the
-	 * duration of the values of the source Publisher
-	 * @param rightEnd a function that returns a Publisher whose emissions indicate the
-	 * duration of the values of the {@code right} Publisher
-	 * @param resultSelector a function that takes an item emitted by each Publisher and returns the
-	 * value to be emitted by the resulting Publisher
-	 * @param <TRight> the type of the right Publisher
-	 * @param <TLeftEnd> this {@link Flux} timeout type
-	 * @param <TRightEnd> the right Publisher timeout type
+	 * @param keyMapper the key mapping function that evaluates an incoming data and returns a key.
+	 * @param valueMapper the value mapping function that evaluates which data to extract for re-routing.
+	 * @param maxGroups the maximum number of groups alive at the same time
+	 * @param onEvicted the callback invoked with the key of each evicted group, can be null
+	 *
+	 * @param <K> the key type extracted from each value of this sequence
+	 * @param <V> the value type extracted from each value of this sequence
+	 *
+	 * @return a {@link Flux} of {@link GroupedFlux} grouped sequences
+	 */
+	public final <K, V> Flux<GroupedFlux<K, V>> groupBy(Function<? super T, ? extends K> keyMapper,
+			Function<? super T, ? extends V> valueMapper,
+			int maxGroups,
+			Consumer<? super K> onEvicted) {
+		return onAssembly(new FluxGroupBy<>(this, keyMapper, valueMapper,
+				QueueSupplier.small(),
+				QueueSupplier.unbounded(), QueueSupplier.SMALL_BUFFER_SIZE,
+				maxGroups, -1L, null, onEvicted));
+	}
+
+	/**
+	 * Re-route this sequence into dynamically created {@link Flux} for each unique key evaluated by the given
+	 * key mapper, keeping at most {@code maxGroups} groups alive at any time and completing the groups that
+	 * have not received any value for the given idle time. Evicted groups are forgotten, a later value with
+	 * the same key opening a new group.
+	 *
+	 * <p>
+	 * <img class="marble" src="https://raw.githubusercontent.com/reactor/projectreactor.io/master/src/main/static/assets/img/marble/groupby.png" alt="">
+	 *
+	 * @param keyMapper the key mapping function that evaluates an incoming data and returns a key.
+	 * @param valueMapper the value mapping function that evaluates which data to extract for re-routing.
+	 * @param maxGroups the maximum number of groups alive at the same time, {@link Integer#MAX_VALUE} for unbounded
+	 * @param maxIdleTime the duration after which a group without new value is completed
+	 * @param onEvicted the callback invoked with the key of each evicted group, can be null
+	 *
+	 * @param <K> the key type extracted from each value of this sequence
+	 * @param <V> the value type extracted from each value of this sequence
+	 *
+	 * @return a {@link Flux} of {@link GroupedFlux} grouped sequences
+	 */
+	public final <K, V> Flux<GroupedFlux<K, V>> groupBy(Function<? super T, ? extends K> keyMapper,
+			Function<? super T, ? extends V> valueMapper,
+			int maxGroups,
+			Duration maxIdleTime,
+			Consumer<? super K> onEvicted) {
+		return groupByMillis(keyMapper, valueMapper, maxGroups, maxIdleTime.toMillis(),
+				onEvicted, Schedulers.timer());
+	}
+
+	/**
+	 * Re-route this sequence into dynamically created {@link Flux} for each unique primitive {@code long} key
+	 * evaluated by the given key mapper. Groups are looked up without boxing the key of each value.
+	 *
+	 * <p>
+	 * <img class="marble" src="https://raw.githubusercontent.com/reactor/projectreactor.io/master/src/main/static/assets/img/marble/groupby.png" alt="">
+	 *
+	 * @param keyMapper the key mapping function that evaluates an incoming data and returns a {@code long} key.
+	 *
+	 * @return a {@link Flux} of {@link GroupedFlux} grouped sequences
+	 */
+	public final Flux<GroupedFlux<Long, T>> groupByLong(ToLongFunction<? super T> keyMapper) {
+		return groupByLong(keyMapper, identityFunction());
+	}
+
+	/**
+	 * Re-route this sequence into dynamically created {@link Flux} for each unique primitive {@code long} key
+	 * evaluated by the given key mapper. It will use the given value mapper to extract the element to route.
+	 * Groups are looked up without boxing the key of each value.
+	 *
+	 * <p>
+	 * <img class="marble" src="https://raw.githubusercontent.com/reactor/projectreactor.io/master/src/main/static/assets/img/marble/groupby.png" alt="">
+	 *
+	 * @param keyMapper the key mapping function that evaluates an incoming data and returns a {@code long} key.
+	 * @param valueMapper the value mapping function that evaluates which data to extract for re-routing.
+	 *
+	 * @param <V> the value type extracted from each value of this sequence
+	 *
+	 * @return a {@link Flux} of {@link GroupedFlux} grouped sequences
+	 */
+	public final <V> Flux<GroupedFlux<Long, V>> groupByLong(ToLongFunction<? super T> keyMapper,
+			Function<? super T, ? extends V> valueMapper) {
+		return onAssembly(new FluxGroupBy<T, Long, V>(this, keyMapper, valueMapper,
+				QueueSupplier.small(),
+				QueueSupplier.unbounded(), QueueSupplier.SMALL_BUFFER_SIZE));
+	}
+
+	/**
+	 * Re-route this sequence into dynamically created {@link Flux} for each unique key evaluated by the given
+	 * key mapper, keeping at most {@code maxGroups} groups alive at any time and completing the groups that
+	 * have not received any value for the given idle time, as measured and checked by the given
+	 * {@link TimedScheduler}. Evicted groups are forgotten, a later value with the same key opening a new
+	 * group.
+	 *
+	 * <p>
+	 * <img class="marble" src="https://raw.githubusercontent.com/reactor/projectreactor.io/master/src/main/static/assets/img/marble/groupby.png" alt="">
+	 *
+	 * @param keyMapper the key mapping function that evaluates an incoming data and returns a key.
+	 * @param valueMapper the value mapping function that evaluates which data to extract for re-routing.
+	 * @param maxGroups the maximum number of groups alive at the same time, {@link Integer#MAX_VALUE} for unbounded
+	 * @param maxIdleMillis the time in milliseconds after which a group without new value is completed
+	 * @param onEvicted the callback invoked with the key of each evicted group, can be null
+	 * @param timer the {@link TimedScheduler} to check for idle groups on
+	 *
+	 * @param <K> the key type extracted from each value of this sequence
+	 * @param <V> the value type extracted from each value of this sequence
+	 *
+	 * @return a {@link Flux} of {@link GroupedFlux} grouped sequences
+	 */
+	public final <K, V> Flux<GroupedFlux<K, V>> groupByMillis(Function<? super T, ? extends K> keyMapper,
+			Function<? super T, ? extends V> valueMapper,
+			int maxGroups,
+			long maxIdleMillis,
+			Consumer<? super K> onEvicted,
+			TimedScheduler timer) {
+		if (maxIdleMillis <= 0L) {
+			throw new IllegalArgumentException("maxIdleMillis > 0 required but it was " + maxIdleMillis);
+		}
+		return onAssembly(new FluxGroupBy<>(this, keyMapper, valueMapper,
+				QueueSupplier.small(),
+				QueueSupplier.unbounded(), QueueSupplier.SMALL_BUFFER_SIZE,
+				maxGroups, maxIdleMillis, timer, onEvicted));
+	}
+
+	/**
+	 * Returns a {@link Flux} that correlates two Publishers when they overlap in time
+	 * and groups the results.
+	 * <p>
+	 * There are no guarantees in what order the items get combined when multiple items from
+	 * one or both source Publishers overlap.
+	 * <p> Unlike {@link Flux#join}, items from the right Publisher will be streamed
+	 * into the right resultSelector argument {@link Flux}.
+	 *
+	 * <p>
+	 * <img class="marble" src="https://raw.githubusercontent.com/reactor/projectreactor.io/master/src/main/static/assets/img/marble/groupjoin.png" alt="">
+	 *
+	 * @param other the other Publisher to correlate items from the source Publisher with
+	 * @param leftEnd a function that returns a Publisher whose emissions indicate the
+	 * duration of the values of the source Publisher
+	 * @param rightEnd a function that returns a Publisher whose emissions indicate the
+	 * duration of the values of the {@code right} Publisher
+	 * @param resultSelector a function that takes an item emitted by each Publisher and returns the
+	 * value to be emitted by the resulting Publisher
+	 * @param <TRight> the type of the right Publisher
+	 * @param <TLeftEnd> this {@link Flux} timeout type
+	 * @param <TRightEnd> the right Publisher timeout type
 	 * @param <R> the combined result type
 	 *
 	 * @return a joining {@link Flux}
@@ -3370,7 +4027,7 @@ public abstract class Flux<T> implements Publisher<T> {
 	 * @return a new {@link Flux} defeating any {@link Publisher} / {@link Subscription} feature-detection
 	 */
 	public final Flux<T> hide() {
-		return new FluxHide<>(this);
+		return onAssembly(new FluxHide<>(this));
 	}
 
 	/**
@@ -3436,6 +4093,10 @@ public abstract class Flux<T> implements Publisher<T> {
 		    Callable<T> thiz = (Callable<T>)this;
 	        return convertToMono(thiz);
 	    }
+		Mono<T> sized = sizedLast(this, null);
+		if (sized != null) {
+			return sized;
+		}
 		return Mono.onAssembly(new MonoTakeLastOne<>(this));
 	}
 
@@ -3455,6 +4116,10 @@ public abstract class Flux<T> implements Publisher<T> {
 		    Callable<T> thiz = (Callable<T>)this;
 	        return convertToMono(thiz);
 	    }
+		Mono<T> sized = sizedLast(this, defaultValue);
+		if (sized != null) {
+			return sized;
+		}
 		return Mono.onAssembly(new MonoTakeLastOne<>(this, defaultValue));
 	}
 
@@ -3566,6 +4231,10 @@ public abstract class Flux<T> implements Publisher<T> {
 	 * @return a transformed {@link Flux}
 	 */
 	public final <V> Flux<V> map(Function<? super T, ? extends V> mapper) {
+		Flux<V> fused = fuseMap(this, mapper);
+		if (fused != null) {
+			return onAssembly(fused);
+		}
 		if (this instanceof Fuseable) {
 			return onAssembly(new FluxMapFuseable<>(this, mapper));
 		}
@@ -3796,6 +4465,65 @@ public abstract class Flux<T> implements Publisher<T> {
 		return onAssembly(new FluxOnBackpressureLatest<>(this));
 	}
 
+	/**
+	 * Request an unbounded demand and push the returned {@link Flux}, or park the observed elements if not enough
+	 * demand is requested downstream, shedding the parked elements that waited too long. As long as the backlog
+	 * fully drains at least once per {@code interval}, only elements parked for longer than {@code interval} are
+	 * dropped; once the backlog has stayed non-empty for longer than {@code interval}, elements parked for longer
+	 * than {@code targetDelay} are dropped, keeping the latency of the delivered elements close to the target under
+	 * overload. Dropped elements are passed to the {@link Hooks#onNextDropped(Consumer)} hook if any.
+	 *
+	 * @param targetDelay the acceptable time an element waits in the backlog under sustained overload
+	 * @param interval the time the backlog may stay non-empty before shedding to the target delay
+	 *
+	 * @return a shedding buffering {@link Flux}
+	 */
+	public final Flux<T> onBackpressureShed(Duration targetDelay, Duration interval) {
+		return onBackpressureShedMillis(targetDelay.toMillis(), interval.toMillis(),
+				FluxOnBackpressureShed::hookDropped, Schedulers.timer());
+	}
+
+	/**
+	 * Request an unbounded demand and push the returned {@link Flux}, or park the observed elements if not enough
+	 * demand is requested downstream, shedding the parked elements that waited too long. As long as the backlog
+	 * fully drains at least once per {@code interval}, only elements parked for longer than {@code interval} are
+	 * dropped; once the backlog has stayed non-empty for longer than {@code interval}, elements parked for longer
+	 * than {@code targetDelay} are dropped, keeping the latency of the delivered elements close to the target under
+	 * overload.
+	 *
+	 * @param targetDelay the acceptable time an element waits in the backlog under sustained overload
+	 * @param interval the time the backlog may stay non-empty before shedding to the target delay
+	 * @param onDropped the {@link Consumer} called with each dropped element
+	 *
+	 * @return a shedding buffering {@link Flux}
+	 */
+	public final Flux<T> onBackpressureShed(Duration targetDelay, Duration interval,
+			Consumer<? super T> onDropped) {
+		return onBackpressureShedMillis(targetDelay.toMillis(), interval.toMillis(), onDropped,
+				Schedulers.timer());
+	}
+
+	/**
+	 * Request an unbounded demand and push the returned {@link Flux}, or park the observed elements if not enough
+	 * demand is requested downstream, shedding the parked elements that waited too long. As long as the backlog
+	 * fully drains at least once per {@code interval} milliseconds, only elements parked for longer than
+	 * {@code interval} are dropped; once the backlog has stayed non-empty for longer than {@code interval}, elements
+	 * parked for longer than {@code targetDelay} milliseconds are dropped, keeping the latency of the delivered
+	 * elements close to the target under overload.
+	 *
+	 * @param targetDelay the acceptable time in milliseconds an element waits in the backlog under sustained
+	 * overload
+	 * @param interval the time in milliseconds the backlog may stay non-empty before shedding to the target delay
+	 * @param onDropped the {@link Consumer} called with each dropped element
+	 * @param timer the {@link TimedScheduler} providing the clock
+	 *
+	 * @return a shedding buffering {@link Flux}
+	 */
+	public final Flux<T> onBackpressureShedMillis(long targetDelay, long interval,
+			Consumer<? super T> onDropped, TimedScheduler timer) {
+		return onAssembly(new FluxOnBackpressureShed<>(this, targetDelay, interval, onDropped, timer));
+	}
+
 	/**
 	 * Subscribe to a returned fallback publisher when any error occurs.
 	 * <p>
@@ -3907,7 +4635,7 @@ public abstract class Flux<T> implements Publisher<T> {
 	 * @return a detachable {@link Flux}
 	 */
 	public final Flux<T> onTerminateDetach() {
-		return new FluxDetach<>(this);
+		return onAssembly(new FluxDetach<>(this));
 	}
 
 	/**
@@ -4083,6 +4811,107 @@ public abstract class Flux<T> implements Publisher<T> {
 				QueueSupplier.get(prefetch)));
 	}
 
+	/**
+	 * Estimate quantiles of a numeric value extracted from each value of this
+	 * {@link Flux}, emitted when onComplete is observed as an array in the order of the
+	 * requested quantiles, or {@link Double#NaN} for an empty sequence.
+	 * <p>
+	 * Unlike sorting a {@code collectList()}, the values are counted in a histogram of
+	 * logarithmic buckets: each estimate is within 1% of the value of that rank, and the
+	 * memory is bounded by the range of magnitudes rather than the number of values.
+	 *
+	 * @param valueMapper the function extracting the finite numeric value
+	 * @param quantiles the quantiles to estimate, between 0 and 1, e.g. {@code 0.99}
+	 *
+	 * @return a new {@link Mono} of the estimated quantiles
+	 */
+	public final Mono<double[]> quantiles(ToDoubleFunction<? super T> valueMapper, double... quantiles) {
+		Objects.requireNonNull(valueMapper, "valueMapper");
+		QuantileSketch.validate(quantiles);
+		return collect(Flux::quantileSketch,
+				(QuantileSketch s, T t) -> s.add(valueMapper.applyAsDouble(t)))
+				.map(s -> s.quantiles(quantiles));
+	}
+
+	/**
+	 * Estimate quantiles of a numeric value extracted from each value of this
+	 * {@link Flux} received during each {@code timespan}, emitting an array in the order
+	 * of the requested quantiles when the window closes, filled with {@link Double#NaN}
+	 * for an empty window.
+	 *
+	 * @param timespan the duration of each window
+	 * @param valueMapper the function extracting the finite numeric value
+	 * @param quantiles the quantiles to estimate, between 0 and 1, e.g. {@code 0.99}
+	 *
+	 * @return a {@link Flux} of the estimated quantiles of each window
+	 * @see #quantiles(ToDoubleFunction, double...)
+	 */
+	public final Flux<double[]> quantilesWindows(Duration timespan,
+			ToDoubleFunction<? super T> valueMapper,
+			double... quantiles) {
+		Objects.requireNonNull(valueMapper, "valueMapper");
+		QuantileSketch.validate(quantiles);
+		return aggregateWindows(timespan, Flux::quantileSketch,
+				(QuantileSketch s, T t) -> s.add(valueMapper.applyAsDouble(t)))
+				.map(s -> s.quantiles(quantiles));
+	}
+
+	/**
+	 * Pace this {@link Flux} to at most {@code permitsPerPeriod} values per period, with
+	 * bursts of up to {@code permitsPerPeriod} values when the source has been idle.
+	 * <p>
+	 * Values are not buffered: downstream requests are forwarded upstream as far as
+	 * permits are available, the remaining demand being forwarded as permits are
+	 * refilled every period.
+	 *
+	 * @param permitsPerPeriod the number of values allowed per period
+	 * @param period the refill period
+	 *
+	 * @return a rate limited {@link Flux}
+	 */
+	public final Flux<T> rateLimit(int permitsPerPeriod, Duration period) {
+		return rateLimit(permitsPerPeriod, period, permitsPerPeriod);
+	}
+
+	/**
+	 * Pace this {@link Flux} with a token bucket holding up to {@code burst} permits and
+	 * refilled with {@code permitsPerPeriod} permits every period, each value consuming
+	 * one permit.
+	 * <p>
+	 * Values are not buffered: downstream requests are forwarded upstream as far as
+	 * permits are available, the remaining demand being forwarded as permits are
+	 * refilled every period.
+	 *
+	 * @param permitsPerPeriod the number of permits refilled every period
+	 * @param period the refill period
+	 * @param burst the maximum number of permits accumulated while idle
+	 *
+	 * @return a rate limited {@link Flux}
+	 */
+	public final Flux<T> rateLimit(int permitsPerPeriod, Duration period, int burst) {
+		return rateLimitMillis(permitsPerPeriod, period.toMillis(), burst, Schedulers.timer());
+	}
+
+	/**
+	 * Pace this {@link Flux} with a token bucket holding up to {@code burst} permits and
+	 * refilled with {@code permitsPerPeriod} permits every {@code period} milliseconds
+	 * on the given {@link TimedScheduler}, each value consuming one permit.
+	 * <p>
+	 * Values are not buffered: downstream requests are forwarded upstream as far as
+	 * permits are available, the remaining demand being forwarded as permits are
+	 * refilled every period.
+	 *
+	 * @param permitsPerPeriod the number of permits refilled every period
+	 * @param period the refill period in milliseconds
+	 * @param burst the maximum number of permits accumulated while idle
+	 * @param timer the {@link TimedScheduler} to refill the permits on
+	 *
+	 * @return a rate limited {@link Flux}
+	 */
+	public final Flux<T> rateLimitMillis(int permitsPerPeriod, long period, int burst, TimedScheduler timer) {
+		return onAssembly(new FluxRateLimit<>(this, permitsPerPeriod, period, burst, timer));
+	}
+
 	/**
 	 * Aggregate the values from this {@link Flux} sequence into an object of the same type than the
 	 * emitted items. The left/right {@link BiFunction} arguments are the N-1 and N item, ignoring sequence
@@ -4398,6 +5227,84 @@ public abstract class Flux<T> implements Publisher<T> {
 		return defer(() -> retry(countingPredicate(retryMatcher, numRetries)));
 	}
 
+	/**
+	 * Re-subscribes to this {@link Flux} sequence if it signals any error, up to the specified number of retries,
+	 * waiting an exponentially growing delay before each retry: {@code firstBackoff} for the first retry,
+	 * doubling on each further retry. Retries are scheduled on {@link Schedulers#timer()}.
+	 *
+	 * @param numRetries the number of times to tolerate an error
+	 * @param firstBackoff the delay before the first retry
+	 *
+	 * @return a re-subscribing {@link Flux} on onError, with exponential backoff
+	 */
+	public final Flux<T> retryBackoff(long numRetries, Duration firstBackoff) {
+		return retryBackoff(numRetries, firstBackoff, Duration.ofMillis(Long.MAX_VALUE), 0.5d);
+	}
+
+	/**
+	 * Re-subscribes to this {@link Flux} sequence if it signals any error, up to the specified number of retries,
+	 * waiting an exponentially growing delay before each retry: {@code firstBackoff} for the first retry,
+	 * doubling on each further retry up to {@code maxBackoff}. Each delay is randomly moved by up to
+	 * {@code jitterFactor} of itself so that failing subscribers don't retry in lockstep. Retries are scheduled
+	 * on {@link Schedulers#timer()}.
+	 *
+	 * @param numRetries the number of times to tolerate an error
+	 * @param firstBackoff the delay before the first retry
+	 * @param maxBackoff the maximum delay between two retries
+	 * @param jitterFactor the maximum random variation of each delay, between 0 and 1
+	 *
+	 * @return a re-subscribing {@link Flux} on onError, with exponential backoff
+	 */
+	public final Flux<T> retryBackoff(long numRetries, Duration firstBackoff, Duration maxBackoff,
+			double jitterFactor) {
+		return retryBackoffMillis(numRetries, firstBackoff.toMillis(), maxBackoff.toMillis(), jitterFactor,
+				Long.MAX_VALUE, Schedulers.timer());
+	}
+
+	/**
+	 * Re-subscribes to this {@link Flux} sequence if it signals any error, up to the specified number of retries,
+	 * waiting an exponentially growing delay before each retry: {@code firstBackoff} for the first retry,
+	 * doubling on each further retry up to {@code maxBackoff}. Each delay is randomly moved by up to
+	 * {@code jitterFactor} of itself so that failing subscribers don't retry in lockstep. No retry starts
+	 * later than {@code timeout} after the subscription, the last error being propagated instead. Retries are
+	 * scheduled on {@link Schedulers#timer()}.
+	 *
+	 * @param numRetries the number of times to tolerate an error
+	 * @param firstBackoff the delay before the first retry
+	 * @param maxBackoff the maximum delay between two retries
+	 * @param jitterFactor the maximum random variation of each delay, between 0 and 1
+	 * @param timeout the time after the subscription past which no retry starts
+	 *
+	 * @return a re-subscribing {@link Flux} on onError, with exponential backoff
+	 */
+	public final Flux<T> retryBackoff(long numRetries, Duration firstBackoff, Duration maxBackoff,
+			double jitterFactor, Duration timeout) {
+		return retryBackoffMillis(numRetries, firstBackoff.toMillis(), maxBackoff.toMillis(), jitterFactor,
+				timeout.toMillis(), Schedulers.timer());
+	}
+
+	/**
+	 * Re-subscribes to this {@link Flux} sequence if it signals any error, up to the specified number of retries,
+	 * waiting an exponentially growing delay before each retry: {@code firstBackoff} milliseconds for the first
+	 * retry, doubling on each further retry up to {@code maxBackoff}. Each delay is randomly moved by up to
+	 * {@code jitterFactor} of itself so that failing subscribers don't retry in lockstep. No retry starts later
+	 * than {@code timeout} milliseconds after the subscription, the last error being propagated instead.
+	 *
+	 * @param numRetries the number of times to tolerate an error
+	 * @param firstBackoff the delay in milliseconds before the first retry
+	 * @param maxBackoff the maximum delay in milliseconds between two retries
+	 * @param jitterFactor the maximum random variation of each delay, between 0 and 1
+	 * @param timeout the time in milliseconds after the subscription past which no retry starts
+	 * @param timer the {@link TimedScheduler} to schedule the retries on
+	 *
+	 * @return a re-subscribing {@link Flux} on onError, with exponential backoff
+	 */
+	public final Flux<T> retryBackoffMillis(long numRetries, long firstBackoff, long maxBackoff,
+			double jitterFactor, long timeout, TimedScheduler timer) {
+		return onAssembly(new FluxRetryBackoff<>(this, numRetries, firstBackoff, maxBackoff, jitterFactor,
+				timeout, timer));
+	}
+
 	/**
 	 * Retries this {@link Flux} when a companion sequence signals
 	 * an item in response to this {@link Flux} error signal
@@ -4748,6 +5655,10 @@ public abstract class Flux<T> implements Publisher<T> {
 	 * @return a dropping {@link Flux} until the specified skipped number of elements
 	 */
 	public final Flux<T> skip(long skipped) {
+		Flux<T> sized = sizedSkip(this, skipped);
+		if (sized != null) {
+			return sized;
+		}
 		if (skipped > 0) {
 			return onAssembly(new FluxSkip<>(this, skipped));
 		}
@@ -4869,6 +5780,229 @@ public abstract class Flux<T> implements Publisher<T> {
 		return onAssembly(new FluxSkipWhile<>(this, skipPredicate));
 	}
 
+	/**
+	 * Emit, for each value of this {@link Flux}, the greatest of the last {@code size}
+	 * values according to the given {@link Comparator}.
+	 * <p>
+	 * Unlike {@code window(size, 1)}, the maximum is maintained with a monotonic deque in
+	 * amortized constant time per value, holding at most {@code size} values.
+	 *
+	 * @param size the number of values in the sliding window
+	 * @param comparator the {@link Comparator} ordering the values
+	 *
+	 * @return a {@link Flux} of the sliding maximum
+	 */
+	public final Flux<T> slidingMax(int size, Comparator<? super T> comparator) {
+		Objects.requireNonNull(comparator, "comparator");
+		return onAssembly(new FluxSlidingReduce<>(this, size,
+				() -> new FluxSlidingReduce.Monotonic<>(comparator)));
+	}
+
+	/**
+	 * Emit, for each value of this {@link Flux}, the greatest of the values received
+	 * during the last {@code timespan} according to the given {@link Comparator}.
+	 * <p>
+	 * The maximum is maintained with a monotonic deque in amortized constant time per
+	 * value.
+	 *
+	 * @param timespan the duration of the sliding window
+	 * @param comparator the {@link Comparator} ordering the values
+	 *
+	 * @return a {@link Flux} of the sliding maximum
+	 */
+	public final Flux<T> slidingMax(Duration timespan, Comparator<? super T> comparator) {
+		return slidingMaxMillis(timespan.toMillis(), comparator, Schedulers.timer());
+	}
+
+	/**
+	 * Emit, for each value of this {@link Flux}, the greatest of the values received
+	 * during the last {@code timespan} milliseconds according to the given
+	 * {@link Comparator}.
+	 *
+	 * @param timespan the duration of the sliding window in milliseconds
+	 * @param comparator the {@link Comparator} ordering the values
+	 * @param timer the {@link TimedScheduler} to read the time from
+	 *
+	 * @return a {@link Flux} of the sliding maximum
+	 */
+	public final Flux<T> slidingMaxMillis(long timespan,
+			Comparator<? super T> comparator,
+			TimedScheduler timer) {
+		Objects.requireNonNull(comparator, "comparator");
+		return onAssembly(new FluxSlidingReduce<>(this, timespan, timer,
+				() -> new FluxSlidingReduce.Monotonic<>(comparator)));
+	}
+
+	/**
+	 * Emit, for each value of this {@link Flux}, the smallest of the last {@code size}
+	 * values according to the given {@link Comparator}.
+	 * <p>
+	 * Unlike {@code window(size, 1)}, the minimum is maintained with a monotonic deque in
+	 * amortized constant time per value, holding at most {@code size} values.
+	 *
+	 * @param size the number of values in the sliding window
+	 * @param comparator the {@link Comparator} ordering the values
+	 *
+	 * @return a {@link Flux} of the sliding minimum
+	 */
+	public final Flux<T> slidingMin(int size, Comparator<? super T> comparator) {
+		return slidingMax(size, Collections.reverseOrder(comparator));
+	}
+
+	/**
+	 * Emit, for each value of this {@link Flux}, the smallest of the values received
+	 * during the last {@code timespan} according to the given {@link Comparator}.
+	 * <p>
+	 * The minimum is maintained with a monotonic deque in amortized constant time per
+	 * value.
+	 *
+	 * @param timespan the duration of the sliding window
+	 * @param comparator the {@link Comparator} ordering the values
+	 *
+	 * @return a {@link Flux} of the sliding minimum
+	 */
+	public final Flux<T> slidingMin(Duration timespan, Comparator<? super T> comparator) {
+		return slidingMinMillis(timespan.toMillis(), comparator, Schedulers.timer());
+	}
+
+	/**
+	 * Emit, for each value of this {@link Flux}, the smallest of the values received
+	 * during the last {@code timespan} milliseconds according to the given
+	 * {@link Comparator}.
+	 *
+	 * @param timespan the duration of the sliding window in milliseconds
+	 * @param comparator the {@link Comparator} ordering the values
+	 * @param timer the {@link TimedScheduler} to read the time from
+	 *
+	 * @return a {@link Flux} of the sliding minimum
+	 */
+	public final Flux<T> slidingMinMillis(long timespan,
+			Comparator<? super T> comparator,
+			TimedScheduler timer) {
+		return slidingMaxMillis(timespan, Collections.reverseOrder(comparator), timer);
+	}
+
+	/**
+	 * Emit, for each value of this {@link Flux}, the reduction of the last {@code size}
+	 * values with the given associative {@link BiFunction}, oldest first.
+	 * <p>
+	 * Unlike {@code window(size, 1).flatMap(w -> w.reduce(reducer))}, the reduction is
+	 * maintained with two stacks in amortized constant time per value, holding at most
+	 * {@code size} values.
+	 *
+	 * @param size the number of values in the sliding window
+	 * @param reducer the associative reducing {@link BiFunction}
+	 *
+	 * @return a {@link Flux} of the sliding reduction
+	 */
+	public final Flux<T> slidingReduce(int size, BiFunction<T, T, T> reducer) {
+		Objects.requireNonNull(reducer, "reducer");
+		return onAssembly(new FluxSlidingReduce<>(this, size,
+				() -> new FluxSlidingReduce.TwoStacks<>(reducer)));
+	}
+
+	/**
+	 * Emit, for each value of this {@link Flux}, the reduction of the last {@code size}
+	 * values with the given {@link BiFunction}, reverting the contribution of each value
+	 * leaving the window with the {@code inverse} {@link BiFunction}, as a subtraction
+	 * reverts a sum.
+	 * <p>
+	 * This costs a single reduction and a single inversion per value.
+	 *
+	 * @param size the number of values in the sliding window
+	 * @param reducer the reducing {@link BiFunction}
+	 * @param inverse the {@link BiFunction} removing its second argument from the
+	 * reduction passed as first argument
+	 *
+	 * @return a {@link Flux} of the sliding reduction
+	 */
+	public final Flux<T> slidingReduce(int size,
+			BiFunction<T, T, T> reducer,
+			BiFunction<T, T, T> inverse) {
+		Objects.requireNonNull(reducer, "reducer");
+		Objects.requireNonNull(inverse, "inverse");
+		return onAssembly(new FluxSlidingReduce<>(this, size,
+				() -> new FluxSlidingReduce.Invertible<>(reducer, inverse)));
+	}
+
+	/**
+	 * Emit, for each value of this {@link Flux}, the reduction of the values received
+	 * during the last {@code timespan} with the given associative {@link BiFunction},
+	 * oldest first.
+	 * <p>
+	 * The reduction is maintained with two stacks in amortized constant time per value.
+	 *
+	 * @param timespan the duration of the sliding window
+	 * @param reducer the associative reducing {@link BiFunction}
+	 *
+	 * @return a {@link Flux} of the sliding reduction
+	 */
+	public final Flux<T> slidingReduce(Duration timespan, BiFunction<T, T, T> reducer) {
+		return slidingReduceMillis(timespan.toMillis(), reducer, Schedulers.timer());
+	}
+
+	/**
+	 * Emit, for each value of this {@link Flux}, the reduction of the values received
+	 * during the last {@code timespan} with the given {@link BiFunction}, reverting the
+	 * contribution of each value leaving the window with the {@code inverse}
+	 * {@link BiFunction}.
+	 *
+	 * @param timespan the duration of the sliding window
+	 * @param reducer the reducing {@link BiFunction}
+	 * @param inverse the {@link BiFunction} removing its second argument from the
+	 * reduction passed as first argument
+	 *
+	 * @return a {@link Flux} of the sliding reduction
+	 */
+	public final Flux<T> slidingReduce(Duration timespan,
+			BiFunction<T, T, T> reducer,
+			BiFunction<T, T, T> inverse) {
+		return slidingReduceMillis(timespan.toMillis(), reducer, inverse, Schedulers.timer());
+	}
+
+	/**
+	 * Emit, for each value of this {@link Flux}, the reduction of the values received
+	 * during the last {@code timespan} milliseconds with the given associative
+	 * {@link BiFunction}, oldest first.
+	 *
+	 * @param timespan the duration of the sliding window in milliseconds
+	 * @param reducer the associative reducing {@link BiFunction}
+	 * @param timer the {@link TimedScheduler} to read the time from
+	 *
+	 * @return a {@link Flux} of the sliding reduction
+	 */
+	public final Flux<T> slidingReduceMillis(long timespan,
+			BiFunction<T, T, T> reducer,
+			TimedScheduler timer) {
+		Objects.requireNonNull(reducer, "reducer");
+		return onAssembly(new FluxSlidingReduce<>(this, timespan, timer,
+				() -> new FluxSlidingReduce.TwoStacks<>(reducer)));
+	}
+
+	/**
+	 * Emit, for each value of this {@link Flux}, the reduction of the values received
+	 * during the last {@code timespan} milliseconds with the given {@link BiFunction},
+	 * reverting the contribution of each value leaving the window with the
+	 * {@code inverse} {@link BiFunction}.
+	 *
+	 * @param timespan the duration of the sliding window in milliseconds
+	 * @param reducer the reducing {@link BiFunction}
+	 * @param inverse the {@link BiFunction} removing its second argument from the
+	 * reduction passed as first argument
+	 * @param timer the {@link TimedScheduler} to read the time from
+	 *
+	 * @return a {@link Flux} of the sliding reduction
+	 */
+	public final Flux<T> slidingReduceMillis(long timespan,
+			BiFunction<T, T, T> reducer,
+			BiFunction<T, T, T> inverse,
+			TimedScheduler timer) {
+		Objects.requireNonNull(reducer, "reducer");
+		Objects.requireNonNull(inverse, "inverse");
+		return onAssembly(new FluxSlidingReduce<>(this, timespan, timer,
+				() -> new FluxSlidingReduce.Invertible<>(reducer, inverse)));
+	}
+
 	/**
 	 * Returns a {@link Flux} that sorts the events emitted by source {@link Flux}.
 	 * Each item emitted by the {@link Flux} must implement {@link Comparable} with
@@ -5263,6 +6397,10 @@ public abstract class Flux<T> implements Publisher<T> {
 	 * @return a size limited {@link Flux}
 	 */
 	public final Flux<T> take(long n) {
+		Flux<T> sized = sizedTake(this, n);
+		if (sized != null) {
+			return sized;
+		}
 		if (this instanceof Fuseable) {
 			return onAssembly(new FluxTakeFuseable<>(this, n));
 		}
@@ -5638,13 +6776,7 @@ public abstract class Flux<T> implements Publisher<T> {
 	 */
 	public final Flux<T> timeoutMillis(long timeout, Publisher<? extends T> fallback,
 			TimedScheduler timer) {
-		final Mono<Long> _timer = Mono.delayMillis(timeout, timer).otherwiseReturn(0L);
-		final Function<T, Publisher<Long>> rest = o -> _timer;
-
-		if(fallback == null) {
-			return timeout(_timer, rest);
-		}
-		return timeout(_timer, rest, fallback);
+		return onAssembly(new FluxTimeoutTimed<>(this, timeout, timer, fallback));
 	}
 
 	/**
@@ -5725,6 +6857,61 @@ public abstract class Flux<T> implements Publisher<T> {
 		return new BlockingIterable<>(this, batchSize, provider);
 	}
 
+	/**
+	 * Emit the {@code k} greatest values of this {@link Flux} according to the given
+	 * {@link Comparator}, greatest first, once it completes.
+	 * <p>
+	 * Unlike {@code collectSortedList(comparator)} followed by a {@code take(k)}, only
+	 * the {@code k} greatest values seen so far are retained, in a bounded binary heap
+	 * costing {@code O(log k)} per value.
+	 *
+	 * @param k the number of values to emit
+	 * @param comparator the {@link Comparator} ordering the values
+	 *
+	 * @return a {@link Flux} of at most {@code k} values, greatest first
+	 */
+	public final Flux<T> topK(int k, Comparator<? super T> comparator) {
+		TopKHeap.validate(k, comparator);
+		return collect(() -> new TopKHeap<T>(k, comparator), TopKHeap::offer)
+				.flatMapIterable(TopKHeap::toList);
+	}
+
+	/**
+	 * Emit a {@link List} of the {@code k} greatest values according to the given
+	 * {@link Comparator}, greatest first, for every {@code windowSize} values of this
+	 * {@link Flux}, and for the remaining values on completion.
+	 *
+	 * @param k the number of values to retain per window
+	 * @param comparator the {@link Comparator} ordering the values
+	 * @param windowSize the number of values per window
+	 *
+	 * @return a {@link Flux} of the top {@code k} values of each window
+	 * @see #aggregateWindows(int, Supplier, BiFunction)
+	 */
+	public final Flux<List<T>> topKWindows(int k, Comparator<? super T> comparator, int windowSize) {
+		TopKHeap.validate(k, comparator);
+		return aggregateWindows(windowSize, () -> new TopKHeap<T>(k, comparator), TopKHeap::offer)
+				.map(TopKHeap::toList);
+	}
+
+	/**
+	 * Emit a {@link List} of the {@code k} greatest values according to the given
+	 * {@link Comparator}, greatest first, for the values of this {@link Flux} received
+	 * during each {@code timespan}. A period without value emits an empty {@link List}.
+	 *
+	 * @param k the number of values to retain per window
+	 * @param comparator the {@link Comparator} ordering the values
+	 * @param timespan the duration of each window
+	 *
+	 * @return a {@link Flux} of the top {@code k} values of each window
+	 * @see #aggregateWindows(Duration, Supplier, BiFunction)
+	 */
+	public final Flux<List<T>> topKWindows(int k, Comparator<? super T> comparator, Duration timespan) {
+		TopKHeap.validate(k, comparator);
+		return aggregateWindows(timespan, () -> new TopKHeap<T>(k, comparator), TopKHeap::offer)
+				.map(TopKHeap::toList);
+	}
+
 	/**
 	 * Transform this {@link Flux} into a lazy {@link Stream} blocking on next calls.
 	 *
@@ -6209,6 +7396,7 @@ public abstract class Flux<T> implements Publisher<T> {
 	 */
 	@SuppressWarnings("unchecked")
 	protected static <T> Flux<T> onAssembly(Flux<T> source) {
+		source = AssemblyRules.rewrite(source);
 		Hooks.OnOperatorCreate hook = Hooks.onOperatorCreate;
 		if(hook == null) {
 			return source;
@@ -6248,6 +7436,13 @@ public abstract class Flux<T> implements Publisher<T> {
 			Runnable onAfterTerminate,
 			LongConsumer onRequest,
 			Runnable onCancel) {
+		if (onNext != null && onSubscribe == null && onError == null && onComplete == null
+				&& onAfterTerminate == null && onRequest == null && onCancel == null) {
+			Flux<T> fused = fusePeek(source, onNext);
+			if (fused != null) {
+				return onAssembly(fused);
+			}
+		}
 		if (source instanceof Fuseable) {
 			return onAssembly(new FluxPeekFuseable<>(source,
 					onSubscribe,
@@ -6269,6 +7464,423 @@ public abstract class Flux<T> implements Publisher<T> {
 	}
 
 
+	/*
+	 * Assembly-time fusion of adjacent stateless operators: a map, filter or doOnNext
+	 * applied directly on a map, filter or doOnNext-only peek is assembled as a single
+	 * stage over the upstream source, composing both functions, so that each value goes
+	 * through one subscriber instead of two. The fuseable variant is kept when the
+	 * upstream source is Fuseable. Nothing is fused while an onOperator hook is set, so
+	 * that every operator keeps being visible to it.
+	 */
+
+	/**
+	 * Fuse a map with the upstream map or filter if any.
+	 *
+	 * @return the fused stage or null if not applicable
+	 */
+	@SuppressWarnings("unchecked")
+	static <T, V> Flux<V> fuseMap(Flux<T> source, Function<? super T, ? extends V> mapper) {
+		if (Hooks.onOperatorCreate != null) {
+			return null;
+		}
+		if (source instanceof FluxMapFuseable) {
+			FluxMapFuseable<Object, T> m = (FluxMapFuseable<Object, T>) source;
+			return new FluxMapFuseable<>(m.source, composeMappers(m.mapper, mapper));
+		}
+		if (source instanceof FluxMap) {
+			FluxMap<Object, T> m = (FluxMap<Object, T>) source;
+			return new FluxMap<>(m.source, composeMappers(m.mapper, mapper));
+		}
+		if (source instanceof FluxFilterFuseable) {
+			FluxFilterFuseable<T> f = (FluxFilterFuseable<T>) source;
+			return new FluxHandleFuseable<>(f.source, filterThenMap(f.predicate, mapper));
+		}
+		if (source instanceof FluxFilter) {
+			FluxFilter<T> f = (FluxFilter<T>) source;
+			return new FluxHandle<>(f.source, filterThenMap(f.predicate, mapper));
+		}
+		return null;
+	}
+
+	/**
+	 * Fuse a filter with the upstream filter or map if any.
+	 *
+	 * @return the fused stage or null if not applicable
+	 */
+	@SuppressWarnings("unchecked")
+	static <T> Flux<T> fuseFilter(Flux<T> source, Predicate<? super T> predicate) {
+		if (Hooks.onOperatorCreate != null) {
+			return null;
+		}
+		if (source instanceof FluxFilterFuseable) {
+			FluxFilterFuseable<T> f = (FluxFilterFuseable<T>) source;
+			return new FluxFilterFuseable<>(f.source, composePredicates(f.predicate, predicate));
+		}
+		if (source instanceof FluxFilter) {
+			FluxFilter<T> f = (FluxFilter<T>) source;
+			return new FluxFilter<>(f.source, composePredicates(f.predicate, predicate));
+		}
+		if (source instanceof FluxMapFuseable) {
+			FluxMapFuseable<Object, T> m = (FluxMapFuseable<Object, T>) source;
+			return new FluxHandleFuseable<>(m.source, mapThenFilter(m.mapper, predicate));
+		}
+		if (source instanceof FluxMap) {
+			FluxMap<Object, T> m = (FluxMap<Object, T>) source;
+			return new FluxHandle<>(m.source, mapThenFilter(m.mapper, predicate));
+		}
+		return null;
+	}
+
+	/**
+	 * Fuse a doOnNext with the upstream peek if the latter only has an onNext callback.
+	 * A peek with other callbacks is not fused, as it would then observe the failures
+	 * of the new callback as its own: an upstream onError would be called instead of an
+	 * onCancel.
+	 *
+	 * @return the fused stage or null if not applicable
+	 */
+	@SuppressWarnings("unchecked")
+	static <T> Flux<T> fusePeek(Publisher<T> source, Consumer<? super T> onNext) {
+		if (Hooks.onOperatorCreate != null) {
+			return null;
+		}
+		if (source instanceof FluxPeekFuseable) {
+			FluxPeekFuseable<T> p = (FluxPeekFuseable<T>) source;
+			if (onlyOnNext(p)) {
+				return new FluxPeekFuseable<>(p.source,
+						null,
+						composeConsumers(p.onNextCall, onNext),
+						null,
+						null,
+						null,
+						null,
+						null);
+			}
+		}
+		else if (source instanceof FluxPeek) {
+			FluxPeek<T> p = (FluxPeek<T>) source;
+			if (onlyOnNext(p)) {
+				return new FluxPeek<>(p.source,
+						null,
+						composeConsumers(p.onNextCall, onNext),
+						null,
+						null,
+						null,
+						null,
+						null);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return true if the peek has no other callback than onNext
+	 */
+	static boolean onlyOnNext(SignalPeek<?> p) {
+		return p.onSubscribeCall() == null && p.onAfterNextCall() == null &&
+				p.onErrorCall() == null && p.onCompleteCall() == null &&
+				p.onAfterTerminateCall() == null && p.onRequestCall() == null &&
+				p.onCancelCall() == null;
+	}
+
+	static <T, U, V> Function<T, V> composeMappers(Function<? super T, ? extends U> first,
+			Function<? super U, ? extends V> second) {
+		return t -> {
+			U u = first.apply(t);
+			if (u == null) {
+				throw new NullPointerException("The mapper returned a null value.");
+			}
+			return second.apply(u);
+		};
+	}
+
+	static <T> Predicate<T> composePredicates(Predicate<? super T> first,
+			Predicate<? super T> second) {
+		return t -> first.test(t) && second.test(t);
+	}
+
+	static <T> Consumer<T> composeConsumers(Consumer<? super T> first, Consumer<? super T> second) {
+		if (first == null) {
+			return second::accept;
+		}
+		return t -> {
+			first.accept(t);
+			second.accept(t);
+		};
+	}
+
+	static <T, V> BiConsumer<T, SynchronousSink<V>> filterThenMap(Predicate<? super T> predicate,
+			Function<? super T, ? extends V> mapper) {
+		return (t, sink) -> {
+			if (predicate.test(t)) {
+				V v = mapper.apply(t);
+				if (v == null) {
+					throw new NullPointerException("The mapper returned a null value.");
+				}
+				sink.next(v);
+			}
+		};
+	}
+
+	static <T, U> BiConsumer<T, SynchronousSink<U>> mapThenFilter(Function<? super T, ? extends U> mapper,
+			Predicate<? super U> predicate) {
+		return (t, sink) -> {
+			U u = mapper.apply(t);
+			if (u == null) {
+				throw new NullPointerException("The mapper returned a null value.");
+			}
+			if (predicate.test(u)) {
+				sink.next(u);
+			}
+		};
+	}
+
+	/*
+	 * Assembly-time shortcuts for in-memory sources of known size: a range or an array
+	 * view is resized in place of take and skip, and count, elementAt, last and
+	 * collectList over a range, an array or a Collection read the source directly at
+	 * subscription instead of going through every element. Collections may change
+	 * between assembly and subscription, so only their size and contents at
+	 * subscription time are used. Array and Collection elements up to the one the
+	 * operator would have reached are still checked for null at subscription, signalling
+	 * the same NullPointerException as the source. As for the fusion above, nothing is
+	 * rewritten while an onOperator hook is set.
+	 */
+
+	/**
+	 * @return the resized range or array view, or null if not applicable
+	 */
+	@SuppressWarnings("unchecked")
+	static <T> Flux<T> sizedTake(Flux<T> source, long n) {
+		if (n < 0 || Hooks.onOperatorCreate != null) {
+			return null;
+		}
+		if (source instanceof FluxRange) {
+			FluxRange r = (FluxRange) source;
+			return (Flux<T>) onAssembly(new FluxRange((int) r.start,
+					(int) Math.min(n, r.end - r.start)));
+		}
+		if (source instanceof FluxArray) {
+			FluxArray<T> a = (FluxArray<T>) source;
+			return onAssembly(new FluxArray<>(a.array,
+					a.origin,
+					a.offset,
+					a.offset + (int) Math.min(n, a.size())));
+		}
+		return null;
+	}
+
+	/**
+	 * @return the resized range or array view, or null if not applicable
+	 */
+	@SuppressWarnings("unchecked")
+	static <T> Flux<T> sizedSkip(Flux<T> source, long n) {
+		if (n <= 0 || Hooks.onOperatorCreate != null) {
+			return null;
+		}
+		if (source instanceof FluxRange) {
+			FluxRange r = (FluxRange) source;
+			long count = r.end - r.start;
+			if (n >= count) {
+				return empty();
+			}
+			return (Flux<T>) onAssembly(new FluxRange((int) (r.start + n),
+					(int) (count - n)));
+		}
+		if (source instanceof FluxArray) {
+			FluxArray<T> a = (FluxArray<T>) source;
+			return onAssembly(new FluxArray<>(a.array,
+					a.origin,
+					a.offset + (int) Math.min(n, a.size()),
+					a.end));
+		}
+		return null;
+	}
+
+	/**
+	 * @return the size of the source, or null if not known
+	 */
+	static Mono<Long> sizedCount(Flux<?> source) {
+		if (Hooks.onOperatorCreate != null) {
+			return null;
+		}
+		if (source instanceof FluxRange) {
+			FluxRange r = (FluxRange) source;
+			return Mono.just(r.end - r.start);
+		}
+		if (source instanceof FluxArray) {
+			FluxArray<?> a = (FluxArray<?>) source;
+			return Mono.onAssembly(new MonoCallable<>(() -> {
+				FluxArray.checkElements(a.array, a.origin, a.end);
+				return (long) a.size();
+			}));
+		}
+		if (source instanceof FluxJust) {
+			return Mono.just(1L);
+		}
+		if (source instanceof FluxIterable && ((FluxIterable<?>) source).iterable instanceof Collection) {
+			Collection<?> c = (Collection<?>) ((FluxIterable<?>) source).iterable;
+			return Mono.onAssembly(new MonoCallable<>(() -> {
+				long count = 0L;
+				for (Object o : c) {
+					if (o == null) {
+						throw new NullPointerException("The iterator returned a null value");
+					}
+					count++;
+				}
+				return count;
+			}));
+		}
+		return null;
+	}
+
+	/**
+	 * @param defaultValue the value if the source is shorter, null to signal an {@link
+	 * IndexOutOfBoundsException} instead
+	 *
+	 * @return the indexed element of the range or array view, or null if not applicable
+	 */
+	@SuppressWarnings("unchecked")
+	static <T> Mono<T> sizedElementAt(Flux<T> source, int index, T defaultValue) {
+		if (index < 0 || Hooks.onOperatorCreate != null) {
+			return null;
+		}
+		if (source instanceof FluxRange) {
+			FluxRange r = (FluxRange) source;
+			if (index < r.end - r.start) {
+				return (Mono<T>) Mono.just((int) (r.start + index));
+			}
+		}
+		else if (source instanceof FluxArray) {
+			FluxArray<T> a = (FluxArray<T>) source;
+			if (index < a.size()) {
+				return Mono.onAssembly(new MonoCallable<>(() -> {
+					FluxArray.checkElements(a.array, a.origin, a.offset + index);
+					return arrayElement(a.array, a.offset + index);
+				}));
+			}
+			return outOfRange(a, defaultValue, IndexOutOfBoundsException::new);
+		}
+		else {
+			return null;
+		}
+		return outOfRange(defaultValue, IndexOutOfBoundsException::new);
+	}
+
+	/**
+	 * @param defaultValue the value if the source is empty, null to signal a {@link
+	 * NoSuchElementException} instead
+	 *
+	 * @return the last element of the range or array view, or null if not applicable
+	 */
+	@SuppressWarnings("unchecked")
+	static <T> Mono<T> sizedLast(Flux<T> source, T defaultValue) {
+		if (Hooks.onOperatorCreate != null) {
+			return null;
+		}
+		if (source instanceof FluxRange) {
+			FluxRange r = (FluxRange) source;
+			if (r.end != r.start) {
+				return (Mono<T>) Mono.just((int) (r.end - 1));
+			}
+		}
+		else if (source instanceof FluxArray) {
+			FluxArray<T> a = (FluxArray<T>) source;
+			if (a.size() != 0) {
+				return Mono.onAssembly(new MonoCallable<>(() -> {
+					FluxArray.checkElements(a.array, a.origin, a.end - 1);
+					return arrayElement(a.array, a.end - 1);
+				}));
+			}
+			return outOfRange(a, defaultValue, Flux::lastNoSuchElement);
+		}
+		else {
+			return null;
+		}
+		return outOfRange(defaultValue, Flux::lastNoSuchElement);
+	}
+
+	/**
+	 * @return a list pre-sized to the range, array view or Collection, or null if not
+	 * applicable
+	 */
+	@SuppressWarnings("unchecked")
+	static <T> Mono<List<T>> sizedCollectList(Flux<T> source) {
+		if (Hooks.onOperatorCreate != null) {
+			return null;
+		}
+		if (source instanceof FluxRange) {
+			FluxRange r = (FluxRange) source;
+			return Mono.onAssembly(new MonoCallable<>(() -> {
+				List<Integer> list = new ArrayList<>((int) (r.end - r.start));
+				for (long i = r.start; i < r.end; i++) {
+					list.add((int) i);
+				}
+				return (List<T>) list;
+			}));
+		}
+		if (source instanceof FluxArray) {
+			FluxArray<T> a = (FluxArray<T>) source;
+			return Mono.onAssembly(new MonoCallable<>(() -> {
+				FluxArray.checkElements(a.array, a.origin, a.offset);
+				List<T> list = new ArrayList<>(a.size());
+				for (int i = a.offset; i < a.end; i++) {
+					list.add(arrayElement(a.array, i));
+				}
+				return list;
+			}));
+		}
+		if (source instanceof FluxIterable && ((FluxIterable<T>) source).iterable instanceof Collection) {
+			Collection<? extends T> c = (Collection<? extends T>) ((FluxIterable<T>) source).iterable;
+			return Mono.onAssembly(new MonoCallable<>(() -> {
+				List<T> list = new ArrayList<>(c.size());
+				for (T t : c) {
+					if (t == null) {
+						throw new NullPointerException("The iterator returned a null value");
+					}
+					list.add(t);
+				}
+				return list;
+			}));
+		}
+		return null;
+	}
+
+	static <T> T arrayElement(T[] array, int i) {
+		T t = array[i];
+		if (t == null) {
+			throw new NullPointerException("The " + i + "th array element was null");
+		}
+		return t;
+	}
+
+	static <T> Mono<T> outOfRange(T defaultValue, Supplier<? extends RuntimeException> error) {
+		if (defaultValue != null) {
+			return Mono.just(defaultValue);
+		}
+		return Mono.onAssembly(new MonoCallable<>(() -> {
+			throw error.get();
+		}));
+	}
+
+	/**
+	 * As {@link #outOfRange(Object, Supplier)} once every element of the array view and
+	 * its skipped prefix have been checked for null.
+	 */
+	static <T> Mono<T> outOfRange(FluxArray<T> a, T defaultValue, Supplier<? extends RuntimeException> error) {
+		return Mono.onAssembly(new MonoCallable<>(() -> {
+			FluxArray.checkElements(a.array, a.origin, a.end);
+			if (defaultValue != null) {
+				return defaultValue;
+			}
+			throw error.get();
+		}));
+	}
+
+	static NoSuchElementException lastNoSuchElement() {
+		return new NoSuchElementException("Flux#last() didn't observe any onNext signal");
+	}
+
 	/**
 	 * Returns the appropriate Mono instance for a known Supplier Flux.
 	 *
@@ -6317,6 +7929,11 @@ public abstract class Flux<T> implements Publisher<T> {
 		};
 	}
 
+	@SuppressWarnings("unchecked")
+	static <K, V> Supplier<Map<K, V>> hashMapSupplier() {
+		return MAP_SUPPLIER;
+	}
+
 	@SuppressWarnings("unchecked")
 	static <O> Supplier<Set<O>> hashSetSupplier() {
 		return SET_SUPPLIER;
@@ -6337,12 +7954,18 @@ public abstract class Flux<T> implements Publisher<T> {
 		return IDENTITY_FUNCTION;
 	}
 
+	static QuantileSketch quantileSketch() {
+		return new QuantileSketch(QuantileSketch.DEFAULT_ACCURACY, QuantileSketch.DEFAULT_MAX_BUCKETS);
+	}
+
 	@SuppressWarnings("rawtypes")
 	static final BiFunction      TUPLE2_BIFUNCTION       = Tuples::of;
 	@SuppressWarnings("rawtypes")
 	static final Supplier        LIST_SUPPLIER           = ArrayList::new;
 	@SuppressWarnings("rawtypes")
 	static final Supplier        SET_SUPPLIER            = HashSet::new;
+	@SuppressWarnings("rawtypes")
+	static final Supplier        MAP_SUPPLIER            = HashMap::new;
 	static final BooleanSupplier ALWAYS_BOOLEAN_SUPPLIER = () -> true;
 	@SuppressWarnings("rawtypes")
 	static final Function        HASHCODE_EXTRACTOR      = Object::hashCode;
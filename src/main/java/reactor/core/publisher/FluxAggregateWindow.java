@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2011-2016 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.util.Objects;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.Loopback;
+import reactor.core.Producer;
+import reactor.core.Receiver;
+import reactor.core.Trackable;
+
+/**
+ * Aggregates every {@code size} subsequent elements into a single accumulator and emits
+ * the accumulated values, without materializing the windows.
+ *
+ * @param <T> the source value type
+ * @param <A> the accumulated type
+ */
+final class FluxAggregateWindow<T, A> extends FluxSource<T, A> {
+
+	final int size;
+
+	final Supplier<A> initial;
+
+	final BiFunction<A, ? super T, A> accumulator;
+
+	public FluxAggregateWindow(Publisher<? extends T> source,
+			int size,
+			Supplier<A> initial,
+			BiFunction<A, ? super T, A> accumulator) {
+		super(source);
+		if (size <= 0) {
+			throw new IllegalArgumentException("size > 0 required but it was " + size);
+		}
+		this.size = size;
+		this.initial = Objects.requireNonNull(initial, "initial");
+		this.accumulator = Objects.requireNonNull(accumulator, "accumulator");
+	}
+
+	@Override
+	public void subscribe(Subscriber<? super A> s) {
+		source.subscribe(new AggregateWindowSubscriber<>(s, size, initial, accumulator));
+	}
+
+	static final class AggregateWindowSubscriber<T, A>
+			implements Subscriber<T>, Subscription, Receiver, Producer, Loopback,
+			           Trackable {
+
+		final Subscriber<? super A> actual;
+
+		final int size;
+
+		final Supplier<A> initial;
+
+		final BiFunction<A, ? super T, A> accumulator;
+
+		A value;
+
+		int index;
+
+		Subscription s;
+
+		boolean done;
+
+		AggregateWindowSubscriber(Subscriber<? super A> actual,
+				int size,
+				Supplier<A> initial,
+				BiFunction<A, ? super T, A> accumulator) {
+			this.actual = actual;
+			this.size = size;
+			this.initial = initial;
+			this.accumulator = accumulator;
+		}
+
+		@Override
+		public void request(long n) {
+			if (Operators.validate(n)) {
+				s.request(Operators.multiplyCap(n, size));
+			}
+		}
+
+		@Override
+		public void cancel() {
+			s.cancel();
+		}
+
+		@Override
+		public void onSubscribe(Subscription s) {
+			if (Operators.validate(this.s, s)) {
+				this.s = s;
+
+				actual.onSubscribe(this);
+			}
+		}
+
+		@Override
+		public void onNext(T t) {
+			if (done) {
+				Operators.onNextDropped(t);
+				return;
+			}
+
+			A a;
+			try {
+				a = value;
+				if (a == null) {
+					a = Objects.requireNonNull(initial.get(), "The initial supplier returned a null value");
+				}
+				a = Objects.requireNonNull(accumulator.apply(a, t), "The accumulator returned a null value");
+			}
+			catch (Throwable e) {
+				value = null;
+				onError(Operators.onOperatorError(s, e, t));
+				return;
+			}
+
+			if (++index == size) {
+				index = 0;
+				value = null;
+				actual.onNext(a);
+			}
+			else {
+				value = a;
+			}
+		}
+
+		@Override
+		public void onError(Throwable t) {
+			if (done) {
+				Operators.onErrorDropped(t);
+				return;
+			}
+			done = true;
+			value = null;
+			actual.onError(t);
+		}
+
+		@Override
+		public void onComplete() {
+			if (done) {
+				return;
+			}
+			done = true;
+
+			A a = value;
+			if (a != null) {
+				value = null;
+				actual.onNext(a);
+			}
+			actual.onComplete();
+		}
+
+		@Override
+		public boolean isStarted() {
+			return s != null && !done;
+		}
+
+		@Override
+		public boolean isTerminated() {
+			return done;
+		}
+
+		@Override
+		public Object downstream() {
+			return actual;
+		}
+
+		@Override
+		public Object connectedInput() {
+			return accumulator;
+		}
+
+		@Override
+		public Object connectedOutput() {
+			return value;
+		}
+
+		@Override
+		public Object upstream() {
+			return s;
+		}
+
+		@Override
+		public long getPending() {
+			return index;
+		}
+
+		@Override
+		public long getCapacity() {
+			return size;
+		}
+	}
+}
@@ -0,0 +1,392 @@
+/*
+ * Copyright (c) 2011-2016 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.Producer;
+import reactor.core.Receiver;
+import reactor.core.Trackable;
+import reactor.core.scheduler.TimedScheduler;
+import reactor.util.concurrent.QueueSupplier;
+
+/**
+ * Aggregates the elements of the source into a single accumulator per tumbling window of
+ * {@code timespan} milliseconds and emits the accumulated value when the window closes,
+ * without materializing the windows. A window without element emits a fresh initial
+ * accumulator, except for the last one.
+ * <p>
+ * The accumulator is only accessed by the thread winning the {@code wip} drain: values
+ * arriving while the periodic task holds the drain are parked into a lazily created
+ * queue.
+ *
+ * @param <T> the source value type
+ * @param <A> the accumulated type
+ */
+final class FluxAggregateWindowTimed<T, A> extends FluxSource<T, A> {
+
+	final long timespan;
+
+	final TimedScheduler timer;
+
+	final Supplier<A> initial;
+
+	final BiFunction<A, ? super T, A> accumulator;
+
+	public FluxAggregateWindowTimed(Publisher<? extends T> source,
+			long timespan,
+			TimedScheduler timer,
+			Supplier<A> initial,
+			BiFunction<A, ? super T, A> accumulator) {
+		super(source);
+		if (timespan <= 0L) {
+			throw new IllegalArgumentException("timespan > 0 required but it was " + timespan);
+		}
+		this.timespan = timespan;
+		this.timer = Objects.requireNonNull(timer, "timer");
+		this.initial = Objects.requireNonNull(initial, "initial");
+		this.accumulator = Objects.requireNonNull(accumulator, "accumulator");
+	}
+
+	@Override
+	public long getPrefetch() {
+		return Long.MAX_VALUE;
+	}
+
+	@Override
+	public void subscribe(Subscriber<? super A> s) {
+		source.subscribe(new AggregateWindowTimedSubscriber<>(s,
+				timespan,
+				timer.createWorker(),
+				initial,
+				accumulator));
+	}
+
+	static final class AggregateWindowTimedSubscriber<T, A>
+			implements Subscriber<T>, Subscription, Runnable, Trackable, Producer, Receiver {
+
+		final Subscriber<? super A> actual;
+
+		final long timespan;
+
+		final TimedScheduler.TimedWorker worker;
+
+		final Supplier<A> initial;
+
+		final BiFunction<A, ? super T, A> accumulator;
+
+		Subscription s;
+
+		/** The current accumulator, null if the window has no element yet */
+		A value;
+
+		Queue<T> missed;
+
+		/** True once a terminal signal has been emitted, only accessed within the drain */
+		boolean terminated;
+
+		volatile boolean done;
+		Throwable error;
+
+		volatile boolean cancelled;
+
+		volatile long requested;
+		@SuppressWarnings("rawtypes")
+		static final AtomicLongFieldUpdater<AggregateWindowTimedSubscriber> REQUESTED =
+				AtomicLongFieldUpdater.newUpdater(AggregateWindowTimedSubscriber.class, "requested");
+
+		/** Windows closed by the periodic task and not yet emitted */
+		volatile int ticks;
+		@SuppressWarnings("rawtypes")
+		static final AtomicIntegerFieldUpdater<AggregateWindowTimedSubscriber> TICKS =
+				AtomicIntegerFieldUpdater.newUpdater(AggregateWindowTimedSubscriber.class, "ticks");
+
+		volatile int wip;
+		@SuppressWarnings("rawtypes")
+		static final AtomicIntegerFieldUpdater<AggregateWindowTimedSubscriber> WIP =
+				AtomicIntegerFieldUpdater.newUpdater(AggregateWindowTimedSubscriber.class, "wip");
+
+		AggregateWindowTimedSubscriber(Subscriber<? super A> actual,
+				long timespan,
+				TimedScheduler.TimedWorker worker,
+				Supplier<A> initial,
+				BiFunction<A, ? super T, A> accumulator) {
+			this.actual = actual;
+			this.timespan = timespan;
+			this.worker = worker;
+			this.initial = initial;
+			this.accumulator = accumulator;
+		}
+
+		@Override
+		public void onSubscribe(Subscription s) {
+			if (Operators.validate(this.s, s)) {
+				this.s = s;
+				actual.onSubscribe(this);
+				if (!cancelled) {
+					worker.schedulePeriodically(this, timespan, timespan, TimeUnit.MILLISECONDS);
+					s.request(Long.MAX_VALUE);
+				}
+			}
+		}
+
+		@Override
+		public void onNext(T t) {
+			if (done) {
+				Operators.onNextDropped(t);
+				return;
+			}
+			if (wip == 0 && WIP.compareAndSet(this, 0, 1)) {
+				Queue<T> q = missed;
+				if (q == null || q.isEmpty()) {
+					if (!terminated) {
+						accumulate(t);
+					}
+					if (WIP.decrementAndGet(this) == 0) {
+						return;
+					}
+				}
+				else {
+					// keep the order of the values parked by a previous contention
+					q.offer(t);
+				}
+			}
+			else {
+				Queue<T> q = missed;
+				if (q == null) {
+					q = QueueSupplier.<T>unbounded(QueueSupplier.XS_BUFFER_SIZE).get();
+					missed = q;
+				}
+				q.offer(t);
+				if (WIP.getAndIncrement(this) != 0) {
+					return;
+				}
+			}
+			drainLoop();
+		}
+
+		@Override
+		public void onError(Throwable t) {
+			if (done) {
+				Operators.onErrorDropped(t);
+				return;
+			}
+			error = t;
+			done = true;
+			drain();
+		}
+
+		@Override
+		public void onComplete() {
+			if (done) {
+				return;
+			}
+			done = true;
+			drain();
+		}
+
+		@Override
+		public void request(long n) {
+			if (Operators.validate(n)) {
+				Operators.getAndAddCap(REQUESTED, this, n);
+			}
+		}
+
+		@Override
+		public void cancel() {
+			if (!cancelled) {
+				cancelled = true;
+				worker.shutdown();
+				s.cancel();
+				drain();
+			}
+		}
+
+		@Override
+		public void run() {
+			TICKS.incrementAndGet(this);
+			drain();
+		}
+
+		void accumulate(T t) {
+			try {
+				A a = value;
+				if (a == null) {
+					a = Objects.requireNonNull(initial.get(), "The initial supplier returned a null value");
+				}
+				value = Objects.requireNonNull(accumulator.apply(a, t), "The accumulator returned a null value");
+			}
+			catch (Throwable e) {
+				fail(Operators.onOperatorError(s, e, t));
+			}
+		}
+
+		/**
+		 * Emit the current window, or a fresh initial accumulator if it has no element.
+		 */
+		void emitWindow() {
+			A a = value;
+			value = null;
+			if (a == null) {
+				try {
+					a = Objects.requireNonNull(initial.get(), "The initial supplier returned a null value");
+				}
+				catch (Throwable e) {
+					fail(Operators.onOperatorError(s, e));
+					return;
+				}
+			}
+			emit(a);
+		}
+
+		void emit(A a) {
+			long r = requested;
+			if (r == 0L) {
+				fail(new IllegalStateException("Could not emit window due to lack of requests"));
+				return;
+			}
+			actual.onNext(a);
+			if (r != Long.MAX_VALUE) {
+				REQUESTED.decrementAndGet(this);
+			}
+		}
+
+		/**
+		 * Terminate with an error from within the drain.
+		 *
+		 * @param e the error
+		 */
+		void fail(Throwable e) {
+			terminated = true;
+			value = null;
+			worker.shutdown();
+			s.cancel();
+			actual.onError(e);
+		}
+
+		void drain() {
+			if (WIP.getAndIncrement(this) == 0) {
+				drainLoop();
+			}
+		}
+
+		void drainLoop() {
+			int m = 1;
+			for (;;) {
+				Queue<T> q = missed;
+				if (cancelled || terminated) {
+					value = null;
+					if (q != null) {
+						q.clear();
+					}
+				}
+				else {
+					boolean d = done;
+
+					if (q != null) {
+						T v;
+						while (!terminated && (v = q.poll()) != null) {
+							accumulate(v);
+						}
+					}
+
+					int tk = ticks;
+					if (tk != 0) {
+						TICKS.addAndGet(this, -tk);
+						for (int i = 0; i < tk && !terminated; i++) {
+							emitWindow();
+						}
+					}
+
+					if (d && !terminated && (q == null || q.isEmpty())) {
+						terminated = true;
+						worker.shutdown();
+						Throwable e = error;
+						if (e != null) {
+							value = null;
+							actual.onError(e);
+						}
+						else {
+							A a = value;
+							if (a != null) {
+								value = null;
+								if (requested != 0L) {
+									actual.onNext(a);
+								}
+								else {
+									actual.onError(new IllegalStateException(
+											"Could not emit window due to lack of requests"));
+									continue;
+								}
+							}
+							actual.onComplete();
+						}
+					}
+				}
+
+				m = WIP.addAndGet(this, -m);
+				if (m == 0) {
+					break;
+				}
+			}
+		}
+
+		@Override
+		public Object upstream() {
+			return s;
+		}
+
+		@Override
+		public Object downstream() {
+			return actual;
+		}
+
+		@Override
+		public boolean isStarted() {
+			return s != null && !done;
+		}
+
+		@Override
+		public boolean isTerminated() {
+			return done;
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return cancelled;
+		}
+
+		@Override
+		public Throwable getError() {
+			return error;
+		}
+
+		@Override
+		public long requestedFromDownstream() {
+			return requested;
+		}
+	}
+}
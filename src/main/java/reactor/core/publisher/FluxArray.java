@@ -41,27 +41,83 @@ extends Flux<T>
 		implements Fuseable {
 	final T[] array;
 
+	/** Start of the elements checked for null, those before offset being skipped */
+	final int origin;
+
+	final int offset;
+
+	final int end;
+
 	@SafeVarargs
 	public FluxArray(T... array) {
 		this.array = Objects.requireNonNull(array, "array");
+		this.origin = 0;
+		this.offset = 0;
+		this.end = array.length;
+	}
+
+	/**
+	 * Emit the {@code [offset, end)} view of an array, as assembled by
+	 * {@link Flux#skip(long)} and {@link Flux#take(long)} over an array source. The
+	 * skipped {@code [origin, offset)} elements are still checked for null at
+	 * subscription.
+	 */
+	FluxArray(T[] array, int origin, int offset, int end) {
+		this.array = Objects.requireNonNull(array, "array");
+		this.origin = origin;
+		this.offset = offset;
+		this.end = end;
+	}
+
+	/**
+	 * Check the {@code [from, to)} elements of an array are not null.
+	 *
+	 * @throws NullPointerException for the first null element
+	 */
+	static void checkElements(Object[] array, int from, int to) {
+		for (int i = from; i < to; i++) {
+			if (array[i] == null) {
+				throw new NullPointerException("The " + i + "th array element was null");
+			}
+		}
 	}
 
-	@SuppressWarnings("unchecked")
 	public static <T> void subscribe(Subscriber<? super T> s, T[] array) {
-		if (array.length == 0) {
+		subscribe(s, array, 0, array.length);
+	}
+
+	@SuppressWarnings("unchecked")
+	static <T> void subscribe(Subscriber<? super T> s, T[] array, int offset, int end) {
+		if (offset == end) {
 			Operators.complete(s);
 			return;
 		}
 		if (s instanceof ConditionalSubscriber) {
-			s.onSubscribe(new ArrayConditionalSubscription<>((ConditionalSubscriber<? super T>)s, array));
+			s.onSubscribe(new ArrayConditionalSubscription<>((ConditionalSubscriber<? super T>)s, array, offset, end));
 		} else {
-			s.onSubscribe(new ArraySubscription<>(s, array));
+			s.onSubscribe(new ArraySubscription<>(s, array, offset, end));
 		}
 	}
 
 	@Override
 	public void subscribe(Subscriber<? super T> s) {
-		subscribe(s, array);
+		if (origin != offset) {
+			try {
+				checkElements(array, origin, offset);
+			}
+			catch (NullPointerException e) {
+				Operators.error(s, e);
+				return;
+			}
+		}
+		subscribe(s, array, offset, end);
+	}
+
+	/**
+	 * @return the number of elements emitted
+	 */
+	int size() {
+		return end - offset;
 	}
 
 	static final class ArraySubscription<T>
@@ -71,6 +127,8 @@ extends Flux<T>
 
 		final T[] array;
 
+		final int end;
+
 		int index;
 
 		volatile boolean cancelled;
@@ -81,8 +139,14 @@ extends Flux<T>
 		  AtomicLongFieldUpdater.newUpdater(ArraySubscription.class, "requested");
 
 		public ArraySubscription(Subscriber<? super T> actual, T[] array) {
+			this(actual, array, 0, array.length);
+		}
+
+		ArraySubscription(Subscriber<? super T> actual, T[] array, int offset, int end) {
 			this.actual = actual;
 			this.array = array;
+			this.index = offset;
+			this.end = end;
 		}
 
 		@Override
@@ -100,7 +164,7 @@ extends Flux<T>
 
 		void slowPath(long n) {
 			final T[] a = array;
-			final int len = a.length;
+			final int len = end;
 			final Subscriber<? super T> s = actual;
 
 			int i = index;
@@ -149,7 +213,7 @@ extends Flux<T>
 
 		void fastPath() {
 			final T[] a = array;
-			final int len = a.length;
+			final int len = end;
 			final Subscriber<? super T> s = actual;
 
 			for (int i = index; i != len; i++) {
@@ -207,7 +271,7 @@ extends Flux<T>
 		public T poll() {
 			int i = index;
 			T[] a = array;
-			if (i != a.length) {
+			if (i != end) {
 				T t = a[i];
 				if (t == null) {
 					throw new NullPointerException();
@@ -220,17 +284,22 @@ extends Flux<T>
 
 		@Override
 		public boolean isEmpty() {
-			return index == array.length;
+			return index == end;
 		}
 
 		@Override
 		public void clear() {
-			index = array.length;
+			index = end;
 		}
 
 		@Override
 		public int size() {
-			return array.length - index;
+			return end - index;
+		}
+
+		@Override
+		public long sizeEstimate() {
+			return end - index;
 		}
 	}
 
@@ -241,6 +310,8 @@ extends Flux<T>
 
 		final T[] array;
 
+		final int end;
+
 		int index;
 
 		volatile boolean cancelled;
@@ -253,8 +324,15 @@ extends Flux<T>
 
 		public ArrayConditionalSubscription(ConditionalSubscriber<? super T> actual,
 				T[] array) {
+			this(actual, array, 0, array.length);
+		}
+
+		ArrayConditionalSubscription(ConditionalSubscriber<? super T> actual,
+				T[] array, int offset, int end) {
 			this.actual = actual;
 			this.array = array;
+			this.index = offset;
+			this.end = end;
 		}
 
 		@Override
@@ -273,7 +351,7 @@ extends Flux<T>
 
 		void slowPath(long n) {
 			final T[] a = array;
-			final int len = a.length;
+			final int len = end;
 			final ConditionalSubscriber<? super T> s = actual;
 
 			int i = index;
@@ -324,7 +402,7 @@ extends Flux<T>
 
 		void fastPath() {
 			final T[] a = array;
-			final int len = a.length;
+			final int len = end;
 			final Subscriber<? super T> s = actual;
 
 			for (int i = index; i != len; i++) {
@@ -381,7 +459,7 @@ extends Flux<T>
 		public T poll() {
 			int i = index;
 			T[] a = array;
-			if (i != a.length) {
+			if (i != end) {
 				T t = a[i];
 				if (t == null) {
 					throw new NullPointerException();
@@ -394,17 +472,22 @@ extends Flux<T>
 
 		@Override
 		public boolean isEmpty() {
-			return index == array.length;
+			return index == end;
 		}
 
 		@Override
 		public void clear() {
-			index = array.length;
+			index = end;
 		}
 
 		@Override
 		public int size() {
-			return array.length - index;
+			return end - index;
+		}
+
+		@Override
+		public long sizeEstimate() {
+			return end - index;
 		}
 	}
 
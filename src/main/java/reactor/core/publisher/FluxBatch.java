@@ -17,6 +17,7 @@
 package reactor.core.publisher;
 
 import java.util.Objects;
+import java.util.Queue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicLongFieldUpdater;
@@ -24,10 +25,17 @@ import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import org.reactivestreams.Publisher;
 import org.reactivestreams.Subscriber;
 import org.reactivestreams.Subscription;
-import reactor.core.Cancellation;
+import reactor.core.Producer;
+import reactor.core.Receiver;
+import reactor.core.Trackable;
 import reactor.core.scheduler.TimedScheduler;
+import reactor.util.concurrent.QueueSupplier;
 
 /**
+ * Base of the operators splitting a sequence into batches closed either when
+ * {@code batchSize} values have been collected or {@code timespan} milliseconds
+ * after the first value of the batch, whichever comes first.
+ *
  * @author Stephane Maldini
  */
 abstract class FluxBatch<T, V> extends FluxSource<T, V> {
@@ -53,237 +61,449 @@ abstract class FluxBatch<T, V> extends FluxSource<T, V> {
 		this.batchSize = batchSize;
 	}
 
-	final Subscriber<? super V> prepareSub(Subscriber<? super V> actual) {
-		return Operators.serialize(actual);
-	}
+	/**
+	 * Collects values into batches, all batch state being only accessed by the thread
+	 * winning the {@code wip} drain: upstream values that arrive while the timer or a
+	 * request holds the drain are parked into a lazily created queue. A single
+	 * reusable timer task is armed per subscription: when a batch is closed by size
+	 * the task is left running and simply re-armed for the remaining time of the
+	 * current batch when it fires.
+	 * <p>
+	 * Upstream is only ever asked for enough values to fill the current batch, so that
+	 * a batch can always be closed by size when the downstream requested it, or its
+	 * values are parked until then.
+	 *
+	 * @param <T> the source value type
+	 * @param <V> the batch type
+	 */
+	static abstract class BatchSubscriber<T, V>
+			implements Subscriber<T>, Subscription, Runnable, Trackable, Producer, Receiver {
 
-	static abstract class BatchAction<T, V> extends Operators.SubscriberAdapter<T, V> {
+		final Subscriber<? super V> actual;
 
-		static final Exception FAILED_SATE =
-				new RuntimeException("Failed Subscriber") {
-					/** */
-					private static final long serialVersionUID = 7503907754069414227L;
+		final int batchSize;
 
-					@Override
-					public synchronized Throwable fillInStackTrace() {
-						return null;
-					}
-				};
-		final static int NOT_TERMINATED          = 0;
-		final static int TERMINATED_WITH_SUCCESS = 1;
-		final static int TERMINATED_WITH_ERROR   = 2;
-
-		final static int TERMINATED_WITH_CANCEL  = 3;
-		final boolean                    first;
-		final int                        batchSize;
-		final long                       timespan;
-		final TimedScheduler.TimedWorker timer;
-		final Runnable                   flushTask;
-
-		volatile int                                    terminated =
-				NOT_TERMINATED;
-		@SuppressWarnings("rawtypes")
-		static final     AtomicIntegerFieldUpdater<BatchAction> TERMINATED =
-				AtomicIntegerFieldUpdater.newUpdater(BatchAction.class, "terminated");
+		final long timespan;
 
+		final TimedScheduler.TimedWorker worker;
 
-		volatile long requested;
+		Subscription s;
 
+		Queue<T> missed;
+
+		volatile int wip;
+		@SuppressWarnings("rawtypes")
+		static final AtomicIntegerFieldUpdater<BatchSubscriber> WIP =
+				AtomicIntegerFieldUpdater.newUpdater(BatchSubscriber.class, "wip");
+
+		volatile long requested;
 		@SuppressWarnings("rawtypes")
-		static final AtomicLongFieldUpdater<BatchAction> REQUESTED =
-				AtomicLongFieldUpdater.newUpdater(BatchAction.class, "requested");
+		static final AtomicLongFieldUpdater<BatchSubscriber> REQUESTED =
+				AtomicLongFieldUpdater.newUpdater(BatchSubscriber.class, "requested");
 
-		volatile int index = 0;
+		volatile boolean done;
+		Throwable error;
 
-		static final     AtomicIntegerFieldUpdater<BatchAction> INDEX =
-				AtomicIntegerFieldUpdater.newUpdater(BatchAction.class, "index");
+		volatile boolean cancelled;
 
-		volatile Cancellation timespanRegistration;
+		volatile boolean timeout;
 
-		public BatchAction(Subscriber<? super V> actual,
+		/** Number of values in the current batch, 0 when no batch is open */
+		int index;
+
+		/** Time at which the current batch must be closed */
+		long deadline;
+
+		boolean timerArmed;
+
+		/** True when the current batch could not be closed for lack of request */
+		boolean pendingClose;
+
+		boolean unbounded;
+
+		/** Values requested from upstream and not yet received */
+		long outstanding;
+
+		/** Values to request from upstream once the drain has been left */
+		long toRequest;
+
+		BatchSubscriber(Subscriber<? super V> actual,
 				int batchSize,
-				boolean first,
 				long timespan,
-				final TimedScheduler.TimedWorker timer) {
+				TimedScheduler.TimedWorker worker) {
+			this.actual = actual;
+			this.batchSize = batchSize;
+			this.timespan = timespan;
+			this.worker = worker;
+		}
 
-			super(actual);
+		/**
+		 * Open a new batch starting with the given value. Failures are reported with
+		 * {@link #fail(Throwable)}.
+		 *
+		 * @param first the first value of the batch
+		 * @return false if the batch cannot be opened yet for lack of request
+		 */
+		abstract boolean openBatch(T first);
 
-			this.timespan = timespan;
-			this.timer = timer;
-			this.flushTask = () -> {
-				if (!isTerminated()) {
-					int index;
-					for(;;){
-						index = this.index;
-						if(index == 0){
-							return;
-						}
-						if(INDEX.compareAndSet(this, index, 0)){
-							break;
-						}
-					}
-					flushCallback(null);
-				}
-			};
+		/**
+		 * Add a value to the current batch.
+		 *
+		 * @param value the value
+		 */
+		abstract void addToBatch(T value);
 
-			this.first = first;
-			this.batchSize = batchSize;
+		/**
+		 * Close the current, non-empty batch.
+		 *
+		 * @return false if the batch cannot be closed yet for lack of request
+		 */
+		abstract boolean closeBatch();
+
+		/**
+		 * Discard the current batch, if any, following an error or a cancellation.
+		 *
+		 * @param e the error or null if cancelled
+		 */
+		abstract void discardBatch(Throwable e);
+
+		/**
+		 * @return true if filling the current batch needs a pending downstream request
+		 */
+		abstract boolean fillNeedsRequest();
+
+		@Override
+		public void onSubscribe(Subscription s) {
+			if (Operators.validate(this.s, s)) {
+				this.s = s;
+				actual.onSubscribe(this);
+			}
 		}
 
-		void doRequested(long before, long n) {
-			if (isTerminated()) {
+		@Override
+		public void onNext(T t) {
+			if (done) {
+				Operators.onNextDropped(t);
 				return;
 			}
-			if (batchSize == Integer.MAX_VALUE || n == Long.MAX_VALUE) {
-				requestMore(Long.MAX_VALUE);
+			if (wip == 0 && WIP.compareAndSet(this, 0, 1)) {
+				Queue<T> q = missed;
+				if ((q != null && !q.isEmpty()) || !accept(t)) {
+					park(t);
+				}
+				if (toRequest == 0L && !done && WIP.decrementAndGet(this) == 0) {
+					return;
+				}
 			}
 			else {
-				requestMore(Operators.multiplyCap(n, batchSize));
+				park(t);
+				if (WIP.getAndIncrement(this) != 0) {
+					return;
+				}
 			}
+			drainLoop();
 		}
 
-		void nextCallback(T event) {
+		@Override
+		public void onError(Throwable t) {
+			if (done) {
+				Operators.onErrorDropped(t);
+				return;
+			}
+			error = t;
+			done = true;
+			drain();
 		}
 
-		void flushCallback(T event) {
+		@Override
+		public void onComplete() {
+			if (done) {
+				return;
+			}
+			done = true;
+			drain();
 		}
 
-		void firstCallback(T event) {
+		@Override
+		public void request(long n) {
+			if (Operators.validate(n)) {
+				Operators.getAndAddCap(REQUESTED, this, n);
+				drain();
+			}
 		}
 
 		@Override
-		protected void doNext(final T value) {
-			int index;
-			for(;;){
-				index = this.index + 1;
-				if(INDEX.compareAndSet(this, index - 1, index)){
-					break;
-				}
+		public void cancel() {
+			if (!cancelled) {
+				cancelled = true;
+				s.cancel();
+				worker.shutdown();
+				drain();
 			}
+		}
 
-			if (index == 1) {
-				timespanRegistration =
-						timer.schedule(flushTask, timespan, TimeUnit.MILLISECONDS);
-				if (first) {
-					firstCallback(value);
-				}
-			}
+		@Override
+		public void run() {
+			timeout = true;
+			drain();
+		}
 
-			nextCallback(value);
+		void park(T t) {
+			Queue<T> q = missed;
+			if (q == null) {
+				q = QueueSupplier.<T>unbounded(QueueSupplier.XS_BUFFER_SIZE).get();
+				missed = q;
+			}
+			q.offer(t);
+		}
 
-			if (this.index % batchSize == 0) {
-				this.index = 0;
-				if (timespanRegistration != null) {
-					timespanRegistration.dispose();
-					timespanRegistration = null;
+		boolean accept(T t) {
+			if (pendingClose) {
+				return false;
+			}
+			if (index == 0) {
+				if (!openBatch(t)) {
+					return false;
 				}
-				flushCallback(value);
+				if (error != null) {
+					return true;
+				}
+				deadline = worker.now(TimeUnit.MILLISECONDS) + timespan;
+				if (!timerArmed) {
+					armTimer(timespan);
+				}
+			}
+			index++;
+			if (outstanding > 0L) {
+				outstanding--;
 			}
+			addToBatch(t);
+			if (index >= batchSize) {
+				close();
+			}
+			return true;
 		}
 
-		void checkedComplete() {
-			try {
-				flushCallback(null);
+		void close() {
+			if (closeBatch()) {
+				index = 0;
+				pendingClose = false;
+				replenish();
 			}
-			finally {
-				subscriber.onComplete();
+			else {
+				pendingClose = true;
 			}
 		}
 
-		@Override
-		public boolean isTerminated() {
-			return terminated != NOT_TERMINATED;
+		void armTimer(long delay) {
+			timerArmed = true;
+			worker.schedule(this, delay, TimeUnit.MILLISECONDS);
 		}
 
-		/**
-		 * @return has this {@link Subscriber} terminated with success ?
-		 */
-		public final boolean isCompleted() {
-			return terminated == TERMINATED_WITH_SUCCESS;
+		void onTimeout() {
+			timerArmed = false;
+			if (index == 0 || pendingClose) {
+				return;
+			}
+			long now = worker.now(TimeUnit.MILLISECONDS);
+			if (now < deadline) {
+				// armed for an earlier batch closed by size
+				armTimer(deadline - now);
+				return;
+			}
+			close();
 		}
 
-		/**
-		 * @return has this {@link Subscriber} terminated with an error ?
-		 */
-		public final boolean isFailed() {
-			return terminated == TERMINATED_WITH_ERROR;
+		void replenish() {
+			if (unbounded || done) {
+				return;
+			}
+			long r = requested;
+			if (r == Long.MAX_VALUE || batchSize == Integer.MAX_VALUE) {
+				unbounded = r != 0L;
+				if (unbounded) {
+					toRequest = Long.MAX_VALUE;
+				}
+				return;
+			}
+			if (r == 0L && fillNeedsRequest()) {
+				return;
+			}
+			long n = batchSize - index - outstanding;
+			if (n > 0L) {
+				outstanding += n;
+				toRequest += n;
+			}
 		}
 
 		/**
-		 * @return has this {@link Subscriber} been cancelled
+		 * Signal an error from within the drain: upstream is cancelled and the
+		 * error delivered by the drain loop.
+		 *
+		 * @param e the error
 		 */
-		@Override
-		public final boolean isCancelled() {
-			return terminated == TERMINATED_WITH_CANCEL;
+		void fail(Throwable e) {
+			s.cancel();
+			if (!done) {
+				error = e;
+				done = true;
+			}
+			else {
+				Operators.onErrorDropped(e);
+			}
 		}
 
-		@Override
-		public final long requestedFromDownstream() {
-			return requested;
+		void drain() {
+			if (WIP.getAndIncrement(this) == 0) {
+				drainLoop();
+			}
 		}
 
-		@Override
-		protected void doRequest(long n) {
-			doRequested(Operators.getAndAddCap(REQUESTED, this, n), n);
+		void drainLoop() {
+			int m = 1;
+			long upstreamRequest = 0L;
+
+			for (;;) {
+				if (cancelled) {
+					Queue<T> q = missed;
+					if (q != null) {
+						q.clear();
+					}
+					discardBatch(null);
+					return;
+				}
+
+				boolean d = done;
+
+				if (d && error != null) {
+					terminate();
+					return;
+				}
+
+				if (timeout) {
+					timeout = false;
+					onTimeout();
+				}
+
+				if (pendingClose) {
+					close();
+				}
+
+				replenish();
+
+				Queue<T> q = missed;
+				boolean empty = true;
+				if (q != null) {
+					T v;
+					while (error == null && (v = q.peek()) != null) {
+						if (!accept(v)) {
+							break;
+						}
+						q.poll();
+					}
+					empty = q.isEmpty();
+				}
+
+				if (done && error != null) {
+					// failed within the drain
+					terminate();
+					return;
+				}
+
+				if (d && empty) {
+					if (index == 0 || closeBatch()) {
+						index = 0;
+						terminate();
+						return;
+					}
+				}
+
+				upstreamRequest = Operators.addCap(upstreamRequest, toRequest);
+				toRequest = 0L;
+
+				m = WIP.addAndGet(this, -m);
+				if (m == 0) {
+					break;
+				}
+			}
+
+			if (upstreamRequest != 0L) {
+				s.request(upstreamRequest);
+			}
+		}
+
+		void terminate() {
+			worker.shutdown();
+			Throwable e = error;
+			if (e != null) {
+				Queue<T> q = missed;
+				if (q != null) {
+					q.clear();
+				}
+				discardBatch(e);
+				actual.onError(e);
+			}
+			else {
+				actual.onComplete();
+			}
 		}
 
-		final void requestMore(long n) {
-			Subscription s = this.subscription;
-			if (s != null) {
-				s.request(n);
+		final void produced() {
+			if (requested != Long.MAX_VALUE) {
+				REQUESTED.decrementAndGet(this);
 			}
 		}
 
 		@Override
-		protected void doComplete() {
-			if (TERMINATED.compareAndSet(this, NOT_TERMINATED, TERMINATED_WITH_SUCCESS)) {
-				checkedComplete();
-				doTerminate();
-			}
+		public final Object upstream() {
+			return s;
 		}
 
 		@Override
-		protected void doError(Throwable throwable) {
-			if (TERMINATED.compareAndSet(this, NOT_TERMINATED, TERMINATED_WITH_ERROR)) {
-				checkedError(throwable);
-				doTerminate();
-			}
+		public final Object downstream() {
+			return actual;
 		}
 
-		void checkedError(Throwable throwable) {
-			subscriber.onError(throwable);
+		@Override
+		public final boolean isStarted() {
+			return s != null && !done;
 		}
 
 		@Override
-		protected void doCancel() {
-			if (TERMINATED.compareAndSet(this, NOT_TERMINATED, TERMINATED_WITH_CANCEL)) {
-				checkedCancel();
-				doTerminate();
-			}
+		public final boolean isTerminated() {
+			return done;
+		}
+
+		@Override
+		public final boolean isCancelled() {
+			return cancelled;
 		}
 
-		void checkedCancel() {
-			super.doCancel();
+		@Override
+		public final Throwable getError() {
+			return error;
 		}
 
-		void doTerminate() {
-			timer.shutdown();
+		@Override
+		public final long requestedFromDownstream() {
+			return requested;
 		}
 
 		@Override
-		public Throwable getError() {
-			return isFailed() ? FAILED_SATE : null;
+		public final long getCapacity() {
+			return batchSize;
 		}
 
+		@Override
+		public final long getPending() {
+			return index;
+		}
 
 		@Override
 		public String toString() {
-			return super.toString() + "{" + (timer != null ?
-					"timed - " + timespan + " ms" : "") + " batchSize=" +
-					index + "/" +
-					batchSize + " [" + (int) ((((float) index) / ((float) batchSize)) * 100) + "%]";
+			return super.toString() + "{timed - " + timespan + " ms batchSize=" +
+					index + "/" + batchSize + "}";
 		}
-
 	}
 
 }
@@ -95,6 +95,9 @@ final class FluxBuffer<T, C extends Collection<? super T>> extends FluxSource<T,
 
 		boolean done;
 
+		/** Estimated number of values not yet assigned to a buffer, -1 if unknown */
+		long remaining;
+
 		public BufferExactSubscriber(Subscriber<? super C> actual, int size, Supplier<C> bufferSupplier) {
 			this.actual = actual;
 			this.size = size;
@@ -117,6 +120,7 @@ final class FluxBuffer<T, C extends Collection<? super T>> extends FluxSource<T,
 		public void onSubscribe(Subscription s) {
 			if (Operators.validate(this.s, s)) {
 				this.s = s;
+				this.remaining = Operators.sizeEstimate(s);
 
 				actual.onSubscribe(this);
 			}
@@ -145,6 +149,12 @@ final class FluxBuffer<T, C extends Collection<? super T>> extends FluxSource<T,
 					onError(new NullPointerException("The bufferSupplier returned a null buffer"));
 					return;
 				}
+				long r = remaining;
+				if (r > 0L) {
+					long n = Math.min(r, size);
+					Operators.presize(b, n);
+					remaining = r - n;
+				}
 				buffer = b;
 			}
 
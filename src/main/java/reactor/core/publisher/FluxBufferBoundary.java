@@ -206,8 +206,16 @@ final class FluxBufferBoundary<T, U, C extends Collection<? super T>>
 		}
 		
 		void otherNext() {
+			synchronized (this) {
+				C b = buffer;
+				if (b != null && b.isEmpty()) {
+					// nothing to emit, keep filling the current buffer
+					return;
+				}
+			}
+
 			C c;
-			
+
 			try {
 				c = bufferSupplier.get();
 			} catch (Throwable e) {
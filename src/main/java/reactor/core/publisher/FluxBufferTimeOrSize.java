@@ -22,10 +22,13 @@ import java.util.function.Supplier;
 
 import org.reactivestreams.Publisher;
 import org.reactivestreams.Subscriber;
-import org.reactivestreams.Subscription;
 import reactor.core.scheduler.TimedScheduler;
 
 /**
+ * Buffers values into collections emitted either every {@code maxSize} values or
+ * {@code timespan} milliseconds after the first value of a buffer, whichever comes
+ * first. A buffer closed by time is held until the downstream requests it.
+ *
  * @author Stephane Maldini
  */
 final class FluxBufferTimeOrSize<T, C extends Collection<? super T>> extends FluxBatch<T, C> {
@@ -43,61 +46,76 @@ final class FluxBufferTimeOrSize<T, C extends Collection<? super T>> extends Flu
 
 	@Override
 	public void subscribe(Subscriber<? super C> subscriber) {
-		source.subscribe(new BufferAction<>(prepareSub(subscriber),
+		source.subscribe(new BufferTimeoutSubscriber<>(subscriber,
 				batchSize,
 				timespan,
 				timer.createWorker(),
 				bufferSupplier));
 	}
 
-	final static class BufferAction<T, C extends Collection<? super T>> extends BatchAction<T, C> {
+	static final class BufferTimeoutSubscriber<T, C extends Collection<? super T>>
+			extends BatchSubscriber<T, C> {
 
 		final Supplier<C> bufferSupplier;
-		volatile C values;
 
-		public BufferAction(Subscriber<? super C> actual,
+		C buffer;
+
+		BufferTimeoutSubscriber(Subscriber<? super C> actual,
 				int maxSize,
 				long timespan,
-				TimedScheduler.TimedWorker timer,
+				TimedScheduler.TimedWorker worker,
 				Supplier<C> bufferSupplier) {
-			super(actual, maxSize, false, timespan, timer);
+			super(actual, maxSize, timespan, worker);
 			this.bufferSupplier = bufferSupplier;
 		}
 
 		@Override
-		protected void doOnSubscribe(Subscription subscription) {
-			values = bufferSupplier.get();
-			subscriber.onSubscribe(this);
+		boolean openBatch(T first) {
+			C b;
+			try {
+				b = bufferSupplier.get();
+			}
+			catch (Throwable e) {
+				fail(Operators.onOperatorError(e));
+				return true;
+			}
+			if (b == null) {
+				fail(new NullPointerException("The bufferSupplier returned a null buffer"));
+				return true;
+			}
+			buffer = b;
+			return true;
+		}
+
+		@Override
+		void addToBatch(T value) {
+			buffer.add(value);
 		}
 
 		@Override
-		protected void checkedError(Throwable ev) {
-			C v = values;
-			if(v != null) {
-				v.clear();
-				values = null;
+		boolean closeBatch() {
+			if (requested == 0L) {
+				return false;
 			}
-			subscriber.onError(ev);
+			C b = buffer;
+			buffer = null;
+			produced();
+			actual.onNext(b);
+			return true;
 		}
 
 		@Override
-		public void nextCallback(T value) {
-			C v = values;
-			if(v == null) {
-				v = bufferSupplier.get();
-				values = v;
+		void discardBatch(Throwable e) {
+			C b = buffer;
+			if (b != null) {
+				buffer = null;
+				b.clear();
 			}
-			v.add(value);
 		}
 
 		@Override
-		public void flushCallback(T ev) {
-			C v = values;
-			if(v != null && !v.isEmpty()) {
-				values = bufferSupplier.get();
-				subscriber.onNext(v);
-			}
+		boolean fillNeedsRequest() {
+			return true;
 		}
 	}
 }
-
@@ -460,8 +460,29 @@ final class FluxCreate<T> extends Flux<T> {
 
 		@Override
 		public void next(T t) {
-			queue.offer(t);
-			drain();
+			if (wip == 0 && WIP.compareAndSet(this, 0, 1)) {
+				// nothing is draining: skip the queue if it is empty and there is demand
+				Queue<T> q = queue;
+				if (requested != 0L && q.isEmpty()) {
+					if (!isCancelled()) {
+						actual.onNext(t);
+						Operators.produced(REQUESTED, this, 1);
+					}
+				}
+				else {
+					q.offer(t);
+				}
+				if (WIP.decrementAndGet(this) == 0) {
+					return;
+				}
+			}
+			else {
+				queue.offer(t);
+				if (WIP.getAndIncrement(this) != 0) {
+					return;
+				}
+			}
+			drainLoop();
 		}
 
 		@Override
@@ -493,7 +514,10 @@ final class FluxCreate<T> extends Flux<T> {
 			if (WIP.getAndIncrement(this) != 0) {
 				return;
 			}
+			drainLoop();
+		}
 
+		void drainLoop() {
 			int missed = 1;
 			final Subscriber<? super T> a = actual;
 			final Queue<T> q = queue;
@@ -588,8 +612,29 @@ final class FluxCreate<T> extends Flux<T> {
 
 		@Override
 		public void next(T t) {
-			queue.set(t);
-			drain();
+			if (wip == 0 && WIP.compareAndSet(this, 0, 1)) {
+				// nothing is draining: skip the slot if it is empty and there is demand
+				AtomicReference<T> q = queue;
+				if (requested != 0L && q.get() == null) {
+					if (!isCancelled()) {
+						actual.onNext(t);
+						Operators.produced(REQUESTED, this, 1);
+					}
+				}
+				else {
+					q.set(t);
+				}
+				if (WIP.decrementAndGet(this) == 0) {
+					return;
+				}
+			}
+			else {
+				queue.set(t);
+				if (WIP.getAndIncrement(this) != 0) {
+					return;
+				}
+			}
+			drainLoop();
 		}
 
 		@Override
@@ -621,7 +666,10 @@ final class FluxCreate<T> extends Flux<T> {
 			if (WIP.getAndIncrement(this) != 0) {
 				return;
 			}
+			drainLoop();
+		}
 
+		void drainLoop() {
 			int missed = 1;
 			final Subscriber<? super T> a = actual;
 			final AtomicReference<T> q = queue;
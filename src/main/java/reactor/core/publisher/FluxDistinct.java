@@ -15,8 +15,16 @@
  */
 package reactor.core.publisher;
 
+import java.util.AbstractCollection;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -30,30 +38,44 @@ import reactor.core.Loopback;
 import reactor.core.Producer;
 import reactor.core.Receiver;
 import reactor.core.Trackable;
+import reactor.core.scheduler.TimedScheduler;
 
 /**
  * For each subscriber, tracks the source values that have been seen and
  * filters out duplicates.
+ * <p>
+ * Keys are recorded in a store created per subscriber, the distinct predicate adding a
+ * key to the store and returning false if it was already there. Besides any
+ * {@link Collection}, keys can be tracked in bounded memory with a {@link LruKeySet},
+ * an {@link ExpiringKeySet} or an approximate {@link BloomKeyFilter}.
  *
  * @param <T> the source value type
  * @param <K> the key extacted from the source value to be used for duplicate testing
- * @param <C> the collection type whose add() method is used for testing for duplicates
+ * @param <C> the type of the store of the keys seen
  */
 
 /**
  * @see <a href="https://github.com/reactor/reactive-streams-commons">Reactive-Streams-Commons</a>
  */
-final class FluxDistinct<T, K, C extends Collection<? super K>> extends FluxSource<T, T> {
+final class FluxDistinct<T, K, C> extends FluxSource<T, T> {
 
 	final Function<? super T, ? extends K> keyExtractor;
 
 	final Supplier<C> collectionSupplier;
 
+	final BiPredicate<C, K> distinctPredicate;
+
+	final Consumer<C> cleanupCallback;
+
 	public FluxDistinct(Publisher<? extends T> source, Function<? super T, ? extends K> keyExtractor,
-							 Supplier<C> collectionSupplier) {
+							 Supplier<C> collectionSupplier,
+							 BiPredicate<C, K> distinctPredicate,
+							 Consumer<C> cleanupCallback) {
 		super(source);
 		this.keyExtractor = Objects.requireNonNull(keyExtractor, "keyExtractor");
 		this.collectionSupplier = Objects.requireNonNull(collectionSupplier, "collectionSupplier");
+		this.distinctPredicate = Objects.requireNonNull(distinctPredicate, "distinctPredicate");
+		this.cleanupCallback = Objects.requireNonNull(cleanupCallback, "cleanupCallback");
 	}
 
 	@Override
@@ -76,19 +98,27 @@ final class FluxDistinct<T, K, C extends Collection<? super K>> extends FluxSour
 		if (source instanceof Fuseable) {
 			source.subscribe(new DistinctFuseableSubscriber<>(s,
 					collection,
-					keyExtractor));
+					keyExtractor,
+					distinctPredicate,
+					cleanupCallback));
 		}
 		else if (s instanceof ConditionalSubscriber) {
 			source.subscribe(new DistinctConditionalSubscriber<>((ConditionalSubscriber<? super T>) s,
 					collection,
-					keyExtractor));
+					keyExtractor,
+					distinctPredicate,
+					cleanupCallback));
 		}
 		else {
-			source.subscribe(new DistinctSubscriber<>(s, collection, keyExtractor));
+			source.subscribe(new DistinctSubscriber<>(s,
+					collection,
+					keyExtractor,
+					distinctPredicate,
+					cleanupCallback));
 		}
 	}
 
-	static final class DistinctSubscriber<T, K, C extends Collection<? super K>>
+	static final class DistinctSubscriber<T, K, C>
 			implements ConditionalSubscriber<T>, Receiver, Producer, Loopback,
 			           Subscription, Trackable {
 		final Subscriber<? super T> actual;
@@ -97,15 +127,23 @@ final class FluxDistinct<T, K, C extends Collection<? super K>> extends FluxSour
 
 		final Function<? super T, ? extends K> keyExtractor;
 
+		final BiPredicate<C, K> distinctPredicate;
+
+		final Consumer<C> cleanupCallback;
+
 		Subscription s;
 
 		boolean done;
 
 		public DistinctSubscriber(Subscriber<? super T> actual, C collection,
-										   Function<? super T, ? extends K> keyExtractor) {
+										   Function<? super T, ? extends K> keyExtractor,
+										   BiPredicate<C, K> distinctPredicate,
+										   Consumer<C> cleanupCallback) {
 			this.actual = actual;
 			this.collection = collection;
 			this.keyExtractor = keyExtractor;
+			this.distinctPredicate = distinctPredicate;
+			this.cleanupCallback = cleanupCallback;
 		}
 
 		@Override
@@ -144,7 +182,7 @@ final class FluxDistinct<T, K, C extends Collection<? super K>> extends FluxSour
 			boolean b;
 
 			try {
-				b = collection.add(k);
+				b = distinctPredicate.test(collection, k);
 			}
 			catch (Throwable e) {
 				onError(Operators.onOperatorError(s, e, t));
@@ -166,7 +204,7 @@ final class FluxDistinct<T, K, C extends Collection<? super K>> extends FluxSour
 				return;
 			}
 			done = true;
-			collection.clear();
+			cleanupCallback.accept(collection);
 
 			actual.onError(t);
 		}
@@ -177,7 +215,7 @@ final class FluxDistinct<T, K, C extends Collection<? super K>> extends FluxSour
 				return;
 			}
 			done = true;
-			collection.clear();
+			cleanupCallback.accept(collection);
 
 			actual.onComplete();
 		}
@@ -218,7 +256,7 @@ final class FluxDistinct<T, K, C extends Collection<? super K>> extends FluxSour
 		}
 	}
 
-	static final class DistinctConditionalSubscriber<T, K, C extends Collection<? super K>>
+	static final class DistinctConditionalSubscriber<T, K, C>
 			implements ConditionalSubscriber<T>, Receiver, Producer, Loopback,
 			           Subscription, Trackable {
 		final ConditionalSubscriber<? super T> actual;
@@ -227,16 +265,24 @@ final class FluxDistinct<T, K, C extends Collection<? super K>> extends FluxSour
 
 		final Function<? super T, ? extends K> keyExtractor;
 
+		final BiPredicate<C, K> distinctPredicate;
+
+		final Consumer<C> cleanupCallback;
+
 		Subscription s;
 
 		boolean done;
 
 		public DistinctConditionalSubscriber(ConditionalSubscriber<? super T> actual,
 				C collection,
-				Function<? super T, ? extends K> keyExtractor) {
+				Function<? super T, ? extends K> keyExtractor,
+				BiPredicate<C, K> distinctPredicate,
+				Consumer<C> cleanupCallback) {
 			this.actual = actual;
 			this.collection = collection;
 			this.keyExtractor = keyExtractor;
+			this.distinctPredicate = distinctPredicate;
+			this.cleanupCallback = cleanupCallback;
 		}
 
 		@Override
@@ -267,7 +313,7 @@ final class FluxDistinct<T, K, C extends Collection<? super K>> extends FluxSour
 			boolean b;
 
 			try {
-				b = collection.add(k);
+				b = distinctPredicate.test(collection, k);
 			} catch (Throwable e) {
 				onError(Operators.onOperatorError(s, e, t));
 				return;
@@ -301,7 +347,7 @@ final class FluxDistinct<T, K, C extends Collection<? super K>> extends FluxSour
 			boolean b;
 
 			try {
-				b = collection.add(k);
+				b = distinctPredicate.test(collection, k);
 			}
 			catch (Throwable e) {
 				onError(Operators.onOperatorError(s, e, t));
@@ -322,7 +368,7 @@ final class FluxDistinct<T, K, C extends Collection<? super K>> extends FluxSour
 				return;
 			}
 			done = true;
-			collection.clear();
+			cleanupCallback.accept(collection);
 
 			actual.onError(t);
 		}
@@ -333,7 +379,7 @@ final class FluxDistinct<T, K, C extends Collection<? super K>> extends FluxSour
 				return;
 			}
 			done = true;
-			collection.clear();
+			cleanupCallback.accept(collection);
 
 			actual.onComplete();
 		}
@@ -374,7 +420,7 @@ final class FluxDistinct<T, K, C extends Collection<? super K>> extends FluxSour
 		}
 	}
 
-	static final class DistinctFuseableSubscriber<T, K, C extends Collection<? super K>>
+	static final class DistinctFuseableSubscriber<T, K, C>
 			implements ConditionalSubscriber<T>, Receiver, Producer, Loopback,
 			           QueueSubscription<T>, Trackable {
 		final Subscriber<? super T> actual;
@@ -383,6 +429,10 @@ final class FluxDistinct<T, K, C extends Collection<? super K>> extends FluxSour
 
 		final Function<? super T, ? extends K> keyExtractor;
 
+		final BiPredicate<C, K> distinctPredicate;
+
+		final Consumer<C> cleanupCallback;
+
 		QueueSubscription<T> qs;
 
 		boolean done;
@@ -390,10 +440,14 @@ final class FluxDistinct<T, K, C extends Collection<? super K>> extends FluxSour
 		int sourceMode;
 
 		public DistinctFuseableSubscriber(Subscriber<? super T> actual, C collection,
-				Function<? super T, ? extends K> keyExtractor) {
+				Function<? super T, ? extends K> keyExtractor,
+				BiPredicate<C, K> distinctPredicate,
+				Consumer<C> cleanupCallback) {
 			this.actual = actual;
 			this.collection = collection;
 			this.keyExtractor = keyExtractor;
+			this.distinctPredicate = distinctPredicate;
+			this.cleanupCallback = cleanupCallback;
 		}
 
 		@SuppressWarnings("unchecked")
@@ -438,7 +492,7 @@ final class FluxDistinct<T, K, C extends Collection<? super K>> extends FluxSour
 			boolean b;
 
 			try {
-				b = collection.add(k);
+				b = distinctPredicate.test(collection, k);
 			}
 			catch (Throwable e) {
 				onError(Operators.onOperatorError(qs, e, t));
@@ -460,7 +514,7 @@ final class FluxDistinct<T, K, C extends Collection<? super K>> extends FluxSour
 				return;
 			}
 			done = true;
-			collection.clear();
+			cleanupCallback.accept(collection);
 
 			actual.onError(t);
 		}
@@ -471,7 +525,7 @@ final class FluxDistinct<T, K, C extends Collection<? super K>> extends FluxSour
 				return;
 			}
 			done = true;
-			collection.clear();
+			cleanupCallback.accept(collection);
 
 			actual.onComplete();
 		}
@@ -525,7 +579,7 @@ final class FluxDistinct<T, K, C extends Collection<? super K>> extends FluxSour
 				for (; ; ) {
 					T v = qs.poll();
 
-					if (v == null || collection.add(keyExtractor.apply(v))) {
+					if (v == null || distinctPredicate.test(collection, keyExtractor.apply(v))) {
 						if (dropped != 0) {
 							request(dropped);
 						}
@@ -538,7 +592,7 @@ final class FluxDistinct<T, K, C extends Collection<? super K>> extends FluxSour
 				for (; ; ) {
 					T v = qs.poll();
 
-					if (v == null || collection.add(keyExtractor.apply(v))) {
+					if (v == null || distinctPredicate.test(collection, keyExtractor.apply(v))) {
 						return v;
 					}
 				}
@@ -553,7 +607,7 @@ final class FluxDistinct<T, K, C extends Collection<? super K>> extends FluxSour
 		@Override
 		public void clear() {
 			qs.clear();
-			collection.clear();
+			cleanupCallback.accept(collection);
 		}
 
 		@Override
@@ -562,4 +616,246 @@ final class FluxDistinct<T, K, C extends Collection<? super K>> extends FluxSour
 		}
 	}
 
+	/**
+	 * Remembers the last {@code maxSize} distinct keys added, forgetting the least
+	 * recently seen key when full. Adding a key already present refreshes it.
+	 *
+	 * @param <K> the key type
+	 */
+	static final class LruKeySet<K> extends AbstractCollection<K> {
+
+		final Map<K, Boolean> map;
+
+		LruKeySet(int maxSize) {
+			if (maxSize <= 0) {
+				throw new IllegalArgumentException("maxSize > 0 required but it was " + maxSize);
+			}
+			this.map = new LinkedHashMap<K, Boolean>(16, 0.75f, true) {
+				/** */
+				private static final long serialVersionUID = -5195418599598853604L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<K, Boolean> eldest) {
+					return size() > maxSize;
+				}
+			};
+		}
+
+		@Override
+		public boolean add(K k) {
+			return map.put(k, Boolean.TRUE) == null;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return map.containsKey(o);
+		}
+
+		@Override
+		public void clear() {
+			map.clear();
+		}
+
+		@Override
+		public Iterator<K> iterator() {
+			return map.keySet().iterator();
+		}
+
+		@Override
+		public int size() {
+			return map.size();
+		}
+	}
+
+	/**
+	 * Remembers each distinct key for {@code ttl} milliseconds after it has first been
+	 * added, as measured by a {@link TimedScheduler}. Expired keys are purged oldest
+	 * first on each addition.
+	 *
+	 * @param <K> the key type
+	 */
+	static final class ExpiringKeySet<K> extends AbstractCollection<K> {
+
+		final LinkedHashMap<K, Long> map;
+
+		final long ttl;
+
+		final TimedScheduler timer;
+
+		ExpiringKeySet(long ttl, TimedScheduler timer) {
+			if (ttl <= 0L) {
+				throw new IllegalArgumentException("ttl > 0 required but it was " + ttl);
+			}
+			this.ttl = ttl;
+			this.timer = Objects.requireNonNull(timer, "timer");
+			this.map = new LinkedHashMap<>();
+		}
+
+		@Override
+		public boolean add(K k) {
+			long now = timer.now(TimeUnit.MILLISECONDS);
+			Iterator<Long> it = map.values().iterator();
+			while (it.hasNext() && it.next() + ttl <= now) {
+				it.remove();
+			}
+			if (map.containsKey(k)) {
+				return false;
+			}
+			map.put(k, now);
+			return true;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return map.containsKey(o);
+		}
+
+		@Override
+		public void clear() {
+			map.clear();
+		}
+
+		@Override
+		public Iterator<K> iterator() {
+			return map.keySet().iterator();
+		}
+
+		@Override
+		public int size() {
+			return map.size();
+		}
+	}
+
+	/**
+	 * Approximately remembers the recently added keys in a fixed amount of memory: two
+	 * generations of Bloom filters, each sized for {@code expectedKeys} at the given
+	 * false positive rate. Once the current generation has recorded
+	 * {@code expectedKeys} keys, the older one is cleared and reused. A key can thus
+	 * wrongly be reported as present (at up to about twice the configured rate), and
+	 * keys not seen for a couple of generations are forgotten.
+	 * <p>
+	 * Both probe hashes are derived from the 32-bit {@link Object#hashCode()} of the key
+	 * alone, so keys with equal hash codes are always considered duplicates of each
+	 * other. As the keys themselves are not kept, this is a filter rather than a
+	 * {@link Collection}: it cannot enumerate or remove keys.
+	 *
+	 * @param <K> the key type
+	 */
+	static final class BloomKeyFilter<K> {
+
+		final int capacity;
+
+		final int bitCount;
+
+		final int hashCount;
+
+		long[] current;
+
+		long[] previous;
+
+		int size;
+
+		BloomKeyFilter(int expectedKeys, double falsePositiveRate) {
+			if (expectedKeys <= 0) {
+				throw new IllegalArgumentException("expectedKeys > 0 required but it was " + expectedKeys);
+			}
+			if (!(falsePositiveRate > 0d && falsePositiveRate < 1d)) {
+				throw new IllegalArgumentException("0 < falsePositiveRate < 1 required but it was " + falsePositiveRate);
+			}
+			double ln2 = Math.log(2);
+			long m = (long) Math.ceil(-expectedKeys * Math.log(falsePositiveRate) / (ln2 * ln2));
+			m = Math.max(64L, Math.min(m, Integer.MAX_VALUE - 63L));
+			this.capacity = expectedKeys;
+			this.bitCount = (int) m;
+			this.hashCount = Math.max(1, (int) Math.round((double) m / expectedKeys * ln2));
+			this.current = new long[(bitCount + 63) >>> 6];
+			this.previous = new long[current.length];
+		}
+
+		/**
+		 * Record a key.
+		 *
+		 * @param k the key
+		 *
+		 * @return true if the key was not (knowingly) recorded before
+		 */
+		boolean add(K k) {
+			int h = k.hashCode();
+			int h1 = hash1(h);
+			int h2 = hash2(h);
+
+			if (test(current, h1, h2)) {
+				return false;
+			}
+			boolean seen = test(previous, h1, h2);
+			set(current, h1, h2);
+			if (++size >= capacity) {
+				long[] a = previous;
+				Arrays.fill(a, 0L);
+				previous = current;
+				current = a;
+				size = 0;
+			}
+			return !seen;
+		}
+
+		static int hash1(int h) {
+			int x = h * 0x9E3779B9;
+			return x ^ (x >>> 16);
+		}
+
+		static int hash2(int h) {
+			// odd so that the probe sequence does not collapse
+			return (Integer.rotateLeft(h * 0x85EBCA6B, 15) * 0xC2B2AE35) | 1;
+		}
+
+		boolean test(long[] bits, int h1, int h2) {
+			int n = bitCount;
+			int c = h1;
+			for (int i = 0; i < hashCount; i++) {
+				int idx = (c & Integer.MAX_VALUE) % n;
+				if ((bits[idx >>> 6] & (1L << idx)) == 0L) {
+					return false;
+				}
+				c += h2;
+			}
+			return true;
+		}
+
+		void set(long[] bits, int h1, int h2) {
+			int n = bitCount;
+			int c = h1;
+			for (int i = 0; i < hashCount; i++) {
+				int idx = (c & Integer.MAX_VALUE) % n;
+				bits[idx >>> 6] |= 1L << idx;
+				c += h2;
+			}
+		}
+
+		boolean contains(Object o) {
+			int h = o.hashCode();
+			int h1 = hash1(h);
+			int h2 = hash2(h);
+			return test(current, h1, h2) || test(previous, h1, h2);
+		}
+
+		void clear() {
+			Arrays.fill(current, 0L);
+			Arrays.fill(previous, 0L);
+			size = 0;
+		}
+
+		/**
+		 * @return the number of keys recorded in the current generation
+		 */
+		int size() {
+			return size;
+		}
+
+		@Override
+		public String toString() {
+			return "BloomKeyFilter[expectedKeys=" + capacity + ", bits=" + bitCount +
+					", hashes=" + hashCount + ", size=" + size + "]";
+		}
+	}
 }
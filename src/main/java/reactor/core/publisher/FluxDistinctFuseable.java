@@ -15,8 +15,9 @@
  */
 package reactor.core.publisher;
 
-import java.util.Collection;
 import java.util.Objects;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -31,24 +32,32 @@ import reactor.core.publisher.FluxDistinct.DistinctFuseableSubscriber;
  *
  * @param <T> the source value type
  * @param <K> the key extacted from the source value to be used for duplicate testing
- * @param <C> the collection type whose add() method is used for testing for duplicates
+ * @param <C> the type of the store of the keys seen
  */
 
 /**
  * @see <a href="https://github.com/reactor/reactive-streams-commons">Reactive-Streams-Commons</a>
  */
-final class FluxDistinctFuseable<T, K, C extends Collection<? super K>> 
+final class FluxDistinctFuseable<T, K, C>
 extends FluxSource<T, T> implements Fuseable {
 
 	final Function<? super T, ? extends K> keyExtractor;
 
 	final Supplier<C> collectionSupplier;
 
+	final BiPredicate<C, K> distinctPredicate;
+
+	final Consumer<C> cleanupCallback;
+
 	public FluxDistinctFuseable(Publisher<? extends T> source, Function<? super T, ? extends K> keyExtractor,
-							 Supplier<C> collectionSupplier) {
+							 Supplier<C> collectionSupplier,
+							 BiPredicate<C, K> distinctPredicate,
+							 Consumer<C> cleanupCallback) {
 		super(source);
 		this.keyExtractor = Objects.requireNonNull(keyExtractor, "keyExtractor");
 		this.collectionSupplier = Objects.requireNonNull(collectionSupplier, "collectionSupplier");
+		this.distinctPredicate = Objects.requireNonNull(distinctPredicate, "distinctPredicate");
+		this.cleanupCallback = Objects.requireNonNull(cleanupCallback, "cleanupCallback");
 	}
 
 	@Override
@@ -68,6 +77,10 @@ extends FluxSource<T, T> implements Fuseable {
 			return;
 		}
 		
-		source.subscribe(new DistinctFuseableSubscriber<>(s, collection, keyExtractor));
+		source.subscribe(new DistinctFuseableSubscriber<>(s,
+				collection,
+				keyExtractor,
+				distinctPredicate,
+				cleanupCallback));
 	}
 }
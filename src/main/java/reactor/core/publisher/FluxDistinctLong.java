@@ -0,0 +1,353 @@
+/*
+ * Copyright (c) 2011-2016 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reactor.core.publisher;
+
+import java.util.Objects;
+import java.util.function.ToLongFunction;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.Fuseable;
+import reactor.core.Fuseable.ConditionalSubscriber;
+import reactor.core.Fuseable.QueueSubscription;
+import reactor.core.Loopback;
+import reactor.core.Producer;
+import reactor.core.Receiver;
+import reactor.core.Trackable;
+import reactor.util.concurrent.LongOpenHashSet;
+
+/**
+ * For each subscriber, tracks the primitive {@code long} keys of the source values that
+ * have been seen and filters out duplicates, without boxing the keys.
+ *
+ * @param <T> the source value type
+ */
+final class FluxDistinctLong<T> extends FluxSource<T, T> {
+
+	final ToLongFunction<? super T> keyExtractor;
+
+	public FluxDistinctLong(Publisher<? extends T> source, ToLongFunction<? super T> keyExtractor) {
+		super(source);
+		this.keyExtractor = Objects.requireNonNull(keyExtractor, "keyExtractor");
+	}
+
+	@Override
+	public void subscribe(Subscriber<? super T> s) {
+		if (source instanceof Fuseable) {
+			source.subscribe(new DistinctLongFuseableSubscriber<>(s, keyExtractor));
+		}
+		else {
+			source.subscribe(new DistinctLongSubscriber<>(s, keyExtractor));
+		}
+	}
+
+	static final class DistinctLongSubscriber<T>
+			implements ConditionalSubscriber<T>, Receiver, Producer, Loopback,
+			           Subscription, Trackable {
+		final Subscriber<? super T> actual;
+
+		final LongOpenHashSet keys;
+
+		final ToLongFunction<? super T> keyExtractor;
+
+		Subscription s;
+
+		boolean done;
+
+		public DistinctLongSubscriber(Subscriber<? super T> actual,
+				ToLongFunction<? super T> keyExtractor) {
+			this.actual = actual;
+			this.keys = new LongOpenHashSet();
+			this.keyExtractor = keyExtractor;
+		}
+
+		@Override
+		public void onSubscribe(Subscription s) {
+			if (Operators.validate(this.s, s)) {
+				this.s = s;
+
+				actual.onSubscribe(this);
+			}
+		}
+
+		@Override
+		public void onNext(T t) {
+			if (!tryOnNext(t)) {
+				s.request(1);
+			}
+		}
+
+		@Override
+		public boolean tryOnNext(T t) {
+			if (done) {
+				Operators.onNextDropped(t);
+				return true;
+			}
+
+			long k;
+
+			try {
+				k = keyExtractor.applyAsLong(t);
+			}
+			catch (Throwable e) {
+				onError(Operators.onOperatorError(s, e, t));
+				return true;
+			}
+
+			if (keys.add(k)) {
+				actual.onNext(t);
+				return true;
+			}
+			return false;
+		}
+
+		@Override
+		public void onError(Throwable t) {
+			if (done) {
+				Operators.onErrorDropped(t);
+				return;
+			}
+			done = true;
+			keys.clear();
+
+			actual.onError(t);
+		}
+
+		@Override
+		public void onComplete() {
+			if (done) {
+				return;
+			}
+			done = true;
+			keys.clear();
+
+			actual.onComplete();
+		}
+
+		@Override
+		public boolean isStarted() {
+			return s != null && !done;
+		}
+
+		@Override
+		public boolean isTerminated() {
+			return done;
+		}
+
+		@Override
+		public Object downstream() {
+			return actual;
+		}
+
+		@Override
+		public Object connectedInput() {
+			return keyExtractor;
+		}
+
+		@Override
+		public Object upstream() {
+			return s;
+		}
+
+		@Override
+		public void request(long n) {
+			s.request(n);
+		}
+
+		@Override
+		public void cancel() {
+			s.cancel();
+		}
+	}
+
+	static final class DistinctLongFuseableSubscriber<T>
+			implements ConditionalSubscriber<T>, Receiver, Producer, Loopback,
+			           QueueSubscription<T>, Trackable {
+		final Subscriber<? super T> actual;
+
+		final LongOpenHashSet keys;
+
+		final ToLongFunction<? super T> keyExtractor;
+
+		QueueSubscription<T> qs;
+
+		boolean done;
+
+		int sourceMode;
+
+		public DistinctLongFuseableSubscriber(Subscriber<? super T> actual,
+				ToLongFunction<? super T> keyExtractor) {
+			this.actual = actual;
+			this.keys = new LongOpenHashSet();
+			this.keyExtractor = keyExtractor;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public void onSubscribe(Subscription s) {
+			if (Operators.validate(this.qs, s)) {
+				this.qs = (QueueSubscription<T>) s;
+
+				actual.onSubscribe(this);
+			}
+		}
+
+		@Override
+		public void onNext(T t) {
+			if (!tryOnNext(t)) {
+				qs.request(1);
+			}
+		}
+
+		@Override
+		public boolean tryOnNext(T t) {
+			if (done) {
+				Operators.onNextDropped(t);
+				return true;
+			}
+
+			if (sourceMode == Fuseable.ASYNC) {
+				actual.onNext(null);
+				return true;
+			}
+
+			long k;
+
+			try {
+				k = keyExtractor.applyAsLong(t);
+			}
+			catch (Throwable e) {
+				onError(Operators.onOperatorError(qs, e, t));
+				return true;
+			}
+
+			if (keys.add(k)) {
+				actual.onNext(t);
+				return true;
+			}
+			return false;
+		}
+
+		@Override
+		public void onError(Throwable t) {
+			if (done) {
+				Operators.onErrorDropped(t);
+				return;
+			}
+			done = true;
+			keys.clear();
+
+			actual.onError(t);
+		}
+
+		@Override
+		public void onComplete() {
+			if (done) {
+				return;
+			}
+			done = true;
+			keys.clear();
+
+			actual.onComplete();
+		}
+
+		@Override
+		public boolean isStarted() {
+			return qs != null && !done;
+		}
+
+		@Override
+		public boolean isTerminated() {
+			return done;
+		}
+
+		@Override
+		public Object downstream() {
+			return actual;
+		}
+
+		@Override
+		public Object connectedInput() {
+			return keyExtractor;
+		}
+
+		@Override
+		public Object upstream() {
+			return qs;
+		}
+
+		@Override
+		public void request(long n) {
+			qs.request(n);
+		}
+
+		@Override
+		public void cancel() {
+			qs.cancel();
+		}
+
+		@Override
+		public int requestFusion(int requestedMode) {
+			int m = qs.requestFusion(requestedMode);
+			sourceMode = m;
+			return m;
+		}
+
+		@Override
+		public T poll() {
+			if (sourceMode == Fuseable.ASYNC) {
+				long dropped = 0;
+				for (; ; ) {
+					T v = qs.poll();
+
+					if (v == null || keys.add(keyExtractor.applyAsLong(v))) {
+						if (dropped != 0) {
+							request(dropped);
+						}
+						return v;
+					}
+					dropped++;
+				}
+			}
+			else {
+				for (; ; ) {
+					T v = qs.poll();
+
+					if (v == null || keys.add(keyExtractor.applyAsLong(v))) {
+						return v;
+					}
+				}
+			}
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return qs.isEmpty();
+		}
+
+		@Override
+		public void clear() {
+			qs.clear();
+			keys.clear();
+		}
+
+		@Override
+		public int size() {
+			return qs.size();
+		}
+	}
+}
@@ -0,0 +1,479 @@
+/*
+ * Copyright (c) 2011-2016 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Function;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.Exceptions;
+import reactor.core.Producer;
+import reactor.core.Trackable;
+import reactor.util.concurrent.QueueSupplier;
+
+/**
+ * Emits the values of the source and recursively the values of the Publishers each
+ * value is expanded into, either level by level (breadth-first) or branch by branch
+ * (depth-first). The frontier of Publishers yet to be subscribed is held in a queue or
+ * a stack owned by the operator, so the subscriber chain and the call stack do not grow
+ * with the depth of the expansion.
+ *
+ * @param <T> the value type
+ */
+final class FluxExpand<T> extends FluxSource<T, T> {
+
+	final Function<? super T, ? extends Publisher<? extends T>> expander;
+
+	final boolean breadthFirst;
+
+	final int capacityHint;
+
+	public FluxExpand(Publisher<? extends T> source,
+			Function<? super T, ? extends Publisher<? extends T>> expander,
+			boolean breadthFirst,
+			int capacityHint) {
+		super(source);
+		if (capacityHint <= 0) {
+			throw new IllegalArgumentException("capacityHint > 0 required but it was " + capacityHint);
+		}
+		this.expander = Objects.requireNonNull(expander, "expander");
+		this.breadthFirst = breadthFirst;
+		this.capacityHint = capacityHint;
+	}
+
+	@Override
+	public void subscribe(Subscriber<? super T> s) {
+		if (breadthFirst) {
+			ExpandBreadthSubscriber<T> parent =
+					new ExpandBreadthSubscriber<>(s, expander, capacityHint);
+			parent.queue.offer(source);
+			s.onSubscribe(parent);
+			parent.drainQueue();
+		}
+		else {
+			ExpandDepthSubscription<T> parent =
+					new ExpandDepthSubscription<>(s, expander, capacityHint);
+			parent.source = source;
+			s.onSubscribe(parent);
+			parent.drainQueue();
+		}
+	}
+
+	static final class ExpandBreadthSubscriber<T>
+			extends Operators.MultiSubscriptionSubscriber<T, T> {
+
+		final Function<? super T, ? extends Publisher<? extends T>> expander;
+
+		final Queue<Publisher<? extends T>> queue;
+
+		volatile boolean active;
+
+		volatile int wip;
+		@SuppressWarnings("rawtypes")
+		static final AtomicIntegerFieldUpdater<ExpandBreadthSubscriber> WIP =
+				AtomicIntegerFieldUpdater.newUpdater(ExpandBreadthSubscriber.class, "wip");
+
+		long produced;
+
+		ExpandBreadthSubscriber(Subscriber<? super T> actual,
+				Function<? super T, ? extends Publisher<? extends T>> expander,
+				int capacityHint) {
+			super(actual);
+			this.expander = expander;
+			this.queue = QueueSupplier.<Publisher<? extends T>>unbounded(capacityHint).get();
+		}
+
+		@Override
+		public void onNext(T t) {
+			produced++;
+
+			subscriber.onNext(t);
+
+			Publisher<? extends T> p;
+			try {
+				p = Objects.requireNonNull(expander.apply(t),
+						"The expander returned a null Publisher");
+			}
+			catch (Throwable e) {
+				onError(Operators.onOperatorError(e));
+				return;
+			}
+
+			queue.offer(p);
+		}
+
+		@Override
+		public void onError(Throwable t) {
+			if (isCancelled()) {
+				Operators.onErrorDropped(t);
+				return;
+			}
+			super.cancel();
+			subscriber.onError(t);
+			drainQueue();
+		}
+
+		@Override
+		public void onComplete() {
+			active = false;
+			drainQueue();
+		}
+
+		@Override
+		public void cancel() {
+			super.cancel();
+			drainQueue();
+		}
+
+		void drainQueue() {
+			if (WIP.getAndIncrement(this) == 0) {
+				do {
+					Queue<Publisher<? extends T>> q = queue;
+					if (isCancelled()) {
+						q.clear();
+					}
+					else if (!active) {
+						Publisher<? extends T> p = q.poll();
+						if (p == null) {
+							super.cancel();
+							subscriber.onComplete();
+						}
+						else {
+							long c = produced;
+							if (c != 0L) {
+								produced = 0L;
+								produced(c);
+							}
+							active = true;
+							p.subscribe(this);
+						}
+					}
+				}
+				while (WIP.decrementAndGet(this) != 0);
+			}
+		}
+	}
+
+	static final class ExpandDepthSubscription<T>
+			implements Subscription, Trackable, Producer {
+
+		final Subscriber<? super T> actual;
+
+		final Function<? super T, ? extends Publisher<? extends T>> expander;
+
+		/** Ancestors of the current inner subscriber, guarded by this */
+		ArrayDeque<ExpandDepthSubscriber<T>> stack;
+
+		Publisher<? extends T> source;
+
+		long consumed;
+
+		volatile boolean cancelled;
+
+		volatile int wip;
+		@SuppressWarnings("rawtypes")
+		static final AtomicIntegerFieldUpdater<ExpandDepthSubscription> WIP =
+				AtomicIntegerFieldUpdater.newUpdater(ExpandDepthSubscription.class, "wip");
+
+		volatile long requested;
+		@SuppressWarnings("rawtypes")
+		static final AtomicLongFieldUpdater<ExpandDepthSubscription> REQUESTED =
+				AtomicLongFieldUpdater.newUpdater(ExpandDepthSubscription.class, "requested");
+
+		volatile int active;
+		@SuppressWarnings("rawtypes")
+		static final AtomicIntegerFieldUpdater<ExpandDepthSubscription> ACTIVE =
+				AtomicIntegerFieldUpdater.newUpdater(ExpandDepthSubscription.class, "active");
+
+		volatile Throwable error;
+		@SuppressWarnings("rawtypes")
+		static final AtomicReferenceFieldUpdater<ExpandDepthSubscription, Throwable> ERROR =
+				AtomicReferenceFieldUpdater.newUpdater(ExpandDepthSubscription.class, Throwable.class, "error");
+
+		/** The current inner subscriber, or this once cancelled */
+		volatile Object current;
+		@SuppressWarnings("rawtypes")
+		static final AtomicReferenceFieldUpdater<ExpandDepthSubscription, Object> CURRENT =
+				AtomicReferenceFieldUpdater.newUpdater(ExpandDepthSubscription.class, Object.class, "current");
+
+		ExpandDepthSubscription(Subscriber<? super T> actual,
+				Function<? super T, ? extends Publisher<? extends T>> expander,
+				int capacityHint) {
+			this.actual = actual;
+			this.expander = expander;
+			this.stack = new ArrayDeque<>(capacityHint);
+		}
+
+		@Override
+		public void request(long n) {
+			if (Operators.validate(n)) {
+				Operators.getAndAddCap(REQUESTED, this, n);
+				drainQueue();
+			}
+		}
+
+		@Override
+		public void cancel() {
+			if (!cancelled) {
+				cancelled = true;
+				ArrayDeque<ExpandDepthSubscriber<T>> q;
+				synchronized (this) {
+					q = stack;
+					stack = null;
+				}
+				if (q != null) {
+					for (ExpandDepthSubscriber<T> inner : q) {
+						inner.cancel();
+					}
+				}
+				Object o = CURRENT.getAndSet(this, this);
+				if (o != this && o != null) {
+					((ExpandDepthSubscriber<?>) o).cancel();
+				}
+			}
+		}
+
+		ExpandDepthSubscriber<T> pop() {
+			synchronized (this) {
+				ArrayDeque<ExpandDepthSubscriber<T>> q = stack;
+				return q != null ? q.pollFirst() : null;
+			}
+		}
+
+		boolean push(ExpandDepthSubscriber<T> inner) {
+			synchronized (this) {
+				ArrayDeque<ExpandDepthSubscriber<T>> q = stack;
+				if (q != null) {
+					q.offerFirst(inner);
+					return true;
+				}
+				return false;
+			}
+		}
+
+		boolean setCurrent(ExpandDepthSubscriber<T> inner) {
+			for (;;) {
+				Object o = current;
+				if (o == this) {
+					inner.cancel();
+					return false;
+				}
+				if (CURRENT.compareAndSet(this, o, inner)) {
+					return true;
+				}
+			}
+		}
+
+		void innerError(ExpandDepthSubscriber<T> inner, Throwable t) {
+			if (Exceptions.addThrowable(ERROR, this, t)) {
+				inner.done = true;
+				drainQueue();
+			}
+			else {
+				Operators.onErrorDropped(t);
+			}
+		}
+
+		void drainQueue() {
+			if (WIP.getAndIncrement(this) != 0) {
+				return;
+			}
+			int missed = 1;
+			Subscriber<? super T> a = actual;
+			long e = consumed;
+
+			for (;;) {
+				Object o = current;
+				if (cancelled || o == this) {
+					source = null;
+					return;
+				}
+
+				if (error != null) {
+					cancel();
+					source = null;
+					a.onError(Exceptions.terminate(ERROR, this));
+					return;
+				}
+
+				@SuppressWarnings("unchecked")
+				ExpandDepthSubscriber<T> curr = (ExpandDepthSubscriber<T>) o;
+				Publisher<? extends T> p = source;
+
+				if (curr == null && p != null) {
+					source = null;
+					ACTIVE.getAndIncrement(this);
+					curr = new ExpandDepthSubscriber<>(this);
+					if (!setCurrent(curr)) {
+						return;
+					}
+					p.subscribe(curr);
+				}
+				else if (curr != null) {
+					boolean currentDone = curr.done;
+					T v = curr.value;
+
+					if (v != null && e != requested) {
+						curr.value = null;
+						a.onNext(v);
+						e++;
+
+						try {
+							p = Objects.requireNonNull(expander.apply(v),
+									"The expander returned a null Publisher");
+						}
+						catch (Throwable ex) {
+							curr.cancel();
+							innerError(curr, Operators.onOperatorError(ex));
+							continue;
+						}
+
+						if (!push(curr)) {
+							return;
+						}
+						ACTIVE.getAndIncrement(this);
+						curr = new ExpandDepthSubscriber<>(this);
+						if (!setCurrent(curr)) {
+							return;
+						}
+						p.subscribe(curr);
+						continue;
+					}
+
+					if (currentDone && v == null) {
+						if (ACTIVE.decrementAndGet(this) == 0) {
+							CURRENT.lazySet(this, this);
+							a.onComplete();
+							return;
+						}
+						curr = pop();
+						if (curr == null || !setCurrent(curr)) {
+							return;
+						}
+						curr.requestOne();
+						continue;
+					}
+				}
+
+				int w = wip;
+				if (missed == w) {
+					consumed = e;
+					missed = WIP.addAndGet(this, -missed);
+					if (missed == 0) {
+						break;
+					}
+				}
+				else {
+					missed = w;
+				}
+			}
+		}
+
+		@Override
+		public Object downstream() {
+			return actual;
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return cancelled;
+		}
+
+		@Override
+		public boolean isStarted() {
+			return current != null;
+		}
+
+		@Override
+		public boolean isTerminated() {
+			return current == this && !cancelled;
+		}
+
+		@Override
+		public Throwable getError() {
+			return error;
+		}
+
+		@Override
+		public long requestedFromDownstream() {
+			return requested;
+		}
+
+		@Override
+		public long getPending() {
+			ArrayDeque<ExpandDepthSubscriber<T>> q = stack;
+			return q != null ? q.size() : -1L;
+		}
+	}
+
+	static final class ExpandDepthSubscriber<T> implements Subscriber<T> {
+
+		final ExpandDepthSubscription<T> parent;
+
+		volatile boolean done;
+
+		volatile T value;
+
+		volatile Subscription s;
+		@SuppressWarnings("rawtypes")
+		static final AtomicReferenceFieldUpdater<ExpandDepthSubscriber, Subscription> S =
+				AtomicReferenceFieldUpdater.newUpdater(ExpandDepthSubscriber.class, Subscription.class, "s");
+
+		ExpandDepthSubscriber(ExpandDepthSubscription<T> parent) {
+			this.parent = parent;
+		}
+
+		@Override
+		public void onSubscribe(Subscription s) {
+			if (Operators.setOnce(S, this, s)) {
+				s.request(1);
+			}
+		}
+
+		@Override
+		public void onNext(T t) {
+			value = t;
+			parent.drainQueue();
+		}
+
+		@Override
+		public void onError(Throwable t) {
+			parent.innerError(this, t);
+		}
+
+		@Override
+		public void onComplete() {
+			done = true;
+			parent.drainQueue();
+		}
+
+		void requestOne() {
+			s.request(1);
+		}
+
+		void cancel() {
+			Operators.terminate(S, this);
+		}
+	}
+}
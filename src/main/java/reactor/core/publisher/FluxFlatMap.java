@@ -62,6 +62,8 @@ final class FluxFlatMap<T, R> extends FluxSource<T, R> {
 
 	final Supplier<? extends Queue<R>> innerQueueSupplier;
 
+	final ConcurrencyLimit concurrencyLimit;
+
 	public FluxFlatMap(Publisher<? extends T> source,
 			Function<? super T, ? extends Publisher<? extends R>> mapper,
 			boolean delayError,
@@ -69,6 +71,28 @@ final class FluxFlatMap<T, R> extends FluxSource<T, R> {
 			Supplier<? extends Queue<R>> mainQueueSupplier,
 			int prefetch,
 			Supplier<? extends Queue<R>> innerQueueSupplier) {
+		this(source, mapper, delayError, maxConcurrency, mainQueueSupplier, prefetch, innerQueueSupplier, null);
+	}
+
+	public FluxFlatMap(Publisher<? extends T> source,
+			Function<? super T, ? extends Publisher<? extends R>> mapper,
+			boolean delayError,
+			ConcurrencyLimit concurrencyLimit,
+			Supplier<? extends Queue<R>> mainQueueSupplier,
+			int prefetch,
+			Supplier<? extends Queue<R>> innerQueueSupplier) {
+		this(source, mapper, delayError, concurrencyLimit.maxLimit(), mainQueueSupplier, prefetch,
+				innerQueueSupplier, concurrencyLimit);
+	}
+
+	FluxFlatMap(Publisher<? extends T> source,
+			Function<? super T, ? extends Publisher<? extends R>> mapper,
+			boolean delayError,
+			int maxConcurrency,
+			Supplier<? extends Queue<R>> mainQueueSupplier,
+			int prefetch,
+			Supplier<? extends Queue<R>> innerQueueSupplier,
+			ConcurrencyLimit concurrencyLimit) {
 		super(source);
 		if (prefetch <= 0) {
 			throw new IllegalArgumentException("prefetch > 0 required but it was " + prefetch);
@@ -84,6 +108,7 @@ final class FluxFlatMap<T, R> extends FluxSource<T, R> {
 				Objects.requireNonNull(mainQueueSupplier, "mainQueueSupplier");
 		this.innerQueueSupplier =
 				Objects.requireNonNull(innerQueueSupplier, "innerQueueSupplier");
+		this.concurrencyLimit = concurrencyLimit;
 	}
 
 	@Override
@@ -120,7 +145,8 @@ final class FluxFlatMap<T, R> extends FluxSource<T, R> {
 				maxConcurrency,
 				mainQueueSupplier,
 				prefetch,
-				innerQueueSupplier));
+				innerQueueSupplier,
+				concurrencyLimit));
 	}
 
 	/**
@@ -225,6 +251,8 @@ final class FluxFlatMap<T, R> extends FluxSource<T, R> {
 
 		final int limit;
 
+		final ConcurrencyLimit concurrencyLimit;
+
 		volatile Queue<R> scalarQueue;
 
 		volatile Throwable error;
@@ -256,6 +284,15 @@ final class FluxFlatMap<T, R> extends FluxSource<T, R> {
 		@SuppressWarnings("rawtypes")
 		static final FlatMapInner[] TERMINATED = new FlatMapInner[0];
 
+		/**
+		 * Source values requested and not yet fully merged, only tracked under a
+		 * {@link ConcurrencyLimit}
+		 */
+		volatile long outstanding;
+		@SuppressWarnings("rawtypes")
+		static final AtomicLongFieldUpdater<FlatMapMain> OUTSTANDING =
+				AtomicLongFieldUpdater.newUpdater(FlatMapMain.class, "outstanding");
+
 		int lastIndex;
 
 		int produced;
@@ -267,6 +304,18 @@ final class FluxFlatMap<T, R> extends FluxSource<T, R> {
 				Supplier<? extends Queue<R>> mainQueueSupplier,
 				int prefetch,
 				Supplier<? extends Queue<R>> innerQueueSupplier) {
+			this(actual, mapper, delayError, maxConcurrency, mainQueueSupplier, prefetch,
+					innerQueueSupplier, null);
+		}
+
+		FlatMapMain(Subscriber<? super R> actual,
+				Function<? super T, ? extends Publisher<? extends R>> mapper,
+				boolean delayError,
+				int maxConcurrency,
+				Supplier<? extends Queue<R>> mainQueueSupplier,
+				int prefetch,
+				Supplier<? extends Queue<R>> innerQueueSupplier,
+				ConcurrencyLimit concurrencyLimit) {
 			this.actual = actual;
 			this.mapper = mapper;
 			this.delayError = delayError;
@@ -275,6 +324,7 @@ final class FluxFlatMap<T, R> extends FluxSource<T, R> {
 			this.prefetch = prefetch;
 			this.innerQueueSupplier = innerQueueSupplier;
 			this.limit = maxConcurrency - (maxConcurrency >> 2);
+			this.concurrencyLimit = concurrencyLimit;
 		}
 
 		@SuppressWarnings("unchecked")
@@ -333,7 +383,10 @@ final class FluxFlatMap<T, R> extends FluxSource<T, R> {
 
 				actual.onSubscribe(this);
 
-				if (maxConcurrency == Integer.MAX_VALUE) {
+				if (concurrencyLimit != null) {
+					replenish(0L);
+				}
+				else if (maxConcurrency == Integer.MAX_VALUE) {
 					s.request(Long.MAX_VALUE);
 				}
 				else {
@@ -380,6 +433,9 @@ final class FluxFlatMap<T, R> extends FluxSource<T, R> {
 			}
 			else {
 				FlatMapInner<R> inner = new FlatMapInner<>(this, prefetch);
+				if (concurrencyLimit != null) {
+					inner.startTime = System.nanoTime();
+				}
 				if (add(inner)) {
 
 					p.subscribe(inner);
@@ -390,16 +446,7 @@ final class FluxFlatMap<T, R> extends FluxSource<T, R> {
 
 		void emitScalar(R v) {
 			if (v == null) {
-				if (maxConcurrency != Integer.MAX_VALUE) {
-					int p = produced + 1;
-					if (p == limit) {
-						produced = 0;
-						s.request(p);
-					}
-					else {
-						produced = p;
-					}
-				}
+				scalarReplenish();
 				return;
 			}
 			if (wip == 0 && WIP.compareAndSet(this, 0, 1)) {
@@ -412,16 +459,7 @@ final class FluxFlatMap<T, R> extends FluxSource<T, R> {
 						REQUESTED.decrementAndGet(this);
 					}
 
-					if (maxConcurrency != Integer.MAX_VALUE) {
-						int p = produced + 1;
-						if (p == limit) {
-							produced = 0;
-							s.request(p);
-						}
-						else {
-							produced = p;
-						}
-					}
+					scalarReplenish();
 				}
 				else {
 					Queue<R> q;
@@ -500,6 +538,59 @@ final class FluxFlatMap<T, R> extends FluxSource<T, R> {
 			}
 		}
 
+		void scalarReplenish() {
+			if (concurrencyLimit != null) {
+				replenish(1L);
+			}
+			else if (maxConcurrency != Integer.MAX_VALUE) {
+				int p = produced + 1;
+				if (p == limit) {
+					produced = 0;
+					s.request(p);
+				}
+				else {
+					produced = p;
+				}
+			}
+		}
+
+		/**
+		 * Account for {@code n} source values fully merged and request more from the
+		 * source, up to the current {@link ConcurrencyLimit} if any.
+		 *
+		 * @param n the number of source values fully merged
+		 */
+		void replenish(long n) {
+			ConcurrencyLimit cl = concurrencyLimit;
+			if (cl == null) {
+				s.request(n);
+				return;
+			}
+			long o = n != 0L ? OUTSTANDING.addAndGet(this, -n) : outstanding;
+			for (;;) {
+				long m = cl.limit() - o;
+				if (m <= 0L) {
+					return;
+				}
+				if (OUTSTANDING.compareAndSet(this, o, o + m)) {
+					s.request(m);
+					return;
+				}
+				o = outstanding;
+			}
+		}
+
+		/**
+		 * Report the latency and outcome of a terminated inner sequence to the
+		 * {@link ConcurrencyLimit} if any.
+		 */
+		void innerSample(FlatMapInner<R> inner, boolean failed) {
+			ConcurrencyLimit cl = concurrencyLimit;
+			if (cl != null) {
+				cl.onSample(System.nanoTime() - inner.startTime, failed);
+			}
+		}
+
 		Queue<R> getOrCreateScalarQueue() {
 			Queue<R> q = scalarQueue;
 			if (q == null) {
@@ -748,7 +839,7 @@ final class FluxFlatMap<T, R> extends FluxSource<T, R> {
 				}
 
 				if (replenishMain != 0L && !done && !cancelled) {
-					s.request(replenishMain);
+					replenish(replenishMain);
 				}
 
 				if (again) {
@@ -927,7 +1018,7 @@ final class FluxFlatMap<T, R> extends FluxSource<T, R> {
 					if (WIP.decrementAndGet(this) != 0) {
 						drainLoop();
 					}
-					s.request(1);
+					replenish(1L);
 					return;
 				}
 			}
@@ -1052,6 +1143,9 @@ final class FluxFlatMap<T, R> extends FluxSource<T, R> {
 
 		int index;
 
+		/** Subscription time in nanoseconds, only set under a {@link ConcurrencyLimit} */
+		long startTime;
+
 		public FlatMapInner(FlatMapMain<?, R> parent, int prefetch) {
 			this.parent = parent;
 			this.prefetch = prefetch;
@@ -1096,6 +1190,7 @@ final class FluxFlatMap<T, R> extends FluxSource<T, R> {
 		public void onError(Throwable t) {
 			// we don't want to emit the same error twice in case of subscription-race in async mode
 			if (sourceMode != ASYNC || ONCE.compareAndSet(this, 0, 1)) {
+				parent.innerSample(this, true);
 				parent.innerError(this, t);
 			}
 		}
@@ -1103,6 +1198,9 @@ final class FluxFlatMap<T, R> extends FluxSource<T, R> {
 		@Override
 		public void onComplete() {
 			// onComplete is practically idempotent so there is no risk due to subscription-race in async mode
+			if (!done) {
+				parent.innerSample(this, false);
+			}
 			done = true;
 			parent.innerComplete(this);
 		}
@@ -0,0 +1,377 @@
+/*
+ * Copyright (c) 2011-2016 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reactor.core.publisher;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+import org.reactivestreams.Subscriber;
+import reactor.core.Exceptions;
+import reactor.core.Fuseable;
+import reactor.core.Fuseable.QueueSubscription;
+import reactor.core.Trackable;
+
+/**
+ * Generate signals in batches via a function callback: each round of the generator may
+ * call {@link SynchronousSink#next} any number of times. Values are emitted directly
+ * while there is outstanding demand, the remainder of the round being kept in an
+ * overflow queue drained before the generator is called again.
+ * <p>
+ * Values generated before a complete or error are all emitted before the terminal
+ * signal. The {@code stateSupplier} may return {@code null} but your
+ * {@code stateConsumer} should be prepared to handle it.
+ *
+ * @param <T> the value type emitted
+ * @param <S> the custom state per subscriber
+ */
+final class FluxGenerateBatch<T, S> extends Flux<T> implements Fuseable {
+
+	final Callable<S> stateSupplier;
+
+	final BiFunction<S, SynchronousSink<T>, S> generator;
+
+	final Consumer<? super S> stateConsumer;
+
+	public FluxGenerateBatch(Callable<S> stateSupplier,
+			BiFunction<S, SynchronousSink<T>, S> generator,
+			Consumer<? super S> stateConsumer) {
+		this.stateSupplier = Objects.requireNonNull(stateSupplier, "stateSupplier");
+		this.generator = Objects.requireNonNull(generator, "generator");
+		this.stateConsumer = Objects.requireNonNull(stateConsumer, "stateConsumer");
+	}
+
+	@Override
+	public void subscribe(Subscriber<? super T> s) {
+		S state;
+
+		try {
+			state = stateSupplier.call();
+		}
+		catch (Throwable e) {
+			Operators.error(s, Operators.onOperatorError(e));
+			return;
+		}
+		s.onSubscribe(new GenerateBatchSubscription<>(s, state, generator, stateConsumer));
+	}
+
+	static final class GenerateBatchSubscription<T, S>
+			implements QueueSubscription<T>, Trackable, SynchronousSink<T> {
+
+		final Subscriber<? super T> actual;
+
+		final BiFunction<S, SynchronousSink<T>, S> generator;
+
+		final Consumer<? super S> stateConsumer;
+
+		volatile boolean cancelled;
+
+		S state;
+
+		/** The generator signalled complete or error, no further round is run */
+		boolean terminate;
+
+		/** The terminal signal has been delivered downstream */
+		boolean done;
+
+		/** Whether the current round called next */
+		boolean hasValue;
+
+		/** Values the current round may still emit directly */
+		long budget;
+
+		/** Values generated beyond the demand, created on first use */
+		ArrayDeque<T> overflow;
+
+		Throwable generatedError;
+
+		volatile long requested;
+		@SuppressWarnings("rawtypes")
+		static final AtomicLongFieldUpdater<GenerateBatchSubscription> REQUESTED =
+				AtomicLongFieldUpdater.newUpdater(GenerateBatchSubscription.class,
+						"requested");
+
+		GenerateBatchSubscription(Subscriber<? super T> actual,
+				S state,
+				BiFunction<S, SynchronousSink<T>, S> generator,
+				Consumer<? super S> stateConsumer) {
+			this.actual = actual;
+			this.state = state;
+			this.generator = generator;
+			this.stateConsumer = stateConsumer;
+		}
+
+		@Override
+		public void next(T t) {
+			if (cancelled) {
+				// the rest of a round is discarded once the downstream cancelled
+				return;
+			}
+			if (terminate) {
+				Operators.onNextDropped(t);
+				return;
+			}
+			if (t == null) {
+				error(new NullPointerException("The generator produced a null value"));
+				return;
+			}
+			hasValue = true;
+			long b = budget;
+			if (b != 0L) {
+				budget = b - 1;
+				actual.onNext(t);
+			}
+			else {
+				ArrayDeque<T> q = overflow;
+				if (q == null) {
+					q = new ArrayDeque<>();
+					overflow = q;
+				}
+				q.offer(t);
+			}
+		}
+
+		@Override
+		public void error(Throwable e) {
+			if (terminate) {
+				return;
+			}
+			terminate = true;
+			generatedError = e;
+		}
+
+		@Override
+		public void complete() {
+			terminate = true;
+		}
+
+		@Override
+		public void request(long n) {
+			if (Operators.validate(n)) {
+				if (Operators.getAndAddCap(REQUESTED, this, n) == 0) {
+					drain(n);
+				}
+			}
+		}
+
+		void drain(long n) {
+			final Subscriber<? super T> a = actual;
+			final BiFunction<S, SynchronousSink<T>, S> g = generator;
+
+			long e = 0L;
+
+			for (; ; ) {
+				while (e != n) {
+					if (cancelled) {
+						cleanup(state);
+						return;
+					}
+
+					ArrayDeque<T> q = overflow;
+					T v = q != null ? q.poll() : null;
+					if (v != null) {
+						a.onNext(v);
+						e++;
+						continue;
+					}
+
+					if (terminate) {
+						signalTerminal();
+						return;
+					}
+
+					S s = state;
+					budget = n - e;
+					try {
+						s = g.apply(s, this);
+					}
+					catch (Throwable ex) {
+						budget = 0L;
+						cleanup(s);
+						a.onError(Operators.onOperatorError(ex));
+						return;
+					}
+					state = s;
+					e = n - budget;
+					budget = 0L;
+
+					if (!hasValue && !terminate) {
+						cleanup(s);
+						a.onError(new IllegalStateException("The generator didn't call any of the " + "SynchronousSink method"));
+						return;
+					}
+					hasValue = false;
+				}
+
+				if (cancelled) {
+					cleanup(state);
+					return;
+				}
+
+				ArrayDeque<T> q = overflow;
+				if (terminate && (q == null || q.isEmpty())) {
+					signalTerminal();
+					return;
+				}
+
+				n = requested;
+
+				if (n == e) {
+					n = REQUESTED.addAndGet(this, -e);
+					if (n == 0L) {
+						return;
+					}
+					e = 0L;
+				}
+			}
+		}
+
+		void signalTerminal() {
+			if (done) {
+				return;
+			}
+			done = true;
+			cleanup(state);
+			Throwable ex = generatedError;
+			if (ex != null) {
+				generatedError = null;
+				actual.onError(ex);
+			}
+			else {
+				actual.onComplete();
+			}
+		}
+
+		@Override
+		public void cancel() {
+			if (!cancelled) {
+				cancelled = true;
+
+				if (REQUESTED.getAndIncrement(this) == 0) {
+					cleanup(state);
+				}
+			}
+		}
+
+		void cleanup(S s) {
+			ArrayDeque<T> q = overflow;
+			if (q != null) {
+				q.clear();
+			}
+			try {
+				state = null;
+
+				stateConsumer.accept(s);
+			}
+			catch (Throwable e) {
+				Operators.onErrorDropped(e);
+			}
+		}
+
+		@Override
+		public int requestFusion(int requestedMode) {
+			if ((requestedMode & Fuseable.SYNC) != 0 && (requestedMode & Fuseable.THREAD_BARRIER) == 0) {
+				// without budget, every value goes through the overflow queue polled downstream
+				return Fuseable.SYNC;
+			}
+			return Fuseable.NONE;
+		}
+
+		@Override
+		public T poll() {
+			for (; ; ) {
+				ArrayDeque<T> q = overflow;
+				T v = q != null ? q.poll() : null;
+				if (v != null) {
+					return v;
+				}
+
+				if (terminate) {
+					if (!done) {
+						done = true;
+						cleanup(state);
+					}
+					Throwable e = generatedError;
+					if (e != null) {
+						generatedError = null;
+						throw Exceptions.propagate(e);
+					}
+					return null;
+				}
+
+				S s = state;
+				try {
+					s = generator.apply(s, this);
+				}
+				catch (final Throwable ex) {
+					cleanup(s);
+					throw ex;
+				}
+				state = s;
+
+				if (!hasValue && !terminate) {
+					cleanup(s);
+					throw new IllegalStateException("The generator didn't call any of the " + "SynchronousSink method");
+				}
+				hasValue = false;
+			}
+		}
+
+		@Override
+		public boolean isEmpty() {
+			ArrayDeque<T> q = overflow;
+			return terminate && (q == null || q.isEmpty());
+		}
+
+		@Override
+		public int size() {
+			ArrayDeque<T> q = overflow;
+			return q != null ? q.size() : 0;
+		}
+
+		@Override
+		public void clear() {
+			ArrayDeque<T> q = overflow;
+			if (q != null) {
+				q.clear();
+			}
+			generatedError = null;
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return cancelled;
+		}
+
+		@Override
+		public boolean isTerminated() {
+			return done;
+		}
+
+		@Override
+		public long requestedFromDownstream() {
+			return requested;
+		}
+
+		@Override
+		public long getPending() {
+			return size();
+		}
+	}
+}
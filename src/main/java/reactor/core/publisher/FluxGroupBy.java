@@ -19,25 +19,40 @@ import java.util.Iterator;
 import java.util.Objects;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
 
 import org.reactivestreams.Publisher;
 import org.reactivestreams.Subscriber;
 import org.reactivestreams.Subscription;
+import reactor.core.Cancellation;
 import reactor.core.Fuseable;
 import reactor.core.MultiProducer;
 import reactor.core.Producer;
 import reactor.core.Receiver;
 import reactor.core.Trackable;
 import reactor.core.Exceptions;
+import reactor.core.scheduler.TimedScheduler;
+import reactor.util.concurrent.LongOpenHashMap;
 
 /**
  * Groups upstream items into their own Publisher sequence based on a key selector.
+ * <p>
+ * The number of live groups can optionally be bounded, in which case the least
+ * recently used group is completed and evicted to make room for a new key, and groups
+ * that did not receive any value for a given idle time can be completed and evicted
+ * periodically by a {@link TimedScheduler}.
+ * <p>
+ * Groups can also be keyed by a primitive {@code long}, in which case they are
+ * looked up in an open-addressing map without boxing the key of each item.
  *
  * @param <T> the source value type
  * @param <K> the key value type
@@ -52,6 +67,8 @@ final class FluxGroupBy<T, K, V> extends FluxSource<T, GroupedFlux<K, V>>
 
 	final Function<? super T, ? extends K> keySelector;
 
+	final ToLongFunction<? super T> longKeySelector;
+
 	final Function<? super T, ? extends V> valueSelector;
 
 	final Supplier<? extends Queue<V>> groupQueueSupplier;
@@ -60,6 +77,14 @@ final class FluxGroupBy<T, K, V> extends FluxSource<T, GroupedFlux<K, V>>
 
 	final int prefetch;
 
+	final int maxGroups;
+
+	final long maxIdleMillis;
+
+	final TimedScheduler timer;
+
+	final Consumer<? super K> onEvicted;
+
 	public FluxGroupBy(
 			Publisher<? extends T> source, 
 			Function<? super T, ? extends K> keySelector,
@@ -67,15 +92,69 @@ final class FluxGroupBy<T, K, V> extends FluxSource<T, GroupedFlux<K, V>>
 			Supplier<? extends Queue<GroupedFlux<K, V>>> mainQueueSupplier,
 			Supplier<? extends Queue<V>> groupQueueSupplier, 
 			int prefetch) {
+		this(source, keySelector, valueSelector, mainQueueSupplier, groupQueueSupplier,
+				prefetch, Integer.MAX_VALUE, -1L, null, null);
+	}
+
+	/**
+	 * Groups by a primitive {@code long} key, {@code K} being {@link Long}.
+	 */
+	public FluxGroupBy(
+			Publisher<? extends T> source,
+			ToLongFunction<? super T> keySelector,
+			Function<? super T, ? extends V> valueSelector,
+			Supplier<? extends Queue<GroupedFlux<K, V>>> mainQueueSupplier,
+			Supplier<? extends Queue<V>> groupQueueSupplier,
+			int prefetch) {
 		super(source);
 		if (prefetch <= 0) {
 			throw new IllegalArgumentException("prefetch > 0 required but it was " + prefetch);
 		}
+		this.keySelector = null;
+		this.longKeySelector = Objects.requireNonNull(keySelector, "keySelector");
+		this.valueSelector = Objects.requireNonNull(valueSelector, "valueSelector");
+		this.mainQueueSupplier = Objects.requireNonNull(mainQueueSupplier, "mainQueueSupplier");
+		this.groupQueueSupplier = Objects.requireNonNull(groupQueueSupplier, "groupQueueSupplier");
+		this.prefetch = prefetch;
+		this.maxGroups = Integer.MAX_VALUE;
+		this.maxIdleMillis = -1L;
+		this.timer = null;
+		this.onEvicted = null;
+	}
+
+	public FluxGroupBy(
+			Publisher<? extends T> source,
+			Function<? super T, ? extends K> keySelector,
+			Function<? super T, ? extends V> valueSelector,
+			Supplier<? extends Queue<GroupedFlux<K, V>>> mainQueueSupplier,
+			Supplier<? extends Queue<V>> groupQueueSupplier,
+			int prefetch,
+			int maxGroups,
+			long maxIdleMillis,
+			TimedScheduler timer,
+			Consumer<? super K> onEvicted) {
+		super(source);
+		if (prefetch <= 0) {
+			throw new IllegalArgumentException("prefetch > 0 required but it was " + prefetch);
+		}
+		if (maxGroups <= 0) {
+			throw new IllegalArgumentException("maxGroups > 0 required but it was " + maxGroups);
+		}
 		this.keySelector = Objects.requireNonNull(keySelector, "keySelector");
+		this.longKeySelector = null;
 		this.valueSelector = Objects.requireNonNull(valueSelector, "valueSelector");
 		this.mainQueueSupplier = Objects.requireNonNull(mainQueueSupplier, "mainQueueSupplier");
 		this.groupQueueSupplier = Objects.requireNonNull(groupQueueSupplier, "groupQueueSupplier");
 		this.prefetch = prefetch;
+		this.maxGroups = maxGroups;
+		this.maxIdleMillis = maxIdleMillis;
+		if (maxIdleMillis > 0L) {
+			this.timer = Objects.requireNonNull(timer, "timer");
+		}
+		else {
+			this.timer = null;
+		}
+		this.onEvicted = onEvicted;
 	}
 	
 	@Override
@@ -94,7 +173,12 @@ final class FluxGroupBy<T, K, V> extends FluxSource<T, GroupedFlux<K, V>>
 			return;
 		}
 		
-		source.subscribe(new GroupByMain<>(s, q, groupQueueSupplier, prefetch, keySelector, valueSelector));
+		if (longKeySelector != null) {
+			source.subscribe(new GroupByMain<>(s, q, groupQueueSupplier, prefetch, longKeySelector, valueSelector));
+			return;
+		}
+		source.subscribe(new GroupByMain<>(s, q, groupQueueSupplier, prefetch, keySelector, valueSelector,
+				maxGroups, maxIdleMillis, timer, onEvicted));
 	}
 
 	@Override
@@ -107,6 +191,8 @@ final class FluxGroupBy<T, K, V> extends FluxSource<T, GroupedFlux<K, V>>
 	                                                   MultiProducer, Producer, Trackable, Receiver {
 
 		final Function<? super T, ? extends K> keySelector;
+
+		final ToLongFunction<? super T> longKeySelector;
 		
 		final Function<? super T, ? extends V> valueSelector;
 		
@@ -120,6 +206,35 @@ final class FluxGroupBy<T, K, V> extends FluxSource<T, GroupedFlux<K, V>>
 
 		final ConcurrentMap<K, UnicastGroupedFlux<K, V>> groupMap;
 
+		/**
+		 * Replaces groupMap when keyed by a primitive long. Only the upstream thread
+		 * mutates it: groups terminated from elsewhere enqueue their key in
+		 * terminatedKeys for later removal.
+		 */
+		final LongOpenHashMap<UnicastGroupedFlux<K, V>> longGroupMap;
+
+		final Queue<K> terminatedKeys;
+
+		final int maxGroups;
+
+		final long maxIdleMillis;
+
+		final TimedScheduler timer;
+
+		final Consumer<? super K> onEvicted;
+
+		/**
+		 * When groups can be evicted, they are also linked in access order (least
+		 * recently used first) and all group lifecycle changes are guarded by this.
+		 */
+		final boolean evicting;
+
+		UnicastGroupedFlux<K, V> lruHead;
+
+		UnicastGroupedFlux<K, V> lruTail;
+
+		volatile Cancellation idleTask;
+
 		volatile int wip;
 		@SuppressWarnings("rawtypes")
 		static final AtomicIntegerFieldUpdater<GroupByMain> WIP =
@@ -158,13 +273,63 @@ final class FluxGroupBy<T, K, V> extends FluxSource<T, GroupedFlux<K, V>>
 				Function<? super T, ? extends K> keySelector,
 				Function<? super T, ? extends V> valueSelector
 				) {
+			this(actual, queue, groupQueueSupplier, prefetch, keySelector, valueSelector,
+					Integer.MAX_VALUE, -1L, null, null);
+		}
+
+		public GroupByMain(
+				Subscriber<? super GroupedFlux<K, V>> actual,
+				Queue<GroupedFlux<K, V>> queue,
+				Supplier<? extends Queue<V>> groupQueueSupplier,
+				int prefetch,
+				Function<? super T, ? extends K> keySelector,
+				Function<? super T, ? extends V> valueSelector,
+				int maxGroups,
+				long maxIdleMillis,
+				TimedScheduler timer,
+				Consumer<? super K> onEvicted
+				) {
 			this.actual = actual;
 			this.queue = queue;
 			this.groupQueueSupplier = groupQueueSupplier;
 			this.prefetch = prefetch;
 			this.groupMap = new ConcurrentHashMap<>();
+			this.longGroupMap = null;
+			this.terminatedKeys = null;
 			this.keySelector = keySelector;
+			this.longKeySelector = null;
 			this.valueSelector = valueSelector;
+			this.maxGroups = maxGroups;
+			this.maxIdleMillis = maxIdleMillis;
+			this.timer = timer;
+			this.onEvicted = onEvicted;
+			this.evicting = maxGroups != Integer.MAX_VALUE || maxIdleMillis > 0L;
+			GROUP_COUNT.lazySet(this, 1);
+		}
+
+		public GroupByMain(
+				Subscriber<? super GroupedFlux<K, V>> actual,
+				Queue<GroupedFlux<K, V>> queue,
+				Supplier<? extends Queue<V>> groupQueueSupplier,
+				int prefetch,
+				ToLongFunction<? super T> longKeySelector,
+				Function<? super T, ? extends V> valueSelector
+				) {
+			this.actual = actual;
+			this.queue = queue;
+			this.groupQueueSupplier = groupQueueSupplier;
+			this.prefetch = prefetch;
+			this.groupMap = null;
+			this.longGroupMap = new LongOpenHashMap<>();
+			this.terminatedKeys = new ConcurrentLinkedQueue<>();
+			this.keySelector = null;
+			this.longKeySelector = longKeySelector;
+			this.valueSelector = valueSelector;
+			this.maxGroups = Integer.MAX_VALUE;
+			this.maxIdleMillis = -1L;
+			this.timer = null;
+			this.onEvicted = null;
+			this.evicting = false;
 			GROUP_COUNT.lazySet(this, 1);
 		}
 
@@ -172,6 +337,10 @@ final class FluxGroupBy<T, K, V> extends FluxSource<T, GroupedFlux<K, V>>
 		public void onSubscribe(Subscription s) {
 			if (Operators.validate(this.s, s)) {
 				this.s = s;
+				if (maxIdleMillis > 0L) {
+					long period = Math.max(1L, maxIdleMillis >> 1);
+					idleTask = timer.schedulePeriodically(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+				}
 				actual.onSubscribe(this);
 				s.request(prefetch);
 			}
@@ -179,6 +348,10 @@ final class FluxGroupBy<T, K, V> extends FluxSource<T, GroupedFlux<K, V>>
 		
 		@Override
 		public void onNext(T t) {
+			if (longKeySelector != null) {
+				onNextLong(t);
+				return;
+			}
 			K key;
 			V value;
 			
@@ -199,6 +372,13 @@ final class FluxGroupBy<T, K, V> extends FluxSource<T, GroupedFlux<K, V>>
 						"valueSelector returned a null value"), t));
 				return;
 			}
+
+			if (evicting) {
+				synchronized (this) {
+					onNextEvicting(key, value, t);
+				}
+				return;
+			}
 			
 			UnicastGroupedFlux<K, V> g = groupMap.get(key);
 			
@@ -226,6 +406,191 @@ final class FluxGroupBy<T, K, V> extends FluxSource<T, GroupedFlux<K, V>>
 				g.onNext(value);
 			}
 		}
+
+		@SuppressWarnings("unchecked")
+		void onNextLong(T t) {
+			long key;
+			V value;
+
+			try {
+				key = longKeySelector.applyAsLong(t);
+				value = valueSelector.apply(t);
+			} catch (Throwable ex) {
+				onError(Operators.onOperatorError(s, ex, t));
+				return;
+			}
+			if (value == null) {
+				onError(Operators.onOperatorError(s, new NullPointerException("The " +
+						"valueSelector returned a null value"), t));
+				return;
+			}
+
+			LongOpenHashMap<UnicastGroupedFlux<K, V>> map = longGroupMap;
+
+			if (!terminatedKeys.isEmpty()) {
+				K k;
+				while ((k = terminatedKeys.poll()) != null) {
+					long lk = (Long) k;
+					UnicastGroupedFlux<K, V> g = map.get(lk);
+					if (g != null && g.parent == null) {
+						map.remove(lk);
+					}
+				}
+			}
+
+			UnicastGroupedFlux<K, V> g = map.get(key);
+
+			if (g != null && g.parent == null) {
+				map.remove(key);
+				g = null;
+			}
+
+			if (g == null) {
+				// if the main is cancelled, don't create new groups
+				if (cancelled == 0) {
+					Queue<V> q;
+
+					try {
+						q = groupQueueSupplier.get();
+					} catch (Throwable ex) {
+						onError(Operators.onOperatorError(s, ex, t));
+						return;
+					}
+
+					GROUP_COUNT.getAndIncrement(this);
+					g = new UnicastGroupedFlux<>((K) Long.valueOf(key), q, this, prefetch);
+					g.onNext(value);
+					map.put(key, g);
+
+					queue.offer(g);
+					drain();
+				}
+			} else {
+				g.onNext(value);
+			}
+		}
+
+		void onNextEvicting(K key, V value, T t) {
+			long now = maxIdleMillis > 0L ? timer.now(TimeUnit.MILLISECONDS) : 0L;
+
+			UnicastGroupedFlux<K, V> g = groupMap.get(key);
+
+			if (g == null) {
+				// if the main is cancelled, don't create new groups
+				if (cancelled == 0) {
+					Queue<V> q;
+
+					try {
+						q = groupQueueSupplier.get();
+					} catch (Throwable ex) {
+						onError(Operators.onOperatorError(s, ex, t));
+						return;
+					}
+
+					// make room by completing the least recently used groups
+					UnicastGroupedFlux<K, V> eldest;
+					while (groupMap.size() >= maxGroups && (eldest = lruHead) != null) {
+						evict(eldest);
+					}
+					if (done) {
+						return;
+					}
+
+					GROUP_COUNT.getAndIncrement(this);
+					g = new UnicastGroupedFlux<>(key, q, this, prefetch);
+					g.lastAccess = now;
+					g.onNext(value);
+					groupMap.put(key, g);
+					linkLast(g);
+
+					queue.offer(g);
+					drain();
+				}
+			} else {
+				g.lastAccess = now;
+				if (lruTail != g) {
+					unlink(g);
+					linkLast(g);
+				}
+				g.onNext(value);
+			}
+		}
+
+		void evictIdle() {
+			synchronized (this) {
+				if (done) {
+					return;
+				}
+				long deadline = timer.now(TimeUnit.MILLISECONDS) - maxIdleMillis;
+				UnicastGroupedFlux<K, V> g;
+				while ((g = lruHead) != null && g.lastAccess <= deadline) {
+					evict(g);
+				}
+			}
+		}
+
+		void evict(UnicastGroupedFlux<K, V> g) {
+			unlink(g);
+			g.onComplete();
+
+			Consumer<? super K> c = onEvicted;
+			if (c != null) {
+				try {
+					c.accept(g.key);
+				}
+				catch (Throwable ex) {
+					onError(Operators.onOperatorError(s, ex));
+				}
+			}
+		}
+
+		void linkLast(UnicastGroupedFlux<K, V> g) {
+			UnicastGroupedFlux<K, V> t = lruTail;
+			g.lruPrev = t;
+			g.lruNext = null;
+			if (t == null) {
+				lruHead = g;
+			}
+			else {
+				t.lruNext = g;
+			}
+			lruTail = g;
+		}
+
+		void unlink(UnicastGroupedFlux<K, V> g) {
+			UnicastGroupedFlux<K, V> p = g.lruPrev;
+			UnicastGroupedFlux<K, V> n = g.lruNext;
+			if (p == null) {
+				if (lruHead != g) {
+					return;
+				}
+				lruHead = n;
+			}
+			else {
+				p.lruNext = n;
+			}
+			if (n == null) {
+				lruTail = p;
+			}
+			else {
+				n.lruPrev = p;
+			}
+			g.lruPrev = null;
+			g.lruNext = null;
+		}
+
+		void disposeIdleTask() {
+			Cancellation c = idleTask;
+			if (c != null) {
+				idleTask = null;
+				c.dispose();
+			}
+		}
+
+		void cancelUpstream() {
+			s.cancel();
+			disposeIdleTask();
+		}
 		
 		@Override
 		public void onError(Throwable t) {
@@ -239,15 +604,48 @@ final class FluxGroupBy<T, K, V> extends FluxSource<T, GroupedFlux<K, V>>
 
 		@Override
 		public void onComplete() {
-			for (UnicastGroupedFlux<K, V> g : groupMap.values()) {
-				g.onComplete();
+			if (evicting) {
+				disposeIdleTask();
+				synchronized (this) {
+					completeGroups();
+				}
+			}
+			else {
+				completeGroups();
 			}
-			groupMap.clear();
 			GROUP_COUNT.decrementAndGet(this);
 			done = true;
 			drain();
 		}
 
+		void completeGroups() {
+			for (UnicastGroupedFlux<K, V> g : groups()) {
+				g.onComplete();
+			}
+			clearGroups();
+		}
+
+		Iterable<UnicastGroupedFlux<K, V>> groups() {
+			LongOpenHashMap<UnicastGroupedFlux<K, V>> map = longGroupMap;
+			if (map != null) {
+				return map.values();
+			}
+			return groupMap.values();
+		}
+
+		void clearGroups() {
+			LongOpenHashMap<UnicastGroupedFlux<K, V>> map = longGroupMap;
+			if (map != null) {
+				map.clear();
+				terminatedKeys.clear();
+			}
+			else {
+				groupMap.clear();
+			}
+			lruHead = null;
+			lruTail = null;
+		}
+
 		@Override
 		public long getCapacity() {
 			return prefetch;
@@ -280,7 +678,7 @@ final class FluxGroupBy<T, K, V> extends FluxSource<T, GroupedFlux<K, V>>
 
 		@Override
 		public Iterator<?> downstreams() {
-			return groupMap.values().iterator();
+			return groups().iterator();
 		}
 
 		@Override
@@ -306,11 +704,23 @@ final class FluxGroupBy<T, K, V> extends FluxSource<T, GroupedFlux<K, V>>
 		void signalAsyncError() {
 			Throwable e = Exceptions.terminate(ERROR, this);
 			groupCount = 0;
-			for (UnicastGroupedFlux<K, V> g : groupMap.values()) {
-				g.onError(e);
+			if (evicting) {
+				disposeIdleTask();
+				synchronized (this) {
+					errorGroups(e);
+				}
+			}
+			else {
+				errorGroups(e);
 			}
 			actual.onError(e);
-			groupMap.clear();
+			clearGroups();
+		}
+
+		void errorGroups(Throwable e) {
+			for (UnicastGroupedFlux<K, V> g : groups()) {
+				g.onError(e);
+			}
 		}
 		
 		@Override
@@ -325,7 +735,7 @@ final class FluxGroupBy<T, K, V> extends FluxSource<T, GroupedFlux<K, V>>
 		public void cancel() {
 			if (CANCELLED.compareAndSet(this, 0, 1)) {
 				if (GROUP_COUNT.decrementAndGet(this) == 0) {
-					s.cancel();
+					cancelUpstream();
 				} else {
 					if (!enableAsyncFusion) {
 						if (WIP.getAndIncrement(this) == 0) {
@@ -350,9 +760,22 @@ final class FluxGroupBy<T, K, V> extends FluxSource<T, GroupedFlux<K, V>>
 			if (groupCount == 0) {
 				return;
 			}
-			groupMap.remove(key);
+			if (evicting) {
+				synchronized (this) {
+					UnicastGroupedFlux<K, V> g = groupMap.remove(key);
+					if (g != null) {
+						unlink(g);
+					}
+				}
+			}
+			else if (longGroupMap != null) {
+				terminatedKeys.offer(key);
+			}
+			else {
+				groupMap.remove(key);
+			}
 			if (GROUP_COUNT.decrementAndGet(this) == 0) {
-				s.cancel();
+				cancelUpstream();
 			}
 		}
 		
@@ -553,6 +976,12 @@ final class FluxGroupBy<T, K, V> extends FluxSource<T, GroupedFlux<K, V>>
 		volatile boolean enableOperatorFusion;
 
 		int produced;
+
+		UnicastGroupedFlux<K, V> lruPrev;
+
+		UnicastGroupedFlux<K, V> lruNext;
+
+		long lastAccess;
 		
 		public UnicastGroupedFlux(K key, Queue<V> queue, GroupByMain<?, K, V> parent, int prefetch) {
 			this.key = key;
@@ -15,6 +15,7 @@
  */
 package reactor.core.publisher;
 
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicLongFieldUpdater;
@@ -56,7 +57,9 @@ extends Flux<T>
 			return;
 		}
 
-		subscribe(s, it);
+		long sizeEstimate = iterable instanceof Collection ? ((Collection<?>) iterable).size() : -1L;
+
+		subscribe(s, it, sizeEstimate);
 	}
 
 	@Override
@@ -71,6 +74,18 @@ extends Flux<T>
 	 * @param it
 	 */
 	static <T> void subscribe(Subscriber<? super T> s, Iterator<? extends T> it) {
+		subscribe(s, it, -1L);
+	}
+
+	/**
+	 * Common method to take an Iterator as a source of values, with the number of values
+	 * it is expected to return if known.
+	 *
+	 * @param s
+	 * @param it
+	 * @param sizeEstimate the expected number of values or -1 if unknown
+	 */
+	static <T> void subscribe(Subscriber<? super T> s, Iterator<? extends T> it, long sizeEstimate) {
 		if (it == null) {
 			Operators.error(s, new NullPointerException("The iterator is null"));
 			return;
@@ -90,9 +105,9 @@ extends Flux<T>
 		}
 
 		if (s instanceof ConditionalSubscriber) {
-			s.onSubscribe(new IterableSubscriptionConditional<>((ConditionalSubscriber<? super T>)s, it));
+			s.onSubscribe(new IterableSubscriptionConditional<>((ConditionalSubscriber<? super T>)s, it, sizeEstimate));
 		} else {
-			s.onSubscribe(new IterableSubscription<>(s, it));
+			s.onSubscribe(new IterableSubscription<>(s, it, sizeEstimate));
 		}
 	}
 
@@ -122,10 +137,18 @@ extends Flux<T>
 		static final int STATE_CALL_HAS_NEXT = 3;
 		
 		T current;
+
+		/** The size of the source Collection at subscription, -1 if unknown */
+		final long sizeEstimate;
 		
 		public IterableSubscription(Subscriber<? super T> actual, Iterator<? extends T> iterator) {
+			this(actual, iterator, -1L);
+		}
+
+		IterableSubscription(Subscriber<? super T> actual, Iterator<? extends T> iterator, long sizeEstimate) {
 			this.actual = actual;
 			this.iterator = iterator;
+			this.sizeEstimate = sizeEstimate;
 		}
 
 		@Override
@@ -339,6 +362,11 @@ extends Flux<T>
 			}
 			return 1;
 		}
+
+		@Override
+		public long sizeEstimate() {
+			return sizeEstimate;
+		}
 	}
 
 	static final class IterableSubscriptionConditional<T>
@@ -368,10 +396,18 @@ extends Flux<T>
 		static final int STATE_CALL_HAS_NEXT = 3;
 		
 		T current;
+
+		/** The size of the source Collection at subscription, -1 if unknown */
+		final long sizeEstimate;
 		
 		public IterableSubscriptionConditional(ConditionalSubscriber<? super T> actual, Iterator<? extends T> iterator) {
+			this(actual, iterator, -1L);
+		}
+
+		IterableSubscriptionConditional(ConditionalSubscriber<? super T> actual, Iterator<? extends T> iterator, long sizeEstimate) {
 			this.actual = actual;
 			this.iterator = iterator;
+			this.sizeEstimate = sizeEstimate;
 		}
 
 		@Override
@@ -584,5 +620,10 @@ extends Flux<T>
 			}
 			return 1; // no way of knowing without enumerating first
 		}
+
+		@Override
+		public long sizeEstimate() {
+			return sizeEstimate;
+		}
 	}
 }
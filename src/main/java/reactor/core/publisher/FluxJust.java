@@ -152,6 +152,11 @@ final class FluxJust<T> extends Flux<T> implements Fuseable.ScalarCallable<T>, F
 			return isEmpty() ? 0 : 1;
 		}
 
+		@Override
+		public long sizeEstimate() {
+			return size();
+		}
+
 		@Override
 		public void clear() {
 			terminado = true;
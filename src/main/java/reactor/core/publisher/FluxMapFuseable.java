@@ -227,6 +227,11 @@ final class FluxMapFuseable<T, R> extends FluxSource<T, R>
 		public int size() {
 			return s.size();
 		}
+
+		@Override
+		public long sizeEstimate() {
+			return s.sizeEstimate();
+		}
 	}
 
 	static final class MapFuseableConditionalSubscriber<T, R>
@@ -425,5 +430,10 @@ final class FluxMapFuseable<T, R> extends FluxSource<T, R>
 		public int size() {
 			return s.size();
 		}
+
+		@Override
+		public long sizeEstimate() {
+			return s.sizeEstimate();
+		}
 	}
 }
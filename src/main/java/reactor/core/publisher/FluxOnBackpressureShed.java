@@ -0,0 +1,336 @@
+/*
+ * Copyright (c) 2011-2016 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.Consumer;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.Producer;
+import reactor.core.Receiver;
+import reactor.core.Trackable;
+import reactor.core.scheduler.TimedScheduler;
+import reactor.util.concurrent.QueueSupplier;
+
+/**
+ * Buffers the source values while the downstream doesn't request, timestamping each of
+ * them, and sheds the values that waited too long in the spirit of CoDel: as long as the
+ * buffer drained completely within the last {@code interval} milliseconds, a value is
+ * only dropped past {@code interval} of waiting, but once the buffer has stayed non-empty
+ * for longer than that, any value waiting more than {@code target} milliseconds is
+ * dropped. Shedding is evaluated whenever a value arrives or is requested, so stale
+ * values are also discarded while the downstream doesn't request.
+ *
+ * @param <T> the value type
+ */
+final class FluxOnBackpressureShed<T> extends FluxSource<T, T> {
+
+	final long target;
+
+	final long interval;
+
+	final Consumer<? super T> onDropped;
+
+	final TimedScheduler timer;
+
+	public FluxOnBackpressureShed(Publisher<? extends T> source,
+			long target,
+			long interval,
+			Consumer<? super T> onDropped,
+			TimedScheduler timer) {
+		super(source);
+		if (target < 0L) {
+			throw new IllegalArgumentException("target >= 0 required but it was " + target);
+		}
+		if (interval < target) {
+			throw new IllegalArgumentException("interval >= target required but it was " + interval);
+		}
+		this.target = target;
+		this.interval = interval;
+		this.onDropped = Objects.requireNonNull(onDropped, "onDropped");
+		this.timer = Objects.requireNonNull(timer, "timer");
+	}
+
+	@Override
+	public long getPrefetch() {
+		return Long.MAX_VALUE;
+	}
+
+	@Override
+	public void subscribe(Subscriber<? super T> s) {
+		source.subscribe(new ShedSubscriber<>(s, target, interval, onDropped, timer));
+	}
+
+	/**
+	 * Report a shed value to the {@link Hooks#onNextDropped(Consumer)} hook if any.
+	 *
+	 * @param t the shed value
+	 */
+	static void hookDropped(Object t) {
+		Consumer<Object> hook = Hooks.onNextDroppedHook;
+		if (hook != null) {
+			hook.accept(t);
+		}
+	}
+
+	static final class ShedSubscriber<T>
+			implements Subscriber<T>, Subscription, Trackable, Producer, Receiver {
+
+		final Subscriber<? super T> actual;
+
+		final long target;
+
+		final long interval;
+
+		final Consumer<? super T> onDropped;
+
+		final TimedScheduler timer;
+
+		final Queue<Entry<T>> queue;
+
+		Subscription s;
+
+		volatile boolean done;
+		Throwable error;
+
+		volatile boolean cancelled;
+
+		/** Last time the buffer was seen empty, only accessed within the drain */
+		long lastEmpty;
+
+		volatile long requested;
+		@SuppressWarnings("rawtypes")
+		static final AtomicLongFieldUpdater<ShedSubscriber> REQUESTED =
+				AtomicLongFieldUpdater.newUpdater(ShedSubscriber.class, "requested");
+
+		volatile int wip;
+		@SuppressWarnings("rawtypes")
+		static final AtomicIntegerFieldUpdater<ShedSubscriber> WIP =
+				AtomicIntegerFieldUpdater.newUpdater(ShedSubscriber.class, "wip");
+
+		ShedSubscriber(Subscriber<? super T> actual,
+				long target,
+				long interval,
+				Consumer<? super T> onDropped,
+				TimedScheduler timer) {
+			this.actual = actual;
+			this.target = target;
+			this.interval = interval;
+			this.onDropped = onDropped;
+			this.timer = timer;
+			this.queue = QueueSupplier.<Entry<T>>unbounded(QueueSupplier.SMALL_BUFFER_SIZE).get();
+			this.lastEmpty = timer.now(TimeUnit.MILLISECONDS);
+		}
+
+		@Override
+		public void onSubscribe(Subscription s) {
+			if (Operators.validate(this.s, s)) {
+				this.s = s;
+				actual.onSubscribe(this);
+				s.request(Long.MAX_VALUE);
+			}
+		}
+
+		@Override
+		public void onNext(T t) {
+			if (done) {
+				Operators.onNextDropped(t);
+				return;
+			}
+			queue.offer(new Entry<>(timer.now(TimeUnit.MILLISECONDS), t));
+			drain();
+		}
+
+		@Override
+		public void onError(Throwable t) {
+			if (done) {
+				Operators.onErrorDropped(t);
+				return;
+			}
+			error = t;
+			done = true;
+			drain();
+		}
+
+		@Override
+		public void onComplete() {
+			if (done) {
+				return;
+			}
+			done = true;
+			drain();
+		}
+
+		@Override
+		public void request(long n) {
+			if (Operators.validate(n)) {
+				Operators.getAndAddCap(REQUESTED, this, n);
+				drain();
+			}
+		}
+
+		@Override
+		public void cancel() {
+			if (!cancelled) {
+				cancelled = true;
+				s.cancel();
+				if (WIP.getAndIncrement(this) == 0) {
+					queue.clear();
+				}
+			}
+		}
+
+		void drain() {
+			if (WIP.getAndIncrement(this) != 0) {
+				return;
+			}
+
+			int missed = 1;
+
+			final Subscriber<? super T> a = actual;
+			final Queue<Entry<T>> q = queue;
+
+			for (;;) {
+				long r = requested;
+				long e = 0L;
+				long now = timer.now(TimeUnit.MILLISECONDS);
+
+				for (;;) {
+					if (cancelled) {
+						q.clear();
+						return;
+					}
+
+					boolean d = done;
+					Entry<T> entry = q.peek();
+
+					if (entry == null) {
+						lastEmpty = now;
+						if (d) {
+							Throwable ex = error;
+							if (ex != null) {
+								a.onError(ex);
+							}
+							else {
+								a.onComplete();
+							}
+							return;
+						}
+						break;
+					}
+
+					long maxDelay = now - lastEmpty > interval ? target : interval;
+					if (now - entry.enqueued > maxDelay) {
+						q.poll();
+						try {
+							onDropped.accept(entry.value);
+						}
+						catch (Throwable ex) {
+							s.cancel();
+							q.clear();
+							a.onError(Operators.onOperatorError(ex));
+							return;
+						}
+						continue;
+					}
+
+					if (e == r) {
+						break;
+					}
+
+					q.poll();
+
+					a.onNext(entry.value);
+
+					e++;
+				}
+
+				if (e != 0L && r != Long.MAX_VALUE) {
+					REQUESTED.addAndGet(this, -e);
+				}
+
+				missed = WIP.addAndGet(this, -missed);
+				if (missed == 0) {
+					break;
+				}
+			}
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return cancelled;
+		}
+
+		@Override
+		public boolean isStarted() {
+			return s != null;
+		}
+
+		@Override
+		public boolean isTerminated() {
+			return done;
+		}
+
+		@Override
+		public Throwable getError() {
+			return error;
+		}
+
+		@Override
+		public Object downstream() {
+			return actual;
+		}
+
+		@Override
+		public Object upstream() {
+			return s;
+		}
+
+		@Override
+		public long getCapacity() {
+			return Long.MAX_VALUE;
+		}
+
+		@Override
+		public long getPending() {
+			return queue.size();
+		}
+
+		@Override
+		public long requestedFromDownstream() {
+			return requested;
+		}
+	}
+
+	static final class Entry<T> {
+
+		final long enqueued;
+
+		final T value;
+
+		Entry(long enqueued, T value) {
+			this.enqueued = enqueued;
+			this.value = value;
+		}
+	}
+}
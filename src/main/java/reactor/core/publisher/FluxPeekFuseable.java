@@ -294,6 +294,11 @@ final class FluxPeekFuseable<T> extends FluxSource<T, T> implements Fuseable,
 		public int size() {
 			return s.size();
 		}
+
+		@Override
+		public long sizeEstimate() {
+			return s.sizeEstimate();
+		}
 	}
 
 	static final class PeekFuseableConditionalSubscriber<T>
@@ -531,6 +536,11 @@ final class FluxPeekFuseable<T> extends FluxSource<T, T> implements Fuseable,
 		public int size() {
 			return s.size();
 		}
+
+		@Override
+		public long sizeEstimate() {
+			return s.sizeEstimate();
+		}
 	}
 
 	@Override
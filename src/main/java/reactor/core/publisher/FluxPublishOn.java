@@ -650,6 +650,11 @@ final class FluxPublishOn<T> extends FluxSource<T, T> implements Loopback, Fusea
 		public int size() {
 			return queue.size();
 		}
+
+		@Override
+		public long sizeEstimate() {
+			return Operators.sizeEstimate(s);
+		}
 	}
 
 	static final class PublishOnConditionalSubscriber<T>
@@ -1179,5 +1184,10 @@ final class FluxPublishOn<T> extends FluxSource<T, T> implements Loopback, Fusea
 		public int size() {
 			return queue.size();
 		}
+
+		@Override
+		public long sizeEstimate() {
+			return Operators.sizeEstimate(s);
+		}
 	}
 }
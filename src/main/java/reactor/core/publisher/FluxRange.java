@@ -222,6 +222,11 @@ final class FluxRange extends Flux<Integer>
 		public int size() {
 			return (int)(end - index);
 		}
+
+		@Override
+		public long sizeEstimate() {
+			return end - index;
+		}
 	}
 	
 	static final class RangeSubscriptionConditional
@@ -379,5 +384,10 @@ final class FluxRange extends Flux<Integer>
 		public int size() {
 			return (int)(end - index);
 		}
+
+		@Override
+		public long sizeEstimate() {
+			return end - index;
+		}
 	}
 }
@@ -0,0 +1,265 @@
+/*
+ * Copyright (c) 2011-2016 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.Producer;
+import reactor.core.Receiver;
+import reactor.core.Trackable;
+import reactor.core.scheduler.TimedScheduler;
+
+/**
+ * Paces the source with a token bucket holding up to {@code burst} tokens and refilled
+ * with {@code permits} tokens every {@code period} milliseconds by a single periodic
+ * task. Values are never buffered: the downstream requests are forwarded upstream only
+ * as far as tokens are available, each requested value consuming one token.
+ *
+ * @param <T> the value type
+ */
+final class FluxRateLimit<T> extends FluxSource<T, T> {
+
+	final int permits;
+
+	final long period;
+
+	final int burst;
+
+	final TimedScheduler timer;
+
+	public FluxRateLimit(Publisher<? extends T> source,
+			int permits,
+			long period,
+			int burst,
+			TimedScheduler timer) {
+		super(source);
+		if (permits <= 0) {
+			throw new IllegalArgumentException("permits > 0 required but it was " + permits);
+		}
+		if (period <= 0L) {
+			throw new IllegalArgumentException("period > 0 required but it was " + period);
+		}
+		if (burst <= 0) {
+			throw new IllegalArgumentException("burst > 0 required but it was " + burst);
+		}
+		this.permits = permits;
+		this.period = period;
+		this.burst = burst;
+		this.timer = Objects.requireNonNull(timer, "timer");
+	}
+
+	@Override
+	public void subscribe(Subscriber<? super T> s) {
+		source.subscribe(new RateLimitSubscriber<>(s, permits, period, burst, timer.createWorker()));
+	}
+
+	static final class RateLimitSubscriber<T>
+			implements Subscriber<T>, Subscription, Runnable, Trackable, Producer, Receiver {
+
+		final Subscriber<? super T> actual;
+
+		final int permits;
+
+		final long period;
+
+		final int burst;
+
+		final TimedScheduler.TimedWorker worker;
+
+		Subscription s;
+
+		/** Tokens available, only accessed within the drain */
+		long tokens;
+
+		boolean done;
+
+		volatile boolean cancelled;
+
+		/** Downstream demand not yet forwarded upstream */
+		volatile long requested;
+		@SuppressWarnings("rawtypes")
+		static final AtomicLongFieldUpdater<RateLimitSubscriber> REQUESTED =
+				AtomicLongFieldUpdater.newUpdater(RateLimitSubscriber.class, "requested");
+
+		/** Periods elapsed since the last drain */
+		volatile int refills;
+		@SuppressWarnings("rawtypes")
+		static final AtomicIntegerFieldUpdater<RateLimitSubscriber> REFILLS =
+				AtomicIntegerFieldUpdater.newUpdater(RateLimitSubscriber.class, "refills");
+
+		volatile int wip;
+		@SuppressWarnings("rawtypes")
+		static final AtomicIntegerFieldUpdater<RateLimitSubscriber> WIP =
+				AtomicIntegerFieldUpdater.newUpdater(RateLimitSubscriber.class, "wip");
+
+		RateLimitSubscriber(Subscriber<? super T> actual,
+				int permits,
+				long period,
+				int burst,
+				TimedScheduler.TimedWorker worker) {
+			this.actual = actual;
+			this.permits = permits;
+			this.period = period;
+			this.burst = burst;
+			this.worker = worker;
+			this.tokens = burst;
+		}
+
+		@Override
+		public void onSubscribe(Subscription s) {
+			if (Operators.validate(this.s, s)) {
+				this.s = s;
+				actual.onSubscribe(this);
+				if (!cancelled) {
+					worker.schedulePeriodically(this, period, period, TimeUnit.MILLISECONDS);
+				}
+			}
+		}
+
+		@Override
+		public void onNext(T t) {
+			if (done) {
+				Operators.onNextDropped(t);
+				return;
+			}
+			actual.onNext(t);
+		}
+
+		@Override
+		public void onError(Throwable t) {
+			if (done) {
+				Operators.onErrorDropped(t);
+				return;
+			}
+			done = true;
+			worker.shutdown();
+			actual.onError(t);
+		}
+
+		@Override
+		public void onComplete() {
+			if (done) {
+				return;
+			}
+			done = true;
+			worker.shutdown();
+			actual.onComplete();
+		}
+
+		@Override
+		public void request(long n) {
+			if (Operators.validate(n)) {
+				Operators.getAndAddCap(REQUESTED, this, n);
+				drain();
+			}
+		}
+
+		@Override
+		public void cancel() {
+			if (!cancelled) {
+				cancelled = true;
+				worker.shutdown();
+				s.cancel();
+			}
+		}
+
+		@Override
+		public void run() {
+			REFILLS.incrementAndGet(this);
+			drain();
+		}
+
+		void drain() {
+			if (WIP.getAndIncrement(this) != 0) {
+				return;
+			}
+			int missed = 1;
+			for (;;) {
+				if (cancelled) {
+					return;
+				}
+
+				int p = refills;
+				if (p != 0) {
+					p = REFILLS.getAndSet(this, 0);
+					tokens = Math.min(burst, tokens + (long) p * permits);
+				}
+
+				long r = requested;
+				long n = Math.min(r, tokens);
+				if (n != 0L) {
+					tokens -= n;
+					if (r != Long.MAX_VALUE) {
+						REQUESTED.addAndGet(this, -n);
+					}
+					s.request(n);
+				}
+
+				missed = WIP.addAndGet(this, -missed);
+				if (missed == 0) {
+					break;
+				}
+			}
+		}
+
+		@Override
+		public Object upstream() {
+			return s;
+		}
+
+		@Override
+		public Object downstream() {
+			return actual;
+		}
+
+		@Override
+		public boolean isStarted() {
+			return s != null && !done;
+		}
+
+		@Override
+		public boolean isTerminated() {
+			return done;
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return cancelled;
+		}
+
+		@Override
+		public long requestedFromDownstream() {
+			return requested;
+		}
+
+		@Override
+		public long getCapacity() {
+			return burst;
+		}
+
+		@Override
+		public long getPending() {
+			return tokens;
+		}
+	}
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright (c) 2011-2016 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import reactor.core.Cancellation;
+import reactor.core.scheduler.TimedScheduler;
+
+/**
+ * Resubscribes to the source sequence if it signals an error, up to {@code numRetries}
+ * times, after an exponentially growing delay: {@code firstBackoff} milliseconds for the
+ * first retry, doubling on each further retry up to {@code maxBackoff}, and randomly
+ * moved by up to {@code jitterFactor} of itself in either direction.
+ * <p>
+ * Every resubscription is scheduled on the timer, so synchronous failures never recurse.
+ * If the next retry would start more than {@code timeout} milliseconds after the
+ * subscription, the error is propagated instead.
+ *
+ * @param <T> the value type
+ */
+final class FluxRetryBackoff<T> extends FluxSource<T, T> {
+
+	final long numRetries;
+
+	final long firstBackoff;
+
+	final long maxBackoff;
+
+	final double jitterFactor;
+
+	final long timeout;
+
+	final TimedScheduler timer;
+
+	public FluxRetryBackoff(Publisher<? extends T> source,
+			long numRetries,
+			long firstBackoff,
+			long maxBackoff,
+			double jitterFactor,
+			long timeout,
+			TimedScheduler timer) {
+		super(source);
+		validate(numRetries, firstBackoff, maxBackoff, jitterFactor, timeout);
+		this.numRetries = numRetries;
+		this.firstBackoff = firstBackoff;
+		this.maxBackoff = maxBackoff;
+		this.jitterFactor = jitterFactor;
+		this.timeout = timeout;
+		this.timer = Objects.requireNonNull(timer, "timer");
+	}
+
+	static void validate(long numRetries,
+			long firstBackoff,
+			long maxBackoff,
+			double jitterFactor,
+			long timeout) {
+		if (numRetries < 0L) {
+			throw new IllegalArgumentException("numRetries >= 0 required but it was " + numRetries);
+		}
+		if (firstBackoff < 0L) {
+			throw new IllegalArgumentException("firstBackoff >= 0 required but it was " + firstBackoff);
+		}
+		if (maxBackoff < firstBackoff) {
+			throw new IllegalArgumentException("maxBackoff >= firstBackoff required but it was " + maxBackoff);
+		}
+		if (!(jitterFactor >= 0d && jitterFactor <= 1d)) {
+			throw new IllegalArgumentException("jitterFactor between 0 and 1 required but it was " + jitterFactor);
+		}
+		if (timeout < 0L) {
+			throw new IllegalArgumentException("timeout >= 0 required but it was " + timeout);
+		}
+	}
+
+	@Override
+	public void subscribe(Subscriber<? super T> s) {
+		RetryBackoffSubscriber<T> parent = new RetryBackoffSubscriber<>(source,
+				s,
+				numRetries,
+				firstBackoff,
+				maxBackoff,
+				jitterFactor,
+				timeout,
+				timer);
+
+		s.onSubscribe(parent);
+
+		if (!parent.isCancelled()) {
+			parent.resubscribe();
+		}
+	}
+
+	static final class RetryBackoffSubscriber<T>
+			extends Operators.MultiSubscriptionSubscriber<T, T>
+			implements Runnable {
+
+		final Publisher<? extends T> source;
+
+		final long numRetries;
+
+		final long firstBackoff;
+
+		final long maxBackoff;
+
+		final double jitterFactor;
+
+		final TimedScheduler timer;
+
+		/** Time in milliseconds past which no retry starts */
+		final long deadline;
+
+		long retries;
+
+		long produced;
+
+		volatile int wip;
+		@SuppressWarnings("rawtypes")
+		static final AtomicIntegerFieldUpdater<RetryBackoffSubscriber> WIP =
+				AtomicIntegerFieldUpdater.newUpdater(RetryBackoffSubscriber.class, "wip");
+
+		volatile Cancellation task;
+		@SuppressWarnings("rawtypes")
+		static final AtomicReferenceFieldUpdater<RetryBackoffSubscriber, Cancellation> TASK =
+				AtomicReferenceFieldUpdater.newUpdater(RetryBackoffSubscriber.class,
+						Cancellation.class,
+						"task");
+
+		static final Cancellation CANCELLED = () -> { };
+
+		RetryBackoffSubscriber(Publisher<? extends T> source,
+				Subscriber<? super T> actual,
+				long numRetries,
+				long firstBackoff,
+				long maxBackoff,
+				double jitterFactor,
+				long timeout,
+				TimedScheduler timer) {
+			super(actual);
+			this.source = source;
+			this.numRetries = numRetries;
+			this.firstBackoff = firstBackoff;
+			this.maxBackoff = maxBackoff;
+			this.jitterFactor = jitterFactor;
+			this.timer = timer;
+			long now = timer.now(TimeUnit.MILLISECONDS);
+			this.deadline = timeout > Long.MAX_VALUE - now ? Long.MAX_VALUE : now + timeout;
+		}
+
+		@Override
+		public void onNext(T t) {
+			produced++;
+
+			subscriber.onNext(t);
+		}
+
+		@Override
+		public void onError(Throwable t) {
+			long r = retries;
+			if (r == numRetries) {
+				subscriber.onError(t);
+				return;
+			}
+			retries = r + 1;
+
+			long delay = backoff(r);
+			if (delay > deadline - timer.now(TimeUnit.MILLISECONDS)) {
+				subscriber.onError(t);
+				return;
+			}
+
+			Cancellation c;
+			try {
+				c = timer.schedule(this, delay, TimeUnit.MILLISECONDS);
+			}
+			catch (Throwable e) {
+				e.addSuppressed(t);
+				subscriber.onError(Operators.onOperatorError(e));
+				return;
+			}
+			for (;;) {
+				Cancellation a = task;
+				if (a == CANCELLED) {
+					c.dispose();
+					return;
+				}
+				if (TASK.compareAndSet(this, a, c)) {
+					return;
+				}
+			}
+		}
+
+		/**
+		 * Compute the delay before the given retry.
+		 *
+		 * @param retry the number of retries already attempted
+		 *
+		 * @return the delay in milliseconds
+		 */
+		long backoff(long retry) {
+			long base;
+			if (firstBackoff == 0L) {
+				base = 0L;
+			}
+			else if (retry >= Long.SIZE - 1 || firstBackoff > maxBackoff >> retry) {
+				base = maxBackoff;
+			}
+			else {
+				base = firstBackoff << retry;
+			}
+			if (jitterFactor == 0d || base == 0L) {
+				return base;
+			}
+			long jitter = (long) (base * jitterFactor);
+			long low = Math.max(firstBackoff, base - jitter);
+			long high = Math.min(maxBackoff, base + jitter);
+			if (high <= low) {
+				return low;
+			}
+			return ThreadLocalRandom.current().nextLong(low, high);
+		}
+
+		@Override
+		public void run() {
+			resubscribe();
+		}
+
+		@Override
+		public void cancel() {
+			Cancellation c = task;
+			if (c != CANCELLED) {
+				c = TASK.getAndSet(this, CANCELLED);
+				if (c != null && c != CANCELLED) {
+					c.dispose();
+				}
+			}
+			super.cancel();
+		}
+
+		void resubscribe() {
+			if (WIP.getAndIncrement(this) == 0) {
+				do {
+					if (isCancelled()) {
+						return;
+					}
+
+					long c = produced;
+					if (c != 0L) {
+						produced = 0L;
+						produced(c);
+					}
+
+					source.subscribe(this);
+
+				} while (WIP.decrementAndGet(this) != 0);
+			}
+		}
+	}
+}
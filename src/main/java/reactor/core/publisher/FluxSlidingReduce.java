@@ -0,0 +1,525 @@
+/*
+ * Copyright (c) 2011-2016 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.Producer;
+import reactor.core.Receiver;
+import reactor.core.Trackable;
+import reactor.core.scheduler.TimedScheduler;
+
+/**
+ * Emits, for each source value, the reduction of the values within a sliding window
+ * ending with it: either the last {@code size} values, or the values received during the
+ * last {@code timespan} milliseconds.
+ * <p>
+ * The reduction is maintained incrementally in amortized constant time per value by a
+ * {@link SlidingWindow}: two stacks for an associative function, an inverse function
+ * applied to the evicted value when available, or a monotonic deque for a minimum or a
+ * maximum.
+ *
+ * @param <T> the value type
+ */
+final class FluxSlidingReduce<T> extends FluxSource<T, T> {
+
+	final int size;
+
+	final long timespan;
+
+	final TimedScheduler timer;
+
+	final Supplier<? extends SlidingWindow<T>> windowSupplier;
+
+	/**
+	 * Reduce over the last {@code size} values.
+	 */
+	public FluxSlidingReduce(Publisher<? extends T> source,
+			int size,
+			Supplier<? extends SlidingWindow<T>> windowSupplier) {
+		super(source);
+		if (size <= 0) {
+			throw new IllegalArgumentException("size > 0 required but it was " + size);
+		}
+		this.size = size;
+		this.timespan = -1L;
+		this.timer = null;
+		this.windowSupplier = Objects.requireNonNull(windowSupplier, "windowSupplier");
+	}
+
+	/**
+	 * Reduce over the values received during the last {@code timespan} milliseconds.
+	 */
+	public FluxSlidingReduce(Publisher<? extends T> source,
+			long timespan,
+			TimedScheduler timer,
+			Supplier<? extends SlidingWindow<T>> windowSupplier) {
+		super(source);
+		if (timespan <= 0L) {
+			throw new IllegalArgumentException("timespan > 0 required but it was " + timespan);
+		}
+		this.size = Integer.MAX_VALUE;
+		this.timespan = timespan;
+		this.timer = Objects.requireNonNull(timer, "timer");
+		this.windowSupplier = Objects.requireNonNull(windowSupplier, "windowSupplier");
+	}
+
+	@Override
+	public void subscribe(Subscriber<? super T> s) {
+		SlidingWindow<T> window;
+		try {
+			window = Objects.requireNonNull(windowSupplier.get(),
+					"The windowSupplier returned a null window");
+		}
+		catch (Throwable e) {
+			Operators.error(s, Operators.onOperatorError(e));
+			return;
+		}
+		source.subscribe(new SlidingReduceSubscriber<>(s, size, timespan, timer, window));
+	}
+
+	static final class SlidingReduceSubscriber<T>
+			implements Subscriber<T>, Subscription, Receiver, Producer, Trackable {
+
+		final Subscriber<? super T> actual;
+
+		final int size;
+
+		final long timespan;
+
+		final TimedScheduler timer;
+
+		final SlidingWindow<T> window;
+
+		Subscription s;
+
+		boolean done;
+
+		/** Number of values in the window */
+		int count;
+
+		/** Arrival times of the values in the window, oldest first, if time-based */
+		long[] times;
+
+		int timesHead;
+
+		SlidingReduceSubscriber(Subscriber<? super T> actual,
+				int size,
+				long timespan,
+				TimedScheduler timer,
+				SlidingWindow<T> window) {
+			this.actual = actual;
+			this.size = size;
+			this.timespan = timespan;
+			this.timer = timer;
+			this.window = window;
+			if (timer != null) {
+				this.times = new long[16];
+			}
+		}
+
+		@Override
+		public void onSubscribe(Subscription s) {
+			if (Operators.validate(this.s, s)) {
+				this.s = s;
+
+				actual.onSubscribe(this);
+			}
+		}
+
+		@Override
+		public void onNext(T t) {
+			if (done) {
+				Operators.onNextDropped(t);
+				return;
+			}
+
+			T v;
+			try {
+				if (timer != null) {
+					long now = timer.now(TimeUnit.MILLISECONDS);
+					evictOlder(now - timespan);
+					offerTime(now);
+				}
+				else if (count == size) {
+					window.pop();
+					count--;
+				}
+				window.push(t);
+				count++;
+				v = Objects.requireNonNull(window.result(), "The reducer returned a null value");
+			}
+			catch (Throwable e) {
+				onError(Operators.onOperatorError(s, e, t));
+				return;
+			}
+
+			actual.onNext(v);
+		}
+
+		void evictOlder(long limit) {
+			long[] a = times;
+			int m = a.length - 1;
+			while (count != 0 && a[timesHead] <= limit) {
+				window.pop();
+				timesHead = (timesHead + 1) & m;
+				count--;
+			}
+		}
+
+		void offerTime(long now) {
+			long[] a = times;
+			if (count == a.length) {
+				long[] b = new long[a.length << 1];
+				int h = timesHead;
+				int n = a.length - h;
+				System.arraycopy(a, h, b, 0, n);
+				System.arraycopy(a, 0, b, n, h);
+				times = b;
+				timesHead = 0;
+				a = b;
+			}
+			a[(timesHead + count) & (a.length - 1)] = now;
+		}
+
+		@Override
+		public void onError(Throwable t) {
+			if (done) {
+				Operators.onErrorDropped(t);
+				return;
+			}
+			done = true;
+			window.clear();
+			actual.onError(t);
+		}
+
+		@Override
+		public void onComplete() {
+			if (done) {
+				return;
+			}
+			done = true;
+			window.clear();
+			actual.onComplete();
+		}
+
+		@Override
+		public void request(long n) {
+			s.request(n);
+		}
+
+		@Override
+		public void cancel() {
+			s.cancel();
+		}
+
+		@Override
+		public boolean isStarted() {
+			return s != null && !done;
+		}
+
+		@Override
+		public boolean isTerminated() {
+			return done;
+		}
+
+		@Override
+		public Object downstream() {
+			return actual;
+		}
+
+		@Override
+		public Object upstream() {
+			return s;
+		}
+
+		@Override
+		public long getPending() {
+			return count;
+		}
+
+		@Override
+		public long getCapacity() {
+			return size;
+		}
+	}
+
+	/**
+	 * The incremental reduction of the values of a sliding window, which are pushed in
+	 * arrival order and popped oldest first.
+	 *
+	 * @param <T> the value type
+	 */
+	static abstract class SlidingWindow<T> {
+
+		/**
+		 * Add the newest value to the window.
+		 *
+		 * @param t the value
+		 */
+		abstract void push(T t);
+
+		/**
+		 * Remove the oldest value from the window.
+		 */
+		abstract void pop();
+
+		/**
+		 * @return the reduction of the values in the window, the window being non-empty
+		 */
+		abstract T result();
+
+		/**
+		 * Release the values held by the window.
+		 */
+		abstract void clear();
+	}
+
+	/**
+	 * Reduces with an associative function by keeping the window in two stacks: the
+	 * newest values with their running reduction, and the oldest values each replaced by
+	 * the reduction from itself to the newest value of that stack. Popping from an empty
+	 * front stack moves the whole back stack over, which amortizes to one reduction per
+	 * value.
+	 *
+	 * @param <T> the value type
+	 */
+	static final class TwoStacks<T> extends SlidingWindow<T> {
+
+		final BiFunction<T, T, T> reducer;
+
+		/** The newest values, oldest first */
+		final ArrayDeque<T> back;
+
+		/** Reduction from each of the oldest values to the newest of them, oldest first */
+		final ArrayDeque<T> front;
+
+		/** Reduction of {@link #back}, null if empty */
+		T backValue;
+
+		TwoStacks(BiFunction<T, T, T> reducer) {
+			this.reducer = Objects.requireNonNull(reducer, "reducer");
+			this.back = new ArrayDeque<>();
+			this.front = new ArrayDeque<>();
+		}
+
+		@Override
+		void push(T t) {
+			T b = backValue;
+			backValue = b == null ? t : Objects.requireNonNull(reducer.apply(b, t),
+					"The reducer returned a null value");
+			back.addLast(t);
+		}
+
+		@Override
+		void pop() {
+			if (front.isEmpty()) {
+				T r = null;
+				Iterator<T> it = back.descendingIterator();
+				while (it.hasNext()) {
+					T t = it.next();
+					r = r == null ? t : Objects.requireNonNull(reducer.apply(t, r),
+							"The reducer returned a null value");
+					front.addFirst(r);
+				}
+				back.clear();
+				backValue = null;
+			}
+			front.pollFirst();
+		}
+
+		@Override
+		T result() {
+			T f = front.peekFirst();
+			T b = backValue;
+			if (f == null) {
+				return b;
+			}
+			if (b == null) {
+				return f;
+			}
+			return reducer.apply(f, b);
+		}
+
+		@Override
+		void clear() {
+			back.clear();
+			front.clear();
+			backValue = null;
+		}
+	}
+
+	/**
+	 * Reduces with a function whose effect can be reverted by an inverse function, by
+	 * applying the inverse to the running reduction for each evicted value.
+	 *
+	 * @param <T> the value type
+	 */
+	static final class Invertible<T> extends SlidingWindow<T> {
+
+		final BiFunction<T, T, T> reducer;
+
+		final BiFunction<T, T, T> inverse;
+
+		final ArrayDeque<T> values;
+
+		T value;
+
+		Invertible(BiFunction<T, T, T> reducer, BiFunction<T, T, T> inverse) {
+			this.reducer = Objects.requireNonNull(reducer, "reducer");
+			this.inverse = Objects.requireNonNull(inverse, "inverse");
+			this.values = new ArrayDeque<>();
+		}
+
+		@Override
+		void push(T t) {
+			T v = value;
+			value = v == null ? t : reducer.apply(v, t);
+			values.addLast(t);
+		}
+
+		@Override
+		void pop() {
+			T t = values.pollFirst();
+			// restart from scratch once empty rather than carry a rounding error over
+			value = values.isEmpty() ? null : Objects.requireNonNull(inverse.apply(value, t),
+					"The inverse returned a null value");
+		}
+
+		@Override
+		T result() {
+			return value;
+		}
+
+		@Override
+		void clear() {
+			values.clear();
+			value = null;
+		}
+	}
+
+	/**
+	 * Tracks the extremum according to a {@link Comparator} with a deque of candidates
+	 * that is monotonic from the oldest to the newest: a value removes the candidates it
+	 * beats as it is pushed, so the head of the deque is always the extremum of the
+	 * window. Each candidate is tagged with its arrival index to know when it is
+	 * evicted.
+	 *
+	 * @param <T> the value type
+	 */
+	static final class Monotonic<T> extends SlidingWindow<T> {
+
+		final Comparator<? super T> comparator;
+
+		Object[] values;
+
+		long[] indexes;
+
+		int head;
+
+		int count;
+
+		long pushed;
+
+		long popped;
+
+		/**
+		 * @param comparator the comparator, the window keeping its maximum
+		 */
+		Monotonic(Comparator<? super T> comparator) {
+			this.comparator = Objects.requireNonNull(comparator, "comparator");
+			this.values = new Object[16];
+			this.indexes = new long[16];
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		void push(T t) {
+			Object[] v = values;
+			int m = v.length - 1;
+			while (count != 0) {
+				int last = (head + count - 1) & m;
+				// ties keep the newest, so that it stays a candidate the longest
+				if (comparator.compare((T) v[last], t) > 0) {
+					break;
+				}
+				v[last] = null;
+				count--;
+			}
+			if (count == v.length) {
+				grow();
+				v = values;
+				m = v.length - 1;
+			}
+			int i = (head + count) & m;
+			v[i] = t;
+			indexes[i] = pushed++;
+			count++;
+		}
+
+		void grow() {
+			Object[] v = values;
+			long[] x = indexes;
+			int n = v.length;
+			int h = head;
+			Object[] nv = new Object[n << 1];
+			long[] nx = new long[n << 1];
+			System.arraycopy(v, h, nv, 0, n - h);
+			System.arraycopy(v, 0, nv, n - h, h);
+			System.arraycopy(x, h, nx, 0, n - h);
+			System.arraycopy(x, 0, nx, n - h, h);
+			values = nv;
+			indexes = nx;
+			head = 0;
+		}
+
+		@Override
+		void pop() {
+			if (count != 0 && indexes[head] == popped) {
+				values[head] = null;
+				head = (head + 1) & (values.length - 1);
+				count--;
+			}
+			popped++;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		T result() {
+			return (T) values[head];
+		}
+
+		@Override
+		void clear() {
+			Object[] v = values;
+			int m = v.length - 1;
+			for (int i = 0; i < count; i++) {
+				v[(head + i) & m] = null;
+			}
+			count = 0;
+		}
+	}
+}
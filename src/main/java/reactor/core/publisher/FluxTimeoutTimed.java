@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2011-2016 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.Cancellation;
+import reactor.core.scheduler.TimedScheduler;
+
+/**
+ * Signals a timeout (or switches to another sequence) in case no item arrives from the
+ * main source within {@code timeout} milliseconds of the subscription or of the previous
+ * item.
+ * <p>
+ * Unlike {@link FluxTimeout}, no timeout {@link Publisher} is created per item: each
+ * item only moves a deadline forward, and a single timer task per subscription checks
+ * that deadline when it fires, re-arming itself for the remaining time if it moved.
+ *
+ * @param <T> the value type
+ */
+final class FluxTimeoutTimed<T> extends FluxSource<T, T> {
+
+	final long timeout;
+
+	final TimedScheduler timer;
+
+	final Publisher<? extends T> other;
+
+	public FluxTimeoutTimed(Publisher<? extends T> source,
+			long timeout,
+			TimedScheduler timer,
+			Publisher<? extends T> other) {
+		super(source);
+		if (timeout < 0L) {
+			throw new IllegalArgumentException("timeout >= 0 required but it was " + timeout);
+		}
+		this.timeout = timeout;
+		this.timer = Objects.requireNonNull(timer, "timer");
+		this.other = other;
+	}
+
+	@Override
+	public void subscribe(Subscriber<? super T> s) {
+		Subscriber<T> serial = Operators.serialize(s);
+
+		TimeoutTimedSubscriber<T> main = new TimeoutTimedSubscriber<>(serial, timeout, timer, other);
+
+		serial.onSubscribe(main);
+
+		main.arm(timeout);
+
+		source.subscribe(main);
+	}
+
+	static final class TimeoutTimedSubscriber<T>
+			extends Operators.MultiSubscriptionSubscriber<T, T>
+			implements Runnable {
+
+		final long timeout;
+
+		final TimedScheduler timer;
+
+		final Publisher<? extends T> other;
+
+		Subscription s;
+
+		/** Time in milliseconds past which the absence of item is a timeout */
+		volatile long deadline;
+
+		/** Items received, or {@code Long.MIN_VALUE} once terminated or timed out */
+		volatile long index;
+		@SuppressWarnings("rawtypes")
+		static final AtomicLongFieldUpdater<TimeoutTimedSubscriber> INDEX =
+				AtomicLongFieldUpdater.newUpdater(TimeoutTimedSubscriber.class, "index");
+
+		volatile Cancellation task;
+		@SuppressWarnings("rawtypes")
+		static final AtomicReferenceFieldUpdater<TimeoutTimedSubscriber, Cancellation> TASK =
+				AtomicReferenceFieldUpdater.newUpdater(TimeoutTimedSubscriber.class,
+						Cancellation.class,
+						"task");
+
+		static final Cancellation CANCELLED = () -> { };
+
+		TimeoutTimedSubscriber(Subscriber<? super T> actual,
+				long timeout,
+				TimedScheduler timer,
+				Publisher<? extends T> other) {
+			super(actual);
+			this.timeout = timeout;
+			this.timer = timer;
+			this.other = other;
+			this.deadline = timer.now(TimeUnit.MILLISECONDS) + timeout;
+		}
+
+		@Override
+		public void onSubscribe(Subscription s) {
+			if (Operators.validate(this.s, s)) {
+				this.s = s;
+
+				if (index == Long.MIN_VALUE) {
+					// timed out before the source could subscribe
+					s.cancel();
+					return;
+				}
+				set(s);
+			}
+		}
+
+		@Override
+		protected boolean shouldCancelCurrent() {
+			return true;
+		}
+
+		@Override
+		public void onNext(T t) {
+			// the deadline moves before the index so that the timer never pairs a new
+			// index with a stale deadline
+			deadline = timer.now(TimeUnit.MILLISECONDS) + timeout;
+
+			long idx = index;
+			if (idx == Long.MIN_VALUE || !INDEX.compareAndSet(this, idx, idx + 1)) {
+				s.cancel();
+				Operators.onNextDropped(t);
+				return;
+			}
+
+			subscriber.onNext(t);
+
+			producedOne();
+		}
+
+		@Override
+		public void onError(Throwable t) {
+			if (!terminate()) {
+				Operators.onErrorDropped(t);
+				return;
+			}
+
+			subscriber.onError(t);
+		}
+
+		@Override
+		public void onComplete() {
+			if (!terminate()) {
+				return;
+			}
+
+			subscriber.onComplete();
+		}
+
+		boolean terminate() {
+			long idx = index;
+			if (idx == Long.MIN_VALUE || !INDEX.compareAndSet(this, idx, Long.MIN_VALUE)) {
+				return false;
+			}
+			cancelTask();
+			return true;
+		}
+
+		@Override
+		public void cancel() {
+			index = Long.MIN_VALUE;
+			cancelTask();
+			super.cancel();
+		}
+
+		void cancelTask() {
+			Cancellation c = task;
+			if (c != CANCELLED) {
+				c = TASK.getAndSet(this, CANCELLED);
+				if (c != null && c != CANCELLED) {
+					c.dispose();
+				}
+			}
+		}
+
+		void arm(long delay) {
+			Cancellation c;
+			try {
+				c = timer.schedule(this, delay, TimeUnit.MILLISECONDS);
+			}
+			catch (Throwable e) {
+				if (terminate()) {
+					super.cancel();
+					subscriber.onError(Operators.onOperatorError(e));
+				}
+				return;
+			}
+			for (;;) {
+				Cancellation a = task;
+				if (a == CANCELLED) {
+					c.dispose();
+					return;
+				}
+				if (TASK.compareAndSet(this, a, c)) {
+					return;
+				}
+			}
+		}
+
+		@Override
+		public void run() {
+			for (;;) {
+				long idx = index;
+				if (idx == Long.MIN_VALUE) {
+					return;
+				}
+				long d = deadline;
+				long now = timer.now(TimeUnit.MILLISECONDS);
+				if (now < d) {
+					// items arrived since this task was armed: wait for the remaining time
+					arm(d - now);
+					return;
+				}
+				if (INDEX.compareAndSet(this, idx, Long.MIN_VALUE)) {
+					TASK.lazySet(this, CANCELLED);
+					handleTimeout();
+					return;
+				}
+			}
+		}
+
+		void handleTimeout() {
+			if (other == null) {
+				super.cancel();
+
+				subscriber.onError(new TimeoutException());
+			}
+			else {
+				set(Operators.emptySubscription());
+
+				other.subscribe(new FluxTimeout.TimeoutOtherSubscriber<>(subscriber, this));
+			}
+		}
+	}
+}
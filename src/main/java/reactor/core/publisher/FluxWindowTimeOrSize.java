@@ -18,14 +18,14 @@ package reactor.core.publisher;
 
 import org.reactivestreams.Publisher;
 import org.reactivestreams.Subscriber;
-import org.reactivestreams.Subscription;
 import reactor.core.Loopback;
-import reactor.core.Producer;
 import reactor.core.scheduler.TimedScheduler;
 
 /**
- * WindowAction is forwarding events on a steam until {@code backlog} is reached, after that streams collected events
- * further, complete it and create a fresh new fluxion.
+ * Splits values into windows completed either after {@code backlog} values or
+ * {@code timespan} milliseconds after their first value, whichever comes first. A new
+ * window is only opened, and its first value consumed, when the downstream requested it.
+ *
  * @author Stephane Maldini
  */
 final class FluxWindowTimeOrSize<T> extends FluxBatch<T, Flux<T>> {
@@ -36,142 +36,63 @@ final class FluxWindowTimeOrSize<T> extends FluxBatch<T, Flux<T>> {
 
 	@Override
 	public void subscribe(Subscriber<? super Flux<T>> subscriber) {
-		source.subscribe(new WindowAction<>(prepareSub(subscriber), batchSize, timespan, timer));
+		source.subscribe(new WindowTimeoutSubscriber<>(subscriber, batchSize, timespan, timer.createWorker()));
 	}
 
-	final static class Window<T> extends Flux<T> implements Subscriber<T>, Subscription, Producer {
-
-		final protected UnicastProcessor<T> processor;
-		final protected TimedScheduler      timer;
-
-		protected int count = 0;
-
-		public Window(TimedScheduler timer) {
-			this.processor = UnicastProcessor.create();
-			this.timer = timer;
-		}
-
-		@Override
-		public void onSubscribe(Subscription s) {
-			s.cancel();
-		}
-
-		@Override
-		public void onNext(T t) {
-			count++;
-			processor.onNext(t);
-		}
+	static final class WindowTimeoutSubscriber<T> extends BatchSubscriber<T, Flux<T>>
+			implements Loopback {
 
-		@Override
-		public void onError(Throwable t) {
-			processor.onError(t);
-		}
-
-		@Override
-		public void onComplete() {
-			processor.onComplete();
-		}
-
-		@Override
-		public void subscribe(Subscriber<? super T> s) {
-			processor.subscribe(s);
-		}
-
-		@Override
-		public void request(long n) {
-
-		}
+		UnicastProcessor<T> window;
 
-		@Override
-		public void cancel() {
-
-		}
-
-		@Override
-		public Object downstream() {
-			return processor;
-		}
-	}
-
-	final static class WindowAction<T> extends BatchAction<T, Flux<T>> implements Loopback {
-
-		private final TimedScheduler timer;
-
-		private Window<T> currentWindow;
-
-		public WindowAction(Subscriber<? super Flux<T>> actual,
+		WindowTimeoutSubscriber(Subscriber<? super Flux<T>> actual,
 				int backlog,
 				long timespan,
-				TimedScheduler timer) {
-
-			super(actual, backlog, true, timespan, timer.createWorker());
-			this.timer = timer;
-		}
-
-		protected Flux<T> createWindowStream() {
-			Window<T> _currentWindow = new Window<>(timer);
-			_currentWindow.onSubscribe(new Subscription(){
-
-				@Override
-				public void cancel() {
-					currentWindow = null;
-				}
-
-				@Override
-				public void request(long n) {
-
-				}
-			});
-			currentWindow = _currentWindow;
-			return _currentWindow;
+				TimedScheduler.TimedWorker worker) {
+			super(actual, backlog, timespan, worker);
 		}
 
 		@Override
-		protected void checkedError(Throwable ev) {
-			if (currentWindow != null) {
-				currentWindow.onError(ev);
+		boolean openBatch(T first) {
+			if (requested == 0L) {
+				return false;
 			}
-			super.checkedError(ev);
+			UnicastProcessor<T> w = UnicastProcessor.create();
+			window = w;
+			produced();
+			actual.onNext(w);
+			return true;
 		}
 
 		@Override
-		protected void checkedComplete() {
-			try {
-				if (currentWindow != null) {
-					currentWindow.onComplete();
-					currentWindow = null;
-				}
-			}
-			finally {
-				super.checkedComplete();
-			}
+		void addToBatch(T value) {
+			window.onNext(value);
 		}
 
 		@Override
-		protected void firstCallback(T event) {
-			subscriber.onNext(createWindowStream());
+		boolean closeBatch() {
+			UnicastProcessor<T> w = window;
+			window = null;
+			w.onComplete();
+			return true;
 		}
 
 		@Override
-		protected void nextCallback(T event) {
-			if (currentWindow != null) {
-				currentWindow.onNext(event);
+		void discardBatch(Throwable e) {
+			UnicastProcessor<T> w = window;
+			if (w != null && e != null) {
+				window = null;
+				w.onError(e);
 			}
 		}
 
 		@Override
-		protected void flushCallback(T event) {
-			if (currentWindow != null) {
-				currentWindow.onComplete();
-				//currentWindow = null;
-			}
+		boolean fillNeedsRequest() {
+			return index == 0;
 		}
 
 		@Override
 		public Object connectedInput() {
-			return currentWindow;
+			return window;
 		}
 	}
-
-
 }
@@ -18,6 +18,7 @@ package reactor.core.publisher;
 
 import java.util.Objects;
 import java.util.concurrent.Callable;
+import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -37,6 +38,41 @@ import reactor.util.Loggers;
  */
 public abstract class Hooks {
 
+	/**
+	 * Add a global assembly rule, or replace the rule of the same name. Each {@link Flux}
+	 * and {@link Mono} operator is passed to the rules as it is assembled, and replaced
+	 * by the {@link Publisher} they return, which must be of the same kind. A rule
+	 * returning its argument leaves it unchanged.
+	 * <p>
+	 * The default rules remove redundant consecutive {@code publishOn} to the same
+	 * {@link reactor.core.scheduler.Scheduler}, nested {@code subscribeOn}, {@code hide}
+	 * and {@code onTerminateDetach}. They can be restored via {@link #resetAssemblyRules()}.
+	 *
+	 * @param name the rule name
+	 * @param rule the rule {@link Function}, given an assembled {@link Publisher} and
+	 * returning the {@link Publisher} to use instead
+	 */
+	public static void addAssemblyRule(String name,
+			Function<? super Publisher<?>, ? extends Publisher<?>> rule) {
+		log.warn("Hooking new default : assemblyRule " + name);
+		synchronized (Hooks.class) {
+			assemblyRules = AssemblyRules.add(assemblyRules, name, rule);
+		}
+	}
+
+	/**
+	 * Set a global hook notified each time an assembly rule rewrites an operator, with the
+	 * rule name and the {@link Publisher} it replaced.
+	 * <p>
+	 * Can be reset via {@link #resetOnAssemblyRewrite()}
+	 *
+	 * @param c the rewrite {@link BiConsumer} hook
+	 */
+	public static void onAssemblyRewrite(BiConsumer<String, ? super Publisher<?>> c) {
+		log.warn("Hooking new default : onAssemblyRewrite");
+		onAssemblyRewriteHook = Objects.requireNonNull(c, "onAssemblyRewriteHook");
+	}
+
 	/**
 	 * Override global error dropped strategy which by default bubble back the error.
 	 *
@@ -88,6 +124,36 @@ public abstract class Hooks {
 		onOperatorErrorHook = Objects.requireNonNull(f, "onOperatorErrorHook");
 	}
 
+	/**
+	 * Remove a global assembly rule, default or not.
+	 *
+	 * @param name the rule name
+	 */
+	public static void removeAssemblyRule(String name) {
+		log.warn("Removing assembly rule : " + name);
+		synchronized (Hooks.class) {
+			assemblyRules = AssemblyRules.remove(assemblyRules, name);
+		}
+	}
+
+	/**
+	 * Reset global assembly rules to the default ones.
+	 */
+	public static void resetAssemblyRules() {
+		log.warn("Reset to factory defaults : assemblyRules");
+		synchronized (Hooks.class) {
+			assemblyRules = AssemblyRules.DEFAULT_RULES;
+		}
+	}
+
+	/**
+	 * Reset global assembly rewrite hook
+	 */
+	public static void resetOnAssemblyRewrite() {
+		log.warn("Reset to factory defaults : onAssemblyRewrite");
+		onAssemblyRewriteHook = null;
+	}
+
 	/**
 	 * Reset global error dropped strategy to bubbling back the error.
 	 */
@@ -472,6 +538,9 @@ public abstract class Hooks {
 	static volatile Consumer<Object>            onNextDroppedHook;
 	static volatile BiFunction<? super Throwable, Object, ? extends Throwable>
 	                                            onOperatorErrorHook;
+	static volatile AssemblyRules.Rule[]        assemblyRules = AssemblyRules.DEFAULT_RULES;
+	static volatile BiConsumer<String, ? super Publisher<?>>
+	                                            onAssemblyRewriteHook;
 
 	static {
 		boolean globalTrace =
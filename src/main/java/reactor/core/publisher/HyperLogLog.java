@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2011-2016 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+/**
+ * A HyperLogLog sketch estimating the number of distinct values offered in
+ * {@code 2^precision} bytes, with a standard error of about
+ * {@code 1.04 / sqrt(2^precision)}, 0.8% with the default precision of 14. Values are
+ * told apart by their {@link Object#hashCode()}, which is mixed into 64 bits.
+ * <p>
+ * Two sketches of the same precision can be merged, giving the sketch of the union of
+ * their values. This class is not thread-safe.
+ */
+final class HyperLogLog {
+
+	static final int DEFAULT_PRECISION = 14;
+
+	final int precision;
+
+	final byte[] registers;
+
+	HyperLogLog(int precision) {
+		validate(precision);
+		this.precision = precision;
+		this.registers = new byte[1 << precision];
+	}
+
+	static void validate(int precision) {
+		if (precision < 4 || precision > 18) {
+			throw new IllegalArgumentException("precision between 4 and 18 required but it was " + precision);
+		}
+	}
+
+	/**
+	 * Offer a value to the sketch.
+	 *
+	 * @param o the value
+	 *
+	 * @return this sketch
+	 */
+	HyperLogLog add(Object o) {
+		long h = mix(o.hashCode());
+		int p = precision;
+		int index = (int) (h >>> (Long.SIZE - p));
+		// the guard bit bounds the rank when all the remaining bits are zero
+		int rank = Long.numberOfLeadingZeros((h << p) | (1L << (p - 1))) + 1;
+		if (rank > registers[index]) {
+			registers[index] = (byte) rank;
+		}
+		return this;
+	}
+
+	/**
+	 * Merge another sketch of the same precision into this sketch.
+	 *
+	 * @param other the other sketch
+	 *
+	 * @return this sketch
+	 */
+	HyperLogLog merge(HyperLogLog other) {
+		if (other.precision != precision) {
+			throw new IllegalArgumentException("Cannot merge a sketch of precision " + other.precision + " into a sketch of precision " + precision);
+		}
+		byte[] r = registers;
+		byte[] o = other.registers;
+		for (int i = 0; i < r.length; i++) {
+			if (o[i] > r[i]) {
+				r[i] = o[i];
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Estimate the number of distinct values from the histogram of the register values,
+	 * with the improved estimator of Ertl, "New cardinality estimation algorithms for
+	 * HyperLogLog sketches" (2017), which needs neither the linear counting switch nor
+	 * the empirical bias correction of the original estimator.
+	 *
+	 * @return the estimated number of distinct values offered
+	 */
+	long estimate() {
+		int m = registers.length;
+		int q = Long.SIZE - precision;
+		int[] histogram = new int[q + 2];
+		for (byte b : registers) {
+			histogram[b]++;
+		}
+		double z = m * tau(1d - (double) histogram[q + 1] / m);
+		for (int k = q; k >= 1; k--) {
+			z = 0.5d * (z + histogram[k]);
+		}
+		z += m * sigma((double) histogram[0] / m);
+		return Math.round(m / (2d * Math.log(2d)) * m / z);
+	}
+
+	static double sigma(double x) {
+		if (x == 1d) {
+			return Double.POSITIVE_INFINITY;
+		}
+		double y = 1d;
+		double z = x;
+		for (;;) {
+			x *= x;
+			double previous = z;
+			z += x * y;
+			y += y;
+			if (previous == z) {
+				return z;
+			}
+		}
+	}
+
+	static double tau(double x) {
+		if (x == 0d || x == 1d) {
+			return 0d;
+		}
+		double y = 1d;
+		double z = 1d - x;
+		for (;;) {
+			x = Math.sqrt(x);
+			double previous = z;
+			y *= 0.5d;
+			z -= (1d - x) * (1d - x) * y;
+			if (previous == z) {
+				return z / 3d;
+			}
+		}
+	}
+
+	/**
+	 * Spread a hash code over 64 bits with the MurmurHash3 finalizer.
+	 *
+	 * @param hashCode the hash code
+	 *
+	 * @return the mixed hash
+	 */
+	static long mix(int hashCode) {
+		long h = hashCode * 0x9E3779B97F4A7C15L;
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+}
@@ -0,0 +1,682 @@
+/*
+ * Copyright (c) 2011-2016 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.Cancellation;
+import reactor.core.scheduler.Schedulers;
+import reactor.core.scheduler.TimedScheduler;
+
+/**
+ * An asynchronous loading cache: {@link #get(Object)} returns a {@link Mono} of the
+ * value cached for a key, loading it with the loader {@link Function} on a miss. The
+ * subscribers arriving while a key is loading share the same load, and failed or empty
+ * loads are not cached.
+ * <p>
+ * Entries can expire a fixed time after they have been loaded (expire-after-write)
+ * and/or after they have last been read (expire-after-access). Expired entries are
+ * dropped when read, and purged by a task scheduled on the {@link TimedScheduler} for
+ * the earliest expiry. The cache is bounded to a maximum number of entries by evicting
+ * the least recently accessed entries.
+ * <p>
+ * Reads and loads only record an event in a buffer, drained on the
+ * {@link TimedScheduler} into access-ordered and write-ordered lists of the entries,
+ * so that eviction and expiry take constant time per entry and never run on the
+ * caller's thread. The cache may thus briefly hold more than its maximum size, and
+ * read events overflowing their buffer under heavy load are dropped, making the
+ * recency order approximate.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public final class LoadingCache<K, V> {
+
+	/**
+	 * Create a {@link LoadingCache} bounded to the given number of entries, which never
+	 * expire.
+	 *
+	 * @param loader the {@link Function} loading the value of a key
+	 * @param maximumSize the maximum number of entries
+	 * @param <K> the key type
+	 * @param <V> the value type
+	 *
+	 * @return a new {@link LoadingCache}
+	 */
+	public static <K, V> LoadingCache<K, V> create(Function<? super K, ? extends Publisher<? extends V>> loader,
+			long maximumSize) {
+		return createMillis(loader, maximumSize, 0L, 0L, Schedulers.timer());
+	}
+
+	/**
+	 * Create a {@link LoadingCache} bounded to the given number of entries, which
+	 * expire after the given durations. A {@code null} or zero duration disables the
+	 * related expiration.
+	 *
+	 * @param loader the {@link Function} loading the value of a key
+	 * @param maximumSize the maximum number of entries
+	 * @param expireAfterWrite the time an entry expires after having been loaded
+	 * @param expireAfterAccess the time an entry expires after having last been read
+	 * @param <K> the key type
+	 * @param <V> the value type
+	 *
+	 * @return a new {@link LoadingCache}
+	 */
+	public static <K, V> LoadingCache<K, V> create(Function<? super K, ? extends Publisher<? extends V>> loader,
+			long maximumSize,
+			Duration expireAfterWrite,
+			Duration expireAfterAccess) {
+		return createMillis(loader,
+				maximumSize,
+				expireAfterWrite != null ? expireAfterWrite.toMillis() : 0L,
+				expireAfterAccess != null ? expireAfterAccess.toMillis() : 0L,
+				Schedulers.timer());
+	}
+
+	/**
+	 * Create a {@link LoadingCache} bounded to the given number of entries, which
+	 * expire after the given times in milliseconds. A zero time disables the related
+	 * expiration.
+	 *
+	 * @param loader the {@link Function} loading the value of a key
+	 * @param maximumSize the maximum number of entries
+	 * @param expireAfterWrite the time in milliseconds an entry expires after having
+	 * been loaded
+	 * @param expireAfterAccess the time in milliseconds an entry expires after having
+	 * last been read
+	 * @param timer the {@link TimedScheduler} providing the clock and running the
+	 * eviction
+	 * @param <K> the key type
+	 * @param <V> the value type
+	 *
+	 * @return a new {@link LoadingCache}
+	 */
+	public static <K, V> LoadingCache<K, V> createMillis(Function<? super K, ? extends Publisher<? extends V>> loader,
+			long maximumSize,
+			long expireAfterWrite,
+			long expireAfterAccess,
+			TimedScheduler timer) {
+		return new LoadingCache<>(loader, maximumSize, expireAfterWrite, expireAfterAccess, timer);
+	}
+
+	final Function<? super K, ? extends Publisher<? extends V>> loader;
+
+	final long maximumSize;
+
+	final long expireAfterWrite;
+
+	final long expireAfterAccess;
+
+	final TimedScheduler timer;
+
+	final ConcurrentHashMap<K, Entry<K, V>> map = new ConcurrentHashMap<>();
+
+	final LongAdder hits      = new LongAdder();
+	final LongAdder misses    = new LongAdder();
+	final LongAdder successes = new LongAdder();
+	final LongAdder failures  = new LongAdder();
+	final LongAdder loadTime  = new LongAdder();
+	final LongAdder evictions = new LongAdder();
+
+	/** Entries loaded or removed, to link in or unlink from the lists */
+	final ConcurrentLinkedQueue<Entry<K, V>> writeBuffer = new ConcurrentLinkedQueue<>();
+
+	/** Entries read, to move to the tail of the access list */
+	final ConcurrentLinkedQueue<Entry<K, V>> readBuffer = new ConcurrentLinkedQueue<>();
+
+	/** Guards the lists and the scheduled purge */
+	final Object evictionLock = new Object();
+
+	Entry<K, V> accessHead;
+	Entry<K, V> accessTail;
+	Entry<K, V> writeHead;
+	Entry<K, V> writeTail;
+
+	Cancellation purge;
+	long purgeAt;
+
+	volatile int maintenance;
+	@SuppressWarnings("rawtypes")
+	static final AtomicIntegerFieldUpdater<LoadingCache> MAINTENANCE =
+			AtomicIntegerFieldUpdater.newUpdater(LoadingCache.class, "maintenance");
+
+	volatile int reads;
+	@SuppressWarnings("rawtypes")
+	static final AtomicIntegerFieldUpdater<LoadingCache> READS =
+			AtomicIntegerFieldUpdater.newUpdater(LoadingCache.class, "reads");
+
+	/** Read events buffered at most, the next ones being dropped until drained */
+	static final int READ_BUFFER_SIZE = 128;
+
+	/** Read events buffered from which maintenance is scheduled */
+	static final int READ_DRAIN_THRESHOLD = 32;
+
+	LoadingCache(Function<? super K, ? extends Publisher<? extends V>> loader,
+			long maximumSize,
+			long expireAfterWrite,
+			long expireAfterAccess,
+			TimedScheduler timer) {
+		if (maximumSize <= 0L) {
+			throw new IllegalArgumentException("maximumSize > 0 required but it was " + maximumSize);
+		}
+		if (expireAfterWrite < 0L) {
+			throw new IllegalArgumentException("expireAfterWrite >= 0 required but it was " + expireAfterWrite);
+		}
+		if (expireAfterAccess < 0L) {
+			throw new IllegalArgumentException("expireAfterAccess >= 0 required but it was " + expireAfterAccess);
+		}
+		this.loader = Objects.requireNonNull(loader, "loader");
+		this.timer = Objects.requireNonNull(timer, "timer");
+		this.maximumSize = maximumSize;
+		this.expireAfterWrite = expireAfterWrite;
+		this.expireAfterAccess = expireAfterAccess;
+	}
+
+	/**
+	 * Return a {@link Mono} of the value cached for the given key, loading it when
+	 * subscribed if it is absent or expired.
+	 *
+	 * @param key the key
+	 *
+	 * @return a {@link Mono} of the cached or loaded value
+	 */
+	public Mono<V> get(K key) {
+		Objects.requireNonNull(key, "key");
+		return Mono.defer(() -> lookup(key));
+	}
+
+	/**
+	 * Return the value cached for the given key if it is loaded and not expired,
+	 * without loading it.
+	 *
+	 * @param key the key
+	 *
+	 * @return the cached value or null
+	 */
+	public V getIfPresent(K key) {
+		Entry<K, V> e = map.get(key);
+		if (e == null || !e.loaded) {
+			return null;
+		}
+		long now = now();
+		if (isExpired(e, now)) {
+			return null;
+		}
+		e.accessTime = now;
+		hits.increment();
+		afterRead(e);
+		return e.processor.peek();
+	}
+
+	/**
+	 * Discard the entry of the given key, if any.
+	 *
+	 * @param key the key
+	 */
+	public void invalidate(K key) {
+		Entry<K, V> e = map.remove(key);
+		if (e != null) {
+			afterRemove(e);
+		}
+	}
+
+	/**
+	 * Discard all the entries.
+	 */
+	public void invalidateAll() {
+		for (Entry<K, V> e : map.values()) {
+			if (map.remove(e.key, e)) {
+				writeBuffer.offer(e);
+			}
+		}
+		scheduleMaintenance();
+	}
+
+	/**
+	 * @return the number of entries, including loading and not yet purged ones
+	 */
+	public long size() {
+		return map.size();
+	}
+
+	/**
+	 * @return a snapshot of the statistics of this cache
+	 */
+	public Stats stats() {
+		return new Stats(hits.sum(),
+				misses.sum(),
+				successes.sum(),
+				failures.sum(),
+				loadTime.sum(),
+				evictions.sum());
+	}
+
+	/**
+	 * Purge the expired entries and evict the least recently accessed entries above
+	 * the maximum size, on the calling thread.
+	 */
+	public void cleanUp() {
+		synchronized (evictionLock) {
+			long now = now();
+			drainBuffers();
+			expire(now);
+			evict();
+			schedulePurge(now);
+		}
+	}
+
+	Mono<V> lookup(K key) {
+		long now = now();
+		for (;;) {
+			Entry<K, V> e = map.get(key);
+			if (e != null) {
+				if (!isExpired(e, now)) {
+					e.accessTime = now;
+					hits.increment();
+					afterRead(e);
+					return e.processor;
+				}
+				if (map.remove(key, e)) {
+					evictions.increment();
+					afterRemove(e);
+				}
+			}
+
+			Entry<K, V> ne = new Entry<>(this, key, now);
+			if (map.putIfAbsent(key, ne) == null) {
+				misses.increment();
+				ne.load();
+				if (map.size() > maximumSize) {
+					scheduleMaintenance();
+				}
+				return ne.processor;
+			}
+		}
+	}
+
+	void afterRead(Entry<K, V> e) {
+		int r = READS.getAndIncrement(this);
+		if (r < READ_BUFFER_SIZE) {
+			readBuffer.offer(e);
+		}
+		else {
+			READS.decrementAndGet(this);
+		}
+		if (r >= READ_DRAIN_THRESHOLD) {
+			scheduleMaintenance();
+		}
+	}
+
+	void afterWrite(Entry<K, V> e) {
+		writeBuffer.offer(e);
+		scheduleMaintenance();
+	}
+
+	void afterRemove(Entry<K, V> e) {
+		writeBuffer.offer(e);
+		scheduleMaintenance();
+	}
+
+	void drainBuffers() {
+		Entry<K, V> e;
+		while ((e = writeBuffer.poll()) != null) {
+			if (map.get(e.key) == e) {
+				if (!e.linked) {
+					link(e);
+				}
+			}
+			else if (e.linked) {
+				unlink(e);
+			}
+		}
+		while ((e = readBuffer.poll()) != null) {
+			READS.decrementAndGet(this);
+			if (e.linked && e != accessTail) {
+				unlinkAccess(e);
+				linkAccess(e);
+			}
+		}
+	}
+
+	void expire(long now) {
+		if (expireAfterAccess != 0L) {
+			while (accessHead != null && isExpired(accessHead, now)) {
+				remove(accessHead);
+			}
+		}
+		if (expireAfterWrite != 0L) {
+			while (writeHead != null && isExpired(writeHead, now)) {
+				remove(writeHead);
+			}
+		}
+	}
+
+	void evict() {
+		while (accessHead != null && map.size() > maximumSize) {
+			remove(accessHead);
+		}
+	}
+
+	void remove(Entry<K, V> e) {
+		unlink(e);
+		if (map.remove(e.key, e)) {
+			evictions.increment();
+		}
+	}
+
+	/**
+	 * Schedule a purge for the earliest expiry of the list heads, unless an earlier one
+	 * is already scheduled.
+	 */
+	void schedulePurge(long now) {
+		long next = Long.MAX_VALUE;
+		if (expireAfterAccess != 0L && accessHead != null) {
+			next = accessHead.accessTime + expireAfterAccess;
+		}
+		if (expireAfterWrite != 0L && writeHead != null) {
+			next = Math.min(next, writeHead.writeTime + expireAfterWrite);
+		}
+		if (next == Long.MAX_VALUE) {
+			return;
+		}
+		Cancellation c = purge;
+		if (c != null) {
+			if (purgeAt <= next) {
+				return;
+			}
+			c.dispose();
+		}
+		purgeAt = next;
+		purge = timer.schedule(this::purgeExpired,
+				Math.max(next - now, 1L),
+				TimeUnit.MILLISECONDS);
+	}
+
+	void purgeExpired() {
+		synchronized (evictionLock) {
+			purge = null;
+			cleanUp();
+		}
+	}
+
+	void link(Entry<K, V> e) {
+		linkAccess(e);
+		Entry<K, V> t = writeTail;
+		e.writePrev = t;
+		if (t == null) {
+			writeHead = e;
+		}
+		else {
+			t.writeNext = e;
+		}
+		writeTail = e;
+		e.linked = true;
+	}
+
+	void linkAccess(Entry<K, V> e) {
+		Entry<K, V> t = accessTail;
+		e.accessPrev = t;
+		if (t == null) {
+			accessHead = e;
+		}
+		else {
+			t.accessNext = e;
+		}
+		accessTail = e;
+	}
+
+	void unlink(Entry<K, V> e) {
+		unlinkAccess(e);
+		Entry<K, V> p = e.writePrev;
+		Entry<K, V> n = e.writeNext;
+		if (p == null) {
+			writeHead = n;
+		}
+		else {
+			p.writeNext = n;
+		}
+		if (n == null) {
+			writeTail = p;
+		}
+		else {
+			n.writePrev = p;
+		}
+		e.writePrev = null;
+		e.writeNext = null;
+		e.linked = false;
+	}
+
+	void unlinkAccess(Entry<K, V> e) {
+		Entry<K, V> p = e.accessPrev;
+		Entry<K, V> n = e.accessNext;
+		if (p == null) {
+			accessHead = n;
+		}
+		else {
+			p.accessNext = n;
+		}
+		if (n == null) {
+			accessTail = p;
+		}
+		else {
+			n.accessPrev = p;
+		}
+		e.accessPrev = null;
+		e.accessNext = null;
+	}
+
+	boolean isExpired(Entry<K, V> e, long now) {
+		if (!e.loaded) {
+			return false;
+		}
+		long w = expireAfterWrite;
+		if (w != 0L && now - e.writeTime >= w) {
+			return true;
+		}
+		long a = expireAfterAccess;
+		return a != 0L && now - e.accessTime >= a;
+	}
+
+	void scheduleMaintenance() {
+		if (MAINTENANCE.compareAndSet(this, 0, 1)) {
+			timer.schedule(() -> {
+				maintenance = 0;
+				cleanUp();
+			});
+		}
+	}
+
+	long now() {
+		return timer.now(TimeUnit.MILLISECONDS);
+	}
+
+	static final class Entry<K, V> implements Subscriber<V> {
+
+		final LoadingCache<K, V> parent;
+
+		final K key;
+
+		final MonoProcessor<V> processor;
+
+		final long loadStart;
+
+		volatile long writeTime;
+
+		volatile long accessTime;
+
+		volatile boolean loaded;
+
+		boolean hasValue;
+
+		/** Links of the lists, guarded by the evictionLock */
+		Entry<K, V> accessPrev;
+		Entry<K, V> accessNext;
+		Entry<K, V> writePrev;
+		Entry<K, V> writeNext;
+		boolean     linked;
+
+		Entry(LoadingCache<K, V> parent, K key, long now) {
+			this.parent = parent;
+			this.key = key;
+			this.processor = new MonoProcessor<>(Mono.defer(() -> Mono.from(parent.loader.apply(key))));
+			this.loadStart = System.nanoTime();
+			this.accessTime = now;
+		}
+
+		void load() {
+			processor.subscribe(this);
+		}
+
+		@Override
+		public void onSubscribe(Subscription s) {
+			s.request(Long.MAX_VALUE);
+		}
+
+		@Override
+		public void onNext(V t) {
+			hasValue = true;
+			parent.loadTime.add(System.nanoTime() - loadStart);
+			parent.successes.increment();
+			long now = parent.now();
+			writeTime = now;
+			accessTime = now;
+			loaded = true;
+			parent.afterWrite(this);
+		}
+
+		@Override
+		public void onError(Throwable t) {
+			failed();
+		}
+
+		@Override
+		public void onComplete() {
+			if (!hasValue) {
+				failed();
+			}
+		}
+
+		void failed() {
+			parent.loadTime.add(System.nanoTime() - loadStart);
+			parent.failures.increment();
+			parent.map.remove(key, this);
+		}
+	}
+
+	/**
+	 * An immutable snapshot of the statistics of a {@link LoadingCache}.
+	 */
+	public static final class Stats {
+
+		final long hitCount;
+		final long missCount;
+		final long loadSuccessCount;
+		final long loadFailureCount;
+		final long totalLoadTime;
+		final long evictionCount;
+
+		Stats(long hitCount,
+				long missCount,
+				long loadSuccessCount,
+				long loadFailureCount,
+				long totalLoadTime,
+				long evictionCount) {
+			this.hitCount = hitCount;
+			this.missCount = missCount;
+			this.loadSuccessCount = loadSuccessCount;
+			this.loadFailureCount = loadFailureCount;
+			this.totalLoadTime = totalLoadTime;
+			this.evictionCount = evictionCount;
+		}
+
+		/**
+		 * @return the number of lookups served by a cached or loading entry
+		 */
+		public long hitCount() {
+			return hitCount;
+		}
+
+		/**
+		 * @return the number of lookups that started a load
+		 */
+		public long missCount() {
+			return missCount;
+		}
+
+		/**
+		 * @return the ratio of lookups served by a cached or loading entry
+		 */
+		public double hitRate() {
+			long total = hitCount + missCount;
+			return total == 0L ? 1d : (double) hitCount / total;
+		}
+
+		/**
+		 * @return the number of loads that produced a value
+		 */
+		public long loadSuccessCount() {
+			return loadSuccessCount;
+		}
+
+		/**
+		 * @return the number of loads that failed or completed empty
+		 */
+		public long loadFailureCount() {
+			return loadFailureCount;
+		}
+
+		/**
+		 * @return the total time spent loading, in nanoseconds
+		 */
+		public long totalLoadTime() {
+			return totalLoadTime;
+		}
+
+		/**
+		 * @return the average time spent per load, in nanoseconds
+		 */
+		public double averageLoadPenalty() {
+			long loads = loadSuccessCount + loadFailureCount;
+			return loads == 0L ? 0d : (double) totalLoadTime / loads;
+		}
+
+		/**
+		 * @return the number of entries evicted by size or expiration
+		 */
+		public long evictionCount() {
+			return evictionCount;
+		}
+
+		@Override
+		public String toString() {
+			return "Stats{hitCount=" + hitCount + ", missCount=" + missCount +
+					", loadSuccessCount=" + loadSuccessCount + ", loadFailureCount=" +
+					loadFailureCount + ", totalLoadTime=" + totalLoadTime +
+					", evictionCount=" + evictionCount + "}";
+		}
+	}
+}
@@ -1150,6 +1150,110 @@ public abstract class Mono<T> implements Publisher<T> {
 		return onAssembly(new MonoProcessor<>(this));
 	}
 
+	/**
+	 * Turn this {@link Mono} into a hot source and cache last emitted signals for further
+	 * {@link Subscriber} for the given time-to-live. Completion and Error will also be
+	 * replayed until they expire. The first {@link Subscriber} arriving after expiry
+	 * resubscribes to this {@link Mono}, and all subscribers arriving until that
+	 * resubscription terminates share it.
+	 *
+	 * @param ttl the time-to-live of the cached signal
+	 *
+	 * @return a replaying {@link Mono} with expiring cache
+	 */
+	public final Mono<T> cache(Duration ttl) {
+		return cacheMillis(ttl.toMillis(), Schedulers.timer());
+	}
+
+	/**
+	 * Turn this {@link Mono} into a hot source and cache last emitted signals for further
+	 * {@link Subscriber} for the given time-to-live. Completion and Error will also be
+	 * replayed until they expire. The first {@link Subscriber} arriving less than
+	 * {@code refreshAhead} before a cached value expires triggers a resubscription in
+	 * the background, the cached value still being served until the refreshed one
+	 * replaces it: subscribers never wait for a refresh as long as the source keeps
+	 * being subscribed more often than the refresh window.
+	 *
+	 * @param ttl the time-to-live of the cached signal
+	 * @param refreshAhead the time before expiry from which a value is refreshed
+	 *
+	 * @return a replaying {@link Mono} with expiring and refreshed-ahead cache
+	 */
+	public final Mono<T> cache(Duration ttl, Duration refreshAhead) {
+		return cacheMillis(ttl.toMillis(), refreshAhead.toMillis(), Schedulers.timer());
+	}
+
+	/**
+	 * Turn this {@link Mono} into a hot source and cache last emitted signals for further
+	 * {@link Subscriber} for a time-to-live derived from the signal itself, e.g. the
+	 * expiry of a token, or a shorter time-to-live for errors. A {@code null} or
+	 * non-positive time-to-live means the signal is not cached.
+	 *
+	 * @param ttlForValue the time-to-live {@link Function} for a value
+	 * @param ttlForError the time-to-live {@link Function} for an error
+	 * @param ttlForEmpty the time-to-live {@link Supplier} for an empty completion
+	 *
+	 * @return a replaying {@link Mono} with expiring cache
+	 */
+	public final Mono<T> cache(Function<? super T, Duration> ttlForValue,
+			Function<Throwable, Duration> ttlForError,
+			Supplier<Duration> ttlForEmpty) {
+		return cache(ttlForValue, ttlForError, ttlForEmpty, Schedulers.timer());
+	}
+
+	/**
+	 * Turn this {@link Mono} into a hot source and cache last emitted signals for further
+	 * {@link Subscriber} for a time-to-live derived from the signal itself, e.g. the
+	 * expiry of a token, or a shorter time-to-live for errors. A {@code null} or
+	 * non-positive time-to-live means the signal is not cached.
+	 *
+	 * @param ttlForValue the time-to-live {@link Function} for a value
+	 * @param ttlForError the time-to-live {@link Function} for an error
+	 * @param ttlForEmpty the time-to-live {@link Supplier} for an empty completion
+	 * @param timer the {@link TimedScheduler} providing the clock
+	 *
+	 * @return a replaying {@link Mono} with expiring cache
+	 */
+	public final Mono<T> cache(Function<? super T, Duration> ttlForValue,
+			Function<Throwable, Duration> ttlForError,
+			Supplier<Duration> ttlForEmpty,
+			TimedScheduler timer) {
+		return onAssembly(new MonoCacheTime<>(this, ttlForValue, ttlForError, ttlForEmpty, 0L, timer));
+	}
+
+	/**
+	 * Turn this {@link Mono} into a hot source and cache last emitted signals for further
+	 * {@link Subscriber} for the given time-to-live in milliseconds. Completion and Error
+	 * will also be replayed until they expire.
+	 *
+	 * @param ttl the time-to-live of the cached signal in milliseconds
+	 * @param timer the {@link TimedScheduler} providing the clock
+	 *
+	 * @return a replaying {@link Mono} with expiring cache
+	 */
+	public final Mono<T> cacheMillis(long ttl, TimedScheduler timer) {
+		return cacheMillis(ttl, 0L, timer);
+	}
+
+	/**
+	 * Turn this {@link Mono} into a hot source and cache last emitted signals for further
+	 * {@link Subscriber} for the given time-to-live in milliseconds. Completion and Error
+	 * will also be replayed until they expire. The first {@link Subscriber} arriving
+	 * less than {@code refreshAhead} milliseconds before a cached value expires triggers
+	 * a resubscription in the background on the given {@link TimedScheduler}.
+	 *
+	 * @param ttl the time-to-live of the cached signal in milliseconds
+	 * @param refreshAhead the time before expiry from which a value is refreshed in
+	 * milliseconds, 0 to disable refresh-ahead
+	 * @param timer the {@link TimedScheduler} providing the clock and running refreshes
+	 *
+	 * @return a replaying {@link Mono} with expiring and refreshed-ahead cache
+	 */
+	public final Mono<T> cacheMillis(long ttl, long refreshAhead, TimedScheduler timer) {
+		Duration d = Duration.ofMillis(ttl);
+		return onAssembly(new MonoCacheTime<>(this, v -> d, e -> d, () -> d, refreshAhead, timer));
+	}
+
 	/**
 	 * Prepare this {@link Mono} so that subscribers will cancel from it on a
 	 * specified
@@ -2293,6 +2397,84 @@ public abstract class Mono<T> implements Publisher<T> {
 		return defer(() -> retry(Flux.countingPredicate(retryMatcher, numRetries)));
 	}
 
+	/**
+	 * Re-subscribes to this {@link Mono} sequence if it signals any error, up to the specified number of retries,
+	 * waiting an exponentially growing delay before each retry: {@code firstBackoff} for the first retry,
+	 * doubling on each further retry. Retries are scheduled on {@link Schedulers#timer()}.
+	 *
+	 * @param numRetries the number of times to tolerate an error
+	 * @param firstBackoff the delay before the first retry
+	 *
+	 * @return a re-subscribing {@link Mono} on onError, with exponential backoff
+	 */
+	public final Mono<T> retryBackoff(long numRetries, Duration firstBackoff) {
+		return retryBackoff(numRetries, firstBackoff, Duration.ofMillis(Long.MAX_VALUE), 0.5d);
+	}
+
+	/**
+	 * Re-subscribes to this {@link Mono} sequence if it signals any error, up to the specified number of retries,
+	 * waiting an exponentially growing delay before each retry: {@code firstBackoff} for the first retry,
+	 * doubling on each further retry up to {@code maxBackoff}. Each delay is randomly moved by up to
+	 * {@code jitterFactor} of itself so that failing subscribers don't retry in lockstep. Retries are scheduled
+	 * on {@link Schedulers#timer()}.
+	 *
+	 * @param numRetries the number of times to tolerate an error
+	 * @param firstBackoff the delay before the first retry
+	 * @param maxBackoff the maximum delay between two retries
+	 * @param jitterFactor the maximum random variation of each delay, between 0 and 1
+	 *
+	 * @return a re-subscribing {@link Mono} on onError, with exponential backoff
+	 */
+	public final Mono<T> retryBackoff(long numRetries, Duration firstBackoff, Duration maxBackoff,
+			double jitterFactor) {
+		return retryBackoffMillis(numRetries, firstBackoff.toMillis(), maxBackoff.toMillis(), jitterFactor,
+				Long.MAX_VALUE, Schedulers.timer());
+	}
+
+	/**
+	 * Re-subscribes to this {@link Mono} sequence if it signals any error, up to the specified number of retries,
+	 * waiting an exponentially growing delay before each retry: {@code firstBackoff} for the first retry,
+	 * doubling on each further retry up to {@code maxBackoff}. Each delay is randomly moved by up to
+	 * {@code jitterFactor} of itself so that failing subscribers don't retry in lockstep. No retry starts
+	 * later than {@code timeout} after the subscription, the last error being propagated instead. Retries are
+	 * scheduled on {@link Schedulers#timer()}.
+	 *
+	 * @param numRetries the number of times to tolerate an error
+	 * @param firstBackoff the delay before the first retry
+	 * @param maxBackoff the maximum delay between two retries
+	 * @param jitterFactor the maximum random variation of each delay, between 0 and 1
+	 * @param timeout the time after the subscription past which no retry starts
+	 *
+	 * @return a re-subscribing {@link Mono} on onError, with exponential backoff
+	 */
+	public final Mono<T> retryBackoff(long numRetries, Duration firstBackoff, Duration maxBackoff,
+			double jitterFactor, Duration timeout) {
+		return retryBackoffMillis(numRetries, firstBackoff.toMillis(), maxBackoff.toMillis(), jitterFactor,
+				timeout.toMillis(), Schedulers.timer());
+	}
+
+	/**
+	 * Re-subscribes to this {@link Mono} sequence if it signals any error, up to the specified number of retries,
+	 * waiting an exponentially growing delay before each retry: {@code firstBackoff} milliseconds for the first
+	 * retry, doubling on each further retry up to {@code maxBackoff}. Each delay is randomly moved by up to
+	 * {@code jitterFactor} of itself so that failing subscribers don't retry in lockstep. No retry starts later
+	 * than {@code timeout} milliseconds after the subscription, the last error being propagated instead.
+	 *
+	 * @param numRetries the number of times to tolerate an error
+	 * @param firstBackoff the delay in milliseconds before the first retry
+	 * @param maxBackoff the maximum delay in milliseconds between two retries
+	 * @param jitterFactor the maximum random variation of each delay, between 0 and 1
+	 * @param timeout the time in milliseconds after the subscription past which no retry starts
+	 * @param timer the {@link TimedScheduler} to schedule the retries on
+	 *
+	 * @return a re-subscribing {@link Mono} on onError, with exponential backoff
+	 */
+	public final Mono<T> retryBackoffMillis(long numRetries, long firstBackoff, long maxBackoff,
+			double jitterFactor, long timeout, TimedScheduler timer) {
+		return onAssembly(new MonoRetryBackoff<>(this, numRetries, firstBackoff, maxBackoff, jitterFactor,
+				timeout, timer));
+	}
+
 	/**
 	 * Retries this {@link Mono} when a companion sequence signals
 	 * an item in response to this {@link Mono} error signal
@@ -2743,6 +2925,7 @@ public abstract class Mono<T> implements Publisher<T> {
 	 */
 	@SuppressWarnings("unchecked")
 	protected static <T> Mono<T> onAssembly(Mono<T> source) {
+		source = AssemblyRules.rewrite(source);
 		Hooks.OnOperatorCreate hook = Hooks.onOperatorCreate;
 		if(hook == null) {
 			return source;
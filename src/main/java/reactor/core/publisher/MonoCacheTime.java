@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) 2011-2016 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.scheduler.TimedScheduler;
+
+/**
+ * Caches the signal of the source for a time-to-live derived from that signal, then
+ * resubscribes to the source on the next subscription. Each subscription to the source
+ * is shared through a {@link MonoProcessor} by all the subscribers arriving while it is
+ * pending.
+ * <p>
+ * In refresh-ahead mode, the first subscriber arriving less than {@code refreshAhead}
+ * milliseconds before a cached value expires triggers a background resubscription on
+ * the timer; the cached value keeps being served until the refreshed one replaces it.
+ *
+ * @param <T> the value type
+ */
+final class MonoCacheTime<T> extends MonoSource<T, T> {
+
+	final Function<? super T, Duration> ttlForValue;
+
+	final Function<Throwable, Duration> ttlForError;
+
+	final Supplier<Duration> ttlForEmpty;
+
+	final long refreshAhead;
+
+	final TimedScheduler timer;
+
+	volatile Generation<T> current;
+	@SuppressWarnings("rawtypes")
+	static final AtomicReferenceFieldUpdater<MonoCacheTime, Generation> CURRENT =
+			AtomicReferenceFieldUpdater.newUpdater(MonoCacheTime.class, Generation.class, "current");
+
+	MonoCacheTime(Publisher<? extends T> source,
+			Function<? super T, Duration> ttlForValue,
+			Function<Throwable, Duration> ttlForError,
+			Supplier<Duration> ttlForEmpty,
+			long refreshAhead,
+			TimedScheduler timer) {
+		super(source);
+		if (refreshAhead < 0L) {
+			throw new IllegalArgumentException("refreshAhead >= 0 required but it was " + refreshAhead);
+		}
+		this.ttlForValue = Objects.requireNonNull(ttlForValue, "ttlForValue");
+		this.ttlForError = Objects.requireNonNull(ttlForError, "ttlForError");
+		this.ttlForEmpty = Objects.requireNonNull(ttlForEmpty, "ttlForEmpty");
+		this.refreshAhead = refreshAhead;
+		this.timer = Objects.requireNonNull(timer, "timer");
+	}
+
+	@Override
+	public void subscribe(Subscriber<? super T> s) {
+		for (;;) {
+			Generation<T> g = current;
+			long now = timer.now(TimeUnit.MILLISECONDS);
+
+			if (g != null) {
+				if (now < g.expireAt) {
+					if (now >= g.refreshAt && Generation.REFRESHING.compareAndSet(g, 0, 1)) {
+						refresh(g);
+					}
+					g.processor.subscribe(s);
+					return;
+				}
+				Generation<T> next = g.next;
+				if (next != null) {
+					// the refresh is pending past expiry: join it
+					CURRENT.compareAndSet(this, g, next);
+					continue;
+				}
+			}
+
+			Generation<T> ng = new Generation<>(this, false);
+			if (CURRENT.compareAndSet(this, g, ng)) {
+				ng.connect();
+				ng.processor.subscribe(s);
+				return;
+			}
+		}
+	}
+
+	void refresh(Generation<T> g) {
+		Generation<T> ng = new Generation<>(this, true);
+		g.next = ng;
+		timer.schedule(ng::connect);
+	}
+
+	/**
+	 * Install a completed refresh, unless it failed in which case the cached value is
+	 * kept until it expires.
+	 */
+	void refreshed(Generation<T> ng, boolean failed) {
+		for (;;) {
+			Generation<T> g = current;
+			if (g == ng || g == null || g.next != ng) {
+				return;
+			}
+			if (failed) {
+				g.next = null;
+				return;
+			}
+			if (CURRENT.compareAndSet(this, g, ng)) {
+				return;
+			}
+		}
+	}
+
+	long expiry(long now, Duration ttl) {
+		if (ttl == null) {
+			return now;
+		}
+		long millis;
+		try {
+			millis = ttl.toMillis();
+		}
+		catch (ArithmeticException e) {
+			return Long.MAX_VALUE;
+		}
+		if (millis <= 0L) {
+			return now;
+		}
+		long t = now + millis;
+		return t < 0L ? Long.MAX_VALUE : t;
+	}
+
+	static final class Generation<T> implements Subscriber<T> {
+
+		final MonoCacheTime<T> parent;
+
+		final MonoProcessor<T> processor;
+
+		final boolean refresh;
+
+		/** Time at which the cached signal expires, set once terminated */
+		volatile long expireAt = Long.MAX_VALUE;
+
+		/** Time after which a subscriber triggers a refresh of the cached value */
+		volatile long refreshAt = Long.MAX_VALUE;
+
+		volatile Generation<T> next;
+
+		volatile int refreshing;
+		@SuppressWarnings("rawtypes")
+		static final AtomicIntegerFieldUpdater<Generation> REFRESHING =
+				AtomicIntegerFieldUpdater.newUpdater(Generation.class, "refreshing");
+
+		boolean hasValue;
+
+		Generation(MonoCacheTime<T> parent, boolean refresh) {
+			this.parent = parent;
+			this.refresh = refresh;
+			this.processor = new MonoProcessor<>(parent.source);
+		}
+
+		void connect() {
+			processor.subscribe(this);
+		}
+
+		@Override
+		public void onSubscribe(Subscription s) {
+			s.request(Long.MAX_VALUE);
+		}
+
+		@Override
+		public void onNext(T t) {
+			hasValue = true;
+			Duration ttl;
+			try {
+				ttl = parent.ttlForValue.apply(t);
+			}
+			catch (Throwable e) {
+				ttl = null;
+				Operators.onErrorDropped(Operators.onOperatorError(e));
+			}
+			expire(ttl, true);
+		}
+
+		@Override
+		public void onError(Throwable t) {
+			Duration ttl;
+			try {
+				ttl = parent.ttlForError.apply(t);
+			}
+			catch (Throwable e) {
+				ttl = null;
+				Operators.onErrorDropped(Operators.onOperatorError(e));
+			}
+			expire(ttl, false);
+		}
+
+		@Override
+		public void onComplete() {
+			if (hasValue) {
+				return;
+			}
+			Duration ttl;
+			try {
+				ttl = parent.ttlForEmpty.get();
+			}
+			catch (Throwable e) {
+				ttl = null;
+				Operators.onErrorDropped(Operators.onOperatorError(e));
+			}
+			expire(ttl, true);
+		}
+
+		void expire(Duration ttl, boolean success) {
+			long now = parent.timer.now(TimeUnit.MILLISECONDS);
+			long exp = parent.expiry(now, ttl);
+			long ra = parent.refreshAhead;
+			if (ra != 0L && hasValue && exp != Long.MAX_VALUE) {
+				refreshAt = Math.max(now, exp - ra);
+			}
+			expireAt = exp;
+			if (refresh) {
+				parent.refreshed(this, !success);
+			}
+		}
+	}
+}
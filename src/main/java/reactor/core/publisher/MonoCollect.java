@@ -15,6 +15,7 @@
  */
 package reactor.core.publisher;
 
+import java.util.HashMap;
 import java.util.Objects;
 import java.util.function.BiConsumer;
 import java.util.function.Supplier;
@@ -67,7 +68,10 @@ final class MonoCollect<T, R> extends MonoSource<T, R> implements Fuseable {
 			return;
 		}
 
-		source.subscribe(new CollectSubscriber<>(s, action, container));
+		source.subscribe(new CollectSubscriber<>(s,
+				action,
+				container,
+				supplier == Flux.MAP_SUPPLIER));
 	}
 
 	static final class CollectSubscriber<T, R>
@@ -76,15 +80,29 @@ final class MonoCollect<T, R> extends MonoSource<T, R> implements Fuseable {
 
 		final BiConsumer<? super R, ? super T> action;
 
+		/**
+		 * Whether the container is a new {@link HashMap} from the default supplier, that
+		 * can be replaced by one sized for the estimated number of values
+		 */
+		final boolean presizeMap;
+
 		Subscription s;
 
 		boolean done;
 
 		public CollectSubscriber(Subscriber<? super R> actual, BiConsumer<? super R, ? super T> action,
 										  R container) {
+			this(actual, action, container, false);
+		}
+
+		CollectSubscriber(Subscriber<? super R> actual,
+				BiConsumer<? super R, ? super T> action,
+				R container,
+				boolean presizeMap) {
 			super(actual);
 			this.action = action;
 			this.value = container;
+			this.presizeMap = presizeMap;
 		}
 
 		@Override
@@ -98,6 +116,10 @@ final class MonoCollect<T, R> extends MonoSource<T, R> implements Fuseable {
 			if (Operators.validate(this.s, s)) {
 				this.s = s;
 
+				if (presizeMap) {
+					presizeMap(Operators.sizeEstimate(s));
+				}
+
 				subscriber.onSubscribe(this);
 
 				s.request(Long.MAX_VALUE);
@@ -137,6 +159,14 @@ final class MonoCollect<T, R> extends MonoSource<T, R> implements Fuseable {
 			complete(value);
 		}
 
+		@SuppressWarnings("unchecked")
+		void presizeMap(long estimate) {
+			if (estimate > 0L) {
+				long n = Math.min(estimate, Operators.MAX_PRESIZE);
+				value = (R) new HashMap<>((int) (n / 0.75f) + 1);
+			}
+		}
+
 		@Override
 		public void setValue(R value) {
 			// value is constant
@@ -84,6 +84,8 @@ final class MonoCollectList<T, C extends Collection<? super T>> extends MonoSour
 			if (Operators.validate(this.s, s)) {
 				this.s = s;
 
+				Operators.presize(collection, Operators.sizeEstimate(s));
+
 				actual.onSubscribe(this);
 
 				s.request(Long.MAX_VALUE);
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2011-2016 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.util.Objects;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import reactor.core.scheduler.TimedScheduler;
+
+/**
+ * Resubscribes to the source {@link Mono} if it signals an error, after an exponentially
+ * growing and jittered delay.
+ *
+ * @param <T> the value type
+ * @see FluxRetryBackoff
+ */
+final class MonoRetryBackoff<T> extends MonoSource<T, T> {
+
+	final long numRetries;
+
+	final long firstBackoff;
+
+	final long maxBackoff;
+
+	final double jitterFactor;
+
+	final long timeout;
+
+	final TimedScheduler timer;
+
+	public MonoRetryBackoff(Publisher<? extends T> source,
+			long numRetries,
+			long firstBackoff,
+			long maxBackoff,
+			double jitterFactor,
+			long timeout,
+			TimedScheduler timer) {
+		super(source);
+		FluxRetryBackoff.validate(numRetries, firstBackoff, maxBackoff, jitterFactor, timeout);
+		this.numRetries = numRetries;
+		this.firstBackoff = firstBackoff;
+		this.maxBackoff = maxBackoff;
+		this.jitterFactor = jitterFactor;
+		this.timeout = timeout;
+		this.timer = Objects.requireNonNull(timer, "timer");
+	}
+
+	@Override
+	public void subscribe(Subscriber<? super T> s) {
+		FluxRetryBackoff.RetryBackoffSubscriber<T> parent =
+				new FluxRetryBackoff.RetryBackoffSubscriber<>(source,
+						s,
+						numRetries,
+						firstBackoff,
+						maxBackoff,
+						jitterFactor,
+						timeout,
+						timer);
+
+		s.onSubscribe(parent);
+
+		if (!parent.isCancelled()) {
+			parent.resubscribe();
+		}
+	}
+}
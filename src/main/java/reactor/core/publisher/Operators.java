@@ -15,6 +15,8 @@
  */
 package reactor.core.publisher;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicLong;
@@ -497,6 +499,34 @@ public abstract class Operators {
 		return false;
 	}
 
+	/**
+	 * Return the estimated number of values still to be emitted through a
+	 * {@link Subscription}, as passed along by
+	 * {@link Fuseable.QueueSubscription#sizeEstimate()}.
+	 *
+	 * @param s the upstream {@link Subscription}
+	 * @return the estimated number of values, or -1 if unknown
+	 */
+	static long sizeEstimate(Subscription s) {
+		if (s instanceof Fuseable.QueueSubscription) {
+			return ((Fuseable.QueueSubscription<?>) s).sizeEstimate();
+		}
+		return -1L;
+	}
+
+	/**
+	 * Grow an {@link ArrayList} once for an estimated number of values, at most
+	 * {@link #MAX_PRESIZE}, instead of repeatedly while values are added.
+	 *
+	 * @param c the collection, left unchanged if not an {@link ArrayList}
+	 * @param estimate the estimated number of values to be added, or -1 if unknown
+	 */
+	static void presize(Collection<?> c, long estimate) {
+		if (estimate > 0L && c instanceof ArrayList) {
+			((ArrayList<?>) c).ensureCapacity((int) Math.min(estimate, MAX_PRESIZE));
+		}
+	}
+
 	/**
 	 * Cap a substraction to 0
 	 *
@@ -611,6 +641,12 @@ public abstract class Operators {
 
 	final static Logger log = Loggers.getLogger(Operators.class);
 
+	/**
+	 * Bound on the pre-sizing of collections from a size estimate, so that a large or
+	 * wrong estimate does not allocate more than the values will need
+	 */
+	static final int MAX_PRESIZE = 1 << 20;
+
 	Operators() {
 	}
 
@@ -1553,6 +1589,11 @@ public abstract class Operators {
 			return isEmpty() ? 0 : 1;
 		}
 
+		@Override
+		public long sizeEstimate() {
+			return size();
+		}
+
 		@Override
 		public void clear() {
 			ONCE.lazySet(this, 1);
@@ -17,6 +17,7 @@
 package reactor.core.publisher;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
@@ -29,6 +30,7 @@ import java.util.function.Function;
 import java.util.function.LongConsumer;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
 import java.util.logging.Level;
 
 import org.reactivestreams.Publisher;
@@ -147,6 +149,24 @@ public abstract class ParallelFlux<T> implements Publisher<T> {
 		return converter.apply(this);
 	}
 
+	/**
+	 * Retains the {@code k} smallest elements of each 'rail' according to the comparator
+	 * in a bounded heap, and merges the heaps of all rails into a sequential
+	 * {@link Flux} of the {@code k} smallest elements, smallest first.
+	 * <p>
+	 * This operator requires a finite source ParallelFlux.
+	 *
+	 * @param k the number of elements to emit
+	 * @param comparator the comparator to compare elements
+	 *
+	 * @return the new Flux instance
+	 * @see #topK(int, Comparator)
+	 */
+	public final Flux<T> bottomK(int k, Comparator<? super T> comparator) {
+		Objects.requireNonNull(comparator, "comparator");
+		return topK(k, Collections.reverseOrder(comparator));
+	}
+
 	/**
 	 * Collect the elements in each rail into a collection supplied via a
 	 * collectionSupplier and collected into with a collector action, emitting the
@@ -291,6 +311,23 @@ public abstract class ParallelFlux<T> implements Publisher<T> {
 		return concatMap(mapper, 2, ErrorMode.END);
 	}
 
+	/**
+	 * Estimates the number of distinct elements across all 'rails' with a HyperLogLog
+	 * sketch per rail, the sketches being merged into a single estimate at the end.
+	 * <p>
+	 * This operator requires a finite source ParallelFlux.
+	 *
+	 * @return the new Mono instance
+	 * @see Flux#countDistinctApprox()
+	 */
+	public final Mono<Long> countDistinctApprox() {
+		ParallelFlux<HyperLogLog> railSketches =
+				collect(() -> new HyperLogLog(HyperLogLog.DEFAULT_PRECISION), HyperLogLog::add);
+
+		return railSketches.reduce(HyperLogLog::merge)
+		                   .map(HyperLogLog::estimate);
+	}
+
 	/**
 	 * Run the specified runnable when a 'rail' completes or signals an error.
 	 *
@@ -660,6 +697,29 @@ public abstract class ParallelFlux<T> implements Publisher<T> {
 	 */
 	public abstract int parallelism();
 
+	/**
+	 * Estimates quantiles of a numeric value extracted from the elements of all 'rails'
+	 * with a logarithmic histogram per rail, the histograms being merged into a single
+	 * array of estimates, in the order of the requested quantiles, at the end.
+	 * <p>
+	 * This operator requires a finite source ParallelFlux.
+	 *
+	 * @param valueMapper the function extracting the finite numeric value
+	 * @param quantiles the quantiles to estimate, between 0 and 1
+	 *
+	 * @return the new Mono instance
+	 * @see Flux#quantiles(ToDoubleFunction, double...)
+	 */
+	public final Mono<double[]> quantiles(ToDoubleFunction<? super T> valueMapper, double... quantiles) {
+		Objects.requireNonNull(valueMapper, "valueMapper");
+		QuantileSketch.validate(quantiles);
+		ParallelFlux<QuantileSketch> railSketches = collect(Flux::quantileSketch,
+				(s, t) -> s.add(valueMapper.applyAsDouble(t)));
+
+		return railSketches.reduce(QuantileSketch::merge)
+		                   .map(s -> s.quantiles(quantiles));
+	}
+
 	/**
 	 * Reduces all values within a 'rail' and across 'rails' with a reducer function into
 	 * a single sequential value.
@@ -887,6 +947,30 @@ public abstract class ParallelFlux<T> implements Publisher<T> {
 		subscribe(subscribers);
 	}
 
+	/**
+	 * Retains the {@code k} greatest elements of each 'rail' according to the comparator
+	 * in a bounded heap, and merges the heaps of all rails into a sequential
+	 * {@link Flux} of the {@code k} greatest elements, greatest first.
+	 * <p>
+	 * Unlike {@link #sorted(Comparator)}, each rail only holds {@code k} elements and
+	 * spends {@code O(log k)} per element.
+	 * <p>
+	 * This operator requires a finite source ParallelFlux.
+	 *
+	 * @param k the number of elements to emit
+	 * @param comparator the comparator to compare elements
+	 *
+	 * @return the new Flux instance
+	 */
+	public final Flux<T> topK(int k, Comparator<? super T> comparator) {
+		TopKHeap.validate(k, comparator);
+		ParallelFlux<TopKHeap<T>> railHeaps =
+				collect(() -> new TopKHeap<>(k, comparator), TopKHeap::offer);
+
+		return railHeaps.reduce(TopKHeap::merge)
+		                .flatMapIterable(TopKHeap::toList);
+	}
+
 	/**
 	 * Allows composing operators, in assembly time, on top of this {@link ParallelFlux}
 	 * and returns another {@link ParallelFlux} with composed features.
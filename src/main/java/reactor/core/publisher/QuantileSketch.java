@@ -0,0 +1,293 @@
+/*
+ * Copyright (c) 2011-2016 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+/**
+ * A histogram with logarithmic buckets estimating the quantiles of the values offered
+ * within a relative accuracy: every bucket spans values within a factor of
+ * {@code (1 + accuracy) / (1 - accuracy)} of each other, so that the value reported for
+ * a bucket is within {@code accuracy} of any value it holds. Negative values and
+ * (close to) zero values are held in their own buckets.
+ * <p>
+ * At most {@code maxBuckets} buckets are kept per sign: past that, the buckets of the
+ * smallest magnitudes are folded together, which only degrades the lowest quantiles.
+ * Two sketches of the same accuracy can be merged. This class is not thread-safe.
+ */
+final class QuantileSketch {
+
+	static final double DEFAULT_ACCURACY = 0.01d;
+
+	static final int DEFAULT_MAX_BUCKETS = 2048;
+
+	final double accuracy;
+
+	final double gamma;
+
+	final double logGamma;
+
+	final Store positive;
+
+	final Store negative;
+
+	long zeroCount;
+
+	long count;
+
+	double min = Double.POSITIVE_INFINITY;
+
+	double max = Double.NEGATIVE_INFINITY;
+
+	QuantileSketch(double accuracy, int maxBuckets) {
+		if (!(accuracy > 0d && accuracy < 1d)) {
+			throw new IllegalArgumentException("accuracy between 0 and 1 required but it was " + accuracy);
+		}
+		if (maxBuckets <= 0) {
+			throw new IllegalArgumentException("maxBuckets > 0 required but it was " + maxBuckets);
+		}
+		this.accuracy = accuracy;
+		this.gamma = (1d + accuracy) / (1d - accuracy);
+		this.logGamma = Math.log(gamma);
+		this.positive = new Store(maxBuckets);
+		this.negative = new Store(maxBuckets);
+	}
+
+	static void validate(double[] quantiles) {
+		if (quantiles.length == 0) {
+			throw new IllegalArgumentException("At least one quantile required");
+		}
+		for (double q : quantiles) {
+			if (!(q >= 0d && q <= 1d)) {
+				throw new IllegalArgumentException("quantile between 0 and 1 required but it was " + q);
+			}
+		}
+	}
+
+	/**
+	 * Offer a value to the sketch.
+	 *
+	 * @param v the finite value
+	 *
+	 * @return this sketch
+	 */
+	QuantileSketch add(double v) {
+		if (Double.isNaN(v) || Double.isInfinite(v)) {
+			throw new IllegalArgumentException("finite value required but it was " + v);
+		}
+		if (v > Double.MIN_NORMAL) {
+			positive.add(index(v), 1L);
+		}
+		else if (v < -Double.MIN_NORMAL) {
+			negative.add(index(-v), 1L);
+		}
+		else {
+			zeroCount++;
+		}
+		count++;
+		if (v < min) {
+			min = v;
+		}
+		if (v > max) {
+			max = v;
+		}
+		return this;
+	}
+
+	/**
+	 * Merge another sketch of the same accuracy into this sketch.
+	 *
+	 * @param other the other sketch
+	 *
+	 * @return this sketch
+	 */
+	QuantileSketch merge(QuantileSketch other) {
+		if (other.accuracy != accuracy) {
+			throw new IllegalArgumentException("Cannot merge a sketch of accuracy " + other.accuracy + " into a sketch of accuracy " + accuracy);
+		}
+		positive.merge(other.positive);
+		negative.merge(other.negative);
+		zeroCount += other.zeroCount;
+		count += other.count;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+		return this;
+	}
+
+	/**
+	 * Estimate several quantiles at once.
+	 *
+	 * @param quantiles the quantiles, between 0 and 1
+	 *
+	 * @return the estimated values in the order of the quantiles, {@link Double#NaN} if
+	 * no value was offered
+	 */
+	double[] quantiles(double[] quantiles) {
+		double[] result = new double[quantiles.length];
+		for (int i = 0; i < quantiles.length; i++) {
+			result[i] = quantile(quantiles[i]);
+		}
+		return result;
+	}
+
+	/**
+	 * Estimate a quantile.
+	 *
+	 * @param q the quantile, between 0 and 1
+	 *
+	 * @return the estimated value, {@link Double#NaN} if no value was offered
+	 */
+	double quantile(double q) {
+		if (count == 0L) {
+			return Double.NaN;
+		}
+		long rank = (long) (q * (count - 1));
+		if (rank == 0L) {
+			return min;
+		}
+		if (rank == count - 1) {
+			return max;
+		}
+		double v;
+
+		Store n = negative;
+		if (rank < n.total) {
+			// the greatest magnitudes come first among the negative values
+			v = -n.valueAt(n.total - 1 - rank, this);
+		}
+		else if (rank < n.total + zeroCount) {
+			v = 0d;
+		}
+		else {
+			v = positive.valueAt(rank - n.total - zeroCount, this);
+		}
+		return Math.max(min, Math.min(max, v));
+	}
+
+	int index(double magnitude) {
+		return (int) Math.ceil(Math.log(magnitude) / logGamma);
+	}
+
+	double value(int index) {
+		return 2d * Math.pow(gamma, index) / (gamma + 1d);
+	}
+
+	@Override
+	public String toString() {
+		return "QuantileSketch[count=" + count + ", accuracy=" + accuracy + "]";
+	}
+
+	/**
+	 * Bucket counts by index over a window of at most {@code maxBuckets} indexes, folding
+	 * the lowest indexes together when it would grow wider. The counts outside of
+	 * {@code [minIndex, maxIndex]} are always zero.
+	 */
+	static final class Store {
+
+		final int maxBuckets;
+
+		long[] counts = new long[0];
+
+		int offset;
+
+		int minIndex;
+
+		int maxIndex;
+
+		long total;
+
+		Store(int maxBuckets) {
+			this.maxBuckets = maxBuckets;
+		}
+
+		void add(int index, long n) {
+			if (total == 0L) {
+				minIndex = index;
+				maxIndex = index;
+			}
+			else if (index < minIndex) {
+				index = Math.max(index, maxIndex - maxBuckets + 1);
+				minIndex = Math.min(minIndex, index);
+			}
+			else if (index > maxIndex) {
+				int newMin = index - maxBuckets + 1;
+				long folded = 0L;
+				if (newMin > minIndex) {
+					int hi = Math.min(maxIndex, newMin - 1);
+					for (int i = minIndex; i <= hi; i++) {
+						folded += counts[i - offset];
+						counts[i - offset] = 0L;
+					}
+					minIndex = newMin;
+				}
+				maxIndex = index;
+				ensureCapacity();
+				counts[minIndex - offset] += folded;
+			}
+			ensureCapacity();
+			counts[index - offset] += n;
+			total += n;
+		}
+
+		void ensureCapacity() {
+			long[] a = counts;
+			if (minIndex >= offset && maxIndex < offset + a.length) {
+				return;
+			}
+			int width = maxIndex - minIndex + 1;
+			int length = Math.max(16, Integer.highestOneBit(width) << 1);
+			int newOffset = minIndex - (length - width) / 2;
+			long[] b = new long[length];
+			int lo = Math.max(offset, newOffset);
+			int hi = Math.min(offset + a.length, newOffset + length);
+			if (lo < hi) {
+				System.arraycopy(a, lo - offset, b, lo - newOffset, hi - lo);
+			}
+			counts = b;
+			offset = newOffset;
+		}
+
+		void merge(Store other) {
+			if (other.total == 0L) {
+				return;
+			}
+			long[] o = other.counts;
+			for (int i = other.minIndex; i <= other.maxIndex; i++) {
+				long c = o[i - other.offset];
+				if (c != 0L) {
+					add(i, c);
+				}
+			}
+		}
+
+		/**
+		 * @param rank the rank of a value, from the smallest index
+		 * @param sketch the sketch defining the bucket values
+		 *
+		 * @return the value of the bucket holding the value of the given rank
+		 */
+		double valueAt(long rank, QuantileSketch sketch) {
+			long[] a = counts;
+			long seen = 0L;
+			for (int i = minIndex; i <= maxIndex; i++) {
+				seen += a[i - offset];
+				if (seen > rank) {
+					return sketch.value(i);
+				}
+			}
+			return sketch.value(maxIndex);
+		}
+	}
+}
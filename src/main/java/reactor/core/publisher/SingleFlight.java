@@ -0,0 +1,313 @@
+/*
+ * Copyright (c) 2011-2016 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Function;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * A keyed registry of in-flight {@link Mono}: the first subscriber for a key subscribes
+ * to the {@link Mono} provided for that key, and the subscribers for the same key
+ * arriving before it terminates share its result instead of subscribing again.
+ * <p>
+ * The key is released as soon as the shared {@link Mono} terminates, so that the next
+ * subscriber triggers a new call. If all the subscribers of a key cancel, the shared
+ * subscription is cancelled and the key released as well.
+ * <pre>
+ * {@code
+ * SingleFlight<String, Config> configs = SingleFlight.create();
+ *
+ * Mono<Config> config = configs.execute(name, n -> configService.fetch(n));
+ * }
+ * </pre>
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public final class SingleFlight<K, V> {
+
+	/**
+	 * Create an empty {@link SingleFlight} registry.
+	 *
+	 * @param <K> the key type
+	 * @param <V> the value type
+	 *
+	 * @return a new {@link SingleFlight}
+	 */
+	public static <K, V> SingleFlight<K, V> create() {
+		return new SingleFlight<>();
+	}
+
+	final ConcurrentMap<K, Flight<K, V>> flights = new ConcurrentHashMap<>();
+
+	SingleFlight() {
+	}
+
+	/**
+	 * Return a {@link Mono} that, when subscribed, joins the in-flight call for the
+	 * given key or starts one with the {@link Publisher} returned by the given
+	 * {@link Function}.
+	 *
+	 * @param key the key identifying identical calls
+	 * @param call the {@link Function} providing the call for a key, only applied when
+	 * no call is in flight for that key
+	 *
+	 * @return a {@link Mono} of the result of the shared call
+	 */
+	public Mono<V> execute(K key, Function<? super K, ? extends Publisher<? extends V>> call) {
+		Objects.requireNonNull(key, "key");
+		Objects.requireNonNull(call, "call");
+		return Mono.onAssembly(new Mono<V>() {
+			@Override
+			public void subscribe(Subscriber<? super V> s) {
+				join(key, call, s);
+			}
+		});
+	}
+
+	/**
+	 * @return the number of keys with a call in flight
+	 */
+	public int inFlight() {
+		return flights.size();
+	}
+
+	void join(K key,
+			Function<? super K, ? extends Publisher<? extends V>> call,
+			Subscriber<? super V> s) {
+		FlightInner<V> inner = new FlightInner<>(s);
+		s.onSubscribe(inner);
+
+		for (;;) {
+			if (inner.isCancelled()) {
+				return;
+			}
+			Flight<K, V> f = flights.get(key);
+			if (f != null) {
+				if (f.add(inner)) {
+					return;
+				}
+				// terminated or abandoned, release it for a fresh call
+				flights.remove(key, f);
+				continue;
+			}
+
+			Flight<K, V> nf = new Flight<>(this, key);
+			if (flights.putIfAbsent(key, nf) != null) {
+				continue;
+			}
+			nf.add(inner);
+			if (nf.subscribers == Flight.TERMINATED) {
+				return;
+			}
+
+			Publisher<? extends V> p;
+			try {
+				p = Objects.requireNonNull(call.apply(key), "The call returned a null Publisher");
+			}
+			catch (Throwable e) {
+				nf.onError(Operators.onOperatorError(e));
+				return;
+			}
+			Mono.from(p).subscribe(nf);
+			return;
+		}
+	}
+
+	static final class Flight<K, V> implements Subscriber<V> {
+
+		@SuppressWarnings("rawtypes")
+		static final FlightInner[] EMPTY = new FlightInner[0];
+
+		@SuppressWarnings("rawtypes")
+		static final FlightInner[] TERMINATED = new FlightInner[0];
+
+		final SingleFlight<K, V> parent;
+
+		final K key;
+
+		volatile FlightInner<V>[] subscribers;
+		@SuppressWarnings("rawtypes")
+		static final AtomicReferenceFieldUpdater<Flight, FlightInner[]> SUBSCRIBERS =
+				AtomicReferenceFieldUpdater.newUpdater(Flight.class, FlightInner[].class, "subscribers");
+
+		volatile Subscription s;
+		@SuppressWarnings("rawtypes")
+		static final AtomicReferenceFieldUpdater<Flight, Subscription> S =
+				AtomicReferenceFieldUpdater.newUpdater(Flight.class, Subscription.class, "s");
+
+		V value;
+
+		@SuppressWarnings("unchecked")
+		Flight(SingleFlight<K, V> parent, K key) {
+			this.parent = parent;
+			this.key = key;
+			SUBSCRIBERS.lazySet(this, EMPTY);
+		}
+
+		boolean add(FlightInner<V> inner) {
+			for (;;) {
+				FlightInner<V>[] a = subscribers;
+				if (a == TERMINATED) {
+					return false;
+				}
+				int n = a.length;
+				@SuppressWarnings("unchecked")
+				FlightInner<V>[] b = new FlightInner[n + 1];
+				System.arraycopy(a, 0, b, 0, n);
+				b[n] = inner;
+				if (SUBSCRIBERS.compareAndSet(this, a, b)) {
+					inner.parent = this;
+					if (inner.isCancelled()) {
+						remove(inner);
+					}
+					return true;
+				}
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		void remove(FlightInner<V> inner) {
+			for (;;) {
+				FlightInner<V>[] a = subscribers;
+				if (a == TERMINATED || a == EMPTY) {
+					return;
+				}
+				int n = a.length;
+				int j = -1;
+				for (int i = 0; i < n; i++) {
+					if (a[i] == inner) {
+						j = i;
+						break;
+					}
+				}
+				if (j < 0) {
+					return;
+				}
+				if (n == 1) {
+					// last subscriber gone: abandon the call
+					if (SUBSCRIBERS.compareAndSet(this, a, TERMINATED)) {
+						parent.flights.remove(key, this);
+						Operators.terminate(S, this);
+						return;
+					}
+					continue;
+				}
+				FlightInner<V>[] b = new FlightInner[n - 1];
+				System.arraycopy(a, 0, b, 0, j);
+				System.arraycopy(a, j + 1, b, j, n - j - 1);
+				if (SUBSCRIBERS.compareAndSet(this, a, b)) {
+					return;
+				}
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		FlightInner<V>[] terminate() {
+			parent.flights.remove(key, this);
+			return SUBSCRIBERS.getAndSet(this, TERMINATED);
+		}
+
+		@Override
+		public void onSubscribe(Subscription s) {
+			if (Operators.setOnce(S, this, s)) {
+				s.request(Long.MAX_VALUE);
+			}
+		}
+
+		@Override
+		public void onNext(V t) {
+			if (value != null) {
+				Operators.onNextDropped(t);
+				return;
+			}
+			value = t;
+		}
+
+		@Override
+		public void onError(Throwable t) {
+			FlightInner<V>[] a = terminate();
+			if (a == TERMINATED) {
+				Operators.onErrorDropped(t);
+				return;
+			}
+			for (FlightInner<V> inner : a) {
+				inner.onError(t);
+			}
+		}
+
+		@Override
+		public void onComplete() {
+			FlightInner<V>[] a = terminate();
+			if (a == TERMINATED) {
+				return;
+			}
+			V v = value;
+			value = null;
+			for (FlightInner<V> inner : a) {
+				if (v != null) {
+					inner.complete(v);
+				}
+				else {
+					inner.onComplete();
+				}
+			}
+		}
+	}
+
+	static final class FlightInner<V> extends Operators.MonoSubscriber<V, V> {
+
+		volatile Flight<?, V> parent;
+
+		FlightInner(Subscriber<? super V> actual) {
+			super(actual);
+		}
+
+		@Override
+		public void onError(Throwable t) {
+			if (!isCancelled()) {
+				subscriber.onError(t);
+			}
+		}
+
+		@Override
+		public void onComplete() {
+			if (!isCancelled()) {
+				subscriber.onComplete();
+			}
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public void cancel() {
+			if (!isCancelled()) {
+				super.cancel();
+				Flight<?, V> p = parent;
+				if (p != null) {
+					((Flight<Object, V>) p).remove(this);
+				}
+			}
+		}
+	}
+}
@@ -22,7 +22,9 @@ import org.reactivestreams.Subscriber;
  * Interface to generate signals to a bridged {@link Subscriber}.
  * <p>
  * At most one {@link #next} call and/or one {@link #complete()} or {@link
- * #error(Throwable)} should be called per invocation of the generator function
+ * #error(Throwable)} should be called per invocation of the generator function, except
+ * for {@link Flux#generateBatch(java.util.concurrent.Callable,
+ * java.util.function.BiFunction)} which accepts any number of {@link #next} calls.
  *
  * @param <T> the output value type
  */
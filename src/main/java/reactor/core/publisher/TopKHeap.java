@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2011-2016 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A binary heap retaining the {@code k} greatest values offered according to a
+ * {@link Comparator}, in {@code O(log k)} per value and {@code O(k)} memory. The root of
+ * the heap is the smallest retained value, the one replaced by a greater value once the
+ * heap is full.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @param <T> the value type
+ */
+final class TopKHeap<T> {
+
+	final int k;
+
+	final Comparator<? super T> comparator;
+
+	Object[] heap;
+
+	int size;
+
+	TopKHeap(int k, Comparator<? super T> comparator) {
+		validate(k, comparator);
+		this.k = k;
+		this.comparator = comparator;
+		this.heap = new Object[Math.min(k, 16)];
+	}
+
+	static void validate(int k, Comparator<?> comparator) {
+		if (k <= 0) {
+			throw new IllegalArgumentException("k > 0 required but it was " + k);
+		}
+		Objects.requireNonNull(comparator, "comparator");
+	}
+
+	/**
+	 * Offer a value, retained if the heap is not full or if it is greater than the
+	 * smallest retained value.
+	 *
+	 * @param t the value
+	 *
+	 * @return this heap
+	 */
+	@SuppressWarnings("unchecked")
+	TopKHeap<T> offer(T t) {
+		Object[] h = heap;
+		int n = size;
+		if (n < k) {
+			if (n == h.length) {
+				h = Arrays.copyOf(h, (int) Math.min(k, (long) n << 1));
+				heap = h;
+			}
+			h[n] = t;
+			size = n + 1;
+			siftUp(n);
+		}
+		else if (comparator.compare(t, (T) h[0]) > 0) {
+			h[0] = t;
+			siftDown(0);
+		}
+		return this;
+	}
+
+	/**
+	 * Offer all the values retained by another heap to this heap.
+	 *
+	 * @param other the other heap
+	 *
+	 * @return this heap
+	 */
+	@SuppressWarnings("unchecked")
+	TopKHeap<T> merge(TopKHeap<T> other) {
+		Object[] h = other.heap;
+		for (int i = 0; i < other.size; i++) {
+			offer((T) h[i]);
+		}
+		return this;
+	}
+
+	/**
+	 * @return the retained values, greatest first
+	 */
+	@SuppressWarnings("unchecked")
+	List<T> toList() {
+		if (size == 0) {
+			return new ArrayList<>();
+		}
+		T[] a = (T[]) Arrays.copyOf(heap, size);
+		Arrays.sort(a, Collections.reverseOrder(comparator));
+		return new ArrayList<>(Arrays.asList(a));
+	}
+
+	@SuppressWarnings("unchecked")
+	void siftUp(int i) {
+		Object[] h = heap;
+		T t = (T) h[i];
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			T p = (T) h[parent];
+			if (comparator.compare(t, p) >= 0) {
+				break;
+			}
+			h[i] = p;
+			i = parent;
+		}
+		h[i] = t;
+	}
+
+	@SuppressWarnings("unchecked")
+	void siftDown(int i) {
+		Object[] h = heap;
+		int n = size;
+		T t = (T) h[i];
+		int half = n >>> 1;
+		while (i < half) {
+			int child = (i << 1) + 1;
+			T c = (T) h[child];
+			int right = child + 1;
+			if (right < n && comparator.compare(c, (T) h[right]) > 0) {
+				child = right;
+				c = (T) h[child];
+			}
+			if (comparator.compare(t, c) <= 0) {
+				break;
+			}
+			h[i] = c;
+			i = child;
+		}
+		h[i] = t;
+	}
+}
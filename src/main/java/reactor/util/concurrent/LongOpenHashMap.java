@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2011-2016 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/*
+ * Inspired by fastutils' Long2ObjectOpenHashMap implementation at
+ * https://github.com/vigna/fastutil/blob/master/drv/OpenHashMap.drv
+ */
+
+package reactor.util.concurrent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A simple open hash map from primitive {@code long} keys to values with get, put,
+ * remove and clear capabilities only.
+ * <p>Doesn't support nor checks for {@code null} values, which mark free slots.
+ *
+ * @param <V> the value type
+ */
+public final class LongOpenHashMap<V> {
+    final float loadFactor;
+    int mask;
+    int size;
+    int maxSize;
+    long[] keys;
+    V[] values;
+
+    public LongOpenHashMap() {
+        this(16, 0.75f);
+    }
+
+    @SuppressWarnings("unchecked")
+    public LongOpenHashMap(int capacity, float loadFactor) {
+        this.loadFactor = loadFactor;
+        int c = QueueSupplier.ceilingNextPowerOfTwo(capacity);
+        this.mask = c - 1;
+        this.maxSize = (int)(loadFactor * c);
+        this.keys = new long[c];
+        this.values = (V[])new Object[c];
+    }
+
+    public V get(long key) {
+        final long[] k = keys;
+        final V[] a = values;
+        final int m = mask;
+        int pos = LongOpenHashSet.mix(key) & m;
+        for (;;) {
+            V curr = a[pos];
+            if (curr == null) {
+                return null;
+            }
+            if (k[pos] == key) {
+                return curr;
+            }
+            pos = (pos + 1) & m;
+        }
+    }
+
+    public V put(long key, V value) {
+        final long[] k = keys;
+        final V[] a = values;
+        final int m = mask;
+        int pos = LongOpenHashSet.mix(key) & m;
+        for (;;) {
+            V curr = a[pos];
+            if (curr == null) {
+                break;
+            }
+            if (k[pos] == key) {
+                a[pos] = value;
+                return curr;
+            }
+            pos = (pos + 1) & m;
+        }
+        k[pos] = key;
+        a[pos] = value;
+        if (++size >= maxSize) {
+            rehash();
+        }
+        return null;
+    }
+
+    public V remove(long key) {
+        final long[] k = keys;
+        final V[] a = values;
+        final int m = mask;
+        int pos = LongOpenHashSet.mix(key) & m;
+        for (;;) {
+            V curr = a[pos];
+            if (curr == null) {
+                return null;
+            }
+            if (k[pos] == key) {
+                removeEntry(pos, k, a, m);
+                return curr;
+            }
+            pos = (pos + 1) & m;
+        }
+    }
+
+    void removeEntry(int pos, long[] k, V[] a, int m) {
+        size--;
+
+        int last;
+        int slot;
+        V curr;
+        for (;;) {
+            last = pos;
+            pos = (pos + 1) & m;
+            for (;;) {
+                curr = a[pos];
+                if (curr == null) {
+                    a[last] = null;
+                    return;
+                }
+                slot = LongOpenHashSet.mix(k[pos]) & m;
+
+                if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos) {
+                    break;
+                }
+
+                pos = (pos + 1) & m;
+            }
+            k[last] = k[pos];
+            a[last] = curr;
+        }
+    }
+
+    public void clear() {
+        if (size == 0) {
+            return;
+        }
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    void rehash() {
+        long[] k = keys;
+        V[] a = values;
+        int i = a.length;
+        int newCap = i << 1;
+        int m = newCap - 1;
+
+        long[] nk = new long[newCap];
+        V[] b = (V[])new Object[newCap];
+
+        for (int j = size; j-- != 0; ) {
+            while (a[--i] == null);
+            int pos = LongOpenHashSet.mix(k[i]) & m;
+            if (b[pos] != null) {
+                for (;;) {
+                    pos = (pos + 1) & m;
+                    if (b[pos] == null) {
+                        break;
+                    }
+                }
+            }
+            nk[pos] = k[i];
+            b[pos] = a[i];
+        }
+
+        this.mask = m;
+        this.maxSize = (int)(newCap * loadFactor);
+        this.keys = nk;
+        this.values = b;
+    }
+
+    /**
+     * Returns a snapshot of the values currently held by this map.
+     *
+     * @return a new {@link List} of the values
+     */
+    public List<V> values() {
+        V[] a = values;
+        List<V> list = new ArrayList<>(size);
+        for (V v : a) {
+            if (v != null) {
+                list.add(v);
+            }
+        }
+        return list;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2011-2016 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/*
+ * Inspired by fastutils' LongOpenHashSet implementation at
+ * https://github.com/vigna/fastutil/blob/master/drv/OpenHashSet.drv
+ */
+
+package reactor.util.concurrent;
+
+import java.util.Arrays;
+
+/**
+ * A simple open hash set of primitive {@code long}s with add, contains, remove and
+ * clear capabilities only.
+ * <p>The {@code 0} key is tracked separately as it marks free slots.
+ */
+public final class LongOpenHashSet {
+    final float loadFactor;
+    int mask;
+    int size;
+    int maxSize;
+    long[] keys;
+    boolean containsZero;
+
+    public LongOpenHashSet() {
+        this(16, 0.75f);
+    }
+
+    public LongOpenHashSet(int capacity, float loadFactor) {
+        this.loadFactor = loadFactor;
+        int c = QueueSupplier.ceilingNextPowerOfTwo(capacity);
+        this.mask = c - 1;
+        this.maxSize = (int)(loadFactor * c);
+        this.keys = new long[c];
+    }
+
+    public boolean add(long value) {
+        if (value == 0L) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        final long[] a = keys;
+        final int m = mask;
+
+        int pos = mix(value) & m;
+        long curr = a[pos];
+        if (curr != 0L) {
+            if (curr == value) {
+                return false;
+            }
+            for (;;) {
+                pos = (pos + 1) & m;
+                curr = a[pos];
+                if (curr == 0L) {
+                    break;
+                }
+                if (curr == value) {
+                    return false;
+                }
+            }
+        }
+        a[pos] = value;
+        if (++size >= maxSize) {
+            rehash();
+        }
+        return true;
+    }
+
+    public boolean contains(long value) {
+        if (value == 0L) {
+            return containsZero;
+        }
+        final long[] a = keys;
+        final int m = mask;
+        int pos = mix(value) & m;
+        for (;;) {
+            long curr = a[pos];
+            if (curr == 0L) {
+                return false;
+            }
+            if (curr == value) {
+                return true;
+            }
+            pos = (pos + 1) & m;
+        }
+    }
+
+    public boolean remove(long value) {
+        if (value == 0L) {
+            if (containsZero) {
+                containsZero = false;
+                size--;
+                return true;
+            }
+            return false;
+        }
+        long[] a = keys;
+        int m = mask;
+        int pos = mix(value) & m;
+        for (;;) {
+            long curr = a[pos];
+            if (curr == 0L) {
+                return false;
+            }
+            if (curr == value) {
+                removeEntry(pos, a, m);
+                return true;
+            }
+            pos = (pos + 1) & m;
+        }
+    }
+
+    void removeEntry(int pos, long[] a, int m) {
+        size--;
+
+        int last;
+        int slot;
+        long curr;
+        for (;;) {
+            last = pos;
+            pos = (pos + 1) & m;
+            for (;;) {
+                curr = a[pos];
+                if (curr == 0L) {
+                    a[last] = 0L;
+                    return;
+                }
+                slot = mix(curr) & m;
+
+                if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos) {
+                    break;
+                }
+
+                pos = (pos + 1) & m;
+            }
+            a[last] = curr;
+        }
+    }
+
+    public void clear() {
+        if (size == 0) {
+            return;
+        }
+        Arrays.fill(keys, 0L);
+        containsZero = false;
+        size = 0;
+    }
+
+    void rehash() {
+        long[] a = keys;
+        int i = a.length;
+        int newCap = i << 1;
+        int m = newCap - 1;
+
+        long[] b = new long[newCap];
+
+        for (int j = containsZero ? size - 1 : size; j-- != 0; ) {
+            while (a[--i] == 0L);
+            int pos = mix(a[i]) & m;
+            if (b[pos] != 0L) {
+                for (;;) {
+                    pos = (pos + 1) & m;
+                    if (b[pos] == 0L) {
+                        break;
+                    }
+                }
+            }
+            b[pos] = a[i];
+        }
+
+        this.mask = m;
+        this.maxSize = (int)(newCap * loadFactor);
+        this.keys = b;
+    }
+
+    private static final long LONG_PHI = 0x9E3779B97F4A7C15L;
+
+    static int mix(long x) {
+        long h = x * LONG_PHI;
+        h ^= h >>> 32;
+        return (int)(h ^ (h >>> 16));
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2011-2016 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.util.concurrent;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * An {@link ArrayList} acquired from a {@link Pool} and handed back to it with
+ * {@link #release()} once consumed, so that its pre-sized backing array is reused by
+ * the next acquirer.
+ * <p>
+ * A {@link Pool} is a {@link Supplier} and can be given to any buffer operator accepting
+ * a buffer supplier, e.g. {@code flux.buffer(256, RecyclableList.pool(256))}: a
+ * downstream that processes each buffer synchronously and releases it then batches
+ * without allocating in steady state.
+ *
+ * @param <T> the element type
+ */
+@SuppressWarnings("serial")
+public final class RecyclableList<T> extends ArrayList<T> {
+
+	/**
+	 * Create a {@link Pool} of lists pre-sized to the given capacity, retaining up to
+	 * {@link QueueSupplier#XS_BUFFER_SIZE} released lists.
+	 *
+	 * @param capacity the initial capacity of each list
+	 * @param <T> the element type
+	 *
+	 * @return a new {@link Pool}
+	 */
+	public static <T> Pool<T> pool(int capacity) {
+		return pool(capacity, QueueSupplier.XS_BUFFER_SIZE);
+	}
+
+	/**
+	 * Create a {@link Pool} of lists pre-sized to the given capacity, retaining up to
+	 * {@code maxIdle} released lists.
+	 *
+	 * @param capacity the initial capacity of each list
+	 * @param maxIdle the maximum number of released lists kept for reuse
+	 * @param <T> the element type
+	 *
+	 * @return a new {@link Pool}
+	 */
+	public static <T> Pool<T> pool(int capacity, int maxIdle) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("capacity >= 0 required but it was " + capacity);
+		}
+		if (maxIdle <= 0) {
+			throw new IllegalArgumentException("maxIdle > 0 required but it was " + maxIdle);
+		}
+		return new Pool<>(capacity, maxIdle);
+	}
+
+	final Pool<T> pool;
+
+	volatile int released;
+	@SuppressWarnings("rawtypes")
+	static final AtomicIntegerFieldUpdater<RecyclableList> RELEASED =
+			AtomicIntegerFieldUpdater.newUpdater(RecyclableList.class, "released");
+
+	RecyclableList(Pool<T> pool, int capacity) {
+		super(capacity);
+		this.pool = pool;
+	}
+
+	/**
+	 * Clear this list and hand it back to its {@link Pool}. The list must not be used
+	 * anymore after this call.
+	 *
+	 * @throws IllegalStateException if the list has already been released
+	 */
+	public void release() {
+		if (!RELEASED.compareAndSet(this, 0, 1)) {
+			throw new IllegalStateException("RecyclableList already released");
+		}
+		clear();
+		pool.offer(this);
+	}
+
+	/**
+	 * A bounded, thread-safe pool of {@link RecyclableList}. Lists are created when the
+	 * pool is empty and dropped when it is full.
+	 *
+	 * @param <T> the element type
+	 */
+	public static final class Pool<T> implements Supplier<RecyclableList<T>> {
+
+		final int capacity;
+
+		final AtomicReferenceArray<RecyclableList<T>> idle;
+
+		Pool(int capacity, int maxIdle) {
+			this.capacity = capacity;
+			this.idle = new AtomicReferenceArray<>(maxIdle);
+		}
+
+		/**
+		 * Acquire an empty list, reusing a released one if available.
+		 *
+		 * @return an empty {@link RecyclableList}
+		 */
+		@Override
+		public RecyclableList<T> get() {
+			AtomicReferenceArray<RecyclableList<T>> a = idle;
+			int n = a.length();
+			for (int i = 0; i < n; i++) {
+				if (a.get(i) != null) {
+					RecyclableList<T> list = a.getAndSet(i, null);
+					if (list != null) {
+						list.released = 0;
+						return list;
+					}
+				}
+			}
+			return new RecyclableList<>(this, capacity);
+		}
+
+		/**
+		 * @return the number of released lists currently available for reuse
+		 */
+		public int idle() {
+			AtomicReferenceArray<RecyclableList<T>> a = idle;
+			int n = a.length();
+			int c = 0;
+			for (int i = 0; i < n; i++) {
+				if (a.get(i) != null) {
+					c++;
+				}
+			}
+			return c;
+		}
+
+		void offer(RecyclableList<T> list) {
+			AtomicReferenceArray<RecyclableList<T>> a = idle;
+			int n = a.length();
+			for (int i = 0; i < n; i++) {
+				if (a.get(i) == null && a.compareAndSet(i, null, list)) {
+					return;
+				}
+			}
+		}
+	}
+}
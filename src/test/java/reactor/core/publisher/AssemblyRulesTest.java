@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2011-2016 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reactor.core.publisher;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.TestSubscriber;
+
+public class AssemblyRulesTest {
+
+	@After
+	public void reset() {
+		Hooks.resetAssemblyRules();
+		Hooks.resetOnAssemblyRewrite();
+	}
+
+	@Test
+	public void publishOnDuplicateRemoved() {
+		Scheduler s = Schedulers.single();
+		Flux<Integer> source = Flux.range(1, 5)
+		                           .hide();
+		Flux<Integer> f = source.publishOn(s)
+		                        .publishOn(s, 8);
+
+		Assert.assertTrue(f instanceof FluxPublishOn);
+		FluxPublishOn<?> p = (FluxPublishOn<?>) f;
+		Assert.assertSame(source, p.source);
+		Assert.assertEquals(8, p.prefetch);
+
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		f.subscribe(ts);
+
+		ts.await(Duration.ofSeconds(5))
+		  .assertValues(1, 2, 3, 4, 5)
+		  .assertComplete();
+	}
+
+	@Test
+	public void publishOnDifferentSchedulersKept() {
+		Flux<Integer> source = Flux.range(1, 5)
+		                           .hide();
+		Flux<Integer> first = source.publishOn(Schedulers.single());
+		Flux<Integer> f = first.publishOn(Schedulers.parallel());
+
+		Assert.assertSame(first, ((FluxPublishOn<?>) f).source);
+	}
+
+	@Test
+	public void monoPublishOnDuplicateRemoved() {
+		Scheduler s = Schedulers.single();
+		Mono<Integer> first = Mono.fromCallable(() -> 1)
+		                          .hide()
+		                          .publishOn(s);
+
+		Assert.assertSame(first, first.publishOn(s));
+	}
+
+	@Test
+	public void subscribeOnNestedRemoved() {
+		Flux<Integer> first = Flux.range(1, 3)
+		                          .hide()
+		                          .subscribeOn(Schedulers.single());
+
+		Assert.assertSame(first, first.subscribeOn(Schedulers.parallel()));
+
+		Mono<Integer> mono = Mono.fromCallable(() -> 1)
+		                         .hide()
+		                         .subscribeOn(Schedulers.single());
+
+		Assert.assertSame(mono, mono.subscribeOn(Schedulers.parallel()));
+	}
+
+	@Test
+	public void hideAndDetachDuplicateRemoved() {
+		Flux<Integer> hidden = Flux.range(1, 3)
+		                           .hide();
+		Assert.assertSame(hidden, hidden.hide());
+
+		Mono<Integer> mono = Mono.just(1)
+		                         .hide();
+		Assert.assertSame(mono, mono.hide());
+
+		Flux<Integer> detached = Flux.range(1, 3)
+		                             .onTerminateDetach();
+		Assert.assertSame(detached, detached.onTerminateDetach());
+
+		Mono<Integer> monoDetached = Mono.just(1)
+		                                 .onTerminateDetach();
+		Assert.assertSame(monoDetached, monoDetached.onTerminateDetach());
+	}
+
+	@Test
+	public void rewritesReported() {
+		List<String> rewrites = new ArrayList<>();
+		Hooks.onAssemblyRewrite((name, p) -> rewrites.add(name + ":" + p.getClass()
+		                                                                 .getSimpleName()));
+
+		Flux.range(1, 3)
+		    .hide()
+		    .hide()
+		    .onTerminateDetach()
+		    .onTerminateDetach();
+
+		Assert.assertEquals(2, rewrites.size());
+		Assert.assertEquals(AssemblyRules.HIDE_DUPLICATE + ":FluxHide", rewrites.get(0));
+		Assert.assertEquals(AssemblyRules.DETACH_DUPLICATE + ":FluxDetach",
+				rewrites.get(1));
+	}
+
+	@Test
+	public void customRule() {
+		Hooks.addAssemblyRule("takeTake", p -> {
+			if (p instanceof FluxTake && ((FluxTake<?>) p).source instanceof FluxTake) {
+				FluxTake<?> outer = (FluxTake<?>) p;
+				FluxTake<?> inner = (FluxTake<?>) outer.source;
+				return new FluxTake<>(inner.source, Math.min(inner.n, outer.n));
+			}
+			return p;
+		});
+
+		Flux<Integer> source = Flux.range(1, 10)
+		                           .hide();
+		Flux<Integer> f = source.take(5)
+		                        .take(3)
+		                        .take(4);
+
+		Assert.assertSame(source, ((FluxTake<?>) f).source);
+
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		f.subscribe(ts);
+
+		ts.assertValues(1, 2, 3)
+		  .assertComplete();
+	}
+
+	@Test
+	public void removeRule() {
+		Hooks.removeAssemblyRule(AssemblyRules.HIDE_DUPLICATE);
+
+		Flux<Integer> hidden = Flux.range(1, 3)
+		                           .hide();
+		Assert.assertSame(hidden, ((FluxHide<?>) hidden.hide()).source);
+
+		Hooks.resetAssemblyRules();
+
+		Assert.assertSame(hidden, hidden.hide());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void ruleChangingKindRejected() {
+		Hooks.addAssemblyRule("toMono", p -> p instanceof FluxHide ? Mono.empty() : p);
+
+		Flux.range(1, 3)
+		    .hide();
+	}
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2011-2016 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import reactor.test.TestSubscriber;
+
+public class BatchLoaderTest {
+
+	final List<List<Integer>> calls = new ArrayList<>();
+
+	Mono<Map<Integer, String>> bulk(List<Integer> keys) {
+		calls.add(keys);
+		Map<Integer, String> m = new HashMap<>();
+		for (Integer k : keys) {
+			if (k >= 0) {
+				m.put(k, "v" + k);
+			}
+		}
+		return Mono.just(m);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void maxBatchSizeZero() {
+		BatchLoader.create(this::bulk, 0, Duration.ofMillis(1));
+	}
+
+	@Test
+	public void batchedBySize() {
+		BatchLoader<Integer, String> loader = BatchLoader.create(this::bulk, 3, Duration.ofHours(1));
+
+		TestSubscriber<String> ts = TestSubscriber.create();
+
+		Flux.range(1, 7)
+		    .flatMap(loader::load)
+		    .subscribe(ts);
+
+		Assert.assertEquals(Arrays.asList(Arrays.asList(1, 2, 3), Arrays.asList(4, 5, 6)), calls);
+		Assert.assertEquals(1, loader.pending());
+
+		ts.assertValues("v1", "v2", "v3", "v4", "v5", "v6")
+		  .assertNotComplete();
+
+		loader.flush();
+
+		ts.assertValues("v1", "v2", "v3", "v4", "v5", "v6", "v7")
+		  .assertComplete()
+		  .assertNoError();
+	}
+
+	@Test
+	public void batchedByTime() {
+		BatchLoader<Integer, String> loader = BatchLoader.create(this::bulk, 100, Duration.ofMillis(50));
+
+		TestSubscriber<String> ts = TestSubscriber.create();
+
+		Flux.range(1, 3)
+		    .flatMap(loader::load)
+		    .subscribe(ts);
+
+		ts.assertNoValues();
+
+		ts.await(Duration.ofSeconds(5));
+
+		ts.assertValues("v1", "v2", "v3")
+		  .assertComplete();
+
+		Assert.assertEquals(Arrays.asList(Arrays.asList(1, 2, 3)), calls);
+	}
+
+	@Test
+	public void duplicateKeysCoalesced() {
+		BatchLoader<Integer, String> loader = BatchLoader.create(this::bulk, 100, Duration.ofHours(1));
+
+		TestSubscriber<String> ts1 = TestSubscriber.create();
+		TestSubscriber<String> ts2 = TestSubscriber.create();
+
+		loader.load(1).subscribe(ts1);
+		loader.load(1).subscribe(ts2);
+
+		Assert.assertEquals(1, loader.pending());
+
+		loader.flush();
+
+		Assert.assertEquals(Arrays.asList(Arrays.asList(1)), calls);
+		ts1.assertValues("v1")
+		   .assertComplete();
+		ts2.assertValues("v1")
+		   .assertComplete();
+	}
+
+	@Test
+	public void missingKeyEmpty() {
+		BatchLoader<Integer, String> loader = BatchLoader.create(this::bulk, 2, Duration.ofHours(1));
+
+		TestSubscriber<String> ts1 = TestSubscriber.create();
+		TestSubscriber<String> ts2 = TestSubscriber.create();
+
+		loader.load(-1).subscribe(ts1);
+		loader.load(2).subscribe(ts2);
+
+		ts1.assertNoValues()
+		   .assertComplete();
+		ts2.assertValues("v2")
+		   .assertComplete();
+	}
+
+	@Test
+	public void bulkErrorFailsBatch() {
+		BatchLoader<Integer, String> loader = BatchLoader.create(keys -> Mono.<Map<Integer, String>>error(new RuntimeException("forced failure")),
+				2, Duration.ofHours(1));
+
+		TestSubscriber<String> ts1 = TestSubscriber.create();
+		TestSubscriber<String> ts2 = TestSubscriber.create();
+
+		loader.load(1).subscribe(ts1);
+		loader.load(2).subscribe(ts2);
+
+		ts1.assertErrorMessage("forced failure");
+		ts2.assertErrorMessage("forced failure");
+	}
+
+	@Test
+	public void bulkLoaderThrows() {
+		BatchLoader<Integer, String> loader = BatchLoader.<Integer, String>create(keys -> {
+			throw new RuntimeException("forced failure");
+		}, 1, Duration.ofHours(1));
+
+		TestSubscriber<String> ts = TestSubscriber.create();
+
+		loader.load(1).subscribe(ts);
+
+		ts.assertNoValues()
+		  .assertErrorMessage("forced failure");
+	}
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2011-2016 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reactor.core.publisher;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ConcurrencyLimitTest {
+
+	static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	@Test(expected = IllegalArgumentException.class)
+	public void initialOutOfBounds() {
+		ConcurrencyLimit.aimd(10, 1, 5, Duration.ofMillis(1));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void minLimitZero() {
+		ConcurrencyLimit.gradient(1, 0, 5);
+	}
+
+	@Test
+	public void aimdIncreasesAdditively() {
+		ConcurrencyLimit limit = ConcurrencyLimit.aimd(4, 1, 100, Duration.ofMillis(10));
+
+		for (int i = 0; i < 4; i++) {
+			limit.onSample(MS, false);
+		}
+		Assert.assertEquals(4, limit.limit());
+
+		// about one more per limit of successful samples
+		for (int i = 0; i < 10; i++) {
+			limit.onSample(MS, false);
+		}
+		Assert.assertEquals(6, limit.limit());
+	}
+
+	@Test
+	public void aimdDecreasesMultiplicatively() {
+		ConcurrencyLimit limit = ConcurrencyLimit.aimd(100, 1, 100, Duration.ofMillis(10));
+
+		limit.onSample(MS, true);
+		Assert.assertEquals(90, limit.limit());
+
+		limit.onSample(20 * MS, false);
+		Assert.assertEquals(81, limit.limit());
+	}
+
+	@Test
+	public void aimdStaysWithinBounds() {
+		ConcurrencyLimit limit = ConcurrencyLimit.aimd(2, 2, 3, Duration.ofMillis(10));
+
+		for (int i = 0; i < 100; i++) {
+			limit.onSample(MS, false);
+		}
+		Assert.assertEquals(3, limit.limit());
+
+		for (int i = 0; i < 100; i++) {
+			limit.onSample(MS, true);
+		}
+		Assert.assertEquals(2, limit.limit());
+	}
+
+	@Test
+	public void gradientGrowsWithFlatLatency() {
+		ConcurrencyLimit limit = ConcurrencyLimit.gradient(4, 1, 64);
+
+		for (int i = 0; i < 100; i++) {
+			limit.onSample(MS, false);
+		}
+		Assert.assertEquals(64, limit.limit());
+	}
+
+	@Test
+	public void gradientShrinksWithRisingLatency() {
+		ConcurrencyLimit limit = ConcurrencyLimit.gradient(64, 1, 64);
+
+		limit.onSample(MS, false);
+		for (int i = 0; i < 50; i++) {
+			limit.onSample(10 * MS, false);
+		}
+		int degraded = limit.limit();
+		Assert.assertTrue("" + degraded, degraded < 32);
+
+		for (int i = 0; i < 50; i++) {
+			limit.onSample(MS, false);
+		}
+		Assert.assertTrue("" + limit.limit(), limit.limit() > degraded);
+	}
+
+	@Test
+	public void gradientShrinksOnError() {
+		ConcurrencyLimit limit = ConcurrencyLimit.gradient(10, 1, 64);
+
+		limit.onSample(MS, true);
+		Assert.assertEquals(9, limit.limit());
+	}
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2011-2016 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reactor.core.publisher;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.Assert;
+import org.junit.Test;
+import reactor.test.TestSubscriber;
+
+public class FluxAggregateWindowTest {
+
+	static void sleep(long millis) {
+		LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(millis));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void sizeZero() {
+		Flux.never()
+		    .aggregateWindows(0, () -> 0, (a, b) -> a);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void timespanZero() {
+		Flux.never()
+		    .aggregateWindows(Duration.ZERO, () -> 0, (a, b) -> a);
+	}
+
+	@Test
+	public void exactWindows() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		Flux.range(1, 6)
+		    .aggregateWindows(3, () -> 0, (a, b) -> a + b)
+		    .subscribe(ts);
+
+		ts.assertValues(6, 15)
+		  .assertNoError()
+		  .assertComplete();
+	}
+
+	@Test
+	public void partialLastWindow() {
+		TestSubscriber<List<Integer>> ts = TestSubscriber.create();
+
+		Flux.range(1, 5)
+		    .aggregateWindows(2, ArrayList::new, (List<Integer> a, Integer b) -> {
+			    a.add(b);
+			    return a;
+		    })
+		    .subscribe(ts);
+
+		ts.assertValues(Arrays.asList(1, 2), Arrays.asList(3, 4), Arrays.asList(5))
+		  .assertNoError()
+		  .assertComplete();
+	}
+
+	@Test
+	public void empty() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		Flux.<Integer>empty()
+		    .aggregateWindows(2, () -> 0, (a, b) -> a + b)
+		    .subscribe(ts);
+
+		ts.assertNoValues()
+		  .assertComplete();
+	}
+
+	@Test
+	public void backpressured() {
+		TestSubscriber<Integer> ts = TestSubscriber.create(0);
+		List<Long> requests = new ArrayList<>();
+
+		Flux.range(1, 10)
+		    .doOnRequest(requests::add)
+		    .aggregateWindows(3, () -> 0, (a, b) -> a + b)
+		    .subscribe(ts);
+
+		ts.assertNoValues();
+
+		ts.request(2);
+
+		ts.assertValues(6, 15)
+		  .assertNotComplete();
+
+		ts.request(2);
+
+		ts.assertValues(6, 15, 24, 10)
+		  .assertComplete();
+		Assert.assertEquals(Arrays.asList(6L, 6L), requests);
+	}
+
+	@Test
+	public void supplierNull() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		Flux.range(1, 5)
+		    .aggregateWindows(2, () -> (Integer) null, (a, b) -> a + b)
+		    .subscribe(ts);
+
+		ts.assertNoValues()
+		  .assertError(NullPointerException.class);
+	}
+
+	@Test
+	public void accumulatorThrows() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		Flux.range(1, 5)
+		    .aggregateWindows(2, () -> 0, (a, b) -> {
+			    if (b == 3) {
+				    throw new RuntimeException("forced failure");
+			    }
+			    return a + b;
+		    })
+		    .subscribe(ts);
+
+		ts.assertValues(3)
+		  .assertError(RuntimeException.class)
+		  .assertErrorMessage("forced failure");
+	}
+
+	@Test
+	public void timedWindows() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+		DirectProcessor<Integer> source = DirectProcessor.create();
+
+		source.aggregateWindows(Duration.ofMillis(200), () -> 0, (a, b) -> a + b)
+		      .subscribe(ts);
+
+		source.onNext(1);
+		source.onNext(2);
+		sleep(300);
+		source.onNext(3);
+		source.onComplete();
+
+		ts.await(Duration.ofSeconds(5));
+
+		ts.assertValues(3, 3)
+		  .assertNoError()
+		  .assertComplete();
+	}
+
+	@Test
+	public void timedEmptyWindowsEmitInitial() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+		DirectProcessor<Integer> source = DirectProcessor.create();
+
+		source.aggregateWindows(Duration.ofMillis(100), () -> -1, (a, b) -> a + b)
+		      .subscribe(ts);
+
+		sleep(250);
+		source.onComplete();
+
+		ts.await(Duration.ofSeconds(5));
+
+		ts.assertValues(-1, -1)
+		  .assertNoError()
+		  .assertComplete();
+	}
+
+	@Test
+	public void timedError() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+		DirectProcessor<Integer> source = DirectProcessor.create();
+
+		source.aggregateWindows(Duration.ofSeconds(10), () -> 0, (a, b) -> a + b)
+		      .subscribe(ts);
+
+		source.onNext(1);
+		source.onError(new RuntimeException("forced failure"));
+
+		ts.assertNoValues()
+		  .assertErrorMessage("forced failure");
+	}
+
+	@Test
+	public void timedLackOfRequest() {
+		TestSubscriber<Integer> ts = TestSubscriber.create(0);
+		DirectProcessor<Integer> source = DirectProcessor.create();
+
+		source.aggregateWindows(Duration.ofMillis(50), () -> 0, (a, b) -> a + b)
+		      .subscribe(ts);
+
+		source.onNext(1);
+
+		ts.await(Duration.ofSeconds(5));
+
+		ts.assertNoValues()
+		  .assertError(IllegalStateException.class);
+		Assert.assertFalse(source.hasDownstreams());
+	}
+
+	@Test
+	public void timedAccumulatorThrows() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+		DirectProcessor<Integer> source = DirectProcessor.create();
+
+		source.aggregateWindows(Duration.ofSeconds(10), () -> 0, (Integer a, Integer b) -> {
+			throw new RuntimeException("forced failure");
+		})
+		      .subscribe(ts);
+
+		source.onNext(1);
+
+		ts.assertNoValues()
+		  .assertErrorMessage("forced failure");
+		Assert.assertFalse(source.hasDownstreams());
+	}
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2011-2016 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reactor.core.publisher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import reactor.core.Fuseable;
+import reactor.test.TestSubscriber;
+
+public class FluxAssemblyFusionTest {
+
+	@Test
+	public void mapMapFused() {
+		Flux<Integer> source = Flux.range(1, 5);
+		Flux<String> f = source.map(i -> i * 2)
+		                       .map(i -> "" + i);
+
+		Assert.assertTrue(f instanceof FluxMapFuseable);
+		Assert.assertSame(source, ((FluxMapFuseable<?, ?>) f).source);
+
+		TestSubscriber<String> ts = TestSubscriber.create();
+		ts.requestedFusionMode(Fuseable.ANY);
+
+		f.subscribe(ts);
+
+		ts.assertFusionMode(Fuseable.SYNC)
+		  .assertValues("2", "4", "6", "8", "10")
+		  .assertComplete();
+	}
+
+	@Test
+	public void mapMapHidden() {
+		Flux<Integer> source = Flux.range(1, 3)
+		                           .hide();
+		Flux<Integer> f = source.map(i -> i + 1)
+		                        .map(i -> i * 10)
+		                        .map(i -> i - 1);
+
+		Assert.assertTrue(f instanceof FluxMap);
+		Assert.assertSame(source, ((FluxMap<?, ?>) f).source);
+
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		f.subscribe(ts);
+
+		ts.assertValues(19, 29, 39)
+		  .assertComplete();
+	}
+
+	@Test
+	public void mapNullInFirstStage() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		Flux.range(1, 3)
+		    .hide()
+		    .map(i -> (Integer) null)
+		    .map(i -> i + 1)
+		    .subscribe(ts);
+
+		ts.assertNoValues()
+		  .assertError(NullPointerException.class);
+	}
+
+	@Test
+	public void filterFilterFused() {
+		Flux<Integer> source = Flux.range(1, 20);
+		Flux<Integer> f = source.filter(i -> i % 2 == 0)
+		                        .filter(i -> i % 3 == 0);
+
+		Assert.assertTrue(f instanceof FluxFilterFuseable);
+		Assert.assertSame(source, ((FluxFilterFuseable<?>) f).source);
+
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+		ts.requestedFusionMode(Fuseable.ANY);
+
+		f.subscribe(ts);
+
+		ts.assertFusionMode(Fuseable.SYNC)
+		  .assertValues(6, 12, 18)
+		  .assertComplete();
+	}
+
+	@Test
+	public void filterMapIntoHandle() {
+		Flux<Integer> source = Flux.range(1, 10)
+		                           .hide();
+		Flux<String> f = source.filter(i -> i % 3 == 0)
+		                       .map(i -> "v" + i);
+
+		Assert.assertTrue(f instanceof FluxHandle);
+
+		TestSubscriber<String> ts = TestSubscriber.create(2);
+
+		f.subscribe(ts);
+
+		ts.assertValues("v3", "v6")
+		  .assertNotComplete();
+
+		ts.request(10);
+
+		ts.assertValues("v3", "v6", "v9")
+		  .assertComplete();
+	}
+
+	@Test
+	public void mapFilterIntoHandleFuseable() {
+		Flux<Integer> source = Flux.range(1, 10);
+		Flux<Integer> f = source.map(i -> i * i)
+		                        .filter(i -> i > 50);
+
+		Assert.assertTrue(f instanceof FluxHandleFuseable);
+
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+		ts.requestedFusionMode(Fuseable.ANY);
+
+		f.subscribe(ts);
+
+		ts.assertFusionMode(Fuseable.SYNC)
+		  .assertValues(64, 81, 100)
+		  .assertComplete();
+	}
+
+	@Test
+	public void doOnNextFused() {
+		List<String> calls = new ArrayList<>();
+		Flux<Integer> source = Flux.range(1, 2);
+		Flux<Integer> f = source.doOnNext(i -> calls.add("a" + i))
+		                        .doOnNext(i -> calls.add("b" + i))
+		                        .doOnComplete(() -> calls.add("complete"));
+
+		Assert.assertTrue(f instanceof FluxPeekFuseable);
+		Assert.assertTrue(((FluxPeekFuseable<?>) f).source instanceof FluxPeekFuseable);
+		Assert.assertSame(source,
+				((FluxPeekFuseable<?>) ((FluxPeekFuseable<?>) f).source).source);
+
+		f.subscribe();
+
+		Assert.assertEquals(Arrays.asList("a1", "b1", "a2", "b2", "complete"), calls);
+	}
+
+	@Test
+	public void doOnNextNotFusedWithOtherCallbacks() {
+		Flux<Integer> source = Flux.just(1, 2)
+		                           .doOnComplete(() -> {
+		                           });
+		Flux<Integer> f = source.doOnNext(i -> {
+		});
+
+		Assert.assertSame(source, ((FluxPeekFuseable<?>) f).source);
+	}
+
+	@Test
+	public void doOnNextFailureCancelsUpstreamPeek() {
+		List<String> calls = new ArrayList<>();
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		Flux.just(1, 2)
+		    .doOnError(e -> calls.add("error"))
+		    .doOnCancel(() -> calls.add("cancel"))
+		    .doOnNext(i -> {
+			    throw new IllegalStateException("boom");
+		    })
+		    .subscribe(ts);
+
+		ts.assertNoValues()
+		  .assertError(IllegalStateException.class);
+
+		Assert.assertEquals(Arrays.asList("cancel"), calls);
+	}
+
+	@Test
+	public void notFusedWithOperatorHook() {
+		Hooks.onOperator(h -> h);
+		try {
+			Flux<Integer> first = Flux.range(1, 5)
+			                          .map(i -> i + 1);
+			Flux<Integer> f = first.map(i -> i * 2);
+
+			Assert.assertSame(first, ((FluxMapFuseable<?, ?>) f).source);
+		}
+		finally {
+			Hooks.resetOnOperator();
+		}
+	}
+}
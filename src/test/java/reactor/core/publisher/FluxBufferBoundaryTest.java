@@ -241,4 +241,34 @@ public class FluxBufferBoundaryTest {
 		  .assertNotComplete();
 	}
 
+	@Test
+	public void emptyBufferReusedOnBoundary() {
+		TestSubscriber<List<Integer>> ts = TestSubscriber.create();
+
+		DirectProcessor<Integer> sp1 = DirectProcessor.create();
+		DirectProcessor<Integer> sp2 = DirectProcessor.create();
+
+		int count[] = {0};
+
+		sp1.buffer(sp2, (Supplier<List<Integer>>) () -> {
+			count[0]++;
+			return new ArrayList<>();
+		})
+		   .subscribe(ts);
+
+		sp2.onNext(1);
+		sp2.onNext(2);
+
+		Assert.assertEquals(1, count[0]);
+
+		sp1.onNext(1);
+		sp2.onNext(3);
+
+		Assert.assertEquals(2, count[0]);
+
+		ts.assertValues(Arrays.asList(1))
+		  .assertNoError()
+		  .assertNotComplete();
+	}
+
 }
@@ -16,12 +16,16 @@
 
 package reactor.core.publisher;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import org.junit.Assert;
 import org.junit.Test;
+import reactor.core.scheduler.Schedulers;
 import reactor.test.TestSubscriber;
+import reactor.util.concurrent.RecyclableList;
 
 public class FluxBufferTest {
 
@@ -329,4 +333,127 @@ public class FluxBufferTest {
 		  .assertNotComplete();
 	}
 
+	@Test
+	public void bufferSizeOrTimeoutClosesBySize() {
+		TestSubscriber<List<Integer>> ts = TestSubscriber.create();
+
+		Flux.range(1, 10)
+		    .bufferMillis(3, 10_000, Schedulers.timer())
+		    .subscribe(ts);
+
+		ts.assertValues(Arrays.asList(1, 2, 3),
+				Arrays.asList(4, 5, 6),
+				Arrays.asList(7, 8, 9),
+				Arrays.asList(10))
+		  .assertComplete()
+		  .assertNoError();
+	}
+
+	@Test
+	public void bufferSizeOrTimeoutClosesByTime() {
+		TestSubscriber<List<Integer>> ts = TestSubscriber.create();
+		DirectProcessor<Integer> dp = DirectProcessor.create();
+
+		dp.bufferMillis(10, 50, Schedulers.timer())
+		  .subscribe(ts);
+
+		dp.onNext(1);
+		dp.onNext(2);
+
+		TestSubscriber.await(Duration.ofSeconds(5), "buffer not closed by time", () -> ts.values().size() == 1);
+
+		dp.onNext(3);
+		dp.onComplete();
+
+		ts.assertValues(Arrays.asList(1, 2), Arrays.asList(3))
+		  .assertComplete()
+		  .assertNoError();
+	}
+
+	@Test
+	public void bufferSizeOrTimeoutBackpressured() {
+		TestSubscriber<List<Integer>> ts = TestSubscriber.create(0);
+		DirectProcessor<Integer> dp = DirectProcessor.create();
+
+		dp.bufferMillis(2, 50, Schedulers.timer())
+		  .subscribe(ts);
+
+		ts.request(1);
+
+		dp.onNext(1);
+		dp.onNext(2);
+
+		ts.assertValues(Arrays.asList(1, 2));
+
+		// upstream is only asked for values to fill a buffer the downstream requested
+		dp.onNext(3);
+
+		ts.assertError(IllegalStateException.class);
+	}
+
+	@Test
+	public void bufferSizeOrTimeoutHeldUntilRequested() throws Exception {
+		TestSubscriber<List<Integer>> ts = TestSubscriber.create(0);
+		DirectProcessor<Integer> dp = DirectProcessor.create();
+
+		dp.bufferMillis(10, 50, Schedulers.timer())
+		  .subscribe(ts);
+
+		ts.request(1);
+
+		dp.onNext(1);
+
+		TestSubscriber.await(Duration.ofSeconds(5), "buffer not closed by time", () -> ts.values().size() == 1);
+
+		dp.onNext(2);
+		dp.onNext(3);
+
+		Thread.sleep(200);
+
+		ts.assertValues(Arrays.asList(1));
+
+		ts.request(1);
+
+		ts.assertValues(Arrays.asList(1), Arrays.asList(2, 3))
+		  .assertNoError();
+	}
+
+	@Test
+	public void bufferSizeOrTimeoutSupplierThrows() {
+		TestSubscriber<Object> ts = TestSubscriber.create();
+
+		new FluxBufferTimeOrSize<>(Flux.range(1, 10), 2, 1000, Schedulers.timer(), () -> {
+			throw new RuntimeException("forced failure");
+		}).subscribe(ts);
+
+		ts.assertNoValues()
+		  .assertError(RuntimeException.class)
+		  .assertErrorMessage("forced failure")
+		  .assertNotComplete();
+	}
+
+	@Test
+	public void recycledBuffers() {
+		RecyclableList.Pool<Integer> pool = RecyclableList.pool(3);
+		List<RecyclableList<Integer>> seen = new ArrayList<>();
+		List<List<Integer>> values = new ArrayList<>();
+
+		Flux.range(1, 10)
+		    .buffer(3, pool)
+		    .subscribe(b -> {
+			    if (!seen.contains(b)) {
+				    seen.add(b);
+			    }
+			    values.add(new ArrayList<>(b));
+			    b.release();
+		    });
+
+		Assert.assertEquals(Arrays.asList(Arrays.asList(1, 2, 3),
+				Arrays.asList(4, 5, 6),
+				Arrays.asList(7, 8, 9),
+				Arrays.asList(10)), values);
+		Assert.assertEquals(1, seen.size());
+		Assert.assertEquals(1, pool.idle());
+	}
+
 }
@@ -18,15 +18,17 @@ package reactor.core.publisher;
 
 import java.util.HashSet;
 
+import org.junit.Assert;
 import org.junit.Test;
 import reactor.core.Fuseable;
+import reactor.core.scheduler.Schedulers;
 import reactor.test.TestSubscriber;
 
 public class FluxDistinctTest {
 
 	@Test(expected = NullPointerException.class)
 	public void sourceNull() {
-		new FluxDistinct<>(null, k -> k, HashSet::new);
+		new FluxDistinct<>(null, k -> k, HashSet::new, HashSet::add, HashSet::clear);
 	}
 
 	@Test(expected = NullPointerException.class)
@@ -36,7 +38,8 @@ public class FluxDistinctTest {
 
 	@Test(expected = NullPointerException.class)
 	public void collectionSupplierNull() {
-		new FluxDistinct<>(Flux.never(), k -> k, null);
+		new FluxDistinct<Object, Object, HashSet<Object>>(Flux.never(), k -> k, null,
+				HashSet::add, HashSet::clear);
 	}
 
 	@Test
@@ -240,9 +243,9 @@ public class FluxDistinctTest {
 	public void collectionSupplierThrows() {
 		TestSubscriber<Integer> ts = TestSubscriber.create();
 
-		new FluxDistinct<>(Flux.range(1, 10), k -> k, () -> {
+		new FluxDistinct<Integer, Integer, HashSet<Integer>>(Flux.range(1, 10), k -> k, () -> {
 			throw new RuntimeException("forced failure");
-		}).subscribe(ts);
+		}, HashSet::add, HashSet::clear).subscribe(ts);
 
 		ts.assertNoValues()
 		  .assertNotComplete()
@@ -254,10 +257,191 @@ public class FluxDistinctTest {
 	public void collectionSupplierReturnsNull() {
 		TestSubscriber<Integer> ts = TestSubscriber.create();
 
-		new FluxDistinct<>(Flux.range(1, 10), k -> k, () -> null).subscribe(ts);
+		new FluxDistinct<Integer, Integer, HashSet<Integer>>(Flux.range(1, 10), k -> k, () -> null,
+				HashSet::add, HashSet::clear).subscribe(ts);
 
 		ts.assertNoValues()
 		  .assertNotComplete()
 		  .assertError(NullPointerException.class);
 	}
+
+	@Test
+	public void lruWindowForgetsLeastRecentlySeen() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		Flux.just(1, 2, 1, 3, 1, 2)
+		    .distinct(k -> k, 2)
+		    .subscribe(ts);
+
+		ts.assertValues(1, 2, 3, 2)
+		  .assertComplete()
+		  .assertNoError();
+	}
+
+	@Test
+	public void lruWindowFused() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+		ts.requestedFusionMode(Fuseable.ANY);
+
+		Flux.range(1, 10)
+		    .map(v -> v % 3)
+		    .distinct(k -> k, 2)
+		    .subscribe(ts);
+
+		ts.assertFuseableSource()
+		  .assertFusionMode(Fuseable.SYNC)
+		  .assertValues(1, 2, 0, 1, 2, 0, 1, 2, 0, 1)
+		  .assertComplete()
+		  .assertNoError();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void lruWindowInvalidSize() {
+		Flux.never()
+		    .distinct(k -> k, 0);
+	}
+
+	@Test
+	public void expiringKeysAreForgotten() throws Exception {
+		DirectProcessor<Integer> dp = DirectProcessor.create();
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		dp.distinctMillis(k -> k, 100, Schedulers.timer())
+		  .subscribe(ts);
+
+		dp.onNext(1);
+		dp.onNext(2);
+		dp.onNext(1);
+
+		ts.assertValues(1, 2);
+
+		Thread.sleep(300);
+
+		dp.onNext(1);
+		dp.onComplete();
+
+		ts.assertValues(1, 2, 1)
+		  .assertComplete()
+		  .assertNoError();
+	}
+
+	@Test
+	public void bloomFiltersDuplicates() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		Flux.range(1, 1000)
+		    .concatWith(Flux.range(1, 1000))
+		    .distinct(k -> k, 1000, 0.001)
+		    .subscribe(ts);
+
+		ts.assertComplete()
+		  .assertNoError();
+		Assert.assertTrue("" + ts.values().size(), ts.values().size() > 990);
+		Assert.assertTrue("" + ts.values().size(), ts.values().size() <= 1000);
+	}
+
+	@Test
+	public void bloomForgetsOldGenerations() {
+		FluxDistinct.BloomKeyFilter<Integer> set = new FluxDistinct.BloomKeyFilter<>(10, 0.01);
+
+		Assert.assertTrue(set.add(0));
+		for (int i = 1; i < 30; i++) {
+			set.add(i);
+		}
+
+		Assert.assertFalse(set.contains(0));
+		Assert.assertTrue(set.contains(29));
+		Assert.assertTrue(set.add(0));
+	}
+
+	@Test
+	public void bloomEqualHashCodesAreDuplicates() {
+		TestSubscriber<String> ts = TestSubscriber.create();
+
+		// "Aa" and "BB" have the same hashCode
+		Flux.just("Aa", "BB", "C")
+		    .distinct(k -> k, 100, 0.01)
+		    .subscribe(ts);
+
+		ts.assertValues("Aa", "C")
+		  .assertComplete();
+
+		FluxDistinct.BloomKeyFilter<String> filter = new FluxDistinct.BloomKeyFilter<>(100, 0.01);
+		filter.add("Aa");
+		Assert.assertTrue(filter.toString(), filter.toString().contains("size=1"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void bloomInvalidRate() {
+		Flux.never()
+		    .distinct(k -> k, 10, 1d);
+	}
+
+	@Test
+	public void longKeys() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		Flux.range(1, 10)
+		    .hide()
+		    .distinctLong(v -> v % 3)
+		    .subscribe(ts);
+
+		ts.assertValues(1, 2, 3)
+		  .assertComplete()
+		  .assertNoError();
+	}
+
+	@Test
+	public void longKeysFused() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+		ts.requestedFusionMode(Fuseable.ANY);
+
+		Flux.range(-5, 10)
+		    .distinctLong(v -> v * v)
+		    .subscribe(ts);
+
+		ts.assertFuseableSource()
+		  .assertFusionMode(Fuseable.SYNC)
+		  .assertValues(-5, -4, -3, -2, -1, 0)
+		  .assertComplete()
+		  .assertNoError();
+	}
+
+	@Test
+	public void longKeysBackpressured() {
+		TestSubscriber<Integer> ts = TestSubscriber.create(0);
+
+		Flux.range(1, 10)
+		    .hide()
+		    .distinctLong(v -> v / 2)
+		    .subscribe(ts);
+
+		ts.assertNoValues();
+
+		ts.request(2);
+
+		ts.assertValues(1, 2)
+		  .assertNotComplete();
+
+		ts.request(10);
+
+		ts.assertValues(1, 2, 4, 6, 8, 10)
+		  .assertComplete()
+		  .assertNoError();
+	}
+
+	@Test
+	public void longKeyExtractorThrows() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		Flux.range(1, 10)
+		    .distinctLong(v -> {
+			    throw new RuntimeException("forced failure");
+		    })
+		    .subscribe(ts);
+
+		ts.assertNoValues()
+		  .assertError(RuntimeException.class)
+		  .assertErrorMessage("forced failure");
+	}
 }
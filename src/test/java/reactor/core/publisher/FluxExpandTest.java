@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2011-2016 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.util.function.Function;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.reactivestreams.Publisher;
+import reactor.test.TestSubscriber;
+
+public class FluxExpandTest {
+
+	// a binary tree of depth 3 whose node n has children 2n and 2n + 1
+	final Function<Integer, Publisher<Integer>> tree =
+			n -> n < 4 ? Flux.just(2 * n, 2 * n + 1) : Flux.empty();
+
+	@Test(expected = NullPointerException.class)
+	public void expanderNull() {
+		Flux.just(1).expand(null);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void capacityHintZero() {
+		Flux.just(1).expand(tree, 0);
+	}
+
+	@Test
+	public void breadthFirst() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		Flux.just(1)
+		    .expand(tree)
+		    .subscribe(ts);
+
+		ts.assertValues(1, 2, 3, 4, 5, 6, 7)
+		  .assertComplete()
+		  .assertNoError();
+	}
+
+	@Test
+	public void breadthFirstBackpressured() {
+		TestSubscriber<Integer> ts = TestSubscriber.create(0);
+
+		Flux.just(1)
+		    .expand(tree)
+		    .subscribe(ts);
+
+		ts.assertNoValues();
+
+		ts.request(2);
+
+		ts.assertValues(1, 2)
+		  .assertNotComplete();
+
+		ts.request(5);
+
+		ts.assertValues(1, 2, 3, 4, 5, 6, 7)
+		  .assertComplete()
+		  .assertNoError();
+	}
+
+	@Test
+	public void depthFirst() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		Flux.just(1)
+		    .expandDeep(tree)
+		    .subscribe(ts);
+
+		ts.assertValues(1, 2, 4, 5, 3, 6, 7)
+		  .assertComplete()
+		  .assertNoError();
+	}
+
+	@Test
+	public void depthFirstBackpressured() {
+		TestSubscriber<Integer> ts = TestSubscriber.create(0);
+
+		Flux.just(1)
+		    .expandDeep(tree)
+		    .subscribe(ts);
+
+		ts.assertNoValues();
+
+		ts.request(3);
+
+		ts.assertValues(1, 2, 4)
+		  .assertNotComplete();
+
+		ts.request(4);
+
+		ts.assertValues(1, 2, 4, 5, 3, 6, 7)
+		  .assertComplete()
+		  .assertNoError();
+	}
+
+	@Test
+	public void breadthFirstDeepRecursion() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		Flux.just(0)
+		    .expand(n -> n < 100_000 ? Flux.just(n + 1) : Flux.empty())
+		    .subscribe(ts);
+
+		ts.assertValueCount(100_001)
+		  .assertComplete()
+		  .assertNoError();
+	}
+
+	@Test
+	public void depthFirstDeepRecursion() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		Flux.just(0)
+		    .expandDeep(n -> n < 100_000 ? Flux.just(n + 1) : Flux.empty())
+		    .subscribe(ts);
+
+		ts.assertValueCount(100_001)
+		  .assertComplete()
+		  .assertNoError();
+	}
+
+	@Test
+	public void infiniteExpansionTake() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		Flux.just(1)
+		    .expand(n -> Flux.just(n + 1))
+		    .take(5)
+		    .subscribe(ts);
+
+		ts.assertValues(1, 2, 3, 4, 5)
+		  .assertComplete()
+		  .assertNoError();
+	}
+
+	@Test
+	public void depthFirstInfiniteExpansionTake() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		Flux.just(1)
+		    .expandDeep(n -> Flux.range(n + 1, 2))
+		    .take(5)
+		    .subscribe(ts);
+
+		ts.assertValues(1, 2, 3, 4, 5)
+		  .assertComplete()
+		  .assertNoError();
+	}
+
+	@Test
+	public void breadthFirstExpanderThrows() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		Flux.just(1)
+		    .expand(n -> {
+			    if (n == 2) {
+				    throw new RuntimeException("forced failure");
+			    }
+			    return tree.apply(n);
+		    })
+		    .subscribe(ts);
+
+		ts.assertValues(1, 2)
+		  .assertError(RuntimeException.class)
+		  .assertErrorMessage("forced failure")
+		  .assertNotComplete();
+	}
+
+	@Test
+	public void depthFirstExpanderThrows() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		Flux.just(1)
+		    .expandDeep(n -> {
+			    if (n == 2) {
+				    throw new RuntimeException("forced failure");
+			    }
+			    return tree.apply(n);
+		    })
+		    .subscribe(ts);
+
+		ts.assertValues(1, 2)
+		  .assertError(RuntimeException.class)
+		  .assertErrorMessage("forced failure")
+		  .assertNotComplete();
+	}
+
+	@Test
+	public void depthFirstInnerError() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		Flux.just(1)
+		    .expandDeep(n -> n == 2 ? Flux.error(new RuntimeException("forced failure")) : tree.apply(n))
+		    .subscribe(ts);
+
+		ts.assertValues(1, 2)
+		  .assertError(RuntimeException.class)
+		  .assertErrorMessage("forced failure")
+		  .assertNotComplete();
+	}
+
+	@Test
+	public void depthFirstCancel() {
+		TestSubscriber<Integer> ts = TestSubscriber.create(0);
+		DirectProcessor<Integer> dp = DirectProcessor.create();
+
+		Flux.just(1)
+		    .expandDeep(n -> n == 1 ? dp : Flux.empty())
+		    .subscribe(ts);
+
+		ts.request(1);
+
+		ts.assertValues(1);
+		Assert.assertTrue(dp.hasDownstreams());
+
+		ts.cancel();
+
+		Assert.assertFalse(dp.hasDownstreams());
+	}
+}
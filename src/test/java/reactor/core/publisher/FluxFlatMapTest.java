@@ -15,6 +15,7 @@
  */
 package reactor.core.publisher;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -420,5 +421,106 @@ public class FluxFlatMapTest {
 		.assertComplete();
 	}
 
+	@Test
+	public void concurrencyLimitBoundsInFlight() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+		ConcurrencyLimit limit = ConcurrencyLimit.aimd(2, 1, 8, Duration.ofHours(1));
+		List<DirectProcessor<Integer>> inners = new ArrayList<>();
+
+		Flux.range(1, 10)
+		    .flatMap(v -> {
+			    DirectProcessor<Integer> p = DirectProcessor.create();
+			    inners.add(p);
+			    return p;
+		    }, limit)
+		    .subscribe(ts);
+
+		Assert.assertEquals(2, inners.size());
+
+		inners.get(0).onNext(1);
+		inners.get(0).onComplete();
+
+		// 2 + 1/2 is still 2
+		Assert.assertEquals(2, limit.limit());
+		Assert.assertEquals(3, inners.size());
+
+		inners.get(1).onComplete();
+		inners.get(2).onComplete();
+
+		// 2.5 + 1/2.5 + 1/2.9 is above 3
+		Assert.assertEquals(3, limit.limit());
+		Assert.assertEquals(6, inners.size());
+
+		ts.assertValues(1)
+		  .assertNotComplete();
+	}
+
+	@Test
+	public void concurrencyLimitGrowsWithFastInners() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+		ConcurrencyLimit limit = ConcurrencyLimit.aimd(1, 1, 8, Duration.ofHours(1));
+
+		Flux.range(1, 100)
+		    .flatMap(v -> Flux.just(v).hide(), limit)
+		    .subscribe(ts);
+
+		ts.assertValueCount(100)
+		  .assertNoError()
+		  .assertComplete();
+
+		Assert.assertEquals(8, limit.limit());
+	}
+
+	@Test
+	public void concurrencyLimitBackpressured() {
+		TestSubscriber<Integer> ts = TestSubscriber.create(0);
+		ConcurrencyLimit limit = ConcurrencyLimit.gradient(4, 1, 16);
+
+		Flux.range(1, 1000)
+		    .flatMap(v -> Flux.range(v, 2).hide(), limit)
+		    .subscribe(ts);
+
+		ts.assertNoValues();
 
+		ts.request(500);
+
+		ts.assertValueCount(500)
+		  .assertNotComplete();
+
+		ts.request(1500);
+
+		ts.assertValueCount(2000)
+		  .assertNoError()
+		  .assertComplete();
+	}
+
+	@Test
+	public void concurrencyLimitScalarInners() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+		ConcurrencyLimit limit = ConcurrencyLimit.aimd(2, 1, 4, Duration.ofHours(1));
+
+		Flux.range(1, 100)
+		    .flatMap(v -> v % 2 == 0 ? Flux.just(v) : Flux.empty(), limit)
+		    .subscribe(ts);
+
+		ts.assertValueCount(50)
+		  .assertNoError()
+		  .assertComplete();
+	}
+
+	@Test
+	public void concurrencyLimitInnerError() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+		ConcurrencyLimit limit = ConcurrencyLimit.aimd(4, 1, 4, Duration.ofHours(1));
+
+		Flux.range(1, 10)
+		    .flatMap(v -> Flux.<Integer>error(new RuntimeException("forced failure")).hide(), limit)
+		    .subscribe(ts);
+
+		ts.assertNoValues()
+		  .assertError(RuntimeException.class)
+		  .assertErrorMessage("forced failure");
+
+		Assert.assertEquals(3, limit.limit());
+	}
 }
@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2011-2016 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reactor.core.publisher;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+import reactor.core.Fuseable;
+import reactor.test.TestSubscriber;
+
+public class FluxGenerateBatchTest {
+
+	/**
+	 * Emit batches of {@code size} consecutive integers, completing after {@code
+	 * batches} rounds.
+	 */
+	static Flux<Integer> batches(int batches, int size, AtomicInteger rounds) {
+		return Flux.generateBatch(() -> 0, (i, sink) -> {
+			rounds.incrementAndGet();
+			for (int j = 0; j < size; j++) {
+				sink.next(i * size + j);
+			}
+			if (i + 1 == batches) {
+				sink.complete();
+			}
+			return i + 1;
+		});
+	}
+
+	@Test
+	public void unbounded() {
+		AtomicInteger rounds = new AtomicInteger();
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		batches(3, 4, rounds).subscribe(ts);
+
+		ts.assertValues(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11)
+		  .assertComplete();
+		Assert.assertEquals(3, rounds.get());
+	}
+
+	@Test
+	public void backpressuredOverflowCarried() {
+		AtomicInteger rounds = new AtomicInteger();
+		TestSubscriber<Integer> ts = TestSubscriber.create(3);
+
+		batches(2, 5, rounds).subscribe(ts);
+
+		ts.assertValues(0, 1, 2)
+		  .assertNotComplete();
+		Assert.assertEquals(1, rounds.get());
+
+		ts.request(2);
+
+		ts.assertValues(0, 1, 2, 3, 4)
+		  .assertNotComplete();
+		Assert.assertEquals(1, rounds.get());
+
+		ts.request(4);
+
+		ts.assertValues(0, 1, 2, 3, 4, 5, 6, 7, 8)
+		  .assertNotComplete();
+		Assert.assertEquals(2, rounds.get());
+
+		ts.request(1);
+
+		ts.assertValues(0, 1, 2, 3, 4, 5, 6, 7, 8, 9)
+		  .assertComplete();
+	}
+
+	@Test
+	public void completeWithoutDemandLeft() {
+		TestSubscriber<Integer> ts = TestSubscriber.create(2);
+
+		Flux.<Integer, Integer>generateBatch(() -> 0, (i, sink) -> {
+			sink.next(1);
+			sink.next(2);
+			sink.complete();
+			return i;
+		}).subscribe(ts);
+
+		ts.assertValues(1, 2)
+		  .assertComplete();
+	}
+
+	@Test
+	public void errorAfterBufferedValues() {
+		TestSubscriber<Integer> ts = TestSubscriber.create(1);
+
+		Flux.<Integer, Integer>generateBatch(() -> 0, (i, sink) -> {
+			sink.next(1);
+			sink.next(2);
+			sink.error(new IllegalStateException("boom"));
+			return i;
+		}).subscribe(ts);
+
+		ts.assertValues(1)
+		  .assertNoError();
+
+		ts.request(1);
+
+		ts.assertValues(1, 2)
+		  .assertErrorMessage("boom");
+	}
+
+	@Test
+	public void generatorThrows() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		Flux.<Integer, Integer>generateBatch(() -> 0, (i, sink) -> {
+			throw new IllegalStateException("boom");
+		}).subscribe(ts);
+
+		ts.assertNoValues()
+		  .assertErrorMessage("boom");
+	}
+
+	@Test
+	public void emptyRoundFails() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		Flux.<Integer, Integer>generateBatch(() -> 0, (i, sink) -> i)
+		    .subscribe(ts);
+
+		ts.assertNoValues()
+		  .assertError(IllegalStateException.class);
+	}
+
+	@Test
+	public void nullValue() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		Flux.<Integer, Integer>generateBatch(() -> 0, (i, sink) -> {
+			sink.next(1);
+			sink.next(null);
+			return i;
+		}).subscribe(ts);
+
+		ts.assertValues(1)
+		  .assertError(NullPointerException.class);
+	}
+
+	@Test
+	public void stateConsumedOnCancel() {
+		AtomicInteger cleanup = new AtomicInteger(-1);
+		TestSubscriber<Integer> ts = TestSubscriber.create(5);
+
+		Flux.<Integer, Integer>generateBatch(() -> 0, (i, sink) -> {
+			for (int j = 0; j < 3; j++) {
+				sink.next(i + j);
+			}
+			return i + 3;
+		}, cleanup::set)
+		    .subscribe(ts);
+
+		ts.assertValues(0, 1, 2, 3, 4);
+
+		ts.cancel();
+
+		Assert.assertEquals(6, cleanup.get());
+	}
+
+	@Test
+	public void take() {
+		AtomicInteger rounds = new AtomicInteger();
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		batches(100, 10, rounds).take(15)
+		                        .subscribe(ts);
+
+		ts.assertValueCount(15)
+		  .assertComplete();
+		Assert.assertEquals(2, rounds.get());
+	}
+
+	@Test
+	public void syncFused() {
+		AtomicInteger rounds = new AtomicInteger();
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+		ts.requestedFusionMode(Fuseable.ANY);
+
+		batches(3, 3, rounds).subscribe(ts);
+
+		ts.assertFusionMode(Fuseable.SYNC)
+		  .assertValues(0, 1, 2, 3, 4, 5, 6, 7, 8)
+		  .assertComplete();
+		Assert.assertEquals(3, rounds.get());
+	}
+
+	@Test
+	public void syncFusedError() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		Flux.<Integer, Integer>generateBatch(() -> 0, (i, sink) -> {
+			sink.next(1);
+			sink.error(new IllegalStateException("boom"));
+			return i;
+		})
+		    .concatMap(Flux::just)
+		    .subscribe(ts);
+
+		ts.assertValues(1)
+		  .assertErrorMessage("boom");
+	}
+
+	@Test
+	public void fusedThroughMap() {
+		AtomicInteger rounds = new AtomicInteger();
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		ts.requestedFusionMode(Fuseable.ANY);
+
+		batches(2, 50, rounds).map(i -> i * 2)
+		                      .subscribe(ts);
+
+		ts.assertFusionMode(Fuseable.SYNC)
+		  .assertValueCount(100)
+		  .assertComplete();
+		Assert.assertEquals(2, rounds.get());
+	}
+}
@@ -17,6 +17,10 @@
 package reactor.core.publisher;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
 
@@ -768,4 +772,122 @@ public class FluxGroupByTest {
 		  .assertNoError();
 	}
 
+	@Test
+	public void maxGroupsEvictsLeastRecentlyUsed() {
+		TestSubscriber<String> ts = TestSubscriber.create();
+		List<Integer> evicted = new ArrayList<>();
+
+		Flux.just(1, 2, 1, 3, 4)
+		    .groupBy(k -> k, v -> v, 2, evicted::add)
+		    .flatMap(g -> g.count()
+		                   .map(c -> g.key() + ":" + c))
+		    .subscribe(ts);
+
+		Assert.assertEquals(Arrays.asList(2, 1), evicted);
+		ts.assertValueCount(4)
+		  .assertComplete()
+		  .assertNoError();
+		Assert.assertEquals(Arrays.asList("2:1", "1:2"), ts.values().subList(0, 2));
+	}
+
+	@Test
+	public void maxGroupsReopensEvictedKey() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		Flux.just(1, 2, 3, 1, 2, 3)
+		    .groupBy(k -> k, v -> v, 1, null)
+		    .flatMap(Flux::count)
+		    .map(Long::intValue)
+		    .subscribe(ts);
+
+		ts.assertValues(1, 1, 1, 1, 1, 1)
+		  .assertComplete()
+		  .assertNoError();
+	}
+
+	@Test
+	public void maxGroupsEvictionCallbackFails() {
+		TestSubscriber<GroupedFlux<Integer, Integer>> ts = TestSubscriber.create();
+
+		Flux.range(1, 10)
+		    .groupBy(k -> k, v -> v, 1, k -> {
+			    throw new IllegalStateException("forced failure");
+		    })
+		    .subscribe(ts);
+
+		ts.assertValueCount(1)
+		  .assertError(IllegalStateException.class)
+		  .assertErrorMessage("forced failure");
+	}
+
+	@Test
+	public void idleGroupsAreEvicted() {
+		DirectProcessor<Integer> dp = DirectProcessor.create();
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+		List<Integer> evicted = new CopyOnWriteArrayList<>();
+
+		dp.groupByMillis(k -> k % 2, v -> v, Integer.MAX_VALUE, 50, evicted::add, Schedulers.timer())
+		  .flatMap(Flux::count)
+		  .map(Long::intValue)
+		  .subscribe(ts);
+
+		dp.onNext(1);
+		dp.onNext(3);
+
+		TestSubscriber.await(Duration.ofSeconds(5), "idle group not evicted", () -> evicted.size() == 1);
+		ts.assertValues(2)
+		  .assertNotComplete();
+
+		dp.onNext(5);
+		dp.onNext(2);
+		dp.onComplete();
+
+		ts.assertValues(2, 1, 1)
+		  .assertComplete()
+		  .assertNoError();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void maxGroupsNegative() {
+		Flux.never()
+		    .groupBy(k -> k, v -> v, -1, null);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void maxIdleNegative() {
+		Flux.never()
+		    .groupByMillis(k -> k, v -> v, 1, -1L, null, Schedulers.timer());
+	}
+
+	@Test
+	public void longKeys() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		Flux.range(0, 20)
+		    .groupByLong(i -> i % 5)
+		    .concatMap(g -> g.map(v -> g.key().intValue() * 100 + v), 2)
+		    .subscribe(ts);
+
+		ts.assertValues(0, 5, 10, 15,
+				101, 106, 111, 116,
+				202, 207, 212, 217,
+				303, 308, 313, 318,
+				404, 409, 414, 419)
+		  .assertComplete()
+		  .assertNoError();
+	}
+
+	@Test
+	public void longKeysCancelledGroupReopens() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		Flux.range(1, 10)
+		    .groupByLong(i -> i % 2, i -> -i)
+		    .flatMap(g -> g.take(2))
+		    .subscribe(ts);
+
+		ts.assertValues(-1, -2, -3, -4, -5, -6, -7, -8, -9, -10)
+		  .assertComplete()
+		  .assertNoError();
+	}
 }
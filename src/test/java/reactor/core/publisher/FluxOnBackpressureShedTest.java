@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2011-2016 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reactor.core.publisher;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.Assert;
+import org.junit.Test;
+import reactor.test.TestSubscriber;
+
+public class FluxOnBackpressureShedTest {
+
+	static void sleep(long millis) {
+		LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(millis));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void intervalBelowTarget() {
+		Flux.never()
+		    .onBackpressureShed(Duration.ofMillis(100), Duration.ofMillis(10));
+	}
+
+	@Test
+	public void normal() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		Flux.range(1, 100)
+		    .onBackpressureShed(Duration.ofMillis(10), Duration.ofMillis(100))
+		    .subscribe(ts);
+
+		ts.assertValueCount(100)
+		  .assertNoError()
+		  .assertComplete();
+	}
+
+	@Test
+	public void backlogKeptWithinInterval() {
+		TestSubscriber<Integer> ts = TestSubscriber.create(0);
+		List<Integer> dropped = new ArrayList<>();
+		DirectProcessor<Integer> source = DirectProcessor.create();
+
+		source.onBackpressureShed(Duration.ofMillis(10), Duration.ofSeconds(10), dropped::add)
+		      .subscribe(ts);
+
+		source.onNext(1);
+		source.onNext(2);
+		sleep(50);
+		source.onNext(3);
+		source.onComplete();
+
+		ts.assertNoValues();
+
+		ts.request(3);
+
+		ts.assertValues(1, 2, 3)
+		  .assertComplete();
+		Assert.assertTrue(dropped.isEmpty());
+	}
+
+	@Test
+	public void sustainedBacklogShedsToTarget() {
+		TestSubscriber<Integer> ts = TestSubscriber.create(0);
+		List<Integer> dropped = new ArrayList<>();
+		DirectProcessor<Integer> source = DirectProcessor.create();
+
+		source.onBackpressureShed(Duration.ofMillis(20), Duration.ofMillis(100), dropped::add)
+		      .subscribe(ts);
+
+		source.onNext(1);
+		source.onNext(2);
+		source.onNext(3);
+		sleep(200);
+
+		// the arrival of 4 sheds the stale backlog, without any request
+		source.onNext(4);
+
+		Assert.assertEquals(Arrays.asList(1, 2, 3), dropped);
+
+		ts.request(10);
+
+		ts.assertValues(4)
+		  .assertNotComplete();
+
+		// the backlog drained: a value may wait up to the interval again
+		source.onNext(5);
+		sleep(50);
+		ts.request(1);
+		source.onNext(6);
+
+		ts.assertValues(4, 5, 6);
+		Assert.assertEquals(3, dropped.size());
+	}
+
+	@Test
+	public void staleBacklogShedAfterInterval() {
+		TestSubscriber<Integer> ts = TestSubscriber.create(0);
+		List<Integer> dropped = new ArrayList<>();
+		DirectProcessor<Integer> source = DirectProcessor.create();
+
+		source.onBackpressureShed(Duration.ofMillis(20), Duration.ofMillis(100), dropped::add)
+		      .subscribe(ts);
+
+		source.onNext(1);
+		source.onComplete();
+		sleep(150);
+
+		ts.request(1);
+
+		ts.assertNoValues()
+		  .assertNoError()
+		  .assertComplete();
+		Assert.assertEquals(Arrays.asList(1), dropped);
+	}
+
+	@Test
+	public void droppedToHook() {
+		List<Object> dropped = new ArrayList<>();
+		Hooks.onNextDropped(dropped::add);
+		try {
+			TestSubscriber<Integer> ts = TestSubscriber.create(0);
+			DirectProcessor<Integer> source = DirectProcessor.create();
+
+			source.onBackpressureShed(Duration.ofMillis(10), Duration.ofMillis(50))
+			      .subscribe(ts);
+
+			source.onNext(1);
+			sleep(100);
+			source.onNext(2);
+
+			Assert.assertEquals(Arrays.<Object>asList(1), dropped);
+
+			ts.request(1);
+			ts.assertValues(2);
+		}
+		finally {
+			Hooks.resetOnNextDropped();
+		}
+	}
+
+	@Test
+	public void errorDelayedUntilBacklogConsumed() {
+		TestSubscriber<Integer> ts = TestSubscriber.create(0);
+		DirectProcessor<Integer> source = DirectProcessor.create();
+
+		source.onBackpressureShed(Duration.ofMillis(100), Duration.ofSeconds(10))
+		      .subscribe(ts);
+
+		source.onNext(1);
+		source.onError(new RuntimeException("forced failure"));
+
+		ts.assertNoValues()
+		  .assertNoError();
+
+		ts.request(1);
+
+		ts.assertValues(1)
+		  .assertError(RuntimeException.class)
+		  .assertErrorMessage("forced failure");
+	}
+
+	@Test
+	public void droppedCallbackFails() {
+		TestSubscriber<Integer> ts = TestSubscriber.create(0);
+		DirectProcessor<Integer> source = DirectProcessor.create();
+
+		source.onBackpressureShed(Duration.ofMillis(10), Duration.ofMillis(20), v -> {
+			throw new IllegalStateException("boom");
+		})
+		      .subscribe(ts);
+
+		source.onNext(1);
+		sleep(50);
+		source.onNext(2);
+
+		ts.assertNoValues()
+		  .assertError(IllegalStateException.class)
+		  .assertErrorMessage("boom");
+		Assert.assertFalse("source still subscribed", source.hasDownstreams());
+	}
+}
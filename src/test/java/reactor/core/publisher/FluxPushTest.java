@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2011-2016 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reactor.core.publisher;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Test;
+import reactor.core.publisher.FluxSink.OverflowStrategy;
+import reactor.test.TestSubscriber;
+
+public class FluxPushTest {
+
+	@Test
+	public void bufferDirectThenBuffered() {
+		AtomicReference<FluxSink<Integer>> sink = new AtomicReference<>();
+		TestSubscriber<Integer> ts = TestSubscriber.create(2);
+
+		Flux.<Integer>push(sink::set)
+		    .subscribe(ts);
+
+		FluxSink<Integer> s = sink.get();
+		for (int i = 1; i <= 5; i++) {
+			s.next(i);
+		}
+
+		ts.assertValues(1, 2)
+		  .assertNotComplete();
+
+		s.complete();
+
+		ts.assertValues(1, 2)
+		  .assertNotComplete();
+
+		ts.request(1);
+
+		ts.assertValues(1, 2, 3)
+		  .assertNotComplete();
+
+		ts.request(10);
+
+		ts.assertValues(1, 2, 3, 4, 5)
+		  .assertComplete();
+	}
+
+	@Test
+	public void bufferErrorAfterValues() {
+		TestSubscriber<Integer> ts = TestSubscriber.create(0);
+
+		Flux.<Integer>push(s -> {
+			s.next(1);
+			s.next(2);
+			s.error(new IllegalStateException("boom"));
+		})
+		    .subscribe(ts);
+
+		ts.assertNoValues()
+		  .assertNoError();
+
+		ts.request(2);
+
+		ts.assertValues(1, 2)
+		  .assertErrorMessage("boom");
+	}
+
+	@Test
+	public void drop() {
+		AtomicReference<FluxSink<Integer>> sink = new AtomicReference<>();
+		TestSubscriber<Integer> ts = TestSubscriber.create(1);
+
+		Flux.<Integer>push(sink::set, OverflowStrategy.DROP)
+		    .subscribe(ts);
+
+		sink.get().next(1);
+		sink.get().next(2);
+		ts.request(1);
+		sink.get().next(3);
+		sink.get().complete();
+
+		ts.assertValues(1, 3)
+		  .assertComplete();
+	}
+
+	@Test
+	public void latest() {
+		AtomicReference<FluxSink<Integer>> sink = new AtomicReference<>();
+		TestSubscriber<Integer> ts = TestSubscriber.create(1);
+
+		Flux.<Integer>push(sink::set, OverflowStrategy.LATEST)
+		    .subscribe(ts);
+
+		sink.get().next(1);
+		sink.get().next(2);
+		sink.get().next(3);
+
+		ts.assertValues(1);
+
+		ts.request(1);
+
+		ts.assertValues(1, 3);
+
+		sink.get().next(4);
+		sink.get().next(5);
+		sink.get().complete();
+
+		ts.assertValues(1, 3)
+		  .assertNotComplete();
+
+		ts.request(1);
+
+		ts.assertValues(1, 3, 5)
+		  .assertComplete();
+	}
+
+	@Test
+	public void error() {
+		TestSubscriber<Integer> ts = TestSubscriber.create(1);
+
+		Flux.<Integer>push(s -> {
+			s.next(1);
+			s.next(2);
+		}, OverflowStrategy.ERROR)
+		    .subscribe(ts);
+
+		ts.assertValues(1)
+		  .assertError(IllegalStateException.class);
+	}
+
+	@Test
+	public void cancelStopsDelivery() {
+		AtomicReference<FluxSink<Integer>> sink = new AtomicReference<>();
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		Flux.<Integer>push(sink::set)
+		    .subscribe(ts);
+
+		sink.get().next(1);
+		ts.cancel();
+		sink.get().next(2);
+
+		ts.assertValues(1);
+		Assert.assertTrue(sink.get().isCancelled());
+	}
+
+	@Test
+	public void concurrentRequests() throws Exception {
+		int n = 20_000;
+		TestSubscriber<Integer> ts = TestSubscriber.create(0);
+
+		Flux.<Integer>push(s -> {
+			Thread t = new Thread(() -> {
+				for (int i = 0; i < n; i++) {
+					s.next(i);
+				}
+				s.complete();
+			});
+			t.start();
+		})
+		    .subscribe(ts);
+
+		Thread requester = new Thread(() -> {
+			for (int i = 0; i < n / 16 + 1; i++) {
+				ts.request(16);
+				Thread.yield();
+			}
+		});
+		requester.start();
+		requester.join();
+
+		ts.await(Duration.ofSeconds(10))
+		  .assertValueCount(n)
+		  .assertComplete();
+
+		for (int i = 0; i < n; i++) {
+			Assert.assertEquals(i, (int) ts.values()
+			                               .get(i));
+		}
+	}
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2011-2016 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.TestSubscriber;
+
+public class FluxRateLimitTest {
+
+	@Test(expected = IllegalArgumentException.class)
+	public void permitsZero() {
+		Flux.never().rateLimit(0, Duration.ofSeconds(1));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void burstZero() {
+		Flux.never().rateLimit(1, Duration.ofSeconds(1), 0);
+	}
+
+	@Test
+	public void burstThenPaced() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		Flux.range(1, 10)
+		    .rateLimitMillis(2, 10_000, 3, Schedulers.timer())
+		    .subscribe(ts);
+
+		ts.assertValues(1, 2, 3)
+		  .assertNotComplete();
+	}
+
+	@Test
+	public void refilledEveryPeriod() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		Flux.range(1, 10)
+		    .rateLimitMillis(3, 50, 3, Schedulers.timer())
+		    .subscribe(ts);
+
+		ts.await(Duration.ofSeconds(5))
+		  .assertValueCount(10)
+		  .assertComplete()
+		  .assertNoError();
+	}
+
+	@Test
+	public void upstreamRequestsBoundedByTokens() {
+		List<Long> requests = new ArrayList<>();
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		Flux.range(1, 7)
+		    .doOnRequest(requests::add)
+		    .rateLimitMillis(2, 50, 4, Schedulers.timer())
+		    .subscribe(ts);
+
+		ts.await(Duration.ofSeconds(5))
+		  .assertValueCount(7)
+		  .assertComplete();
+
+		Assert.assertEquals(4L, (long) requests.get(0));
+		for (long r : requests) {
+			Assert.assertTrue("request " + r + " above burst", r <= 4L);
+		}
+	}
+
+	@Test
+	public void downstreamBackpressure() {
+		TestSubscriber<Integer> ts = TestSubscriber.create(1);
+
+		Flux.range(1, 10)
+		    .rateLimitMillis(2, 10_000, 5, Schedulers.timer())
+		    .subscribe(ts);
+
+		ts.assertValues(1);
+
+		ts.request(2);
+
+		ts.assertValues(1, 2, 3);
+
+		ts.request(10);
+
+		ts.assertValues(1, 2, 3, 4, 5)
+		  .assertNotComplete();
+	}
+
+	@Test
+	public void error() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		Flux.<Integer>error(new RuntimeException("forced failure"))
+		    .rateLimit(1, Duration.ofSeconds(1))
+		    .subscribe(ts);
+
+		ts.assertErrorMessage("forced failure");
+	}
+}
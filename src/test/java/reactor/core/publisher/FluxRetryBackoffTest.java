@@ -0,0 +1,254 @@
+/*
+ * Copyright (c) 2011-2016 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reactor.core.publisher;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.Assert;
+import org.junit.Test;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.TestSubscriber;
+
+public class FluxRetryBackoffTest {
+
+	final Flux<Integer> source = Flux.concat(Flux.range(1, 3),
+			Flux.error(new RuntimeException("forced failure")));
+
+	@Test(expected = IllegalArgumentException.class)
+	public void retriesInvalid() {
+		Flux.never()
+		    .retryBackoff(-1, Duration.ofMillis(1));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void maxBackoffInvalid() {
+		Flux.never()
+		    .retryBackoff(1, Duration.ofMillis(10), Duration.ofMillis(1), 0d);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void jitterInvalid() {
+		Flux.never()
+		    .retryBackoff(1, Duration.ofMillis(1), Duration.ofMillis(10), 1.5d);
+	}
+
+	@Test
+	public void zeroRetry() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		source.retryBackoff(0, Duration.ofMillis(1))
+		      .subscribe(ts);
+
+		ts.assertValues(1, 2, 3)
+		  .assertNotComplete()
+		  .assertError(RuntimeException.class)
+		  .assertErrorMessage("forced failure");
+	}
+
+	@Test
+	public void retriesThenError() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		source.retryBackoff(2, Duration.ofMillis(10))
+		      .subscribe(ts);
+
+		ts.await(Duration.ofSeconds(5))
+		  .assertValues(1, 2, 3, 1, 2, 3, 1, 2, 3)
+		  .assertNotComplete()
+		  .assertError(RuntimeException.class)
+		  .assertErrorMessage("forced failure");
+	}
+
+	@Test
+	public void retriesThenSuccess() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+		AtomicInteger subscriptions = new AtomicInteger();
+
+		Flux.defer(() -> subscriptions.incrementAndGet() < 3 ? source : Flux.range(4, 2))
+		    .retryBackoff(5, Duration.ofMillis(10))
+		    .subscribe(ts);
+
+		ts.await(Duration.ofSeconds(5))
+		  .assertValues(1, 2, 3, 1, 2, 3, 4, 5)
+		  .assertComplete()
+		  .assertNoError();
+		Assert.assertEquals(3, subscriptions.get());
+	}
+
+	@Test
+	public void retryBackpressured() {
+		TestSubscriber<Integer> ts = TestSubscriber.create(0);
+		AtomicInteger received = new AtomicInteger();
+
+		source.retryBackoff(1, Duration.ofMillis(10))
+		      .doOnNext(v -> received.incrementAndGet())
+		      .subscribe(ts);
+
+		ts.request(4);
+
+		TestSubscriber.await(Duration.ofSeconds(5), "retry", () -> received.get() == 4);
+
+		ts.assertValues(1, 2, 3, 1)
+		  .assertNoError()
+		  .assertNotComplete();
+
+		ts.request(3);
+
+		ts.assertValues(1, 2, 3, 1, 2, 3)
+		  .assertError(RuntimeException.class);
+	}
+
+	@Test
+	public void backoffGrows() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+		List<Long> times = new ArrayList<>();
+
+		Flux.<Integer>defer(() -> {
+			times.add(System.nanoTime());
+			return Flux.error(new RuntimeException("forced failure"));
+		})
+		    .retryBackoff(3, Duration.ofMillis(50), Duration.ofMillis(150), 0d)
+		    .subscribe(ts);
+
+		ts.await(Duration.ofSeconds(5))
+		  .assertError(RuntimeException.class);
+
+		Assert.assertEquals(4, times.size());
+		long[] expected = {50, 100, 150};
+		for (int i = 0; i < 3; i++) {
+			long gap = TimeUnit.NANOSECONDS.toMillis(times.get(i + 1) - times.get(i));
+			// leave room for the timer resolution
+			Assert.assertTrue("retry " + i + " after " + gap + "ms", gap >= expected[i] - 10);
+		}
+	}
+
+	@Test
+	public void backoffJitterWithinBounds() {
+		FluxRetryBackoff.RetryBackoffSubscriber<Integer> s =
+				new FluxRetryBackoff.RetryBackoffSubscriber<>(Flux.never(),
+						TestSubscriber.create(),
+						Long.MAX_VALUE,
+						100,
+						1000,
+						0.5d,
+						Long.MAX_VALUE,
+						Schedulers.timer());
+
+		for (int i = 0; i < 100; i++) {
+			long b0 = s.backoff(0);
+			Assert.assertTrue("" + b0, b0 >= 100 && b0 <= 150);
+			long b2 = s.backoff(2);
+			Assert.assertTrue("" + b2, b2 >= 200 && b2 <= 600);
+			Assert.assertEquals(1000, s.backoff(40), 500);
+			Assert.assertTrue(s.backoff(Long.MAX_VALUE) <= 1000);
+		}
+	}
+
+	@Test
+	public void timeoutBoundsRetries() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+		AtomicInteger subscriptions = new AtomicInteger();
+
+		Flux.<Integer>defer(() -> {
+			subscriptions.incrementAndGet();
+			return Flux.error(new RuntimeException("forced failure"));
+		})
+		    .retryBackoff(100, Duration.ofMillis(50), Duration.ofMillis(50), 0d, Duration.ofMillis(120))
+		    .subscribe(ts);
+
+		ts.await(Duration.ofSeconds(5))
+		  .assertError(RuntimeException.class)
+		  .assertErrorMessage("forced failure");
+		Assert.assertEquals(3, subscriptions.get());
+	}
+
+	@Test
+	public void synchronousFailuresDontRecurse() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+		AtomicInteger subscriptions = new AtomicInteger();
+
+		Flux.<Integer>defer(() -> {
+			subscriptions.incrementAndGet();
+			return Flux.error(new RuntimeException("forced failure"));
+		})
+		    .retryBackoff(10_000, Duration.ZERO)
+		    .subscribe(ts);
+
+		ts.await(Duration.ofSeconds(30))
+		  .assertError(RuntimeException.class)
+		  .assertErrorMessage("forced failure");
+		Assert.assertEquals(10_001, subscriptions.get());
+	}
+
+	@Test
+	public void cancelDuringBackoff() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+		AtomicInteger subscriptions = new AtomicInteger();
+
+		Flux.<Integer>defer(() -> {
+			subscriptions.incrementAndGet();
+			return Flux.error(new RuntimeException("forced failure"));
+		})
+		    .retryBackoff(5, Duration.ofMillis(50))
+		    .subscribe(ts);
+
+		ts.cancel();
+
+		LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(150));
+
+		Assert.assertEquals(1, subscriptions.get());
+		ts.assertNoError()
+		  .assertNotComplete();
+	}
+
+	@Test
+	public void monoRetriesThenSuccess() {
+		TestSubscriber<String> ts = TestSubscriber.create();
+		AtomicInteger subscriptions = new AtomicInteger();
+
+		Mono.fromCallable(() -> {
+			if (subscriptions.incrementAndGet() < 3) {
+				throw new IllegalStateException("not yet");
+			}
+			return "done";
+		})
+		    .retryBackoff(3, Duration.ofMillis(10), Duration.ofMillis(100), 0.2d)
+		    .subscribe(ts);
+
+		ts.await(Duration.ofSeconds(5))
+		  .assertValues("done")
+		  .assertComplete()
+		  .assertNoError();
+	}
+
+	@Test
+	public void monoRetriesExhausted() {
+		TestSubscriber<String> ts = TestSubscriber.create();
+
+		Mono.<String>error(new IllegalStateException("never"))
+		    .retryBackoff(2, Duration.ofMillis(10))
+		    .subscribe(ts);
+
+		ts.await(Duration.ofSeconds(5))
+		  .assertNoValues()
+		  .assertError(IllegalStateException.class);
+	}
+}
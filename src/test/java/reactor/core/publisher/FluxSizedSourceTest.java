@@ -0,0 +1,286 @@
+/*
+ * Copyright (c) 2011-2016 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reactor.core.publisher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.junit.Assert;
+import org.junit.Test;
+import reactor.core.Fuseable;
+import reactor.test.TestSubscriber;
+
+public class FluxSizedSourceTest {
+
+	@Test
+	public void rangeTakeSkip() {
+		Flux<Integer> f = Flux.range(1, 10)
+		                      .skip(2)
+		                      .take(5);
+
+		Assert.assertTrue(f instanceof FluxRange);
+
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+		ts.requestedFusionMode(Fuseable.ANY);
+
+		f.subscribe(ts);
+
+		ts.assertFusionMode(Fuseable.SYNC)
+		  .assertValues(3, 4, 5, 6, 7)
+		  .assertComplete();
+	}
+
+	@Test
+	public void rangeSkipAll() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		Flux.range(1, 3)
+		    .skip(5)
+		    .subscribe(ts);
+
+		ts.assertNoValues()
+		  .assertComplete();
+	}
+
+	@Test
+	public void arraySkipTakeView() {
+		Integer[] array = {1, 2, 3, 4, 5, 6};
+		Flux<Integer> f = Flux.fromArray(array)
+		                      .skip(1)
+		                      .take(10)
+		                      .skip(2)
+		                      .take(2);
+
+		Assert.assertTrue(f instanceof FluxArray);
+		Assert.assertSame(array, ((FluxArray<?>) f).array);
+
+		TestSubscriber<Integer> ts = TestSubscriber.create(1);
+
+		f.subscribe(ts);
+
+		ts.assertValues(4)
+		  .assertNotComplete();
+
+		ts.request(1);
+
+		ts.assertValues(4, 5)
+		  .assertComplete();
+
+		TestSubscriber<Integer> fused = TestSubscriber.create();
+		fused.requestedFusionMode(Fuseable.SYNC);
+
+		f.filter(i -> i > 4)
+		 .subscribe(fused);
+
+		fused.assertValues(5)
+		     .assertComplete();
+	}
+
+	@Test
+	public void count() {
+		Assert.assertEquals(10L, (long) Flux.range(1, 10)
+		                                    .count()
+		                                    .block());
+		Assert.assertEquals(2L, (long) Flux.just(1, 2, 3)
+		                                   .skip(1)
+		                                   .count()
+		                                   .block());
+		Assert.assertEquals(1L, (long) Flux.just(1)
+		                                   .count()
+		                                   .block());
+
+		List<Integer> list = new ArrayList<>();
+		Mono<Long> count = Flux.fromIterable(list)
+		                       .count();
+		list.add(1);
+		list.add(2);
+
+		Assert.assertEquals(2L, (long) count.block());
+	}
+
+	@Test
+	public void elementAt() {
+		Assert.assertEquals(5, (int) Flux.range(3, 5)
+		                                 .elementAt(2)
+		                                 .block());
+		Assert.assertEquals("c", Flux.just("a", "b", "c")
+		                             .elementAt(2)
+		                             .block());
+		Assert.assertEquals(-1, (int) Flux.range(1, 3)
+		                                  .elementAt(3, -1)
+		                                  .block());
+
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		Flux.fromArray(new Integer[]{1, 2})
+		    .elementAt(2)
+		    .subscribe(ts);
+
+		ts.assertNoValues()
+		  .assertError(IndexOutOfBoundsException.class);
+	}
+
+	@Test
+	public void last() {
+		Assert.assertEquals(7, (int) Flux.range(3, 5)
+		                                 .last()
+		                                 .block());
+		Assert.assertEquals("b", Flux.just("a", "b", "c")
+		                             .take(2)
+		                             .last()
+		                             .block());
+		Assert.assertEquals("d", Flux.just("a", "b")
+		                             .skip(2)
+		                             .last("d")
+		                             .block());
+
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		Flux.range(1, 3)
+		    .take(0)
+		    .last()
+		    .subscribe(ts);
+
+		ts.assertNoValues()
+		  .assertError(NoSuchElementException.class);
+	}
+
+	@Test
+	public void nullArrayElement() {
+		TestSubscriber<List<String>> ts = TestSubscriber.create();
+
+		Flux.fromArray(new String[]{"a", null})
+		    .collectList()
+		    .subscribe(ts);
+
+		ts.assertNoValues()
+		  .assertErrorMessage("The 1th array element was null");
+	}
+
+	@Test
+	public void nullArrayElementBeforeShortcut() {
+		Integer[] array = {1, null, 3};
+
+		TestSubscriber<Object> ts = TestSubscriber.create();
+		Flux.fromArray(array)
+		    .count()
+		    .subscribe(ts);
+		ts.assertNoValues()
+		  .assertErrorMessage("The 1th array element was null");
+
+		ts = TestSubscriber.create();
+		Flux.fromArray(array)
+		    .elementAt(2)
+		    .subscribe(ts);
+		ts.assertNoValues()
+		  .assertErrorMessage("The 1th array element was null");
+
+		ts = TestSubscriber.create();
+		Flux.fromArray(array)
+		    .elementAt(5, 0)
+		    .subscribe(ts);
+		ts.assertNoValues()
+		  .assertErrorMessage("The 1th array element was null");
+
+		ts = TestSubscriber.create();
+		Flux.fromArray(array)
+		    .last()
+		    .subscribe(ts);
+		ts.assertNoValues()
+		  .assertErrorMessage("The 1th array element was null");
+
+		ts = TestSubscriber.create();
+		Flux.fromArray(array)
+		    .skip(2)
+		    .collectList()
+		    .subscribe(ts);
+		ts.assertNoValues()
+		  .assertErrorMessage("The 1th array element was null");
+
+		ts = TestSubscriber.create();
+		Flux.fromArray(array)
+		    .skip(2)
+		    .subscribe(ts);
+		ts.assertNoValues()
+		  .assertErrorMessage("The 1th array element was null");
+
+		ts = TestSubscriber.create();
+		Flux.fromArray(array)
+		    .skip(5)
+		    .last(0)
+		    .subscribe(ts);
+		ts.assertNoValues()
+		  .assertErrorMessage("The 1th array element was null");
+	}
+
+	@Test
+	public void nullArrayElementNotReached() {
+		TestSubscriber<Object> ts = TestSubscriber.create();
+
+		Flux.fromArray(new Integer[]{1, 2, null})
+		    .elementAt(1)
+		    .subscribe(ts);
+
+		ts.assertValues(2)
+		  .assertComplete();
+	}
+
+	@Test
+	public void nullCollectionElement() {
+		TestSubscriber<Long> ts = TestSubscriber.create();
+
+		Flux.fromIterable(Arrays.asList(1, null, 3))
+		    .count()
+		    .subscribe(ts);
+
+		ts.assertNoValues()
+		  .assertErrorMessage("The iterator returned a null value");
+	}
+
+	@Test
+	public void collectList() {
+		Assert.assertEquals(Arrays.asList(2, 3, 4), Flux.range(1, 4)
+		                                                .skip(1)
+		                                                .collectList()
+		                                                .block());
+		Assert.assertEquals(Arrays.asList("b", "c"), Flux.just("a", "b", "c")
+		                                                 .skip(1)
+		                                                 .collectList()
+		                                                 .block());
+
+		List<String> source = new ArrayList<>(Arrays.asList("x", "y"));
+		List<String> list = Flux.fromIterable(source)
+		                        .collectList()
+		                        .block();
+
+		Assert.assertEquals(source, list);
+		Assert.assertNotSame(source, list);
+	}
+
+	@Test
+	public void notRewrittenWithOperatorHook() {
+		Hooks.onOperator(h -> h);
+		try {
+			Assert.assertTrue(Flux.range(1, 5)
+			                      .take(2) instanceof FluxTakeFuseable);
+		}
+		finally {
+			Hooks.resetOnOperator();
+		}
+	}
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2011-2016 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reactor.core.publisher;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.Assert;
+import org.junit.Test;
+import reactor.test.TestSubscriber;
+
+public class FluxSlidingReduceTest {
+
+	static void sleep(long millis) {
+		LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(millis));
+	}
+
+	static List<Integer> randomValues(int n) {
+		Random random = new Random(42);
+		List<Integer> values = new ArrayList<>(n);
+		for (int i = 0; i < n; i++) {
+			values.add(random.nextInt(100));
+		}
+		return values;
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void sizeZero() {
+		Flux.<Integer>never()
+		    .slidingReduce(0, Integer::sum);
+	}
+
+	@Test
+	public void movingSum() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		Flux.range(1, 6)
+		    .slidingReduce(3, Integer::sum)
+		    .subscribe(ts);
+
+		ts.assertValues(1, 3, 6, 9, 12, 15)
+		  .assertNoError()
+		  .assertComplete();
+	}
+
+	@Test
+	public void movingSumInvertible() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		Flux.range(1, 6)
+		    .slidingReduce(3, Integer::sum, (a, b) -> a - b)
+		    .subscribe(ts);
+
+		ts.assertValues(1, 3, 6, 9, 12, 15)
+		  .assertNoError()
+		  .assertComplete();
+	}
+
+	@Test
+	public void twoStacksKeepsOrder() {
+		TestSubscriber<String> ts = TestSubscriber.create();
+
+		Flux.just("a", "b", "c", "d", "e", "f", "g")
+		    .slidingReduce(3, String::concat)
+		    .subscribe(ts);
+
+		ts.assertValues("a", "ab", "abc", "bcd", "cde", "def", "efg")
+		  .assertComplete();
+	}
+
+	@Test
+	public void matchesBruteForce() {
+		List<Integer> values = randomValues(500);
+		int size = 7;
+
+		List<Integer> sums = new ArrayList<>();
+		List<Integer> mins = new ArrayList<>();
+		List<Integer> maxs = new ArrayList<>();
+		for (int i = 0; i < values.size(); i++) {
+			int sum = 0;
+			int min = Integer.MAX_VALUE;
+			int max = Integer.MIN_VALUE;
+			for (int j = Math.max(0, i - size + 1); j <= i; j++) {
+				int v = values.get(j);
+				sum += v;
+				min = Math.min(min, v);
+				max = Math.max(max, v);
+			}
+			sums.add(sum);
+			mins.add(min);
+			maxs.add(max);
+		}
+
+		Assert.assertEquals(sums, Flux.fromIterable(values)
+		                              .slidingReduce(size, Integer::sum)
+		                              .collectList()
+		                              .block());
+		Assert.assertEquals(sums, Flux.fromIterable(values)
+		                              .slidingReduce(size, Integer::sum, (a, b) -> a - b)
+		                              .collectList()
+		                              .block());
+		Assert.assertEquals(mins, Flux.fromIterable(values)
+		                              .slidingMin(size, Comparator.naturalOrder())
+		                              .collectList()
+		                              .block());
+		Assert.assertEquals(maxs, Flux.fromIterable(values)
+		                              .slidingMax(size, Comparator.naturalOrder())
+		                              .collectList()
+		                              .block());
+	}
+
+	@Test
+	public void slidingMax() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		Flux.just(1, 3, 2, 2, 1, 0, 5)
+		    .slidingMax(3, Comparator.naturalOrder())
+		    .subscribe(ts);
+
+		ts.assertValues(1, 3, 3, 3, 2, 2, 5)
+		  .assertComplete();
+	}
+
+	@Test
+	public void slidingMin() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		Flux.just(5, 3, 4, 4, 6, 7, 1)
+		    .slidingMin(3, Comparator.naturalOrder())
+		    .subscribe(ts);
+
+		ts.assertValues(5, 3, 3, 3, 4, 4, 1)
+		  .assertComplete();
+	}
+
+	@Test
+	public void backpressured() {
+		TestSubscriber<Integer> ts = TestSubscriber.create(0);
+
+		Flux.range(1, 6)
+		    .slidingReduce(2, Integer::sum)
+		    .subscribe(ts);
+
+		ts.assertNoValues();
+
+		ts.request(2);
+
+		ts.assertValues(1, 3)
+		  .assertNotComplete();
+
+		ts.request(4);
+
+		ts.assertValues(1, 3, 5, 7, 9, 11)
+		  .assertComplete();
+	}
+
+	@Test
+	public void reducerThrows() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		Flux.range(1, 5)
+		    .slidingReduce(2, (a, b) -> {
+			    if (b == 3) {
+				    throw new RuntimeException("forced failure");
+			    }
+			    return a + b;
+		    })
+		    .subscribe(ts);
+
+		ts.assertValues(1, 3)
+		  .assertErrorMessage("forced failure");
+	}
+
+	@Test
+	public void reducerReturnsNull() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		Flux.range(1, 5)
+		    .slidingReduce(2, (a, b) -> null)
+		    .subscribe(ts);
+
+		ts.assertValues(1)
+		  .assertError(NullPointerException.class);
+	}
+
+	@Test
+	public void timedEvictsOldValues() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+		DirectProcessor<Integer> source = DirectProcessor.create();
+
+		source.slidingReduce(Duration.ofMillis(200), Integer::sum)
+		      .subscribe(ts);
+
+		source.onNext(1);
+		source.onNext(2);
+		sleep(400);
+		source.onNext(3);
+		source.onNext(4);
+		source.onComplete();
+
+		ts.assertValues(1, 3, 3, 7)
+		  .assertComplete();
+	}
+
+	@Test
+	public void timedInvertibleAndMax() {
+		TestSubscriber<Integer> sum = TestSubscriber.create();
+		TestSubscriber<Integer> max = TestSubscriber.create();
+		DirectProcessor<Integer> source = DirectProcessor.create();
+
+		source.slidingReduce(Duration.ofMillis(200), Integer::sum, (a, b) -> a - b)
+		      .subscribe(sum);
+		source.slidingMax(Duration.ofMillis(200), Comparator.naturalOrder())
+		      .subscribe(max);
+
+		source.onNext(5);
+		source.onNext(2);
+		sleep(400);
+		source.onNext(1);
+		source.onNext(3);
+		source.onComplete();
+
+		sum.assertValues(5, 7, 1, 4)
+		   .assertComplete();
+		max.assertValues(5, 5, 1, 3)
+		   .assertComplete();
+	}
+}
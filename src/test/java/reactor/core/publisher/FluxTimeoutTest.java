@@ -16,7 +16,10 @@
 
 package reactor.core.publisher;
 
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -241,4 +244,105 @@ public class FluxTimeoutTest {
 		  .assertError(TimeoutException.class)
 		  .assertNotComplete();
 	}
+
+	@Test
+	public void timedNoTimeout() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		Flux.range(1, 10)
+		    .timeoutMillis(1000)
+		    .subscribe(ts);
+
+		ts.assertValues(1, 2, 3, 4, 5, 6, 7, 8, 9, 10)
+		  .assertComplete()
+		  .assertNoError();
+	}
+
+	@Test
+	public void timedFirstTimeout() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		Flux.<Integer>never()
+		    .timeoutMillis(50)
+		    .subscribe(ts);
+
+		ts.await(Duration.ofSeconds(5))
+		  .assertNoValues()
+		  .assertNotComplete()
+		  .assertError(TimeoutException.class);
+	}
+
+	@Test
+	public void timedItemTimeout() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+		DirectProcessor<Integer> source = DirectProcessor.create();
+
+		source.timeoutMillis(200)
+		      .subscribe(ts);
+
+		// each item postpones the deadline past the initially armed one
+		for (int i = 1; i <= 5; i++) {
+			source.onNext(i);
+			LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+		}
+
+		ts.assertValues(1, 2, 3, 4, 5)
+		  .assertNoError();
+
+		ts.await(Duration.ofSeconds(5))
+		  .assertError(TimeoutException.class)
+		  .assertNotComplete();
+
+		Assert.assertFalse("source still subscribed", source.hasDownstreams());
+	}
+
+	@Test
+	public void timedFallback() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+		DirectProcessor<Integer> source = DirectProcessor.create();
+
+		source.timeoutMillis(50, Flux.range(10, 3))
+		      .subscribe(ts);
+
+		source.onNext(1);
+
+		ts.await(Duration.ofSeconds(5))
+		  .assertValues(1, 10, 11, 12)
+		  .assertComplete()
+		  .assertNoError();
+	}
+
+	@Test
+	public void timedFallbackBackpressured() {
+		TestSubscriber<Integer> ts = TestSubscriber.create(2);
+
+		Flux.<Integer>never()
+		    .timeoutMillis(10, Flux.range(1, 10))
+		    .subscribe(ts);
+
+		ts.awaitAndAssertNextValues(1, 2)
+		  .assertNotComplete();
+
+		ts.request(8);
+
+		ts.assertValueCount(10)
+		  .assertComplete();
+	}
+
+	@Test
+	public void timedCancel() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+		DirectProcessor<Integer> source = DirectProcessor.create();
+
+		source.timeoutMillis(50)
+		      .subscribe(ts);
+
+		ts.cancel();
+
+		LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(150));
+
+		ts.assertNoError()
+		  .assertNotComplete();
+		Assert.assertFalse("source still subscribed", source.hasDownstreams());
+	}
 }
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2011-2016 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reactor.core.publisher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import reactor.test.TestSubscriber;
+
+public class FluxTopKTest {
+
+	@Test(expected = IllegalArgumentException.class)
+	public void kZero() {
+		Flux.<Integer>never()
+		    .topK(0, Comparator.naturalOrder());
+	}
+
+	@Test
+	public void topK() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		Flux.just(4, 9, 1, 7, 3, 9, 2)
+		    .topK(3, Comparator.naturalOrder())
+		    .subscribe(ts);
+
+		ts.assertValues(9, 9, 7)
+		  .assertNoError()
+		  .assertComplete();
+	}
+
+	@Test
+	public void bottomK() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		Flux.just(4, 9, 1, 7, 3, 9, 2)
+		    .bottomK(3, Comparator.naturalOrder())
+		    .subscribe(ts);
+
+		ts.assertValues(1, 2, 3)
+		  .assertNoError()
+		  .assertComplete();
+	}
+
+	@Test
+	public void empty() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		Flux.<Integer>empty()
+		    .topK(3, Comparator.naturalOrder())
+		    .subscribe(ts);
+
+		ts.assertNoValues()
+		  .assertComplete();
+	}
+
+	@Test
+	public void matchesSort() {
+		Random random = new Random(42);
+		List<Integer> values = new ArrayList<>();
+		for (int i = 0; i < 10_000; i++) {
+			values.add(random.nextInt(1_000));
+		}
+		List<Integer> sorted = new ArrayList<>(values);
+		Collections.sort(sorted, Collections.reverseOrder());
+
+		Assert.assertEquals(sorted.subList(0, 100),
+				Flux.fromIterable(values)
+				    .topK(100, Comparator.naturalOrder())
+				    .collectList()
+				    .block());
+	}
+
+	@Test
+	public void mergeHeaps() {
+		TopKHeap<Integer> a = new TopKHeap<>(3, Comparator.naturalOrder());
+		TopKHeap<Integer> b = new TopKHeap<>(3, Comparator.naturalOrder());
+		a.offer(1).offer(8).offer(5).offer(2);
+		b.offer(7).offer(3);
+
+		Assert.assertEquals(Arrays.asList(8, 7, 5), a.merge(b).toList());
+	}
+
+	@Test
+	public void topKWindows() {
+		TestSubscriber<List<Integer>> ts = TestSubscriber.create();
+
+		Flux.just(4, 9, 1, 7, 3, 8, 2)
+		    .topKWindows(2, Comparator.naturalOrder(), 3)
+		    .subscribe(ts);
+
+		ts.assertValues(Arrays.asList(9, 4), Arrays.asList(8, 7), Arrays.asList(2))
+		  .assertNoError()
+		  .assertComplete();
+	}
+
+	@Test
+	public void comparatorThrows() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		Flux.just(1, 2, 3)
+		    .topK(1, (a, b) -> {
+			    throw new RuntimeException("forced failure");
+		    })
+		    .subscribe(ts);
+
+		ts.assertNoValues()
+		  .assertErrorMessage("forced failure");
+	}
+}
@@ -16,12 +16,14 @@
 
 package reactor.core.publisher;
 
+import java.time.Duration;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.function.Supplier;
 
 import org.junit.Test;
 import org.reactivestreams.Publisher;
+import reactor.core.scheduler.Schedulers;
 import reactor.test.TestSubscriber;
 
 public class FluxWindowTest {
@@ -560,4 +562,87 @@ public class FluxWindowTest {
 		                 .assertError(RuntimeException.class)
 		                 .assertErrorMessage("forced failure");
 	}
+
+	@Test
+	public void exactSizeOrTimeout() {
+		TestSubscriber<Publisher<Integer>> ts = TestSubscriber.create();
+
+		Flux.range(1, 10)
+		    .windowMillis(3, 10_000, Schedulers.timer())
+		    .subscribe(ts);
+
+		ts.assertValueCount(4)
+		  .assertComplete()
+		  .assertNoError();
+
+		toList(ts.values()
+		         .get(0)).assertValues(1, 2, 3)
+		                 .assertComplete();
+
+		toList(ts.values()
+		         .get(3)).assertValues(10)
+		                 .assertComplete();
+	}
+
+	@Test
+	public void exactSizeOrTimeoutClosesByTime() {
+		TestSubscriber<Publisher<Integer>> ts = TestSubscriber.create();
+		DirectProcessor<Integer> dp = DirectProcessor.create();
+
+		dp.windowMillis(10, 50, Schedulers.timer())
+		  .subscribe(ts);
+
+		dp.onNext(1);
+		dp.onNext(2);
+
+		TestSubscriber<Integer> w = toList(ts.values()
+		                                     .get(0));
+
+		TestSubscriber.await(Duration.ofSeconds(5), "window not closed by time", w::isTerminated);
+
+		dp.onNext(3);
+		dp.onComplete();
+
+		w.assertValues(1, 2)
+		 .assertComplete();
+
+		ts.assertValueCount(2)
+		  .assertComplete()
+		  .assertNoError();
+
+		toList(ts.values()
+		         .get(1)).assertValues(3)
+		                 .assertComplete();
+	}
+
+	@Test
+	public void exactSizeOrTimeoutBackpressured() {
+		TestSubscriber<Publisher<Integer>> ts = TestSubscriber.create(0L);
+
+		Flux.range(1, 10)
+		    .windowMillis(3, 10_000, Schedulers.timer())
+		    .subscribe(ts);
+
+		ts.assertNoValues()
+		  .assertNotComplete();
+
+		ts.request(1);
+
+		ts.assertValueCount(1)
+		  .assertNotComplete();
+
+		toList(ts.values()
+		         .get(0)).assertValues(1, 2, 3)
+		                 .assertComplete();
+
+		ts.request(3);
+
+		ts.assertValueCount(4)
+		  .assertComplete()
+		  .assertNoError();
+
+		toList(ts.values()
+		         .get(3)).assertValues(10)
+		                 .assertComplete();
+	}
 }
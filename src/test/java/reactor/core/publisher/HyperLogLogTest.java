@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2011-2016 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reactor.core.publisher;
+
+import org.junit.Assert;
+import org.junit.Test;
+import reactor.test.TestSubscriber;
+
+public class HyperLogLogTest {
+
+	static void assertWithin(long expected, long actual, double error) {
+		Assert.assertTrue("Expected " + expected + " +/- " + (error * 100) + "% but was " + actual,
+				Math.abs(actual - expected) <= expected * error);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void precisionTooLow() {
+		Flux.never()
+		    .countDistinctApprox(3);
+	}
+
+	@Test
+	public void smallCardinalityIsExact() {
+		HyperLogLog hll = new HyperLogLog(HyperLogLog.DEFAULT_PRECISION);
+		for (int i = 0; i < 100; i++) {
+			hll.add(i % 10);
+		}
+		Assert.assertEquals(10L, hll.estimate());
+	}
+
+	@Test
+	public void empty() {
+		TestSubscriber<Long> ts = TestSubscriber.create();
+
+		Flux.empty()
+		    .countDistinctApprox()
+		    .subscribe(ts);
+
+		ts.assertValues(0L)
+		  .assertComplete();
+	}
+
+	@Test
+	public void largeCardinality() {
+		long estimate = Flux.range(0, 1_000_000)
+		                    .map(i -> "value" + (i % 200_000))
+		                    .countDistinctApprox()
+		                    .block();
+
+		assertWithin(200_000L, estimate, 0.03d);
+	}
+
+	@Test
+	public void mergeIsUnion() {
+		HyperLogLog a = new HyperLogLog(12);
+		HyperLogLog b = new HyperLogLog(12);
+		for (int i = 0; i < 30_000; i++) {
+			a.add(i);
+			b.add(i + 20_000);
+		}
+
+		assertWithin(50_000L, a.merge(b).estimate(), 0.05d);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void mergeDifferentPrecision() {
+		new HyperLogLog(10).merge(new HyperLogLog(12));
+	}
+
+	@Test
+	public void parallel() {
+		long estimate = Flux.range(0, 100_000)
+		                    .parallel(4)
+		                    .map(i -> i % 40_000)
+		                    .countDistinctApprox()
+		                    .block();
+
+		assertWithin(40_000L, estimate, 0.03d);
+	}
+}
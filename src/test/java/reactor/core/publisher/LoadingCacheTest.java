@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2011-2016 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+import reactor.test.TestSubscriber;
+
+public class LoadingCacheTest {
+
+	final AtomicInteger loads = new AtomicInteger();
+
+	Mono<String> load(Integer key) {
+		loads.incrementAndGet();
+		return Mono.just("v" + key);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void maximumSizeZero() {
+		LoadingCache.create(this::load, 0);
+	}
+
+	@Test
+	public void loadedOnceThenHit() {
+		LoadingCache<Integer, String> cache = LoadingCache.create(this::load, 10);
+
+		Assert.assertEquals("v1", cache.get(1).block());
+		Assert.assertEquals("v1", cache.get(1).block());
+		Assert.assertEquals("v1", cache.getIfPresent(1));
+		Assert.assertNull(cache.getIfPresent(2));
+
+		Assert.assertEquals(1, loads.get());
+
+		LoadingCache.Stats stats = cache.stats();
+		Assert.assertEquals(2, stats.hitCount());
+		Assert.assertEquals(1, stats.missCount());
+		Assert.assertEquals(1, stats.loadSuccessCount());
+		Assert.assertEquals(0, stats.loadFailureCount());
+	}
+
+	@Test
+	public void concurrentLoadShared() {
+		MonoProcessor<String> source = MonoProcessor.create();
+		LoadingCache<Integer, String> cache = LoadingCache.create(k -> {
+			loads.incrementAndGet();
+			return source;
+		}, 10);
+
+		TestSubscriber<String> ts1 = TestSubscriber.create();
+		TestSubscriber<String> ts2 = TestSubscriber.create();
+
+		cache.get(1).subscribe(ts1);
+		cache.get(1).subscribe(ts2);
+
+		Assert.assertEquals(1, loads.get());
+
+		source.onNext("v");
+
+		ts1.assertValues("v")
+		   .assertComplete();
+		ts2.assertValues("v")
+		   .assertComplete();
+	}
+
+	@Test
+	public void failedLoadNotCached() {
+		LoadingCache<Integer, String> cache = LoadingCache.create(k -> {
+			if (loads.incrementAndGet() == 1) {
+				return Mono.error(new RuntimeException("forced failure"));
+			}
+			return Mono.just("v" + k);
+		}, 10);
+
+		TestSubscriber<String> ts = TestSubscriber.create();
+		cache.get(1).subscribe(ts);
+		ts.assertErrorMessage("forced failure");
+
+		Assert.assertEquals(0, cache.size());
+		Assert.assertEquals("v1", cache.get(1).block());
+		Assert.assertEquals(1, cache.stats().loadFailureCount());
+	}
+
+	@Test
+	public void expireAfterWrite() {
+		ManualTimer timer = new ManualTimer();
+		LoadingCache<Integer, String> cache = LoadingCache.createMillis(this::load, 10, 100, 0, timer);
+
+		cache.get(1).block();
+		timer.advance(99);
+		cache.get(1).block();
+
+		Assert.assertEquals(1, loads.get());
+
+		timer.advance(1);
+
+		Assert.assertNull(cache.getIfPresent(1));
+		cache.get(1).block();
+
+		Assert.assertEquals(2, loads.get());
+	}
+
+	@Test
+	public void expireAfterAccess() {
+		ManualTimer timer = new ManualTimer();
+		LoadingCache<Integer, String> cache = LoadingCache.createMillis(this::load, 10, 0, 300, timer);
+
+		cache.get(1).block();
+		for (int i = 0; i < 4; i++) {
+			timer.advance(299);
+			cache.get(1).block();
+		}
+
+		Assert.assertEquals(1, loads.get());
+
+		timer.advance(300);
+		cache.get(1).block();
+
+		Assert.assertEquals(2, loads.get());
+	}
+
+	@Test
+	public void evictsLeastRecentlyAccessed() {
+		ManualTimer timer = new ManualTimer();
+		LoadingCache<Integer, String> cache = LoadingCache.createMillis(this::load, 2, 0, 0, timer);
+
+		cache.get(1).block();
+		timer.advance(10);
+		cache.get(2).block();
+		timer.advance(10);
+		cache.get(1).block();
+		timer.advance(10);
+		cache.get(3).block();
+
+		Assert.assertEquals(3, cache.size());
+
+		timer.runTasks();
+
+		Assert.assertEquals(2, cache.size());
+		Assert.assertEquals("v1", cache.getIfPresent(1));
+		Assert.assertNull(cache.getIfPresent(2));
+		Assert.assertEquals("v3", cache.getIfPresent(3));
+		Assert.assertEquals(1, cache.stats().evictionCount());
+	}
+
+	@Test
+	public void cleanUpPurgesExpired() {
+		ManualTimer timer = new ManualTimer();
+		LoadingCache<Integer, String> cache = LoadingCache.createMillis(this::load, 10, 50, 0, timer);
+
+		cache.get(1).block();
+		cache.get(2).block();
+
+		timer.time = 50;
+		cache.cleanUp();
+
+		Assert.assertEquals(0, cache.size());
+		Assert.assertEquals(2, cache.stats().evictionCount());
+	}
+
+	@Test
+	public void expiredPurgedBelowMaximumSize() {
+		ManualTimer timer = new ManualTimer();
+		LoadingCache<Integer, String> cache = LoadingCache.createMillis(this::load, 10, 100, 0, timer);
+
+		cache.get(1).block();
+		timer.advance(50);
+		cache.get(2).block();
+
+		Assert.assertEquals(2, cache.size());
+
+		timer.advance(50);
+
+		Assert.assertEquals(1, cache.size());
+		Assert.assertNull(cache.getIfPresent(1));
+
+		timer.advance(50);
+
+		Assert.assertEquals(0, cache.size());
+		Assert.assertEquals(2, cache.stats().evictionCount());
+	}
+
+	@Test
+	public void accessPostponesPurge() {
+		ManualTimer timer = new ManualTimer();
+		LoadingCache<Integer, String> cache = LoadingCache.createMillis(this::load, 10, 0, 300, timer);
+
+		cache.get(1).block();
+		timer.advance(250);
+		cache.get(1).block();
+		timer.advance(50);
+
+		Assert.assertEquals(1, cache.size());
+
+		timer.advance(250);
+
+		Assert.assertEquals(0, cache.size());
+		Assert.assertEquals(1, loads.get());
+	}
+
+	@Test
+	public void invalidatedNotEvicted() {
+		ManualTimer timer = new ManualTimer();
+		LoadingCache<Integer, String> cache = LoadingCache.createMillis(this::load, 2, 0, 0, timer);
+
+		cache.get(1).block();
+		cache.get(2).block();
+		timer.runTasks();
+		cache.invalidate(1);
+		cache.get(3).block();
+		timer.runTasks();
+
+		Assert.assertEquals(2, cache.size());
+		Assert.assertEquals("v2", cache.getIfPresent(2));
+		Assert.assertEquals("v3", cache.getIfPresent(3));
+		Assert.assertEquals(0, cache.stats().evictionCount());
+	}
+}
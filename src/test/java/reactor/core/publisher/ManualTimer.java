@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2011-2016 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import reactor.core.Cancellation;
+import reactor.core.scheduler.TimedScheduler;
+
+/**
+ * A {@link TimedScheduler} whose clock in milliseconds is set by the test, queueing the
+ * scheduled tasks until {@link #runTasks()} or {@link #advance(long)} runs those due.
+ */
+final class ManualTimer implements TimedScheduler {
+
+	final List<Task> tasks = new ArrayList<>();
+
+	volatile long time;
+
+	/**
+	 * Move the clock forward and run the tasks due by then.
+	 *
+	 * @param millis the time to add to the clock
+	 */
+	void advance(long millis) {
+		time += millis;
+		runTasks();
+	}
+
+	/**
+	 * Run the tasks due at the current time, including those they schedule.
+	 */
+	void runTasks() {
+		for (;;) {
+			Task next = null;
+			for (Task t : tasks) {
+				if (t.dueAt <= time && (next == null || t.dueAt < next.dueAt)) {
+					next = t;
+				}
+			}
+			if (next == null) {
+				return;
+			}
+			tasks.remove(next);
+			next.task.run();
+		}
+	}
+
+	@Override
+	public long now(TimeUnit unit) {
+		return unit.convert(time, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public Cancellation schedule(Runnable task) {
+		return schedule(task, 0L, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public Cancellation schedule(Runnable task, long delay, TimeUnit unit) {
+		Task t = new Task(task, time + unit.toMillis(delay));
+		tasks.add(t);
+		return () -> tasks.remove(t);
+	}
+
+	@Override
+	public Cancellation schedulePeriodically(Runnable task,
+			long initialDelay,
+			long period,
+			TimeUnit unit) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public TimedWorker createWorker() {
+		throw new UnsupportedOperationException();
+	}
+
+	static final class Task {
+
+		final Runnable task;
+
+		final long dueAt;
+
+		Task(Runnable task, long dueAt) {
+			this.task = task;
+			this.dueAt = dueAt;
+		}
+	}
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2011-2016 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.TestSubscriber;
+
+public class MonoCacheTimeTest {
+
+	@Test(expected = IllegalArgumentException.class)
+	public void refreshAheadNegative() {
+		Mono.just(1).cacheMillis(100, -1, Schedulers.timer());
+	}
+
+	@Test
+	public void cachedUntilExpiry() throws Exception {
+		AtomicInteger count = new AtomicInteger();
+
+		Mono<Integer> m = Mono.fromCallable(count::incrementAndGet)
+		                      .cache(Duration.ofMillis(100));
+
+		Assert.assertEquals(1, (int) m.block());
+		Assert.assertEquals(1, (int) m.block());
+
+		Thread.sleep(200);
+
+		Assert.assertEquals(2, (int) m.block());
+		Assert.assertEquals(2, (int) m.block());
+	}
+
+	@Test
+	public void errorCachedUntilExpiry() throws Exception {
+		AtomicInteger count = new AtomicInteger();
+
+		Mono<Integer> m = Mono.<Integer>fromCallable(() -> {
+			throw new RuntimeException("forced failure " + count.incrementAndGet());
+		}).cache(Duration.ofMillis(100));
+
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+		m.subscribe(ts);
+		ts.assertErrorMessage("forced failure 1");
+
+		ts = TestSubscriber.create();
+		m.subscribe(ts);
+		ts.assertErrorMessage("forced failure 1");
+
+		Thread.sleep(200);
+
+		ts = TestSubscriber.create();
+		m.subscribe(ts);
+		ts.assertErrorMessage("forced failure 2");
+	}
+
+	@Test
+	public void ttlDerivedFromSignal() {
+		AtomicInteger count = new AtomicInteger();
+
+		Mono<Integer> m = Mono.fromCallable(() -> {
+			int c = count.incrementAndGet();
+			if (c == 1) {
+				throw new RuntimeException("forced failure");
+			}
+			return c;
+		}).cache(v -> Duration.ofHours(1), e -> Duration.ZERO, () -> Duration.ZERO);
+
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+		m.subscribe(ts);
+		ts.assertError(RuntimeException.class);
+
+		Assert.assertEquals(2, (int) m.block());
+		Assert.assertEquals(2, (int) m.block());
+		Assert.assertEquals(2, count.get());
+	}
+
+	@Test
+	public void pendingSubscriptionShared() {
+		AtomicInteger subscriptions = new AtomicInteger();
+		MonoProcessor<Integer> source = MonoProcessor.create();
+
+		Mono<Integer> m = source.doOnSubscribe(s -> subscriptions.incrementAndGet())
+		                        .cache(Duration.ofMillis(1));
+
+		TestSubscriber<Integer> ts1 = TestSubscriber.create();
+		TestSubscriber<Integer> ts2 = TestSubscriber.create();
+		m.subscribe(ts1);
+		m.subscribe(ts2);
+
+		Assert.assertEquals(1, subscriptions.get());
+
+		source.onNext(1);
+
+		ts1.assertValues(1)
+		   .assertComplete();
+		ts2.assertValues(1)
+		   .assertComplete();
+	}
+
+	@Test
+	public void refreshAhead() {
+		AtomicInteger count = new AtomicInteger();
+		ManualTimer timer = new ManualTimer();
+
+		Mono<Integer> m = Mono.fromCallable(count::incrementAndGet)
+		                      .cacheMillis(10_000, 1_000, timer);
+
+		Assert.assertEquals(1, (int) m.block());
+
+		timer.time = 9_500;
+
+		// served from cache while the refresh is pending, a single refresh being triggered
+		Assert.assertEquals(1, (int) m.block());
+		Assert.assertEquals(1, (int) m.block());
+		Assert.assertEquals(1, timer.tasks.size());
+		Assert.assertEquals(1, count.get());
+
+		timer.runTasks();
+
+		Assert.assertEquals(2, (int) m.block());
+		Assert.assertEquals(2, (int) m.block());
+		Assert.assertEquals(2, count.get());
+	}
+
+	@Test
+	public void failedRefreshKeepsValue() {
+		AtomicInteger count = new AtomicInteger();
+		ManualTimer timer = new ManualTimer();
+
+		Mono<Integer> m = Mono.fromCallable(() -> {
+			int c = count.incrementAndGet();
+			if (c == 2) {
+				throw new RuntimeException("forced failure");
+			}
+			return c;
+		}).cacheMillis(10_000, 1_000, timer);
+
+		Assert.assertEquals(1, (int) m.block());
+
+		timer.time = 9_500;
+
+		Assert.assertEquals(1, (int) m.block());
+
+		timer.runTasks();
+
+		Assert.assertEquals(2, count.get());
+		Assert.assertEquals(1, (int) m.block());
+
+		timer.time = 10_000;
+
+		Assert.assertEquals(3, (int) m.block());
+	}
+}
@@ -451,4 +451,41 @@ public class ParallelFluxTest {
 		  .assertNoError()
 		  .assertComplete();
 	}
+
+	@Test
+	public void topK() {
+		Scheduler s = Schedulers.newParallel("test", 4);
+
+		try {
+			TestSubscriber<Integer> ts = TestSubscriber.create();
+
+			Flux.range(1, 100_000)
+			    .parallel(4)
+			    .runOn(s)
+			    .topK(5, Comparator.naturalOrder())
+			    .subscribe(ts);
+
+			ts.await(Duration.ofSeconds(5));
+			ts.assertValues(100_000, 99_999, 99_998, 99_997, 99_996)
+			  .assertNoError()
+			  .assertComplete();
+		}
+		finally {
+			s.shutdown();
+		}
+	}
+
+	@Test
+	public void bottomKFewerThanK() {
+		TestSubscriber<Integer> ts = TestSubscriber.create();
+
+		Flux.just(5, 3, 4)
+		    .parallel(2)
+		    .bottomK(10, Comparator.naturalOrder())
+		    .subscribe(ts);
+
+		ts.assertValues(3, 4, 5)
+		  .assertNoError()
+		  .assertComplete();
+	}
 }
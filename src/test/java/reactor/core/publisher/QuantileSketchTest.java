@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2011-2016 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reactor.core.publisher;
+
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.Assert;
+import org.junit.Test;
+import reactor.test.TestSubscriber;
+
+public class QuantileSketchTest {
+
+	static void assertWithin(double expected, double actual, double error) {
+		Assert.assertTrue("Expected " + expected + " +/- " + (error * 100) + "% but was " + actual,
+				Math.abs(actual - expected) <= Math.abs(expected) * error);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void quantileOutOfRange() {
+		Flux.<Integer>never()
+		    .quantiles(i -> i, 0.5, 1.5);
+	}
+
+	@Test
+	public void uniform() {
+		double[] q = Flux.range(1, 100_000)
+		                 .quantiles(i -> i, 0d, 0.5d, 0.99d, 1d)
+		                 .block();
+
+		Assert.assertEquals(1d, q[0], 0d);
+		assertWithin(50_000d, q[1], 0.01d);
+		assertWithin(99_000d, q[2], 0.01d);
+		Assert.assertEquals(100_000d, q[3], 0d);
+	}
+
+	@Test
+	public void negativeAndZeroValues() {
+		QuantileSketch sketch = new QuantileSketch(0.01d, 2048);
+		for (int i = -1000; i <= 1000; i++) {
+			sketch.add(i);
+		}
+
+		Assert.assertEquals(-1000d, sketch.quantile(0d), 0d);
+		assertWithin(-500d, sketch.quantile(0.25d), 0.01d);
+		Assert.assertEquals(0d, sketch.quantile(0.5d), 0d);
+		assertWithin(500d, sketch.quantile(0.75d), 0.01d);
+		Assert.assertEquals(1000d, sketch.quantile(1d), 0d);
+	}
+
+	@Test
+	public void boundedBucketsKeepHighQuantiles() {
+		QuantileSketch sketch = new QuantileSketch(0.01d, 64);
+		Random random = new Random(42);
+		for (int i = 0; i < 100_000; i++) {
+			sketch.add(Math.exp(random.nextDouble() * 20d));
+		}
+
+		Assert.assertTrue(sketch.positive.counts.length <= 128);
+		assertWithin(Math.exp(0.99d * 20d), sketch.quantile(0.99d), 0.05d);
+	}
+
+	@Test
+	public void mergeMatchesSingleSketch() {
+		QuantileSketch all = new QuantileSketch(0.01d, 2048);
+		QuantileSketch a = new QuantileSketch(0.01d, 2048);
+		QuantileSketch b = new QuantileSketch(0.01d, 2048);
+		Random random = new Random(42);
+		for (int i = 0; i < 10_000; i++) {
+			double v = random.nextGaussian() * 100d;
+			all.add(v);
+			(i % 2 == 0 ? a : b).add(v);
+		}
+		a.merge(b);
+
+		for (double q : new double[]{0d, 0.1d, 0.5d, 0.9d, 0.99d, 1d}) {
+			Assert.assertEquals(all.quantile(q), a.quantile(q), 0d);
+		}
+	}
+
+	@Test
+	public void empty() {
+		TestSubscriber<double[]> ts = TestSubscriber.create();
+
+		Flux.<Integer>empty()
+		    .quantiles(i -> i, 0.5d)
+		    .doOnNext(q -> Assert.assertTrue(Double.isNaN(q[0])))
+		    .subscribe(ts);
+
+		ts.assertValueCount(1)
+		  .assertComplete();
+	}
+
+	@Test
+	public void nonFiniteValue() {
+		TestSubscriber<double[]> ts = TestSubscriber.create();
+
+		Flux.just(1d, Double.NaN)
+		    .quantiles(d -> d, 0.5d)
+		    .subscribe(ts);
+
+		ts.assertNoValues()
+		  .assertError(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void parallel() {
+		double[] q = Flux.range(1, 100_000)
+		                 .parallel(4)
+		                 .quantiles(i -> i, 0.5d, 0.99d)
+		                 .block();
+
+		assertWithin(50_000d, q[0], 0.01d);
+		assertWithin(99_000d, q[1], 0.01d);
+	}
+
+	@Test
+	public void windows() {
+		TestSubscriber<double[]> ts = TestSubscriber.create();
+		DirectProcessor<Integer> source = DirectProcessor.create();
+
+		source.quantilesWindows(Duration.ofMillis(200), i -> i, 1d)
+		      .subscribe(ts);
+
+		source.onNext(10);
+		source.onNext(20);
+		LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(300));
+		source.onNext(5);
+		source.onComplete();
+
+		ts.await(Duration.ofSeconds(5));
+		ts.assertValueCount(2)
+		  .assertComplete();
+	}
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2011-2016 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.core.publisher;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+import reactor.test.TestSubscriber;
+
+public class SingleFlightTest {
+
+	final AtomicInteger calls = new AtomicInteger();
+
+	MonoProcessor<String> source = MonoProcessor.create();
+
+	Mono<String> call(String key) {
+		calls.incrementAndGet();
+		return source;
+	}
+
+	@Test
+	public void concurrentCallersShareOneCall() {
+		SingleFlight<String, String> sf = SingleFlight.create();
+
+		TestSubscriber<String> ts1 = TestSubscriber.create();
+		TestSubscriber<String> ts2 = TestSubscriber.create();
+
+		sf.execute("a", this::call).subscribe(ts1);
+		sf.execute("a", this::call).subscribe(ts2);
+
+		Assert.assertEquals(1, calls.get());
+		Assert.assertEquals(1, sf.inFlight());
+
+		source.onNext("v");
+
+		ts1.assertValues("v")
+		   .assertComplete();
+		ts2.assertValues("v")
+		   .assertComplete();
+		Assert.assertEquals(0, sf.inFlight());
+	}
+
+	@Test
+	public void keyReleasedOnTermination() {
+		SingleFlight<String, String> sf = SingleFlight.create();
+
+		Assert.assertEquals("v1", sf.execute("a", k -> Mono.just("v" + calls.incrementAndGet())).block());
+		Assert.assertEquals("v2", sf.execute("a", k -> Mono.just("v" + calls.incrementAndGet())).block());
+		Assert.assertEquals(0, sf.inFlight());
+	}
+
+	@Test
+	public void distinctKeysNotShared() {
+		SingleFlight<String, String> sf = SingleFlight.create();
+
+		sf.execute("a", this::call).subscribe(TestSubscriber.create());
+		sf.execute("b", this::call).subscribe(TestSubscriber.create());
+
+		Assert.assertEquals(2, calls.get());
+		Assert.assertEquals(2, sf.inFlight());
+	}
+
+	@Test
+	public void errorShared() {
+		SingleFlight<String, String> sf = SingleFlight.create();
+
+		TestSubscriber<String> ts1 = TestSubscriber.create();
+		TestSubscriber<String> ts2 = TestSubscriber.create();
+
+		sf.execute("a", this::call).subscribe(ts1);
+		sf.execute("a", this::call).subscribe(ts2);
+
+		source.onError(new RuntimeException("forced failure"));
+
+		ts1.assertErrorMessage("forced failure");
+		ts2.assertErrorMessage("forced failure");
+		Assert.assertEquals(0, sf.inFlight());
+	}
+
+	@Test
+	public void allCallersCancelCancelsCall() {
+		SingleFlight<String, String> sf = SingleFlight.create();
+		AtomicInteger cancelled = new AtomicInteger();
+
+		TestSubscriber<String> ts1 = TestSubscriber.create();
+		TestSubscriber<String> ts2 = TestSubscriber.create();
+
+		sf.execute("a", k -> source.doOnCancel(cancelled::incrementAndGet)).subscribe(ts1);
+		sf.execute("a", this::call).subscribe(ts2);
+
+		ts1.cancel();
+
+		Assert.assertEquals(0, cancelled.get());
+		Assert.assertEquals(1, sf.inFlight());
+
+		ts2.cancel();
+
+		Assert.assertEquals(1, cancelled.get());
+		Assert.assertEquals(0, sf.inFlight());
+
+		TestSubscriber<String> ts3 = TestSubscriber.create();
+		sf.execute("a", this::call).subscribe(ts3);
+
+		Assert.assertEquals(1, calls.get());
+	}
+
+	@Test
+	public void callThrows() {
+		SingleFlight<String, String> sf = SingleFlight.create();
+
+		TestSubscriber<String> ts = TestSubscriber.create();
+
+		sf.execute("a", k -> {
+			throw new RuntimeException("forced failure");
+		}).subscribe(ts);
+
+		ts.assertErrorMessage("forced failure");
+		Assert.assertEquals(0, sf.inFlight());
+	}
+
+	@Test
+	public void backpressured() {
+		SingleFlight<String, String> sf = SingleFlight.create();
+
+		TestSubscriber<String> ts = TestSubscriber.create(0);
+
+		sf.execute("a", k -> Mono.just("v")).subscribe(ts);
+
+		ts.assertNoValues();
+
+		ts.request(1);
+
+		ts.assertValues("v")
+		  .assertComplete();
+	}
+}
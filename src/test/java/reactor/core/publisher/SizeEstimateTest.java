@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2011-2016 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reactor.core.publisher;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.TestSubscriber;
+
+public class SizeEstimateTest {
+
+	static long estimate(Flux<?> source) {
+		long[] estimate = {-2L};
+		source.subscribe(new Subscriber<Object>() {
+			@Override
+			public void onSubscribe(Subscription s) {
+				estimate[0] = Operators.sizeEstimate(s);
+				s.cancel();
+			}
+
+			@Override
+			public void onNext(Object o) {
+			}
+
+			@Override
+			public void onError(Throwable t) {
+			}
+
+			@Override
+			public void onComplete() {
+			}
+		});
+		return estimate[0];
+	}
+
+	@Test
+	public void sources() {
+		Assert.assertEquals(7L, estimate(Flux.range(1, 7)));
+		Assert.assertEquals(3L, estimate(Flux.just(1, 2, 3)));
+		Assert.assertEquals(2L, estimate(Flux.fromIterable(Arrays.asList(1, 2))));
+		Assert.assertEquals(1L, estimate(Flux.just(1)
+		                                     .map(i -> i + 1)));
+		Assert.assertEquals(-1L, estimate(Flux.fromIterable(() -> Arrays.asList(1, 2)
+		                                                                .iterator())));
+	}
+
+	@Test
+	public void passedAlongSizePreservingOperators() {
+		Assert.assertEquals(10L, estimate(Flux.range(1, 10)
+		                                      .map(i -> i * 2)
+		                                      .doOnNext(i -> {
+		                                      })
+		                                      .publishOn(Schedulers.single())));
+		Assert.assertEquals(-1L, estimate(Flux.range(1, 10)
+		                                      .filter(i -> i > 5)));
+		Assert.assertEquals(-1L, estimate(Flux.range(1, 10)
+		                                      .hide()
+		                                      .map(i -> i * 2)));
+	}
+
+	@Test
+	public void collectListPresized() {
+		List<Integer> capacities = new ArrayList<>();
+		TestSubscriber<List<Integer>> ts = TestSubscriber.create();
+
+		new MonoCollectList<>(Flux.range(1, 100)
+		                          .map(i -> i * 2), () -> new ArrayList<Integer>() {
+			@Override
+			public void ensureCapacity(int minCapacity) {
+				capacities.add(minCapacity);
+				super.ensureCapacity(minCapacity);
+			}
+		}).subscribe(ts);
+
+		ts.assertValueCount(1)
+		  .assertComplete();
+		Assert.assertEquals(Arrays.asList(100), capacities);
+		Assert.assertEquals(100, ts.values()
+		                           .get(0)
+		                           .size());
+	}
+
+	@Test
+	public void bufferPresized() {
+		List<Integer> capacities = new ArrayList<>();
+		TestSubscriber<List<Integer>> ts = TestSubscriber.create();
+
+		Flux.range(1, 25)
+		    .map(i -> i)
+		    .buffer(10, () -> new ArrayList<Integer>() {
+			    @Override
+			    public void ensureCapacity(int minCapacity) {
+				    capacities.add(minCapacity);
+				    super.ensureCapacity(minCapacity);
+			    }
+		    })
+		    .subscribe(ts);
+
+		ts.assertValueCount(3)
+		  .assertComplete();
+		Assert.assertEquals(Arrays.asList(10, 10, 5), capacities);
+	}
+
+	@Test
+	public void collectMapPresized() {
+		Map<Integer, Integer> map = Flux.range(1, 1000)
+		                                .map(i -> i * 3)
+		                                .publishOn(Schedulers.parallel())
+		                                .collectMap(i -> i)
+		                                .block(Duration.ofSeconds(5));
+
+		Assert.assertEquals(1000, map.size());
+		Assert.assertEquals(Integer.valueOf(30), map.get(30));
+	}
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2011-2016 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reactor.util.concurrent;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LongOpenHashMapTest {
+
+	@Test
+	public void mapMatchesHashMap() {
+		Random random = new Random(0);
+		LongOpenHashMap<Long> map = new LongOpenHashMap<>(4, 0.75f);
+		Map<Long, Long> expected = new HashMap<>();
+
+		for (int i = 0; i < 100_000; i++) {
+			long k = random.nextInt(512) - 256;
+			switch (random.nextInt(3)) {
+				case 0:
+					Assert.assertEquals(expected.put(k, (long) i), map.put(k, (long) i));
+					break;
+				case 1:
+					Assert.assertEquals(expected.remove(k), map.remove(k));
+					break;
+				default:
+					Assert.assertEquals(expected.get(k), map.get(k));
+			}
+			Assert.assertEquals(expected.size(), map.size());
+		}
+
+		Assert.assertTrue(map.values().containsAll(expected.values()));
+		map.clear();
+		Assert.assertTrue(map.isEmpty());
+		Assert.assertNull(map.get(0L));
+	}
+
+	@Test
+	public void setMatchesHashSet() {
+		Random random = new Random(0);
+		LongOpenHashSet set = new LongOpenHashSet(4, 0.75f);
+		Set<Long> expected = new HashSet<>();
+
+		for (int i = 0; i < 100_000; i++) {
+			long k = random.nextInt(512) - 256;
+			switch (random.nextInt(3)) {
+				case 0:
+					Assert.assertEquals(expected.add(k), set.add(k));
+					break;
+				case 1:
+					Assert.assertEquals(expected.remove(k), set.remove(k));
+					break;
+				default:
+					Assert.assertEquals(expected.contains(k), set.contains(k));
+			}
+			Assert.assertEquals(expected.size(), set.size());
+		}
+
+		set.clear();
+		Assert.assertTrue(set.isEmpty());
+		Assert.assertFalse(set.contains(0L));
+	}
+}
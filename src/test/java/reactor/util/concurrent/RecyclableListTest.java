@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2011-2016 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reactor.util.concurrent;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RecyclableListTest {
+
+	@Test
+	public void releasedListIsReused() {
+		RecyclableList.Pool<Integer> pool = RecyclableList.pool(4);
+
+		RecyclableList<Integer> list = pool.get();
+		list.add(1);
+		list.add(2);
+		list.release();
+
+		Assert.assertEquals(1, pool.idle());
+
+		RecyclableList<Integer> reused = pool.get();
+		Assert.assertSame(list, reused);
+		Assert.assertTrue(reused.isEmpty());
+		Assert.assertEquals(0, pool.idle());
+	}
+
+	@Test
+	public void fullPoolDropsReleasedList() {
+		RecyclableList.Pool<Integer> pool = RecyclableList.pool(4, 1);
+
+		RecyclableList<Integer> a = pool.get();
+		RecyclableList<Integer> b = pool.get();
+		Assert.assertNotSame(a, b);
+
+		a.release();
+		b.release();
+
+		Assert.assertEquals(1, pool.idle());
+		Assert.assertSame(a, pool.get());
+		Assert.assertNotSame(b, pool.get());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void doubleRelease() {
+		RecyclableList<Integer> list = RecyclableList.<Integer>pool(4).get();
+		list.release();
+		list.release();
+	}
+
+	@Test
+	public void racingReleasePoolsOnce() throws Exception {
+		for (int i = 0; i < 1000; i++) {
+			RecyclableList.Pool<Integer> pool = RecyclableList.pool(4);
+			RecyclableList<Integer> list = pool.get();
+			AtomicInteger failures = new AtomicInteger();
+			CountDownLatch start = new CountDownLatch(1);
+
+			Runnable release = () -> {
+				try {
+					start.await();
+					list.release();
+				}
+				catch (IllegalStateException e) {
+					failures.incrementAndGet();
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			};
+			Thread t1 = new Thread(release);
+			Thread t2 = new Thread(release);
+			t1.start();
+			t2.start();
+			start.countDown();
+			t1.join();
+			t2.join();
+
+			Assert.assertEquals(1, failures.get());
+			Assert.assertEquals(1, pool.idle());
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void maxIdleZero() {
+		RecyclableList.pool(4, 0);
+	}
+}